@@ -0,0 +1,23 @@
+plugins {
+    id("me.champeau.jmh") version "0.7.3"
+}
+
+dependencies {
+    // Benchmarks live in the server and sidecar packages so they can drive package-private hot paths.
+    jmh(project(":common"))
+    jmh(project(":server"))
+    jmh(project(":sidecar"))
+    jmh("io.grpc:grpc-inprocess:1.69.0")
+    jmh("software.amazon.awssdk:dynamodb:2.34.0")
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    // e.g. ./gradlew :benchmarks:jmh -PjmhIncludes=PollingEngineBenchmark
+    (findProperty("jmhIncludes") as String?)?.let { includes.add(it) }
+}
@@ -0,0 +1,65 @@
+package dev.executor.server;
+
+import dev.executor.common.JobIdRequest;
+import dev.executor.common.JobStatus;
+import dev.executor.common.ShellServiceGrpc;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.Status;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** {@link AuthInterceptor#interceptCall} for accepted and rejected calls. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AuthInterceptorBenchmark {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef";
+    private static final Metadata.Key<String> AUTHORIZATION =
+            Metadata.Key.of("Authorization", Metadata.ASCII_STRING_MARSHALLER);
+
+    private final AuthInterceptor interceptor = new AuthInterceptor(SECRET);
+    private final NoopServerCall call = new NoopServerCall();
+    private final ServerCall.Listener<JobIdRequest> listener = new ServerCall.Listener<>() {};
+    private final ServerCallHandler<JobIdRequest, JobStatus> next = (call, headers) -> listener;
+    private Metadata valid;
+    private Metadata invalid;
+
+    @Setup
+    public void setUp() {
+        valid = new Metadata();
+        valid.put(AUTHORIZATION, "Bearer " + SECRET);
+        invalid = new Metadata();
+        invalid.put(AUTHORIZATION, "Bearer " + SECRET.replace('0', 'x'));
+    }
+
+    @Benchmark
+    public ServerCall.Listener<JobIdRequest> accepted() {
+        return interceptor.interceptCall(call, valid, next);
+    }
+
+    @Benchmark
+    public ServerCall.Listener<JobIdRequest> rejected() {
+        return interceptor.interceptCall(call, invalid, next);
+    }
+
+    private static final class NoopServerCall extends ServerCall<JobIdRequest, JobStatus> {
+        @Override public void request(int numMessages) {}
+        @Override public void sendHeaders(Metadata headers) {}
+        @Override public void sendMessage(JobStatus message) {}
+        @Override public void close(Status status, Metadata trailers) {}
+        @Override public boolean isCancelled() { return false; }
+        @Override public MethodDescriptor<JobIdRequest, JobStatus> getMethodDescriptor() {
+            return ShellServiceGrpc.getGetJobStatusMethod();
+        }
+    }
+}
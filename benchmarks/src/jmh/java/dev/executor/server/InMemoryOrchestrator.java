@@ -0,0 +1,77 @@
+package dev.executor.server;
+
+import dev.executor.server.logs.LogBufferSettings;
+import dev.executor.server.logs.LogHub;
+import dev.executor.server.logs.LogSubscription;
+import dev.executor.server.orchestrator.ContainerOrchestrator;
+import dev.executor.server.orchestrator.ContainerState;
+import dev.executor.server.orchestrator.ContainerStats;
+import dev.executor.server.orchestrator.ResourceLimits;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/** Containers that exist only as map entries, so benchmarks measure the service rather than docker. */
+class InMemoryOrchestrator implements ContainerOrchestrator {
+
+    private static final List<String> RECENT_LOGS = List.of("step 1 ok", "step 2 ok", "done");
+
+    private final AtomicInteger started = new AtomicInteger();
+    private final Map<String, ContainerState> states = new ConcurrentHashMap<>();
+    private final Map<String, Consumer<ContainerState>> exitWatchers = new ConcurrentHashMap<>();
+    private final LogHub logHub = new LogHub((containerId, onFrame, onComplete, onError) -> onComplete.run(),
+            LogBufferSettings.defaults());
+
+    @Override
+    public String startContainer(String image, String command, ResourceLimits limits) {
+        var containerId = "c" + started.incrementAndGet();
+        states.put(containerId, new ContainerState(containerId, true, null, false, null));
+        return containerId;
+    }
+
+    @Override
+    public ContainerState inspectContainer(String containerId) {
+        var state = states.get(containerId);
+        return state != null ? state : new ContainerState(containerId, false, null, false, "Container not found");
+    }
+
+    @Override
+    public List<String> tailLogs(String containerId, int lines) {
+        return RECENT_LOGS;
+    }
+
+    @Override
+    public LogSubscription subscribeLogs(String containerId, long startOffset, Runnable onData) {
+        return logHub.subscribe(containerId, startOffset, onData);
+    }
+
+    @Override
+    public void onContainerExit(String containerId, Consumer<ContainerState> onExit) {
+        exitWatchers.put(containerId, onExit);
+    }
+
+    @Override
+    public ContainerStats stats(String containerId) {
+        return null;
+    }
+
+    @Override
+    public Runnable watchStats(String containerId, Consumer<ContainerStats> onSample, Runnable onEnd) {
+        return () -> {};
+    }
+
+    @Override
+    public void release(String containerId) {
+    }
+
+    void finish(String containerId, int exitCode) {
+        var state = new ContainerState(containerId, false, exitCode, false, null);
+        states.put(containerId, state);
+        var watcher = exitWatchers.remove(containerId);
+        if (watcher != null) {
+            watcher.accept(state);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package dev.executor.server;
+
+import dev.executor.common.CommandRequest;
+import dev.executor.common.JobIdRequest;
+import dev.executor.common.JobIdsRequest;
+import dev.executor.common.JobResponse;
+import dev.executor.common.JobStatus;
+import dev.executor.common.JobStatusesResponse;
+import dev.executor.common.ListJobsRequest;
+import dev.executor.common.ListJobsResponse;
+import dev.executor.server.registry.JobRegistry;
+import io.grpc.stub.StreamObserver;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Unary RPC handling in {@link ShellServiceImpl}, called directly with an in-memory orchestrator. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ShellServiceBenchmark {
+
+    private static final int STATUS_BATCH = 100;
+
+    @Param({"1000", "10000"})
+    int jobs;
+
+    private ShellServiceImpl service;
+    private JobIdRequest[] running;
+    private JobIdRequest[] completed;
+    private JobIdsRequest batch;
+    private final ListJobsRequest firstPage = ListJobsRequest.getDefaultInstance();
+    private int next;
+
+    @Setup
+    public void setUp() {
+        var orchestrator = new InMemoryOrchestrator();
+        service = new ShellServiceImpl(orchestrator, new JobRegistry(), Runnable::run);
+
+        var runningIds = new ArrayList<JobIdRequest>();
+        var completedIds = new ArrayList<JobIdRequest>();
+        for (int i = 1; i <= jobs; i++) {
+            var response = new Collecting<JobResponse>();
+            service.startJob(CommandRequest.newBuilder().setCommand("echo " + i).build(), response);
+            var request = JobIdRequest.newBuilder().setJobId(response.single().getJobId()).build();
+            // The launcher runs inline, so the i-th job got the i-th container.
+            if (i % 2 == 0) {
+                orchestrator.finish("c" + i, 0);
+                completedIds.add(request);
+            } else {
+                runningIds.add(request);
+            }
+        }
+        running = runningIds.toArray(JobIdRequest[]::new);
+        completed = completedIds.toArray(JobIdRequest[]::new);
+
+        var ids = JobIdsRequest.newBuilder();
+        for (int i = 0; i < STATUS_BATCH; i++) {
+            var pool = i % 2 == 0 ? running : completed;
+            ids.addJobIds(pool[(i / 2) % pool.length].getJobId());
+        }
+        batch = ids.build();
+
+        // Completed jobs only build their terminal status on first lookup; do that outside the measurement.
+        for (var request : completed) {
+            service.getJobStatus(request, new Collecting<>());
+        }
+    }
+
+    private int next(int bound) {
+        next = next + 1 < bound ? next + 1 : 0;
+        return next;
+    }
+
+    @Benchmark
+    public void getRunningJobStatus(Blackhole blackhole) {
+        service.getJobStatus(running[next(running.length)], new Consuming<JobStatus>(blackhole));
+    }
+
+    @Benchmark
+    public void getCompletedJobStatus(Blackhole blackhole) {
+        service.getJobStatus(completed[next(completed.length)], new Consuming<JobStatus>(blackhole));
+    }
+
+    @Benchmark
+    public void getJobStatuses(Blackhole blackhole) {
+        service.getJobStatuses(batch, new Consuming<JobStatusesResponse>(blackhole));
+    }
+
+    @Benchmark
+    public void listJobs(Blackhole blackhole) {
+        service.listJobs(firstPage, new Consuming<ListJobsResponse>(blackhole));
+    }
+
+    private record Consuming<T>(Blackhole blackhole) implements StreamObserver<T> {
+        @Override
+        public void onNext(T value) {
+            blackhole.consume(value);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            throw new IllegalStateException("RPC failed", t);
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+    }
+
+    private static final class Collecting<T> implements StreamObserver<T> {
+        private final List<T> values = new ArrayList<>();
+
+        T single() {
+            return values.getFirst();
+        }
+
+        @Override
+        public void onNext(T value) {
+            values.add(value);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            throw new IllegalStateException("RPC failed", t);
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package dev.executor.sidecar;
+
+import dev.executor.common.CompletionDetails;
+import dev.executor.common.JobStatus;
+import dev.executor.common.RunningDetails;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/** {@link DynamoDbStatePersister#toItem} for the states written most often. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DynamoDbStatePersisterBenchmark {
+
+    private static final String JOB_ID = "3f2b8c1e-6d4a-4f0e-9b7c-2a1d5e8f9c30";
+
+    private final DynamoDbStatePersister persister =
+            new DynamoDbStatePersister(null, "i-0123456789abcdef0", Duration.ofDays(30));
+    private final JobStatus running = JobStatus.newBuilder()
+            .setJobId(JOB_ID)
+            .setRunning(RunningDetails.newBuilder().setStartedAt("2026-02-16T00:00:00Z"))
+            .build();
+    private final JobStatus completed = JobStatus.newBuilder()
+            .setJobId(JOB_ID)
+            .setCompleted(CompletionDetails.newBuilder()
+                    .setExitCode(0)
+                    .addAllRecentLogs(IntStream.range(0, 20).mapToObj(i -> "line " + i + " of build output").toList()))
+            .build();
+
+    @TearDown
+    public void tearDown() {
+        persister.close();
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> running() {
+        return persister.toItem(JOB_ID, running);
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> completed() {
+        return persister.toItem(JOB_ID, completed);
+    }
+}
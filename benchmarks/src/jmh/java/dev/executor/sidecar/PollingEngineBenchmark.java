@@ -0,0 +1,138 @@
+package dev.executor.sidecar;
+
+import dev.executor.common.CompletionDetails;
+import dev.executor.common.JobEvent;
+import dev.executor.common.JobStatus;
+import dev.executor.common.PendingDetails;
+import dev.executor.common.RunningDetails;
+import dev.executor.common.ShellServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * The sidecar's per-cycle work over a large job population: filtering a full listing against the
+ * known states, and emitting state changes for jobs as they start, run and finish.
+ */
+public class PollingEngineBenchmark {
+
+    private static final int NEW_JOBS = 10_000;
+
+    private static JobStatus pending(String jobId) {
+        return JobStatus.newBuilder()
+                .setJobId(jobId)
+                .setPending(PendingDetails.newBuilder().setSubmittedAt("2026-02-16T00:00:00Z"))
+                .build();
+    }
+
+    private static JobStatus running(String jobId) {
+        return JobStatus.newBuilder()
+                .setJobId(jobId)
+                .setRunning(RunningDetails.newBuilder().setStartedAt("2026-02-16T00:00:01Z"))
+                .build();
+    }
+
+    private static JobStatus completed(String jobId) {
+        return JobStatus.newBuilder()
+                .setJobId(jobId)
+                .setCompleted(CompletionDetails.newBuilder().setExitCode(0))
+                .build();
+    }
+
+    private static JobEvent event(JobStatus status) {
+        return JobEvent.newBuilder().setResumeToken("e:" + status.getJobId()).setStatus(status).build();
+    }
+
+    /** An engine that knows {@code jobs} jobs, half of them live and half terminal. */
+    @State(Scope.Benchmark)
+    public static class CachedJobs {
+
+        @Param({"10000", "100000", "1000000"})
+        int jobs;
+
+        ManagedChannel channel;
+        PollingEngine engine;
+        List<String> listing;
+
+        @Setup
+        public void setUp() {
+            // Never connected: filtering and applying events do not call the server.
+            channel = InProcessChannelBuilder.forName("unused").build();
+            engine = new PollingEngine(ShellServiceGrpc.newBlockingStub(channel), PollingEngine.Mode.WATCH, null,
+                    new EventDispatcher());
+            listing = new ArrayList<>(jobs);
+            for (int i = 0; i < jobs; i++) {
+                var jobId = UUID.randomUUID().toString();
+                engine.apply(event(i % 2 == 0 ? running(jobId) : completed(jobId)));
+                listing.add(jobId);
+            }
+            // Registered after priming, so emitting pays for handing events to a listener thread.
+            engine.addListener(event -> {});
+        }
+
+        @TearDown
+        public void tearDown() {
+            engine.shutdown();
+            channel.shutdownNow();
+        }
+    }
+
+    /** Events taking {@link #NEW_JOBS} jobs the engine has not seen from pending to completed. */
+    @State(Scope.Benchmark)
+    public static class NewJobs {
+
+        JobEvent[] events;
+
+        @Setup
+        public void setUp() {
+            events = new JobEvent[NEW_JOBS * 3];
+            for (int i = 0; i < NEW_JOBS; i++) {
+                var jobId = UUID.randomUUID().toString();
+                events[i * 3] = event(pending(jobId));
+                events[i * 3 + 1] = event(running(jobId));
+                events[i * 3 + 2] = event(completed(jobId));
+            }
+        }
+
+        /** Forgets the new jobs again, as the server eventually stops listing them. */
+        @TearDown(Level.Invocation)
+        public void evict(CachedJobs cached) throws InterruptedException {
+            cached.engine.awaitListeners(Duration.ofSeconds(10));
+            // Newly terminal IDs survive the first sweep after they are added, so it takes two.
+            cached.engine.filter(cached.listing);
+            cached.engine.filter(cached.listing);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<String> filter(CachedJobs cached) {
+        return cached.engine.filter(cached.listing);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(NEW_JOBS * 3)
+    public void emit(CachedJobs cached, NewJobs fresh) {
+        for (var event : fresh.events) {
+            cached.engine.apply(event);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+plugins {
+    application
+}
+
+dependencies {
+    implementation(project(":common"))
+    implementation(project(":server"))
+    implementation("io.grpc:grpc-netty-shaded:1.69.0")
+    implementation("info.picocli:picocli:4.7.6")
+    implementation("org.hdrhistogram:HdrHistogram:2.2.2")
+
+    testImplementation(platform("org.junit:junit-bom:5.11.4"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testImplementation("io.grpc:grpc-inprocess:1.69.0")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+}
+
+application {
+    mainClass.set("dev.executor.loadgen.Main")
+}
@@ -0,0 +1,267 @@
+package dev.executor.loadgen;
+
+import dev.executor.common.CommandRequest;
+import dev.executor.common.JobIdRequest;
+import dev.executor.common.ListJobsRequest;
+import dev.executor.common.LogChunk;
+import dev.executor.common.ShellServiceGrpc;
+import dev.executor.common.WatchJobLogsRequest;
+import io.grpc.Channel;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Drives the server's RPCs at fixed target rates and reports their latency percentiles.
+ *
+ * <p>Load is open-loop: each RPC has a pacer thread that sends calls on a fixed schedule whether or
+ * not earlier calls have returned, the way independent clients would. Status lookups and log watches
+ * pick from the jobs this run started, so they have nothing to do until the first job is started.
+ *
+ * <p>A call due while {@code maxInFlight} calls are open is skipped. Skips are reported as their own
+ * count and rate, since the percentiles only describe the calls that were sent.
+ */
+public class LoadGenerator {
+
+    private static final int KNOWN_JOBS = 4096;
+    private static final int LIST_PAGE_SIZE = 1000;
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(30);
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final ShellServiceGrpc.ShellServiceStub stub;
+    private final LoadSettings settings;
+    private final PrintStream out;
+    private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+    private final Semaphore inFlight;
+    // Jobs started by this run, overwritten round-robin so lookups favour recent, often live, jobs.
+    private final AtomicReferenceArray<String> knownJobs = new AtomicReferenceArray<>(KNOWN_JOBS);
+    private final AtomicLong jobsStarted = new AtomicLong();
+    private final LongAdder logBytes = new LongAdder();
+
+    public LoadGenerator(Channel channel, LoadSettings settings, PrintStream out) {
+        this.stub = ShellServiceGrpc.newStub(channel);
+        this.settings = settings;
+        this.out = out;
+        this.inFlight = new Semaphore(settings.maxInFlight());
+        for (var operation : Operation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+    }
+
+    /** Sends load for the configured duration, waits for calls still in flight, and prints a summary. */
+    public Map<Operation, OperationStats> run() throws InterruptedException {
+        var start = System.nanoTime();
+        var end = start + settings.duration().toNanos();
+        var pacers = new ArrayList<Thread>();
+        for (var operation : Operation.values()) {
+            var rate = settings.rate(operation);
+            if (rate > 0) {
+                pacers.add(Thread.ofPlatform().name("pacer-" + operation.rpcName()).daemon()
+                        .start(() -> pace(operation, rate, start, end)));
+            }
+        }
+
+        var reportNanos = settings.reportInterval().toNanos();
+        var lastReport = start;
+        for (var next = start + reportNanos; next < end; next += reportNanos) {
+            TimeUnit.NANOSECONDS.sleep(next - System.nanoTime());
+            var now = System.nanoTime();
+            report(now - start, now - lastReport);
+            lastReport = now;
+        }
+        for (var pacer : pacers) {
+            pacer.join();
+        }
+        if (!inFlight.tryAcquire(settings.maxInFlight(), DRAIN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+            out.println("Gave up waiting for " + (settings.maxInFlight() - inFlight.availablePermits())
+                    + " call(s) still in flight");
+        }
+        var now = System.nanoTime();
+        report(now - start, now - lastReport);
+        summarize(now - start);
+        return stats;
+    }
+
+    private void pace(Operation operation, double rate, long start, long end) {
+        var periodNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / rate));
+        for (var due = start; due < end; due += periodNanos) {
+            var wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            send(operation, due);
+        }
+    }
+
+    private void send(Operation operation, long dueNanos) {
+        var operationStats = stats.get(operation);
+        if (!inFlight.tryAcquire()) {
+            operationStats.skipped();
+            return;
+        }
+        try {
+            switch (operation) {
+                case START_JOB -> stub.startJob(
+                        CommandRequest.newBuilder().setCommand(settings.command()).build(),
+                        unary(operationStats, dueNanos, response -> remember(response.getJobId())));
+                case GET_JOB_STATUS -> {
+                    var jobId = pickJob();
+                    if (jobId == null) {
+                        inFlight.release();
+                        return;
+                    }
+                    stub.getJobStatus(JobIdRequest.newBuilder().setJobId(jobId).build(),
+                            unary(operationStats, dueNanos, status -> {}));
+                }
+                case LIST_JOBS -> stub.listJobs(ListJobsRequest.newBuilder().setPageSize(LIST_PAGE_SIZE).build(),
+                        unary(operationStats, dueNanos, page -> {}));
+                case WATCH_JOB_LOGS -> {
+                    var jobId = pickJob();
+                    if (jobId == null) {
+                        inFlight.release();
+                        return;
+                    }
+                    stub.watchJobLogs(WatchJobLogsRequest.newBuilder().setJobId(jobId).setOmitContent(true).build(),
+                            new LogWatch(operationStats, dueNanos));
+                }
+            }
+        } catch (RuntimeException e) {
+            inFlight.release();
+            operationStats.failed(Status.fromThrowable(e).getCode());
+        }
+    }
+
+    private void remember(String jobId) {
+        knownJobs.set((int) (jobsStarted.getAndIncrement() % KNOWN_JOBS), jobId);
+    }
+
+    private String pickJob() {
+        var known = (int) Math.min(jobsStarted.get(), KNOWN_JOBS);
+        return known == 0 ? null : knownJobs.get(ThreadLocalRandom.current().nextInt(known));
+    }
+
+    private <T> StreamObserver<T> unary(OperationStats operationStats, long dueNanos, Consumer<T> onResponse) {
+        return new StreamObserver<>() {
+            @Override
+            public void onNext(T value) {
+                onResponse.accept(value);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                inFlight.release();
+                operationStats.failed(Status.fromThrowable(t).getCode());
+            }
+
+            @Override
+            public void onCompleted() {
+                operationStats.succeeded(System.nanoTime() - dueNanos);
+                inFlight.release();
+            }
+        };
+    }
+
+    private final class LogWatch implements StreamObserver<LogChunk> {
+        private final OperationStats operationStats;
+        private final long dueNanos;
+        private boolean received;
+
+        LogWatch(OperationStats operationStats, long dueNanos) {
+            this.operationStats = operationStats;
+            this.dueNanos = dueNanos;
+        }
+
+        @Override
+        public void onNext(LogChunk chunk) {
+            if (!received) {
+                received = true;
+                operationStats.succeeded(System.nanoTime() - dueNanos);
+            }
+            logBytes.add(chunk.getData().size());
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            inFlight.release();
+            operationStats.failed(Status.fromThrowable(t).getCode());
+        }
+
+        @Override
+        public void onCompleted() {
+            // A job that wrote nothing still answered the watch.
+            if (!received) {
+                operationStats.succeeded(System.nanoTime() - dueNanos);
+            }
+            inFlight.release();
+        }
+    }
+
+    private void report(long elapsedNanos, long intervalNanos) {
+        for (var operation : Operation.values()) {
+            if (settings.rate(operation) <= 0) continue;
+            var operationStats = stats.get(operation);
+            var histogram = operationStats.interval();
+            var skipped = operationStats.intervalSkipped();
+            out.printf("%7.1fs %-13s %9.1f/s %s%s%n", elapsedNanos / 1e9, operation.rpcName(),
+                    histogram.getTotalCount() * 1e9 / intervalNanos, percentiles(histogram),
+                    skipped > 0 ? String.format(" (%.1f/s skipped)", skipped * 1e9 / intervalNanos) : "");
+        }
+    }
+
+    private void summarize(long elapsedNanos) {
+        out.println();
+        out.println("Summary over " + Duration.ofNanos(elapsedNanos).toSeconds() + "s");
+        var skippedAny = false;
+        for (var operation : Operation.values()) {
+            if (settings.rate(operation) <= 0) continue;
+            var operationStats = stats.get(operation);
+            var histogram = operationStats.total();
+            out.printf("%-13s %9d ok %9.1f/s (target %.1f/s) %s%n", operation.rpcName(), histogram.getTotalCount(),
+                    histogram.getTotalCount() * 1e9 / elapsedNanos, settings.rate(operation), percentiles(histogram));
+            if (operationStats.failureCount() > 0) {
+                out.println("              failed: " + operationStats.failures());
+            }
+            if (operationStats.skippedCount() > 0) {
+                out.printf("              skipped at the in-flight limit: %d (%.1f/s)%n", operationStats.skippedCount(),
+                        operationStats.skippedCount() * 1e9 / elapsedNanos);
+                skippedAny = true;
+            }
+        }
+        if (skippedAny) {
+            out.println("WARNING: the percentiles leave out skipped calls, which the server never saw;"
+                    + " raise --max-in-flight to send the full schedule");
+        }
+        if (settings.watchRate() > 0) {
+            out.printf("Log output received: %.1f MiB/s%n", logBytes.sum() * 1e9 / elapsedNanos / (1 << 20));
+        }
+    }
+
+    private static String percentiles(Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            return "";
+        }
+        var text = new StringBuilder();
+        for (var percentile : PERCENTILES) {
+            text.append(String.format(" p%s %8.2fms", formatPercentile(percentile),
+                    histogram.getValueAtPercentile(percentile) / 1e6));
+        }
+        return text.append(String.format(" max %8.2fms", histogram.getMaxValue() / 1e6)).toString();
+    }
+
+    private static String formatPercentile(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((int) percentile) : String.valueOf(percentile);
+    }
+}
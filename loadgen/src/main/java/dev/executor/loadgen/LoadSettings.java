@@ -0,0 +1,30 @@
+package dev.executor.loadgen;
+
+import java.time.Duration;
+
+/**
+ * What the load generator sends. Rates are calls per second; a rate of zero leaves the RPC out.
+ *
+ * @param maxInFlight calls, including open log watches, allowed at once; calls due beyond it are
+ *     skipped, as the client itself could not keep up, and counted apart from the latencies
+ */
+public record LoadSettings(
+    double startRate,
+    double statusRate,
+    double listRate,
+    double watchRate,
+    Duration duration,
+    Duration reportInterval,
+    String command,
+    int maxInFlight
+) {
+
+    public double rate(Operation operation) {
+        return switch (operation) {
+            case START_JOB -> startRate;
+            case GET_JOB_STATUS -> statusRate;
+            case LIST_JOBS -> listRate;
+            case WATCH_JOB_LOGS -> watchRate;
+        };
+    }
+}
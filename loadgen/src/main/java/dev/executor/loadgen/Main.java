@@ -0,0 +1,19 @@
+package dev.executor.loadgen;
+
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+
+@Command(name = "loadgen", mixinStandardHelpOptions = true,
+        description = "Load tests the executor server, optionally against simulated containers",
+        subcommands = {RunCommand.class, ServeCommand.class})
+public class Main implements Runnable {
+
+    @Override
+    public void run() {
+        new CommandLine(this).usage(System.out);
+    }
+
+    public static void main(String[] args) {
+        System.exit(new CommandLine(new Main()).execute(args));
+    }
+}
@@ -0,0 +1,20 @@
+package dev.executor.loadgen;
+
+/** The RPCs the load generator drives, each at its own target rate. */
+public enum Operation {
+    START_JOB("StartJob"),
+    GET_JOB_STATUS("GetJobStatus"),
+    LIST_JOBS("ListJobs"),
+    /** Latency is to the first chunk; the stream itself lasts as long as the job. */
+    WATCH_JOB_LOGS("WatchJobLogs");
+
+    private final String rpcName;
+
+    Operation(String rpcName) {
+        this.rpcName = rpcName;
+    }
+
+    public String rpcName() {
+        return rpcName;
+    }
+}
@@ -0,0 +1,80 @@
+package dev.executor.loadgen;
+
+import io.grpc.Status;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Latencies and failures of one {@link Operation}. Latency is measured from when a call was due, not
+ * when it was sent, so a server that falls behind shows up in the percentiles. That already covers
+ * the calls a stall delayed, so latencies are recorded as measured, with no expected-interval
+ * correction on top.
+ *
+ * <p>Calls the generator had to skip were never sent and have no latency; they are only counted, and
+ * reported beside the percentiles rather than in them.
+ */
+public class OperationStats {
+
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(5);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Recorder recorder = new Recorder(MAX_LATENCY_NANOS, SIGNIFICANT_DIGITS);
+    private final Histogram total = new Histogram(MAX_LATENCY_NANOS, SIGNIFICANT_DIGITS);
+    private final Map<Status.Code, LongAdder> failures = new ConcurrentHashMap<>();
+    private final LongAdder skipped = new LongAdder();
+    private Histogram interval;
+    private long skippedBeforeInterval;
+    private long intervalSkipped;
+
+    void succeeded(long latencyNanos) {
+        recorder.recordValue(Math.min(Math.max(0, latencyNanos), MAX_LATENCY_NANOS));
+    }
+
+    void failed(Status.Code code) {
+        failures.computeIfAbsent(code, c -> new LongAdder()).increment();
+    }
+
+    /** Counts a call that was never sent. */
+    void skipped() {
+        skipped.increment();
+    }
+
+    /** Latencies recorded since the previous call, which are also added to {@link #total()}. */
+    synchronized Histogram interval() {
+        interval = recorder.getIntervalHistogram(interval);
+        total.add(interval);
+        var skippedNow = skipped.sum();
+        intervalSkipped = skippedNow - skippedBeforeInterval;
+        skippedBeforeInterval = skippedNow;
+        return interval;
+    }
+
+    /** Calls skipped during the last {@link #interval()}. */
+    synchronized long intervalSkipped() {
+        return intervalSkipped;
+    }
+
+    /** Every latency recorded up to the last {@link #interval()}. */
+    public synchronized Histogram total() {
+        return total.copy();
+    }
+
+    public Map<Status.Code, Long> failures() {
+        var counts = new TreeMap<Status.Code, Long>();
+        failures.forEach((code, count) -> counts.put(code, count.sum()));
+        return counts;
+    }
+
+    public long failureCount() {
+        return failures.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public long skippedCount() {
+        return skipped.sum();
+    }
+}
@@ -0,0 +1,78 @@
+package dev.executor.loadgen;
+
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Metadata;
+import io.grpc.stub.MetadataUtils;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+@Command(name = "run", mixinStandardHelpOptions = true,
+        description = "Sends open-loop load to a server and reports latency percentiles")
+class RunCommand implements Runnable {
+
+    private static final Metadata.Key<String> AUTHORIZATION_KEY =
+            Metadata.Key.of("Authorization", Metadata.ASCII_STRING_MARSHALLER);
+
+    @Parameters(index = "0", description = "gRPC server address (e.g. localhost:9090)")
+    private String target;
+
+    @Option(names = "--api-key", description = "API key to send as a bearer token")
+    private String apiKey;
+
+    @Option(names = "--start-rate", defaultValue = "10", description = "StartJob calls per second (default: ${DEFAULT-VALUE})")
+    private double startRate;
+
+    @Option(names = "--status-rate", defaultValue = "100", description = "GetJobStatus calls per second (default: ${DEFAULT-VALUE})")
+    private double statusRate;
+
+    @Option(names = "--list-rate", defaultValue = "1", description = "ListJobs calls per second (default: ${DEFAULT-VALUE})")
+    private double listRate;
+
+    @Option(names = "--watch-rate", defaultValue = "1", description = "WatchJobLogs streams opened per second (default: ${DEFAULT-VALUE})")
+    private double watchRate;
+
+    @Option(names = "--duration", defaultValue = "60", description = "Seconds to send load for (default: ${DEFAULT-VALUE})")
+    private long durationSeconds;
+
+    @Option(names = "--report-interval", defaultValue = "5",
+            description = "Seconds between interval reports (default: ${DEFAULT-VALUE})")
+    private long reportIntervalSeconds;
+
+    @Option(names = "--max-in-flight", defaultValue = "10000",
+            description = "Calls and open log watches allowed at once (default: ${DEFAULT-VALUE})")
+    private int maxInFlight;
+
+    @Option(names = "--command", defaultValue = "echo hello", description = "Command each job runs (default: ${DEFAULT-VALUE})")
+    private String command;
+
+    @Override
+    public void run() {
+        var builder = ManagedChannelBuilder.forTarget(target).usePlaintext();
+        if (apiKey != null && !apiKey.isBlank()) {
+            var headers = new Metadata();
+            headers.put(AUTHORIZATION_KEY, "Bearer " + apiKey);
+            builder.intercept(MetadataUtils.newAttachHeadersInterceptor(headers));
+        }
+        var channel = builder.build();
+        var settings = new LoadSettings(startRate, statusRate, listRate, watchRate,
+                Duration.ofSeconds(durationSeconds), Duration.ofSeconds(reportIntervalSeconds), command, maxInFlight);
+
+        System.out.printf("Sending load to %s for %ds: StartJob %.1f/s, GetJobStatus %.1f/s, ListJobs %.1f/s, WatchJobLogs %.1f/s%n",
+                target, durationSeconds, startRate, statusRate, listRate, watchRate);
+        try {
+            new LoadGenerator(channel, settings, System.out).run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            channel.shutdownNow();
+            try {
+                channel.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package dev.executor.loadgen;
+
+import dev.executor.server.ExecutorServer;
+import dev.executor.server.ServerConfig;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+@Command(name = "serve", mixinStandardHelpOptions = true,
+        description = "Runs the real server against simulated containers instead of docker; "
+                + "configured from the same environment variables as the server")
+class ServeCommand implements Runnable {
+
+    @Option(names = "--port", defaultValue = "9090", description = "gRPC port (default: ${DEFAULT-VALUE})")
+    private int port;
+
+    @Option(names = "--start-latency-ms", defaultValue = "300",
+            description = "Mean time to start a container (default: ${DEFAULT-VALUE})")
+    private long startLatencyMs;
+
+    @Option(names = "--inspect-latency-ms", defaultValue = "5",
+            description = "Mean time to inspect a container (default: ${DEFAULT-VALUE})")
+    private long inspectLatencyMs;
+
+    @Option(names = "--log-latency-ms", defaultValue = "10",
+            description = "Mean time to tail or start following a container's logs (default: ${DEFAULT-VALUE})")
+    private long logLatencyMs;
+
+    @Option(names = "--job-duration-ms", defaultValue = "5000",
+            description = "Mean time a job runs (default: ${DEFAULT-VALUE})")
+    private long jobDurationMs;
+
+    @Option(names = "--lines-per-second", defaultValue = "20",
+            description = "Output lines each job writes per second (default: ${DEFAULT-VALUE})")
+    private int linesPerSecond;
+
+    @Option(names = "--line-bytes", defaultValue = "80", description = "Bytes per output line (default: ${DEFAULT-VALUE})")
+    private int lineBytes;
+
+    @Option(names = "--failure-rate", defaultValue = "0.05",
+            description = "Fraction of jobs that exit non-zero (default: ${DEFAULT-VALUE})")
+    private double failureRate;
+
+    @Override
+    public void run() {
+        var config = ServerConfig.fromEnv(System.getenv());
+        var settings = new SimulationSettings(Duration.ofMillis(startLatencyMs), Duration.ofMillis(inspectLatencyMs),
+                Duration.ofMillis(logLatencyMs), Duration.ofMillis(jobDurationMs), linesPerSecond, lineBytes, failureRate);
+        var orchestrator = new SimulatedOrchestrator(settings, config.logBuffers());
+        ExecutorServer server;
+        try {
+            server = ExecutorServer.start(config, orchestrator, port);
+        } catch (IOException e) {
+            orchestrator.close();
+            throw new UncheckedIOException("Cannot start server", e);
+        }
+        System.out.println("Serving simulated containers: " + settings);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            orchestrator.close();
+            System.out.println("Simulated " + orchestrator.started() + " container(s)");
+        }));
+        try {
+            server.awaitTermination();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
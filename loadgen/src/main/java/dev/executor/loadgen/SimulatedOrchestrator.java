@@ -0,0 +1,342 @@
+package dev.executor.loadgen;
+
+import dev.executor.server.logs.LogBufferSettings;
+import dev.executor.server.logs.LogFrame;
+import dev.executor.server.logs.LogHub;
+import dev.executor.server.logs.LogSubscription;
+import dev.executor.server.orchestrator.ContainerOrchestrator;
+import dev.executor.server.orchestrator.ContainerState;
+import dev.executor.server.orchestrator.ContainerStats;
+import dev.executor.server.orchestrator.ResourceLimits;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Containers that only exist in memory, so the server can run thousands of jobs without docker.
+ *
+ * <p>Every call takes the configured latency, blocking its caller like a docker call would. Each
+ * container runs for about the job duration, writing numbered lines of output at a steady rate, and
+ * then exits. Output is generated from the line number alone, so a container costs a few fields no
+ * matter how much it writes. Containers are kept after they exit, like stopped docker containers, so
+ * their state and logs stay readable.
+ */
+public class SimulatedOrchestrator implements ContainerOrchestrator, AutoCloseable {
+
+    private static final long TICK_MILLIS = 100;
+    private static final long STATS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int MAX_FRAME_BYTES = 64 * 1024;
+    private static final long BASE_MEMORY_BYTES = 16L << 20;
+    private static final long DEFAULT_MEMORY_LIMIT_BYTES = 256L << 20;
+    private static final double CPU_CORES = 0.25;
+
+    private final SimulationSettings settings;
+    private final AtomicLong started = new AtomicLong();
+    private final Map<String, Container> containers = new ConcurrentHashMap<>();
+    private final Set<Container> live = ConcurrentHashMap.newKeySet();
+    private final LogHub logs;
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("simulated-containers").daemon().factory());
+    // Exit and stats callbacks may block, e.g. building a terminal status; keep them off the ticker.
+    private final ExecutorService callbacks = Executors.newVirtualThreadPerTaskExecutor();
+
+    public SimulatedOrchestrator(SimulationSettings settings) {
+        this(settings, LogBufferSettings.defaults());
+    }
+
+    public SimulatedOrchestrator(SimulationSettings settings, LogBufferSettings logBuffers) {
+        this.settings = settings;
+        this.logs = new LogHub(this::follow, logBuffers);
+        ticker.scheduleAtFixedRate(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public String startContainer(String image, String command, ResourceLimits limits) {
+        pause(settings.startLatency());
+        var random = ThreadLocalRandom.current();
+        var container = new Container(
+                "sim-" + started.incrementAndGet(),
+                System.nanoTime(),
+                jitter(settings.jobDuration()),
+                random.nextDouble() < settings.failureRate() ? 1 : 0,
+                limits.memoryLimitMb() > 0 ? (long) limits.memoryLimitMb() << 20 : DEFAULT_MEMORY_LIMIT_BYTES);
+        containers.put(container.id, container);
+        live.add(container);
+        return container.id;
+    }
+
+    @Override
+    public ContainerState inspectContainer(String containerId) {
+        pause(settings.inspectLatency());
+        var container = containers.get(containerId);
+        if (container == null) {
+            return new ContainerState(containerId, false, null, false, "Container not found");
+        }
+        return container.state();
+    }
+
+    @Override
+    public List<String> tailLogs(String containerId, int lines) {
+        pause(settings.logLatency());
+        var container = containers.get(containerId);
+        if (container == null) {
+            return List.of();
+        }
+        var written = container.linesWritten(System.nanoTime());
+        var tail = new ArrayList<String>();
+        for (var line = Math.max(0, written - lines); line < written; line++) {
+            tail.add(new String(line(line), StandardCharsets.UTF_8).stripTrailing());
+        }
+        return tail;
+    }
+
+    @Override
+    public LogSubscription subscribeLogs(String containerId, long startOffset, Runnable onData) {
+        return logs.subscribe(containerId, startOffset, onData);
+    }
+
+    @Override
+    public void onContainerExit(String containerId, Consumer<ContainerState> onExit) {
+        var container = containers.get(containerId);
+        if (container == null) {
+            onExit.accept(new ContainerState(containerId, false, null, false, "Container not found"));
+            return;
+        }
+        synchronized (container) {
+            if (!container.exited) {
+                container.exitWatchers.add(onExit);
+                return;
+            }
+        }
+        onExit.accept(container.state());
+    }
+
+    @Override
+    public ContainerStats stats(String containerId) {
+        var container = containers.get(containerId);
+        return container != null ? container.sample(System.nanoTime()) : null;
+    }
+
+    @Override
+    public Runnable watchStats(String containerId, Consumer<ContainerStats> onSample, Runnable onEnd) {
+        var container = containers.get(containerId);
+        if (container == null) {
+            onEnd.run();
+            return () -> {};
+        }
+        var watcher = new StatsWatcher(onSample, onEnd);
+        onSample.accept(container.sample(System.nanoTime()));
+        synchronized (container) {
+            if (!container.exited) {
+                container.statsWatchers.add(watcher);
+                return () -> {
+                    synchronized (container) {
+                        container.statsWatchers.remove(watcher);
+                    }
+                };
+            }
+        }
+        onEnd.run();
+        return () -> {};
+    }
+
+    @Override
+    public void release(String containerId) {
+        var container = containers.get(containerId);
+        if (container != null) {
+            synchronized (container) {
+                container.statsWatchers.clear();
+            }
+        }
+    }
+
+    /** Containers started so far. */
+    public long started() {
+        return started.get();
+    }
+
+    @Override
+    public void close() {
+        ticker.shutdownNow();
+        callbacks.shutdownNow();
+        logs.close();
+    }
+
+    private void follow(String containerId, Consumer<LogFrame> onFrame, Runnable onComplete,
+                        Consumer<Throwable> onError) {
+        pause(settings.logLatency());
+        var container = containers.get(containerId);
+        if (container == null) {
+            onComplete.run();
+            return;
+        }
+        container.follow(new LogSink(onFrame, onComplete), System.nanoTime());
+    }
+
+    private void tick() {
+        var now = System.nanoTime();
+        for (var container : live) {
+            try {
+                if (container.advance(now)) {
+                    live.remove(container);
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Simulated container " + container.id + " failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /** One line of output, numbered so it can be regenerated at any time. */
+    private byte[] line(long number) {
+        var line = new byte[settings.lineBytes()];
+        var prefix = ("line " + number + " ").getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < line.length - 1; i++) {
+            line[i] = i < prefix.length ? prefix[i] : (byte) '.';
+        }
+        line[line.length - 1] = '\n';
+        return line;
+    }
+
+    private static long jitter(Duration mean) {
+        return (long) (mean.toNanos() * (0.5 + ThreadLocalRandom.current().nextDouble()));
+    }
+
+    private static void pause(Duration mean) {
+        if (mean.isZero()) return;
+        try {
+            TimeUnit.NANOSECONDS.sleep(jitter(mean));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class LogSink {
+        private final Consumer<LogFrame> onFrame;
+        private final Runnable onComplete;
+        private long lines;
+
+        LogSink(Consumer<LogFrame> onFrame, Runnable onComplete) {
+            this.onFrame = onFrame;
+            this.onComplete = onComplete;
+        }
+    }
+
+    private record StatsWatcher(Consumer<ContainerStats> onSample, Runnable onEnd) {}
+
+    private final class Container {
+        private final String id;
+        private final long startNanos;
+        private final long durationNanos;
+        private final int exitCode;
+        private final long memoryLimitBytes;
+        private final List<LogSink> sinks = new ArrayList<>();
+        private final List<Consumer<ContainerState>> exitWatchers = new ArrayList<>();
+        private final List<StatsWatcher> statsWatchers = new ArrayList<>();
+        private long lastStatsNanos;
+        private volatile boolean exited;
+
+        Container(String id, long startNanos, long durationNanos, int exitCode, long memoryLimitBytes) {
+            this.id = id;
+            this.startNanos = startNanos;
+            this.durationNanos = durationNanos;
+            this.exitCode = exitCode;
+            this.memoryLimitBytes = memoryLimitBytes;
+        }
+
+        ContainerState state() {
+            return exited
+                    ? new ContainerState(id, false, exitCode, false, null)
+                    : new ContainerState(id, true, null, false, null);
+        }
+
+        long linesWritten(long now) {
+            var elapsed = Math.min(Math.max(0, now - startNanos), durationNanos);
+            return settings.linesPerSecond() * elapsed / 1_000_000_000L;
+        }
+
+        ContainerStats sample(long now) {
+            var elapsed = Math.min(Math.max(0, now - startNanos), durationNanos);
+            var written = linesWritten(now) * settings.lineBytes();
+            var memory = Math.min(memoryLimitBytes, BASE_MEMORY_BYTES + written);
+            return new ContainerStats(System.currentTimeMillis(), memory, memory, memoryLimitBytes,
+                    (long) (elapsed * CPU_CORES), exited ? 0 : CPU_CORES, 0, written, 0, 0);
+        }
+
+        synchronized void follow(LogSink sink, long now) {
+            sinks.add(sink);
+            if (exited) {
+                flush(linesWritten(now));
+                sink.onComplete.run();
+                sinks.remove(sink);
+            }
+        }
+
+        /** Writes output due by {@code now}, samples and exits when due; returns whether it exited. */
+        boolean advance(long now) {
+            List<Consumer<ContainerState>> exitNotify;
+            List<StatsWatcher> statsNotify;
+            ContainerStats sample = null;
+            synchronized (this) {
+                flush(linesWritten(now));
+                var exiting = now - startNanos >= durationNanos;
+                if (!statsWatchers.isEmpty() && (exiting || now - lastStatsNanos >= STATS_INTERVAL_NANOS)) {
+                    lastStatsNanos = now;
+                    sample = sample(now);
+                }
+                if (!exiting) {
+                    if (sample != null) {
+                        var watchers = List.copyOf(statsWatchers);
+                        var latest = sample;
+                        callbacks.execute(() -> watchers.forEach(watcher -> watcher.onSample().accept(latest)));
+                    }
+                    return false;
+                }
+                exited = true;
+                sinks.forEach(sink -> sink.onComplete.run());
+                sinks.clear();
+                exitNotify = List.copyOf(exitWatchers);
+                exitWatchers.clear();
+                statsNotify = List.copyOf(statsWatchers);
+                statsWatchers.clear();
+            }
+            var state = state();
+            var last = sample;
+            callbacks.execute(() -> {
+                for (var watcher : statsNotify) {
+                    if (last != null) watcher.onSample().accept(last);
+                    watcher.onEnd().run();
+                }
+                exitNotify.forEach(watcher -> watcher.accept(state));
+            });
+            return true;
+        }
+
+        /** Sends every sink the lines it has not seen, up to {@code written}. */
+        private void flush(long written) {
+            var perFrame = Math.max(1, MAX_FRAME_BYTES / settings.lineBytes());
+            for (var sink : sinks) {
+                for (var line = sink.lines; line < written; ) {
+                    var count = (int) Math.min(perFrame, written - line);
+                    var data = new byte[count * settings.lineBytes()];
+                    for (int j = 0; j < count; j++) {
+                        System.arraycopy(line(line + j), 0, data, j * settings.lineBytes(), settings.lineBytes());
+                    }
+                    sink.onFrame.accept(new LogFrame(LogFrame.Stream.STDOUT, data));
+                    line += count;
+                }
+                sink.lines = Math.max(sink.lines, written);
+            }
+        }
+    }
+}
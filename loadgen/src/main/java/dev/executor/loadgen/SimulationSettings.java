@@ -0,0 +1,35 @@
+package dev.executor.loadgen;
+
+import java.time.Duration;
+
+/**
+ * How a {@link SimulatedOrchestrator} behaves. Latencies are means; each call waits a uniformly
+ * random time between half and one and a half times the mean.
+ *
+ * @param startLatency time {@code startContainer} takes, like a docker create and start
+ * @param inspectLatency time {@code inspectContainer} takes
+ * @param logLatency time {@code tailLogs} and the first read of a container's log stream take
+ * @param jobDuration mean time a container runs before it exits
+ * @param linesPerSecond output lines each container writes per second while it runs
+ * @param lineBytes bytes per output line, newline included
+ * @param failureRate fraction of containers that exit with a non-zero code
+ */
+public record SimulationSettings(
+    Duration startLatency,
+    Duration inspectLatency,
+    Duration logLatency,
+    Duration jobDuration,
+    int linesPerSecond,
+    int lineBytes,
+    double failureRate
+) {
+
+    public SimulationSettings {
+        if (lineBytes < 1) {
+            throw new IllegalArgumentException("lineBytes must be positive: " + lineBytes);
+        }
+        if (linesPerSecond < 0) {
+            throw new IllegalArgumentException("linesPerSecond must not be negative: " + linesPerSecond);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package dev.executor.loadgen;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.executor.server.ShellServiceImpl;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LoadGeneratorTest {
+
+    private final SimulatedOrchestrator orchestrator = new SimulatedOrchestrator(new SimulationSettings(
+            Duration.ofMillis(2), Duration.ZERO, Duration.ZERO, Duration.ofMillis(200), 100, 32, 0));
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        var name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name)
+                .addService(new ShellServiceImpl(orchestrator))
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.shutdownNow();
+        server.shutdownNow();
+        orchestrator.close();
+    }
+
+    @Test
+    void drivesEveryRpcAndReportsLatencies() throws InterruptedException {
+        var settings = new LoadSettings(50, 100, 5, 10, Duration.ofSeconds(2), Duration.ofSeconds(1), "echo hi", 1000);
+        var output = new ByteArrayOutputStream();
+
+        var stats = new LoadGenerator(channel, settings, new PrintStream(output, true, StandardCharsets.UTF_8)).run();
+
+        for (var operation : Operation.values()) {
+            assertEquals(0, stats.get(operation).failureCount(), operation + " failed: " + stats.get(operation).failures());
+            assertTrue(stats.get(operation).total().getTotalCount() > 0, operation + " recorded nothing");
+        }
+        assertEquals(100, stats.get(Operation.START_JOB).total().getTotalCount(), "one call per period, open-loop");
+        assertTrue(output.toString(StandardCharsets.UTF_8).contains("Summary"));
+    }
+
+    @Test
+    void callsSkippedAtTheInFlightLimitAreCountedApartFromTheLatencies() throws InterruptedException {
+        // Each log watch holds the only slot until its job finishes, so most starts are skipped.
+        var settings = new LoadSettings(50, 0, 0, 10, Duration.ofSeconds(2), Duration.ofSeconds(1), "echo hi", 1);
+        var output = new ByteArrayOutputStream();
+
+        var stats = new LoadGenerator(channel, settings, new PrintStream(output, true, StandardCharsets.UTF_8)).run();
+
+        var starts = stats.get(Operation.START_JOB);
+        assertTrue(starts.skippedCount() > 0, "nothing was skipped");
+        assertEquals(100, starts.total().getTotalCount() + starts.skippedCount(), "every due call is sent or skipped");
+        assertTrue(starts.total().getMaxValue() < Duration.ofSeconds(29).toNanos(), "only measured latencies");
+        assertTrue(output.toString(StandardCharsets.UTF_8).contains("WARNING"));
+    }
+}
@@ -0,0 +1,71 @@
+package dev.executor.loadgen;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.executor.server.orchestrator.ContainerState;
+import dev.executor.server.orchestrator.ResourceLimits;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class SimulatedOrchestratorTest {
+
+    private final SimulatedOrchestrator orchestrator = new SimulatedOrchestrator(new SimulationSettings(
+            Duration.ZERO, Duration.ZERO, Duration.ZERO, Duration.ofMillis(400), 50, 16, 0));
+
+    @AfterEach
+    void tearDown() {
+        orchestrator.close();
+    }
+
+    @Test
+    void containerRunsThenExitsAndNotifiesWatchers() throws Exception {
+        var containerId = orchestrator.startContainer("alpine:latest", "true", new ResourceLimits(0, 0));
+        assertTrue(orchestrator.inspectContainer(containerId).isRunning());
+
+        var exited = new CompletableFuture<ContainerState>();
+        orchestrator.onContainerExit(containerId, exited::complete);
+        var state = exited.get(5, TimeUnit.SECONDS);
+
+        assertFalse(state.isRunning());
+        assertEquals(0, state.exitCode());
+        assertFalse(orchestrator.inspectContainer(containerId).isRunning());
+    }
+
+    @Test
+    void outputStaysReadableAfterExit() throws Exception {
+        var containerId = orchestrator.startContainer("alpine:latest", "true", new ResourceLimits(0, 0));
+        var exited = new CountDownLatch(1);
+        orchestrator.onContainerExit(containerId, state -> exited.countDown());
+        assertTrue(exited.await(5, TimeUnit.SECONDS));
+
+        var tail = orchestrator.tailLogs(containerId, 2);
+        assertEquals(2, tail.size());
+        assertTrue(tail.get(1).startsWith("line "), tail.get(1));
+
+        try (var subscription = orchestrator.subscribeLogs(containerId, 0, () -> {})) {
+            long bytes = 0;
+            for (var read = subscription.read(64 * 1024); read != null; read = subscription.read(64 * 1024)) {
+                bytes += read.data().remaining();
+            }
+            assertTrue(subscription.streamEnded(), "an exited container's output is complete");
+            assertEquals(0, bytes % 16, "whole lines only");
+            assertTrue(bytes >= 16 * 2, "at least the tailed lines, got " + bytes);
+        }
+    }
+
+    @Test
+    void lateExitWatcherIsCalledRightAway() throws Exception {
+        var containerId = orchestrator.startContainer("alpine:latest", "true", new ResourceLimits(0, 0));
+        var first = new CountDownLatch(1);
+        orchestrator.onContainerExit(containerId, state -> first.countDown());
+        assertTrue(first.await(5, TimeUnit.SECONDS));
+
+        var late = new CompletableFuture<ContainerState>();
+        orchestrator.onContainerExit(containerId, late::complete);
+        assertTrue(late.isDone());
+    }
+}
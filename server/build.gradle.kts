@@ -11,6 +11,7 @@ dependencies {
 
     testImplementation(platform("org.junit:junit-bom:5.11.4"))
     testImplementation("org.junit.jupiter:junit-jupiter")
+    testImplementation("io.grpc:grpc-inprocess:1.69.0")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
 
@@ -7,16 +7,36 @@ import io.grpc.ServerCall;
 import io.grpc.ServerCallHandler;
 import io.grpc.ServerInterceptor;
 import io.grpc.Status;
+import java.util.HashMap;
+import java.util.Map;
 
+/**
+ * Accepts calls bearing one of the configured API keys and records which client's key it was in
+ * {@link #CLIENT_KEY} for the interceptors and handlers after it.
+ */
 public class AuthInterceptor implements ServerInterceptor {
 
+    public static final Context.Key<String> CLIENT_KEY = Context.key("client");
+
     private static final Metadata.Key<String> AUTHORIZATION_KEY =
             Metadata.Key.of("Authorization", Metadata.ASCII_STRING_MARSHALLER);
+    private static final String DEFAULT_CLIENT = "default";
 
-    private final String expectedToken;
+    // Full expected header value to client name, so a lookup is a single hash probe.
+    private final Map<String, String> clientsByToken = new HashMap<>();
 
     public AuthInterceptor(String secret) {
-        this.expectedToken = "Bearer " + secret;
+        this(Map.of(DEFAULT_CLIENT, secret));
+    }
+
+    /** {@code secretsByClient} maps each client's name to its API key. */
+    public AuthInterceptor(Map<String, String> secretsByClient) {
+        secretsByClient.forEach((client, secret) -> {
+            var previous = clientsByToken.put("Bearer " + secret, client);
+            if (previous != null) {
+                throw new IllegalArgumentException("Clients " + previous + " and " + client + " share an API key");
+            }
+        });
     }
 
     @Override
@@ -25,12 +45,13 @@ public class AuthInterceptor implements ServerInterceptor {
             Metadata headers,
             ServerCallHandler<ReqT, RespT> next) {
         String authHeader = headers.get(AUTHORIZATION_KEY);
+        String client = authHeader != null ? clientsByToken.get(authHeader) : null;
 
-        if (authHeader == null || !authHeader.equals(expectedToken)) {
+        if (client == null) {
             call.close(Status.UNAUTHENTICATED.withDescription("Invalid or missing authorization token"), new Metadata());
             return new ServerCall.Listener<>() {};
         }
 
-        return Contexts.interceptCall(Context.current(), call, headers, next);
+        return Contexts.interceptCall(Context.current().withValue(CLIENT_KEY, client), call, headers, next);
     }
 }
@@ -0,0 +1,155 @@
+package dev.executor.server;
+
+import dev.executor.server.admission.AdmissionScheduler;
+import dev.executor.server.metrics.InstrumentedOrchestrator;
+import dev.executor.server.metrics.Metrics;
+import dev.executor.server.metrics.MetricsInterceptor;
+import dev.executor.server.metrics.MetricsServer;
+import dev.executor.server.orchestrator.ContainerOrchestrator;
+import dev.executor.server.quota.QuotaInterceptor;
+import dev.executor.server.registry.JobArchive;
+import dev.executor.server.registry.JobRegistry;
+import dev.executor.server.transport.NettyTransport;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.protobuf.services.ProtoReflectionServiceV1;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The gRPC server with its job registry, admission, auth and metrics, wired around any
+ * {@link ContainerOrchestrator}. Closing it leaves the orchestrator to its owner.
+ */
+public class ExecutorServer implements AutoCloseable {
+
+    private static final long SHUTDOWN_GRACE_SECONDS = 5;
+    private static final long RETENTION_SWEEP_SECONDS = 60;
+
+    private final NettyTransport transport;
+    private final Server server;
+    private final Server unixServer;
+    private final MetricsServer metricsServer;
+    private final JobRegistry registry;
+    private final ScheduledExecutorService retentionSweeper;
+
+    private ExecutorServer(NettyTransport transport, Server server, Server unixServer, MetricsServer metricsServer,
+                           JobRegistry registry, ScheduledExecutorService retentionSweeper) {
+        this.transport = transport;
+        this.server = server;
+        this.unixServer = unixServer;
+        this.metricsServer = metricsServer;
+        this.registry = registry;
+        this.retentionSweeper = retentionSweeper;
+    }
+
+    public static ExecutorServer start(ServerConfig config, ContainerOrchestrator orchestrator, int port)
+            throws IOException {
+        var registry = new JobRegistry(config.jobRetention(),
+                JobArchive.open(config.jobArchiveDir(), config.jobArchiveMaxBytes()));
+        // Age-based retention must also apply while no jobs are starting or finishing.
+        var retentionSweeper = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("job-retention").daemon().factory());
+        retentionSweeper.scheduleWithFixedDelay(registry::evictExpired,
+                RETENTION_SWEEP_SECONDS, RETENTION_SWEEP_SECONDS, TimeUnit.SECONDS);
+        var apiKeys = config.apiKeys();
+
+        var admission = new AdmissionScheduler(config.admission(), Executors.newVirtualThreadPerTaskExecutor());
+
+        var metrics = new Metrics();
+        var shellServiceImpl = new ShellServiceImpl(new InstrumentedOrchestrator(orchestrator, metrics), registry, admission);
+        metrics.counter("job_status_terminal_cache_hits_total",
+                "Status lookups for finished jobs served from the frozen terminal status.",
+                shellServiceImpl::terminalCacheHits);
+        metrics.counter("job_status_terminal_cache_misses_total",
+                "Status lookups for finished jobs that had to build the terminal status.",
+                shellServiceImpl::terminalCacheMisses);
+
+        ServerServiceDefinition shellService = shellServiceImpl.bindService();
+        if (!config.quotas().isUnlimited()) {
+            // Inside auth, so quotas are kept per authenticated client.
+            var quotas = new QuotaInterceptor(config.quotas());
+            shellService = ServerInterceptors.intercept(shellService, quotas);
+            metrics.counter("quota_rate_limited_calls_total",
+                    "Calls rejected for exceeding a client's rate limit.", quotas::rateLimitedCalls);
+            metrics.counter("quota_concurrency_limited_calls_total",
+                    "Calls rejected for exceeding a client's concurrent call limit.", quotas::concurrencyLimitedCalls);
+            System.out.println("Quotas enabled: " + config.quotas());
+        }
+        if (!apiKeys.isEmpty()) {
+            shellService = ServerInterceptors.intercept(shellService, new AuthInterceptor(apiKeys));
+            System.out.println("Authorization enabled for client(s) " + apiKeys.keySet());
+        } else {
+            System.out.println("Authorization disabled (API_KEY and API_KEYS are not set)");
+        }
+        // Added last so it runs first and also counts calls the auth check rejects.
+        shellService = ServerInterceptors.intercept(shellService, new MetricsInterceptor(metrics));
+
+        MetricsServer metricsServer = null;
+        if (config.metricsPort() > 0) {
+            metricsServer = MetricsServer.start(
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), config.metricsPort()), metrics);
+            System.out.println("Metrics available at http://localhost:" + metricsServer.port() + "/metrics");
+        }
+
+        var transport = new NettyTransport(config.transport());
+        Server server = transport.startTcpServer(port, services(shellService));
+        System.out.println("Remote Shell Executor listening on port " + server.getPort()
+                + (transport.isEpoll() ? " (epoll)" : " (nio)"));
+
+        Server unixServer = null;
+        if (config.transport().unixSocket() != null) {
+            unixServer = transport.startUnixServer(services(shellService));
+            System.out.println("Remote Shell Executor listening on unix:" + config.transport().unixSocket());
+        }
+        return new ExecutorServer(transport, server, unixServer, metricsServer, registry, retentionSweeper);
+    }
+
+    /** Each listener gets its own reflection service, which describes the server it is bound to. */
+    private static List<ServerServiceDefinition> services(ServerServiceDefinition shellService) {
+        return List.of(shellService, ProtoReflectionServiceV1.newInstance().bindService());
+    }
+
+    public int port() {
+        return server.getPort();
+    }
+
+    public void awaitTermination() throws InterruptedException {
+        server.awaitTermination();
+        if (unixServer != null) {
+            unixServer.awaitTermination();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.shutdown();
+        if (unixServer != null) {
+            unixServer.shutdown();
+        }
+        try {
+            // The listeners share the transport's event loops, which must outlive their calls.
+            server.awaitTermination(SHUTDOWN_GRACE_SECONDS, TimeUnit.SECONDS);
+            if (unixServer != null) {
+                unixServer.awaitTermination(SHUTDOWN_GRACE_SECONDS, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        transport.close();
+        if (metricsServer != null) {
+            metricsServer.close();
+        }
+        retentionSweeper.shutdownNow();
+        try {
+            registry.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close job archive: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package dev.executor.server;
+
+import dev.executor.common.JobEvent;
+import dev.executor.common.JobStatus;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Bounded, sequenced log of job state transitions.
+ *
+ * <p>Every appended status gets a resume token made of this journal's epoch and a sequence number.
+ * Subscribers hold a {@link Cursor} and pull events at their own pace: first the retained events
+ * after their resume token, then every new one, in order. Tokens from another epoch (a restarted
+ * server) or older than the retained window cannot be resumed and are rejected with
+ * {@link StaleResumeTokenException}; so is a cursor that falls a whole window behind.
+ */
+public class JobEventJournal {
+
+    private static final int DEFAULT_CAPACITY = 4096;
+
+    private final String epoch = UUID.randomUUID().toString();
+    private final JobEvent[] ring;
+    private final List<Cursor> subscribers = new ArrayList<>();
+    private long nextSequence = 1;
+
+    public JobEventJournal() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public JobEventJournal(int capacity) {
+        this.ring = new JobEvent[capacity];
+    }
+
+    public void append(JobStatus status) {
+        List<Cursor> notify;
+        synchronized (this) {
+            var sequence = nextSequence++;
+            var event = JobEvent.newBuilder()
+                    .setResumeToken(token(sequence))
+                    .setStatus(status)
+                    .build();
+            ring[(int) (sequence % ring.length)] = event;
+            notify = List.copyOf(subscribers);
+        }
+
+        for (var cursor : notify) {
+            try {
+                cursor.onAppend.run();
+            } catch (RuntimeException e) {
+                cursor.close();
+            }
+        }
+    }
+
+    /**
+     * Opens a cursor at the first retained event after {@code resumeToken}, or the oldest retained
+     * event if the token is empty. {@code onAppend} is called, on the appending thread, after every
+     * new event.
+     */
+    public synchronized Cursor subscribe(String resumeToken, Runnable onAppend) {
+        var from = resumeToken.isEmpty() ? oldestRetained() : parseSequence(resumeToken) + 1;
+        if (from < oldestRetained() || from > nextSequence) {
+            throw new StaleResumeTokenException(resumeToken);
+        }
+        var cursor = new Cursor(from, onAppend);
+        subscribers.add(cursor);
+        return cursor;
+    }
+
+    private long oldestRetained() {
+        return Math.max(1, nextSequence - ring.length);
+    }
+
+    private String token(long sequence) {
+        return epoch + ":" + sequence;
+    }
+
+    /** A subscriber's position in the journal. */
+    public final class Cursor implements AutoCloseable {
+        private final Runnable onAppend;
+        private long next;
+
+        private Cursor(long next, Runnable onAppend) {
+            this.next = next;
+            this.onAppend = onAppend;
+        }
+
+        /**
+         * Returns the next event, or {@code null} once caught up. Throws
+         * {@link StaleResumeTokenException} if the events after the last one returned were already
+         * overwritten.
+         */
+        public JobEvent next() {
+            synchronized (JobEventJournal.this) {
+                if (next < oldestRetained()) {
+                    throw new StaleResumeTokenException(token(next - 1));
+                }
+                if (next >= nextSequence) {
+                    return null;
+                }
+                return ring[(int) (next++ % ring.length)];
+            }
+        }
+
+        @Override
+        public void close() {
+            synchronized (JobEventJournal.this) {
+                subscribers.remove(this);
+            }
+        }
+    }
+
+    private long parseSequence(String resumeToken) {
+        var separator = resumeToken.lastIndexOf(':');
+        if (separator < 0 || !resumeToken.substring(0, separator).equals(epoch)) {
+            throw new StaleResumeTokenException(resumeToken);
+        }
+        try {
+            return Long.parseLong(resumeToken.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            throw new StaleResumeTokenException(resumeToken);
+        }
+    }
+
+    public static class StaleResumeTokenException extends RuntimeException {
+
+        public StaleResumeTokenException(String resumeToken) {
+            super("Cannot resume from token: " + resumeToken);
+        }
+    }
+}
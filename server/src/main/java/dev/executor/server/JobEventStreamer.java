@@ -0,0 +1,74 @@
+package dev.executor.server;
+
+import dev.executor.common.JobEvent;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes a {@link JobEventJournal} cursor to a WatchJobEvents call, only as fast as the client reads.
+ *
+ * <p>Events are pulled from the cursor when the call is ready, so nothing is queued beyond the
+ * journal's own ring and a stalled client costs no extra memory. A client that falls a whole ring
+ * behind is ended with {@code OUT_OF_RANGE}, after which it resyncs like one holding a stale token.
+ */
+final class JobEventStreamer {
+
+    private final ServerCallStreamObserver<JobEvent> observer;
+    // Serialises drain(): whoever raises it from zero drains until no more signals arrived meanwhile.
+    private final AtomicInteger pendingSignals = new AtomicInteger();
+    private volatile JobEventJournal.Cursor cursor;
+    private boolean done;
+
+    JobEventStreamer(ServerCallStreamObserver<JobEvent> observer) {
+        this.observer = observer;
+    }
+
+    /**
+     * Must be called from the RPC handler, before it returns. Throws
+     * {@link JobEventJournal.StaleResumeTokenException} if the token cannot be resumed.
+     */
+    void start(JobEventJournal journal, String resumeToken) {
+        observer.setOnReadyHandler(this::drain);
+        observer.setOnCancelHandler(() -> {
+            var current = cursor;
+            if (current != null) {
+                current.close();
+            }
+        });
+        cursor = journal.subscribe(resumeToken, this::drain);
+        if (observer.isCancelled()) {
+            cursor.close();
+            return;
+        }
+        drain();
+    }
+
+    private void drain() {
+        if (pendingSignals.getAndIncrement() != 0) return;
+        do {
+            drainOnce();
+        } while (pendingSignals.decrementAndGet() != 0);
+    }
+
+    private void drainOnce() {
+        if (done || cursor == null) return;
+        while (observer.isReady()) {
+            JobEvent event;
+            try {
+                event = cursor.next();
+            } catch (JobEventJournal.StaleResumeTokenException e) {
+                done = true;
+                cursor.close();
+                observer.onError(Status.OUT_OF_RANGE
+                        .withDescription("Fell behind the retained job events; resync and watch again")
+                        .asException());
+                return;
+            }
+            if (event == null) {
+                return;
+            }
+            observer.onNext(event);
+        }
+    }
+}
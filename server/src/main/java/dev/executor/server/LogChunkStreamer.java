@@ -0,0 +1,152 @@
+package dev.executor.server;
+
+import com.google.protobuf.UnsafeByteOperations;
+import dev.executor.common.LogChunk;
+import dev.executor.common.LogStream;
+import dev.executor.server.logs.LogFrame;
+import dev.executor.server.logs.LogSubscription;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Writes a log subscription to a WatchJobLogs or ReadJobLogs call, only as fast as the client reads.
+ *
+ * <p>Output is pulled from the subscription when the call is ready and sent in chunks of up to
+ * {@link #MAX_CHUNK_BYTES}, each holding output from a single stream. While following, small amounts
+ * are held back for up to {@link #FLUSH_DELAY_MS} so bursts of short lines share a chunk. Nothing is
+ * queued beyond the shared log buffer, so a stalled client costs no extra memory. Archived output is
+ * sent as a view of the mapped archive segment rather than a copy.
+ */
+final class LogChunkStreamer {
+
+    static final int MAX_CHUNK_BYTES = 64 * 1024;
+    static final int FLUSH_BYTES = 16 * 1024;
+    static final long FLUSH_DELAY_MS = 50;
+
+    private final ServerCallStreamObserver<LogChunk> observer;
+    private final ScheduledExecutorService timer;
+    // Range reads stop at endOffset, or once nothing more is available.
+    private final boolean follow;
+    private final long endOffset;
+    // Also fill the deprecated text content, for WatchJobLogs clients that predate data.
+    private final boolean withContent;
+    // Serialises drain(): whoever raises it from zero drains until no more signals arrived meanwhile.
+    private final AtomicInteger pendingSignals = new AtomicInteger();
+    private volatile LogSubscription subscription;
+    private volatile boolean flushArmed;
+    private volatile boolean flushDue;
+    private boolean done;
+
+    LogChunkStreamer(ServerCallStreamObserver<LogChunk> observer, ScheduledExecutorService timer,
+                     boolean withContent) {
+        this(observer, timer, true, Long.MAX_VALUE, withContent);
+    }
+
+    /** Streams the output before {@code endOffset} that is available now, then completes. */
+    static LogChunkStreamer range(ServerCallStreamObserver<LogChunk> observer, ScheduledExecutorService timer,
+                                  long endOffset) {
+        return new LogChunkStreamer(observer, timer, false, endOffset, false);
+    }
+
+    private LogChunkStreamer(ServerCallStreamObserver<LogChunk> observer, ScheduledExecutorService timer,
+                             boolean follow, long endOffset, boolean withContent) {
+        this.observer = observer;
+        this.timer = timer;
+        this.follow = follow;
+        this.endOffset = endOffset;
+        this.withContent = withContent;
+    }
+
+    /** Must be called from the RPC handler, before it returns. */
+    void start(Function<Runnable, LogSubscription> subscribe) {
+        observer.setOnReadyHandler(this::drain);
+        observer.setOnCancelHandler(() -> {
+            var current = subscription;
+            if (current != null) {
+                current.close();
+            }
+        });
+        subscription = subscribe.apply(this::drain);
+        if (observer.isCancelled()) {
+            subscription.close();
+            return;
+        }
+        drain();
+    }
+
+    private void drain() {
+        if (pendingSignals.getAndIncrement() != 0) return;
+        do {
+            drainOnce();
+        } while (pendingSignals.decrementAndGet() != 0);
+    }
+
+    @SuppressWarnings("deprecation") // LogChunk.content, kept filled for older clients.
+    private void drainOnce() {
+        if (done || subscription == null) return;
+        while (observer.isReady()) {
+            var available = subscription.available();
+            var ended = !follow || subscription.streamEnded();
+            if (available == 0) {
+                if (ended) {
+                    finish();
+                }
+                return;
+            }
+            if (available < FLUSH_BYTES && !ended && !flushDue) {
+                armFlush();
+                return;
+            }
+
+            var read = subscription.read(MAX_CHUNK_BYTES);
+            flushDue = false;
+            if (read == null || read.offset() >= endOffset) {
+                if (ended) {
+                    finish();
+                }
+                return;
+            }
+            var data = read.data();
+            if (endOffset - read.offset() < data.remaining()) {
+                data = data.slice(data.position(), (int) (endOffset - read.offset()));
+            }
+            var bytes = UnsafeByteOperations.unsafeWrap(data);
+            var chunk = LogChunk.newBuilder()
+                    .setData(bytes)
+                    .setDroppedBytes(read.droppedBytes())
+                    .setStream(read.stream() == LogFrame.Stream.STDERR ? LogStream.LOG_STREAM_STDERR : LogStream.LOG_STREAM_STDOUT)
+                    .setOffset(read.offset());
+            if (withContent) {
+                chunk.setContent(bytes.toStringUtf8());
+            }
+            observer.onNext(chunk.build());
+        }
+    }
+
+    private void armFlush() {
+        if (flushArmed) return;
+        flushArmed = true;
+        timer.schedule(() -> {
+            flushArmed = false;
+            flushDue = true;
+            drain();
+        }, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private void finish() {
+        done = true;
+        subscription.close();
+        var error = subscription.error();
+        if (error == null) {
+            observer.onCompleted();
+        } else {
+            observer.onError(Status.INTERNAL
+                    .withDescription("Log streaming failed: " + error.getMessage())
+                    .asException());
+        }
+    }
+}
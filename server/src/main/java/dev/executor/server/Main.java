@@ -1,38 +1,30 @@
 package dev.executor.server;
 
+import dev.executor.server.logs.LogArchive;
 import dev.executor.server.orchestrator.DockerJavaOrchestrator;
-import io.grpc.Server;
-import io.grpc.ServerBuilder;
-import io.grpc.ServerServiceDefinition;
-import io.grpc.protobuf.services.ProtoReflectionServiceV1;
 import java.io.IOException;
 
 public class Main {
 
     private static final int PORT = 9090;
-    private static final String API_KEY_ENV = "API_KEY";
 
     public static void main(String[] args) throws IOException, InterruptedException {
-        var orchestrator = new DockerJavaOrchestrator();
-        var apiKey = System.getenv(API_KEY_ENV);
-
-        ServerServiceDefinition shellService = new ShellServiceImpl(orchestrator).bindService();
-        if (apiKey != null && !apiKey.isBlank()) {
-            shellService = io.grpc.ServerInterceptors.intercept(shellService, new AuthInterceptor(apiKey));
-            System.out.println("Authorization enabled (API_KEY is set)");
-        } else {
-            System.out.println("Authorization disabled (API_KEY is not set)");
-        }
-
-        Server server = ServerBuilder.forPort(PORT)
-                .addService(shellService)
-                .addService(ProtoReflectionServiceV1.newInstance())
-                .build()
-                .start();
-
-        System.out.println("Remote Shell Executor listening on port " + PORT);
-
-        Runtime.getRuntime().addShutdownHook(new Thread(server::shutdown));
+        var config = ServerConfig.fromEnv(System.getenv());
+        // A zero size limit turns the log archive off; output is then only kept by the daemon.
+        var logArchive = config.logArchive().maxBytes() > 0 ? LogArchive.open(config.logArchive()) : null;
+        var orchestrator = new DockerJavaOrchestrator(
+                config.imageRefreshInterval(), config.warmPool(), config.logBuffers(), logArchive);
+        orchestrator.prewarmImages(config.prewarmImages());
+
+        var server = ExecutorServer.start(config, orchestrator, PORT);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            orchestrator.close();
+            if (logArchive != null) {
+                logArchive.close();
+            }
+        }));
         server.awaitTermination();
     }
 }
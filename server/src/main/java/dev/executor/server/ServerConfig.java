@@ -0,0 +1,227 @@
+package dev.executor.server;
+
+import dev.executor.server.admission.AdmissionSettings;
+import dev.executor.server.logs.LogArchiveSettings;
+import dev.executor.server.logs.LogBufferSettings;
+import dev.executor.server.logs.LogOverflowPolicy;
+import dev.executor.server.orchestrator.WarmPoolSettings;
+import dev.executor.server.quota.QuotaSettings;
+import dev.executor.server.quota.RateLimit;
+import dev.executor.server.registry.RetentionPolicy;
+import dev.executor.server.transport.TransportSettings;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public record ServerConfig(
+    Map<String, String> apiKeys,
+    List<String> prewarmImages,
+    Duration imageRefreshInterval,
+    WarmPoolSettings warmPool,
+    RetentionPolicy jobRetention,
+    Path jobArchiveDir,
+    long jobArchiveMaxBytes,
+    AdmissionSettings admission,
+    LogBufferSettings logBuffers,
+    LogArchiveSettings logArchive,
+    int metricsPort,
+    QuotaSettings quotas,
+    TransportSettings transport
+) {
+
+    private static final String API_KEY_ENV = "API_KEY";
+    private static final String API_KEYS_ENV = "API_KEYS";
+    private static final String PREWARM_IMAGES_ENV = "PREWARM_IMAGES";
+    private static final String IMAGE_REFRESH_SECONDS_ENV = "IMAGE_REFRESH_SECONDS";
+    private static final String WARM_POOL_MIN_ENV = "WARM_POOL_MIN";
+    private static final String WARM_POOL_MAX_ENV = "WARM_POOL_MAX";
+    private static final String WARM_POOL_IDLE_SECONDS_ENV = "WARM_POOL_IDLE_SECONDS";
+    private static final String JOB_RETENTION_MAX_TERMINAL_ENV = "JOB_RETENTION_MAX_TERMINAL";
+    private static final String JOB_RETENTION_MAX_AGE_SECONDS_ENV = "JOB_RETENTION_MAX_AGE_SECONDS";
+    private static final String JOB_RETENTION_MAX_BYTES_ENV = "JOB_RETENTION_MAX_BYTES";
+    private static final String JOB_ARCHIVE_DIR_ENV = "JOB_ARCHIVE_DIR";
+    private static final String JOB_ARCHIVE_MAX_BYTES_ENV = "JOB_ARCHIVE_MAX_BYTES";
+    private static final String HOST_MEMORY_MB_ENV = "HOST_MEMORY_MB";
+    private static final String HOST_CPUS_ENV = "HOST_CPUS";
+    private static final String MAX_QUEUE_DEPTH_ENV = "MAX_QUEUE_DEPTH";
+    private static final String DEFAULT_JOB_MEMORY_MB_ENV = "DEFAULT_JOB_MEMORY_MB";
+    private static final String DEFAULT_JOB_CPUS_ENV = "DEFAULT_JOB_CPUS";
+    private static final String LOG_BUFFER_BYTES_ENV = "LOG_BUFFER_BYTES";
+    private static final String LOG_BUFFER_LINGER_SECONDS_ENV = "LOG_BUFFER_LINGER_SECONDS";
+    private static final String LOG_OVERFLOW_POLICY_ENV = "LOG_OVERFLOW_POLICY";
+    private static final String LOG_ARCHIVE_DIR_ENV = "LOG_ARCHIVE_DIR";
+    private static final String LOG_ARCHIVE_MAX_BYTES_ENV = "LOG_ARCHIVE_MAX_BYTES";
+    private static final String LOG_ARCHIVE_SEGMENT_BYTES_ENV = "LOG_ARCHIVE_SEGMENT_BYTES";
+    private static final String REMOVE_FINISHED_CONTAINERS_ENV = "REMOVE_FINISHED_CONTAINERS";
+    private static final String METRICS_PORT_ENV = "METRICS_PORT";
+    private static final String RATE_LIMITS_ENV = "RATE_LIMITS";
+    private static final String CONCURRENCY_LIMITS_ENV = "CONCURRENCY_LIMITS";
+    private static final String GRPC_EXECUTOR_THREADS_ENV = "GRPC_EXECUTOR_THREADS";
+    private static final String GRPC_FLOW_CONTROL_WINDOW_BYTES_ENV = "GRPC_FLOW_CONTROL_WINDOW_BYTES";
+    private static final String GRPC_MAX_CONCURRENT_CALLS_ENV = "GRPC_MAX_CONCURRENT_CALLS_PER_CONNECTION";
+    private static final String GRPC_KEEPALIVE_SECONDS_ENV = "GRPC_KEEPALIVE_SECONDS";
+    private static final String GRPC_KEEPALIVE_TIMEOUT_SECONDS_ENV = "GRPC_KEEPALIVE_TIMEOUT_SECONDS";
+    private static final String GRPC_PERMIT_KEEPALIVE_SECONDS_ENV = "GRPC_PERMIT_KEEPALIVE_SECONDS";
+    private static final String GRPC_UNIX_SOCKET_ENV = "GRPC_UNIX_SOCKET";
+
+    private static final String DEFAULT_API_KEY_CLIENT = "default";
+    private static final String DEFAULT_PREWARM_IMAGES = "alpine:latest";
+    private static final long DEFAULT_IMAGE_REFRESH_SECONDS = 3600;
+    private static final long DEFAULT_WARM_POOL_IDLE_SECONDS = 300;
+    private static final long DEFAULT_MAX_QUEUE_DEPTH = 1000;
+    private static final long DEFAULT_JOB_ARCHIVE_MAX_BYTES = 256L * 1024 * 1024;
+    private static final long DEFAULT_METRICS_PORT = 9091;
+
+    public static ServerConfig fromEnv(Map<String, String> env) {
+        var retentionDefaults = RetentionPolicy.defaults();
+        var logBufferDefaults = LogBufferSettings.defaults();
+        var transportDefaults = TransportSettings.defaults();
+        var logArchiveDefaults = LogArchiveSettings.defaults(
+                Path.of(System.getProperty("java.io.tmpdir"), "remote-executor", "logs"));
+        return new ServerConfig(
+                apiKeys(env),
+                list(env.getOrDefault(PREWARM_IMAGES_ENV, DEFAULT_PREWARM_IMAGES)),
+                Duration.ofSeconds(longValue(env, IMAGE_REFRESH_SECONDS_ENV, DEFAULT_IMAGE_REFRESH_SECONDS)),
+                new WarmPoolSettings(
+                        (int) longValue(env, WARM_POOL_MIN_ENV, 0),
+                        (int) longValue(env, WARM_POOL_MAX_ENV, 0),
+                        Duration.ofSeconds(longValue(env, WARM_POOL_IDLE_SECONDS_ENV, DEFAULT_WARM_POOL_IDLE_SECONDS))),
+                new RetentionPolicy(
+                        (int) longValue(env, JOB_RETENTION_MAX_TERMINAL_ENV, retentionDefaults.maxTerminalJobs()),
+                        Duration.ofSeconds(longValue(env, JOB_RETENTION_MAX_AGE_SECONDS_ENV,
+                                retentionDefaults.maxTerminalAge().toSeconds())),
+                        longValue(env, JOB_RETENTION_MAX_BYTES_ENV, retentionDefaults.maxTerminalBytes())),
+                Path.of(env.getOrDefault(JOB_ARCHIVE_DIR_ENV,
+                        Path.of(System.getProperty("java.io.tmpdir"), "remote-executor").toString())),
+                longValue(env, JOB_ARCHIVE_MAX_BYTES_ENV, DEFAULT_JOB_ARCHIVE_MAX_BYTES),
+                new AdmissionSettings(
+                        // Admission stays off until the operator states the capacity jobs may reserve.
+                        longValue(env, HOST_MEMORY_MB_ENV, 0),
+                        doubleValue(env, HOST_CPUS_ENV, 0),
+                        (int) longValue(env, MAX_QUEUE_DEPTH_ENV, DEFAULT_MAX_QUEUE_DEPTH),
+                        (int) longValue(env, DEFAULT_JOB_MEMORY_MB_ENV, 0),
+                        doubleValue(env, DEFAULT_JOB_CPUS_ENV, 0)),
+                new LogBufferSettings(
+                        (int) longValue(env, LOG_BUFFER_BYTES_ENV, logBufferDefaults.bytesPerContainer()),
+                        Duration.ofSeconds(longValue(env, LOG_BUFFER_LINGER_SECONDS_ENV,
+                                logBufferDefaults.linger().toSeconds())),
+                        overflowPolicy(env.getOrDefault(LOG_OVERFLOW_POLICY_ENV, logBufferDefaults.overflow().name()))),
+                new LogArchiveSettings(
+                        Path.of(env.getOrDefault(LOG_ARCHIVE_DIR_ENV, logArchiveDefaults.directory().toString())),
+                        longValue(env, LOG_ARCHIVE_MAX_BYTES_ENV, logArchiveDefaults.maxBytes()),
+                        (int) longValue(env, LOG_ARCHIVE_SEGMENT_BYTES_ENV, logArchiveDefaults.segmentBytes()),
+                        Boolean.parseBoolean(env.getOrDefault(REMOVE_FINISHED_CONTAINERS_ENV, "false").trim())),
+                (int) longValue(env, METRICS_PORT_ENV, DEFAULT_METRICS_PORT),
+                new QuotaSettings(
+                        rateLimits(env.getOrDefault(RATE_LIMITS_ENV, "")),
+                        concurrencyLimits(env.getOrDefault(CONCURRENCY_LIMITS_ENV, ""))),
+                new TransportSettings(
+                        (int) longValue(env, GRPC_EXECUTOR_THREADS_ENV, transportDefaults.executorThreads()),
+                        (int) longValue(env, GRPC_FLOW_CONTROL_WINDOW_BYTES_ENV, transportDefaults.flowControlWindowBytes()),
+                        (int) longValue(env, GRPC_MAX_CONCURRENT_CALLS_ENV,
+                                transportDefaults.maxConcurrentCallsPerConnection()),
+                        Duration.ofSeconds(longValue(env, GRPC_KEEPALIVE_SECONDS_ENV,
+                                transportDefaults.keepAliveTime().toSeconds())),
+                        Duration.ofSeconds(longValue(env, GRPC_KEEPALIVE_TIMEOUT_SECONDS_ENV,
+                                transportDefaults.keepAliveTimeout().toSeconds())),
+                        Duration.ofSeconds(longValue(env, GRPC_PERMIT_KEEPALIVE_SECONDS_ENV,
+                                transportDefaults.permitKeepAliveTime().toSeconds())),
+                        path(env.get(GRPC_UNIX_SOCKET_ENV)))
+        );
+    }
+
+    private static Path path(String value) {
+        return value == null || value.isBlank() ? null : Path.of(value.trim());
+    }
+
+    private static List<String> list(String value) {
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(item -> !item.isEmpty())
+                .toList();
+    }
+
+    /** {@code API_KEYS} as {@code client=key,...}, plus {@code API_KEY} for a client named "default". */
+    private static Map<String, String> apiKeys(Map<String, String> env) {
+        var keys = new HashMap<String, String>();
+        var single = env.get(API_KEY_ENV);
+        if (single != null && !single.isBlank()) {
+            keys.put(DEFAULT_API_KEY_CLIENT, single);
+        }
+        for (var entry : list(env.getOrDefault(API_KEYS_ENV, ""))) {
+            var parts = entry.split("=", 2);
+            if (parts.length != 2 || parts[0].isBlank() || parts[1].isBlank()) {
+                throw new IllegalArgumentException(API_KEYS_ENV + " entries must be client=key, got: " + entry);
+            }
+            keys.put(parts[0].trim(), parts[1].trim());
+        }
+        return Map.copyOf(keys);
+    }
+
+    /** {@code Method=rate[/burst],...}; the burst defaults to one second's worth of calls. */
+    private static Map<String, RateLimit> rateLimits(String value) {
+        var limits = new HashMap<String, RateLimit>();
+        for (var entry : list(value)) {
+            var parts = entry.split("=", 2);
+            try {
+                var rate = parts[1].split("/", 2);
+                var perSecond = Double.parseDouble(rate[0].trim());
+                var burst = rate.length == 2 ? Integer.parseInt(rate[1].trim()) : (int) Math.max(1, Math.ceil(perSecond));
+                limits.put(parts[0].trim(), new RateLimit(perSecond, burst));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException(
+                        RATE_LIMITS_ENV + " entries must be Method=rate or Method=rate/burst, got: " + entry, e);
+            }
+        }
+        return limits;
+    }
+
+    /** {@code Method=limit,...}. */
+    private static Map<String, Integer> concurrencyLimits(String value) {
+        var limits = new HashMap<String, Integer>();
+        for (var entry : list(value)) {
+            var parts = entry.split("=", 2);
+            try {
+                limits.put(parts[0].trim(), Integer.parseInt(parts[1].trim()));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException(CONCURRENCY_LIMITS_ENV + " entries must be Method=limit, got: " + entry, e);
+            }
+        }
+        return limits;
+    }
+
+    private static LogOverflowPolicy overflowPolicy(String value) {
+        try {
+            return LogOverflowPolicy.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(LOG_OVERFLOW_POLICY_ENV + " must be DROP or PAUSE_FOLLOWER, got: " + value, e);
+        }
+    }
+
+    private static double doubleValue(Map<String, String> env, String name, double defaultValue) {
+        var value = env.get(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number, got: " + value, e);
+        }
+    }
+
+    private static long longValue(Map<String, String> env, String name, long defaultValue) {
+        var value = env.get(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number, got: " + value, e);
+        }
+    }
+}
@@ -1,21 +1,68 @@
 package dev.executor.server;
 
 import dev.executor.common.*;
+import dev.executor.server.admission.AdmissionScheduler;
+import dev.executor.server.admission.AdmissionSettings;
 import dev.executor.server.orchestrator.ContainerOrchestrator;
+import dev.executor.server.orchestrator.ContainerState;
+import dev.executor.server.orchestrator.ContainerStats;
 import dev.executor.server.orchestrator.ResourceLimits;
+import dev.executor.server.registry.JobEntry;
+import dev.executor.server.registry.JobRegistry;
 import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
-import java.util.Map;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 public class ShellServiceImpl extends ShellServiceGrpc.ShellServiceImplBase {
 
+    private static final int DEFAULT_PAGE_SIZE = 1000;
+    private static final int MAX_PAGE_SIZE = 5000;
+    // Bounds the work of one filtered page, since every unfinished job examined is inspected.
+    static final int MAX_EXAMINED_PER_PAGE = 10_000;
+    private static final int MAX_STATUS_BATCH = 1000;
+    private static final int MAX_CONCURRENT_INSPECTIONS = 16;
+
     private final ContainerOrchestrator orchestrator;
-    private final Map<String, String> jobToContainer = new ConcurrentHashMap<>();
+    private final JobRegistry registry;
+    // Queues jobs until they fit on the host, then runs their launch off the gRPC handler thread.
+    private final AdmissionScheduler admission;
+    private final JobEventJournal journal = new JobEventJournal();
+    // Terminal statuses being built, so concurrent lookups of a job that just exited tail its logs once.
+    private final ConcurrentHashMap<String, CompletableFuture<JobStatus>> finalizing = new ConcurrentHashMap<>();
+    private final LongAdder terminalCacheHits = new LongAdder();
+    private final LongAdder terminalCacheMisses = new LongAdder();
+    private final ScheduledExecutorService logFlushTimer = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("log-flush").daemon().factory());
 
     public ShellServiceImpl(ContainerOrchestrator orchestrator) {
+        this(orchestrator, new JobRegistry());
+    }
+
+    public ShellServiceImpl(ContainerOrchestrator orchestrator, JobRegistry registry) {
+        this(orchestrator, registry, Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    public ShellServiceImpl(ContainerOrchestrator orchestrator, JobRegistry registry, Executor launcher) {
+        this(orchestrator, registry, new AdmissionScheduler(AdmissionSettings.unlimited(), launcher));
+    }
+
+    public ShellServiceImpl(ContainerOrchestrator orchestrator, JobRegistry registry, AdmissionScheduler admission) {
         this.orchestrator = orchestrator;
+        this.registry = registry;
+        this.admission = admission;
     }
 
     @Override
@@ -26,14 +73,18 @@ public class ShellServiceImpl extends ShellServiceGrpc.ShellServiceImplBase {
                     request.getCpuLimit()
             );
 
-            var containerId = orchestrator.startContainer(
-                    "alpine:latest",
-                    request.getCommand(),
-                    limits
-            );
-
             var jobId = UUID.randomUUID().toString();
-            jobToContainer.put(jobId, containerId);
+            registry.register(jobId, null);
+            journal.append(pendingStatus(jobId, registry.find(jobId)));
+            try {
+                admission.submit(jobId, limits, request.getPriority(), () -> launch(jobId, request.getCommand(), limits));
+            } catch (AdmissionScheduler.QueueFullException e) {
+                reject(jobId, e, Status.RESOURCE_EXHAUSTED, responseObserver);
+                return;
+            } catch (AdmissionScheduler.JobTooLargeException e) {
+                reject(jobId, e, Status.INVALID_ARGUMENT, responseObserver);
+                return;
+            }
 
             var response = JobResponse.newBuilder()
                     .setJobId(jobId)
@@ -48,41 +99,51 @@ public class ShellServiceImpl extends ShellServiceGrpc.ShellServiceImplBase {
         }
     }
 
+    private void reject(String jobId, Exception reason, Status status, StreamObserver<JobResponse> responseObserver) {
+        journal.append(registry.markTerminal(jobId, failedStatus(jobId, "REJECTED", reason.getMessage())));
+        responseObserver.onError(status
+                .withDescription(reason.getMessage())
+                .asException());
+    }
+
+    private void launch(String jobId, String command, ResourceLimits limits) {
+        String containerId;
+        try {
+            containerId = orchestrator.startContainer(
+                    "alpine:latest",
+                    command,
+                    limits
+            );
+        } catch (Exception e) {
+            System.err.println("Failed to launch job " + jobId + ": " + e.getMessage());
+            journal.append(registry.markTerminal(jobId, failedStatus(jobId, "LAUNCH_FAILED", e.getMessage())));
+            admission.release(jobId);
+            return;
+        }
+
+        registry.launched(jobId, containerId);
+        journal.append(JobStatus.newBuilder()
+                .setJobId(jobId)
+                .setRunning(RunningDetails.newBuilder()
+                        .setStartedAt(Instant.now().toString())
+                        .build())
+                .build());
+        orchestrator.onContainerExit(containerId,
+                state -> journal.append(finalizeStatus(jobId, containerId, state)));
+    }
+
     @Override
     public void getJobStatus(JobIdRequest request, StreamObserver<JobStatus> responseObserver) {
         try {
-            var containerId = jobToContainer.get(request.getJobId());
-            if (containerId == null) {
+            var status = fetchStatus(request.getJobId());
+            if (status == null) {
                 responseObserver.onError(io.grpc.Status.NOT_FOUND
                         .withDescription("Job not found: " + request.getJobId())
                         .asException());
                 return;
             }
 
-            var state = orchestrator.inspectContainer(containerId);
-
-            var statusBuilder = JobStatus.newBuilder()
-                    .setJobId(request.getJobId());
-
-            if (state.systemError() != null) {
-                statusBuilder.setSystemError(FailureDetails.newBuilder()
-                        .setReason("SYSTEM_ERROR")
-                        .setMessage(state.systemError())
-                        .build());
-            } else if (state.isRunning()) {
-                statusBuilder.setRunning(RunningDetails.newBuilder()
-                        .setStartedAt(java.time.Instant.now().toString())
-                        .build());
-            } else {
-                var logsBuilder = orchestrator.tailLogs(containerId, 50);
-                statusBuilder.setCompleted(CompletionDetails.newBuilder()
-                        .setExitCode(state.exitCode() != null ? state.exitCode() : 0)
-                        .setOomKilled(state.oomKilled())
-                        .addAllRecentLogs(logsBuilder)
-                        .build());
-            }
-
-            responseObserver.onNext(statusBuilder.build());
+            responseObserver.onNext(status);
             responseObserver.onCompleted();
         } catch (Exception e) {
             responseObserver.onError(io.grpc.Status.INTERNAL
@@ -91,14 +152,85 @@ public class ShellServiceImpl extends ShellServiceGrpc.ShellServiceImplBase {
         }
     }
 
+    @Override
+    public void getJobStatuses(JobIdsRequest request, StreamObserver<JobStatusesResponse> responseObserver) {
+        if (request.getJobIdsCount() > MAX_STATUS_BATCH) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("At most " + MAX_STATUS_BATCH + " job IDs per request, got " + request.getJobIdsCount())
+                    .asException());
+            return;
+        }
+
+        try {
+            var semaphore = new Semaphore(MAX_CONCURRENT_INSPECTIONS);
+            var futures = new ArrayList<Future<JobStatus>>();
+            try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (String jobId : request.getJobIdsList()) {
+                    futures.add(executor.submit(() -> {
+                        semaphore.acquire();
+                        try {
+                            return fetchStatus(jobId);
+                        } finally {
+                            semaphore.release();
+                        }
+                    }));
+                }
+            }
+
+            var response = JobStatusesResponse.newBuilder();
+            for (int i = 0; i < futures.size(); i++) {
+                var status = futures.get(i).get();
+                if (status != null) {
+                    response.addStatuses(status);
+                } else {
+                    response.addUnknownJobIds(request.getJobIds(i));
+                }
+            }
+
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+        } catch (ExecutionException e) {
+            responseObserver.onError(Status.INTERNAL
+                    .withDescription("Failed to get job statuses: " + e.getCause().getMessage())
+                    .asException());
+        } catch (Exception e) {
+            responseObserver.onError(Status.INTERNAL
+                    .withDescription("Failed to get job statuses: " + e.getMessage())
+                    .asException());
+        }
+    }
+
     @Override
     public void listJobs(ListJobsRequest request, StreamObserver<ListJobsResponse> responseObserver) {
+        if (request.getPageSize() < 0) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("page_size must not be negative")
+                    .asException());
+            return;
+        }
+
         try {
-            var response = ListJobsResponse.newBuilder()
-                    .addAllJobIds(jobToContainer.keySet())
-                    .build();
+            var pageSize = request.getPageSize() == 0
+                    ? DEFAULT_PAGE_SIZE
+                    : Math.min(request.getPageSize(), MAX_PAGE_SIZE);
+            var remaining = registry.entriesAfter(request.getPageToken());
 
-            responseObserver.onNext(response);
+            var response = ListJobsResponse.newBuilder();
+            String last = null;
+            var examined = 0;
+            for (var entry : remaining.entrySet()) {
+                if (response.getJobIdsCount() == pageSize || examined == MAX_EXAMINED_PER_PAGE) {
+                    response.setNextPageToken(last);
+                    break;
+                }
+                examined++;
+                last = entry.getKey();
+                if (matches(request.getStateFilter(), entry.getValue())) {
+                    response.addJobIds(entry.getKey());
+                }
+            }
+
+            responseObserver.onNext(response.build());
             responseObserver.onCompleted();
         } catch (Exception e) {
             responseObserver.onError(Status.INTERNAL
@@ -107,23 +239,309 @@ public class ShellServiceImpl extends ShellServiceGrpc.ShellServiceImplBase {
         }
     }
 
+    private boolean matches(JobStateFilter filter, JobEntry entry) {
+        return switch (filter) {
+            case JOB_STATE_RUNNING -> !isFinished(entry);
+            case JOB_STATE_TERMINAL -> isFinished(entry);
+            default -> true;
+        };
+    }
+
+    private boolean isFinished(JobEntry entry) {
+        if (entry.terminalStatus() != null) {
+            return true;
+        }
+        return entry.containerId() != null && !orchestrator.inspectContainer(entry.containerId()).isRunning();
+    }
+
     @Override
-    public void watchJobLogs(JobIdRequest request, StreamObserver<LogChunk> responseObserver) {
-        var containerId = jobToContainer.get(request.getJobId());
-        if (containerId == null) {
+    public void watchJobLogs(WatchJobLogsRequest request, StreamObserver<LogChunk> responseObserver) {
+        if (request.getStartOffset() < 0) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("start_offset must not be negative")
+                    .asException());
+            return;
+        }
+
+        var containerId = containerFor(request.getJobId(), responseObserver);
+        if (containerId == null) return;
+
+        new LogChunkStreamer((ServerCallStreamObserver<LogChunk>) responseObserver, logFlushTimer,
+                !request.getOmitContent())
+                .start(onData -> orchestrator.subscribeLogs(containerId, request.getStartOffset(), onData));
+    }
+
+    @Override
+    public void readJobLogs(ReadJobLogsRequest request, StreamObserver<LogChunk> responseObserver) {
+        if (request.getOffset() < 0 || request.getLength() < 0) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("offset and length must not be negative")
+                    .asException());
+            return;
+        }
+
+        var containerId = containerFor(request.getJobId(), responseObserver);
+        if (containerId == null) return;
+
+        var endOffset = request.getLength() == 0 || request.getLength() > Long.MAX_VALUE - request.getOffset()
+                ? Long.MAX_VALUE
+                : request.getOffset() + request.getLength();
+        LogChunkStreamer.range((ServerCallStreamObserver<LogChunk>) responseObserver, logFlushTimer, endOffset)
+                .start(onData -> orchestrator.subscribeLogs(containerId, request.getOffset(), onData));
+    }
+
+    /** Returns the job's container, or fails the call and returns {@code null} if it has none. */
+    private String containerFor(String jobId, StreamObserver<?> responseObserver) {
+        var entry = registry.find(jobId);
+        var archived = entry == null ? registry.findArchived(jobId) : null;
+        if (entry == null && archived == null) {
             responseObserver.onError(Status.NOT_FOUND
-                    .withDescription("Job not found: " + request.getJobId())
+                    .withDescription("Job not found: " + jobId)
+                    .asException());
+            return null;
+        }
+        var containerId = entry != null ? entry.containerId() : archived.containerId();
+        if (containerId == null) {
+            responseObserver.onError(Status.FAILED_PRECONDITION
+                    .withDescription("Job has not started yet: " + jobId)
+                    .asException());
+        }
+        return containerId;
+    }
+
+    @Override
+    public void getJobStats(JobIdRequest request, StreamObserver<JobStats> responseObserver) {
+        try {
+            var finished = finishedStats(request.getJobId());
+            if (finished != null) {
+                responseObserver.onNext(finished);
+                responseObserver.onCompleted();
+                return;
+            }
+            var containerId = containerFor(request.getJobId(), responseObserver);
+            if (containerId == null) return;
+
+            var sample = orchestrator.stats(containerId);
+            if (sample == null) {
+                responseObserver.onError(Status.UNAVAILABLE
+                        .withDescription("No usage sampled yet for job " + request.getJobId())
+                        .asException());
+                return;
+            }
+            responseObserver.onNext(toStats(request.getJobId(), sample));
+            responseObserver.onCompleted();
+        } catch (Exception e) {
+            responseObserver.onError(Status.INTERNAL
+                    .withDescription("Failed to get job stats: " + e.getMessage())
                     .asException());
+        }
+    }
+
+    @Override
+    public void watchJobStats(JobIdRequest request, StreamObserver<JobStats> responseObserver) {
+        var finished = finishedStats(request.getJobId());
+        if (finished != null) {
+            responseObserver.onNext(finished);
+            responseObserver.onCompleted();
             return;
         }
+        var containerId = containerFor(request.getJobId(), responseObserver);
+        if (containerId == null) return;
+
+        var serverObserver = (ServerCallStreamObserver<JobStats>) responseObserver;
+        var stop = new AtomicReference<Runnable>(() -> {});
+        serverObserver.setOnCancelHandler(() -> stop.get().run());
+        stop.set(orchestrator.watchStats(containerId,
+                sample -> {
+                    if (!serverObserver.isCancelled()) {
+                        serverObserver.onNext(toStats(request.getJobId(), sample));
+                    }
+                },
+                // The container exited; its terminal status may still need building, which can block.
+                () -> Thread.ofVirtual().start(() -> {
+                    if (serverObserver.isCancelled()) return;
+                    try {
+                        fetchStatus(request.getJobId());
+                        var totals = finishedStats(request.getJobId());
+                        if (totals != null) {
+                            serverObserver.onNext(totals);
+                        }
+                        serverObserver.onCompleted();
+                    } catch (RuntimeException e) {
+                        serverObserver.onError(Status.INTERNAL
+                                .withDescription("Failed to get job stats: " + e.getMessage())
+                                .asException());
+                    }
+                })));
+        if (serverObserver.isCancelled()) {
+            stop.get().run();
+        }
+    }
+
+    /** The totals of a finished job, or {@code null} if it is unknown or still live. */
+    private JobStats finishedStats(String jobId) {
+        var entry = registry.find(jobId);
+        JobStatus status;
+        if (entry != null) {
+            status = entry.terminalStatus();
+        } else {
+            var archived = registry.findArchived(jobId);
+            status = archived != null ? archived.status() : null;
+        }
+        if (status == null) {
+            return null;
+        }
+        var stats = JobStats.newBuilder()
+                .setJobId(jobId)
+                .setRunning(false);
+        if (status.hasCompleted()) {
+            var completed = status.getCompleted();
+            if (completed.hasPeakMemoryBytes()) {
+                stats.setPeakMemoryBytes(completed.getPeakMemoryBytes());
+            }
+            if (completed.hasCpuTimeNanos()) {
+                stats.setCpuTimeNanos(completed.getCpuTimeNanos());
+            }
+        }
+        return stats.build();
+    }
+
+    private static JobStats toStats(String jobId, ContainerStats sample) {
+        return JobStats.newBuilder()
+                .setJobId(jobId)
+                .setRunning(true)
+                .setSampledAt(Instant.ofEpochMilli(sample.sampledAtMillis()).toString())
+                .setMemoryBytes(sample.memoryBytes())
+                .setPeakMemoryBytes(sample.peakMemoryBytes())
+                .setMemoryLimitBytes(sample.memoryLimitBytes())
+                .setCpuTimeNanos(sample.cpuTimeNanos())
+                .setCpuCores(sample.cpuCores())
+                .setBlockReadBytes(sample.blockReadBytes())
+                .setBlockWriteBytes(sample.blockWriteBytes())
+                .setNetworkRxBytes(sample.networkRxBytes())
+                .setNetworkTxBytes(sample.networkTxBytes())
+                .build();
+    }
+
+    @Override
+    public void watchJobEvents(WatchJobEventsRequest request, StreamObserver<JobEvent> responseObserver) {
+        try {
+            new JobEventStreamer((ServerCallStreamObserver<JobEvent>) responseObserver)
+                    .start(journal, request.getResumeToken());
+        } catch (JobEventJournal.StaleResumeTokenException e) {
+            responseObserver.onError(Status.OUT_OF_RANGE
+                    .withDescription(e.getMessage())
+                    .asException());
+        }
+    }
+
+    private JobStatus fetchStatus(String jobId) {
+        var entry = registry.find(jobId);
+        if (entry == null) {
+            var archived = registry.findArchived(jobId);
+            if (archived == null) {
+                return null;
+            }
+            terminalCacheHits.increment();
+            return archived.status();
+        }
+        if (entry.terminalStatus() != null) {
+            terminalCacheHits.increment();
+            return entry.terminalStatus();
+        }
+        if (entry.containerId() == null) {
+            return pendingStatus(jobId, entry);
+        }
+
+        var state = orchestrator.inspectContainer(entry.containerId());
+        if (state.isRunning() && state.systemError() == null) {
+            return toStatus(jobId, entry.containerId(), state);
+        }
+        terminalCacheMisses.increment();
+        return finalizeStatus(jobId, entry.containerId(), state);
+    }
+
+    /** Builds and freezes the terminal status of a job, at most once however many callers race. */
+    private JobStatus finalizeStatus(String jobId, String containerId, ContainerState state) {
+        var pending = new CompletableFuture<JobStatus>();
+        var existing = finalizing.putIfAbsent(jobId, pending);
+        if (existing != null) {
+            return existing.join();
+        }
+        try {
+            var entry = registry.find(jobId);
+            var status = entry != null && entry.terminalStatus() != null
+                    ? entry.terminalStatus()
+                    : registry.markTerminal(jobId, toStatus(jobId, containerId, state));
+            admission.release(jobId);
+            orchestrator.release(containerId);
+            pending.complete(status);
+            return status;
+        } catch (RuntimeException e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            finalizing.remove(jobId);
+        }
+    }
+
+    /** Status lookups for finished jobs served from the frozen terminal status. */
+    public long terminalCacheHits() {
+        return terminalCacheHits.sum();
+    }
+
+    /** Status lookups for finished jobs that had to build the terminal status. */
+    public long terminalCacheMisses() {
+        return terminalCacheMisses.sum();
+    }
+
+    private static JobStatus failedStatus(String jobId, String reason, String message) {
+        return JobStatus.newBuilder()
+                .setJobId(jobId)
+                .setSystemError(FailureDetails.newBuilder()
+                        .setReason(reason)
+                        .setMessage(String.valueOf(message))
+                        .build())
+                .build();
+    }
+
+    private static JobStatus pendingStatus(String jobId, JobEntry entry) {
+        return JobStatus.newBuilder()
+                .setJobId(jobId)
+                .setPending(PendingDetails.newBuilder()
+                        .setSubmittedAt(Instant.ofEpochMilli(entry.createdAtMillis()).toString())
+                        .build())
+                .build();
+    }
+
+    private JobStatus toStatus(String jobId, String containerId, ContainerState state) {
+        var statusBuilder = JobStatus.newBuilder()
+                .setJobId(jobId);
+
+        if (state.systemError() != null) {
+            statusBuilder.setSystemError(FailureDetails.newBuilder()
+                    .setReason("SYSTEM_ERROR")
+                    .setMessage(state.systemError())
+                    .build());
+        } else if (state.isRunning()) {
+            statusBuilder.setRunning(RunningDetails.newBuilder()
+                    .setStartedAt(Instant.now().toString())
+                    .build());
+        } else {
+            var logsBuilder = orchestrator.tailLogs(containerId, 50);
+            var completion = CompletionDetails.newBuilder()
+                    .setExitCode(state.exitCode() != null ? state.exitCode() : 0)
+                    .setOomKilled(state.oomKilled())
+                    .addAllRecentLogs(logsBuilder);
+            // Totals as of the last sample; a job that was never sampled leaves them unset rather than zero.
+            var usage = orchestrator.stats(containerId);
+            if (usage != null) {
+                completion.setPeakMemoryBytes(usage.peakMemoryBytes())
+                        .setCpuTimeNanos(usage.cpuTimeNanos());
+            }
+            statusBuilder.setCompleted(completion.build());
+        }
 
-        orchestrator.streamLogs(
-                containerId,
-                line -> responseObserver.onNext(LogChunk.newBuilder().setContent(line).build()),
-                responseObserver::onCompleted,
-                error -> responseObserver.onError(Status.INTERNAL
-                        .withDescription("Log streaming failed: " + error.getMessage())
-                        .asException())
-        );
+        return statusBuilder.build();
     }
 }
@@ -0,0 +1,147 @@
+package dev.executor.server.admission;
+
+import dev.executor.common.JobPriority;
+import dev.executor.server.orchestrator.ResourceLimits;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Starts jobs only while their resource limits fit in the remaining host capacity and queues the
+ * rest.
+ *
+ * <p>Queued jobs are admitted in strict priority order and FIFO within a priority. If the job at the
+ * head of the queue does not fit, nothing behind it is admitted either, so a large job is not starved
+ * by a stream of small ones. Admitted jobs hold their share of capacity until {@link #release} is
+ * called for them.
+ */
+public class AdmissionScheduler {
+
+    public static class QueueFullException extends Exception {
+        QueueFullException(int depth) {
+            super("Admission queue is full (" + depth + " jobs waiting)");
+        }
+    }
+
+    public static class JobTooLargeException extends Exception {
+        JobTooLargeException(String message) {
+            super(message);
+        }
+    }
+
+    private record Demand(long memoryMb, long milliCpus) {}
+
+    private record Pending(String jobId, Demand demand, Runnable launch) {}
+
+    private final AdmissionSettings settings;
+    private final Executor launcher;
+    private final long capacityMilliCpus;
+    // Indexed by rank: high, normal, low.
+    private final List<Deque<Pending>> queues = List.of(new ArrayDeque<>(), new ArrayDeque<>(), new ArrayDeque<>());
+    private final Map<String, Demand> admitted = new HashMap<>();
+    private long usedMemoryMb;
+    private long usedMilliCpus;
+    private int queued;
+
+    public AdmissionScheduler(AdmissionSettings settings, Executor launcher) {
+        this.settings = settings;
+        this.launcher = launcher;
+        this.capacityMilliCpus = Math.round(settings.hostCpus() * 1000);
+    }
+
+    /**
+     * Queues a job and runs {@code launch} on the launcher once it is admitted, which may be right
+     * away.
+     */
+    public void submit(String jobId, ResourceLimits limits, JobPriority priority, Runnable launch)
+            throws QueueFullException, JobTooLargeException {
+        var demand = demandOf(limits);
+        if (settings.hostMemoryMb() > 0 && demand.memoryMb() > settings.hostMemoryMb()) {
+            throw new JobTooLargeException("Job needs " + demand.memoryMb() + " MB but the host has "
+                    + settings.hostMemoryMb() + " MB");
+        }
+        if (capacityMilliCpus > 0 && demand.milliCpus() > capacityMilliCpus) {
+            throw new JobTooLargeException("Job needs " + demand.milliCpus() / 1000.0 + " CPUs but the host has "
+                    + settings.hostCpus());
+        }
+
+        List<Pending> ready;
+        synchronized (this) {
+            var queue = queues.get(rank(priority));
+            queue.addLast(new Pending(jobId, demand, launch));
+            queued++;
+            ready = drain();
+            if (queued > settings.maxQueueDepth() && !admitted.containsKey(jobId)) {
+                queue.pollLast();
+                queued--;
+                throw new QueueFullException(queued);
+            }
+        }
+        ready.forEach(job -> launcher.execute(job.launch()));
+    }
+
+    /** Returns the capacity held by a job and admits whatever now fits. Unknown jobs are ignored. */
+    public void release(String jobId) {
+        List<Pending> ready;
+        synchronized (this) {
+            var demand = admitted.remove(jobId);
+            if (demand == null) {
+                return;
+            }
+            usedMemoryMb -= demand.memoryMb();
+            usedMilliCpus -= demand.milliCpus();
+            ready = drain();
+        }
+        ready.forEach(job -> launcher.execute(job.launch()));
+    }
+
+    public synchronized int queuedJobs() {
+        return queued;
+    }
+
+    public synchronized int admittedJobs() {
+        return admitted.size();
+    }
+
+    private List<Pending> drain() {
+        var ready = new ArrayList<Pending>();
+        for (var queue : queues) {
+            while (!queue.isEmpty()) {
+                var head = queue.peekFirst();
+                if (!fits(head.demand())) {
+                    return ready;
+                }
+                queue.pollFirst();
+                queued--;
+                admitted.put(head.jobId(), head.demand());
+                usedMemoryMb += head.demand().memoryMb();
+                usedMilliCpus += head.demand().milliCpus();
+                ready.add(head);
+            }
+        }
+        return ready;
+    }
+
+    private boolean fits(Demand demand) {
+        return (settings.hostMemoryMb() == 0 || usedMemoryMb + demand.memoryMb() <= settings.hostMemoryMb())
+                && (capacityMilliCpus == 0 || usedMilliCpus + demand.milliCpus() <= capacityMilliCpus);
+    }
+
+    private Demand demandOf(ResourceLimits limits) {
+        var memoryMb = limits.memoryLimitMb() > 0 ? limits.memoryLimitMb() : settings.defaultJobMemoryMb();
+        var cpus = limits.cpuLimit() > 0 ? limits.cpuLimit() : settings.defaultJobCpus();
+        return new Demand(memoryMb, Math.round(cpus * 1000));
+    }
+
+    private static int rank(JobPriority priority) {
+        return switch (priority) {
+            case JOB_PRIORITY_HIGH -> 0;
+            case JOB_PRIORITY_LOW -> 2;
+            default -> 1;
+        };
+    }
+}
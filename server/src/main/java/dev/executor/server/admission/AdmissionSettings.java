@@ -0,0 +1,25 @@
+package dev.executor.server.admission;
+
+/**
+ * Host capacity that admitted jobs are accounted against. Jobs reserve the memory and CPU limits
+ * docker enforces on their containers; a job without a limit is charged the per-job default for that
+ * resource, zero unless configured. A host capacity of zero leaves that resource unaccounted.
+ */
+public record AdmissionSettings(
+    long hostMemoryMb,
+    double hostCpus,
+    int maxQueueDepth,
+    int defaultJobMemoryMb,
+    double defaultJobCpus
+) {
+
+    public AdmissionSettings {
+        if (hostMemoryMb < 0 || hostCpus < 0 || maxQueueDepth < 0 || defaultJobMemoryMb < 0 || defaultJobCpus < 0) {
+            throw new IllegalArgumentException("Admission settings must not be negative");
+        }
+    }
+
+    public static AdmissionSettings unlimited() {
+        return new AdmissionSettings(0, 0, 0, 0, 0);
+    }
+}
@@ -0,0 +1,413 @@
+package dev.executor.server.logs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Append-only, on-disk copy of every container's output, kept after the container is gone.
+ *
+ * <p>Each container gets a directory of segment files named after the offset of their first byte
+ * ({@code 00000000000000000000.log}, ...), holding the raw output of both streams in the order it was
+ * written. {@code streams.idx} records {@code [long offset][byte stream]} wherever the stream changes,
+ * and a {@code complete} marker is written once the container's log stream ended. Reads map segments
+ * into memory and hand out slices of the mapping, so archived output reaches the transport without
+ * being copied onto the heap.
+ *
+ * <p>Once the archive is over {@link LogArchiveSettings#maxBytes()}, the directories of the
+ * containers that completed longest ago are deleted. Containers still being written are never
+ * deleted. Archives a previous server left without a {@code complete} marker, e.g. after a crash,
+ * are deleted along with completed ones, by when they were last written, unless output for them
+ * arrives again.
+ */
+public class LogArchive implements AutoCloseable {
+
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String STREAMS_FILE = "streams.idx";
+    private static final String COMPLETE_MARKER = "complete";
+    private static final int RUN_BYTES = Long.BYTES + 1;
+    private static final int TAIL_WINDOW_BYTES = 256 * 1024;
+    private static final LogFrame.Stream[] STREAMS = LogFrame.Stream.values();
+
+    private final LogArchiveSettings settings;
+    private final Map<String, Writer> writers = new ConcurrentHashMap<>();
+    private final Set<String> complete = ConcurrentHashMap.newKeySet();
+    // Containers retention may delete, least recently finished first, with their size on disk.
+    private final LinkedHashMap<String, Long> completed = new LinkedHashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    private LogArchive(LogArchiveSettings settings) {
+        this.settings = settings;
+    }
+
+    public static LogArchive open(LogArchiveSettings settings) throws IOException {
+        Files.createDirectories(settings.directory());
+        var archive = new LogArchive(settings);
+        List<Path> directories;
+        try (var entries = Files.list(settings.directory())) {
+            directories = entries.filter(Files::isDirectory).toList();
+        }
+        var finished = new ArrayList<Path>();
+        for (var directory : directories) {
+            archive.totalBytes.addAndGet(sizeOf(directory));
+            if (Files.exists(directory.resolve(COMPLETE_MARKER))) {
+                archive.complete.add(directory.getFileName().toString());
+            }
+            finished.add(directory);
+        }
+        finished.sort(Comparator.comparing(LogArchive::lastWrittenAt));
+        for (var directory : finished) {
+            archive.completed.put(directory.getFileName().toString(), sizeOf(directory));
+        }
+        archive.enforceRetention();
+        return archive;
+    }
+
+    public LogArchiveSettings settings() {
+        return settings;
+    }
+
+    /**
+     * Appends output that starts at {@code offset}. Output already archived, e.g. replayed by a new
+     * follower after a restart, is skipped.
+     */
+    public void append(String containerId, long offset, LogFrame frame) throws IOException {
+        writers.computeIfAbsent(containerId, id -> {
+            // Output for an archive left unfinished: it is being written again, so keep it.
+            synchronized (completed) {
+                completed.remove(id);
+            }
+            return new Writer(directory(id));
+        }).append(offset, frame);
+    }
+
+    /** Records that the container's log stream ended, making its archive eligible for retention. */
+    public void complete(String containerId) throws IOException {
+        var writer = writers.remove(containerId);
+        if (writer != null) {
+            writer.close();
+        }
+        var directory = directory(containerId);
+        Files.createDirectories(directory);
+        Files.write(directory.resolve(COMPLETE_MARKER), new byte[0]);
+        complete.add(containerId);
+        synchronized (completed) {
+            completed.remove(containerId);
+            completed.put(containerId, sizeOf(directory));
+        }
+        enforceRetention();
+    }
+
+    public boolean isComplete(String containerId) {
+        return complete.contains(containerId);
+    }
+
+    /** Opens a reader over a container's archived output; it sees output appended after it was opened. */
+    public Reader reader(String containerId) {
+        return new Reader(directory(containerId));
+    }
+
+    /** Returns the last lines of a container's archived output. */
+    public List<String> tail(String containerId, int lines) throws IOException {
+        var reader = reader(containerId);
+        var end = reader.end();
+        var start = Math.max(0, end - TAIL_WINDOW_BYTES);
+        var output = new ByteArrayOutputStream();
+        for (var offset = start; offset < end; ) {
+            var read = reader.read(offset, Integer.MAX_VALUE);
+            if (read == null) break;
+            var data = new byte[read.data().remaining()];
+            read.data().get(data);
+            output.writeBytes(data);
+            offset += data.length;
+        }
+        return LogHub.lastLines(output.toString(StandardCharsets.UTF_8), lines, start > 0);
+    }
+
+    /** Archived output of all containers, in bytes. */
+    public long totalBytes() {
+        return totalBytes.get();
+    }
+
+    @Override
+    public void close() {
+        writers.values().forEach(Writer::close);
+        writers.clear();
+    }
+
+    private Path directory(String containerId) {
+        return settings.directory().resolve(containerId);
+    }
+
+    private void enforceRetention() {
+        while (totalBytes.get() > settings.maxBytes()) {
+            Map.Entry<String, Long> oldest;
+            synchronized (completed) {
+                var iterator = completed.entrySet().iterator();
+                if (!iterator.hasNext()) return;
+                oldest = iterator.next();
+                iterator.remove();
+            }
+            complete.remove(oldest.getKey());
+            try {
+                deleteRecursively(directory(oldest.getKey()));
+            } catch (IOException e) {
+                System.err.println("Failed to delete archived logs of " + oldest.getKey() + ": " + e.getMessage());
+            }
+            totalBytes.addAndGet(-oldest.getValue());
+        }
+    }
+
+    /** When the container completed, or for an unfinished archive, when its output was last written. */
+    private static long lastWrittenAt(Path directory) {
+        try {
+            var marker = directory.resolve(COMPLETE_MARKER);
+            if (Files.exists(marker)) {
+                return Files.getLastModifiedTime(marker).toMillis();
+            }
+            var starts = segmentStarts(directory);
+            var last = starts.isEmpty() ? directory : segment(directory, starts.getLast());
+            return Files.getLastModifiedTime(last).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /** Bytes of output archived in a container's segments. */
+    private static long sizeOf(Path directory) throws IOException {
+        var size = 0L;
+        for (var start : segmentStarts(directory)) {
+            size += Files.size(segment(directory, start));
+        }
+        return size;
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        if (!Files.exists(directory)) return;
+        try (var files = Files.list(directory)) {
+            for (var file : files.toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    private static List<Long> segmentStarts(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static Path segment(Path directory, long start) {
+        return directory.resolve(String.format("%020d%s", start, SEGMENT_SUFFIX));
+    }
+
+    /** Stream changes as parallel arrays of starting offsets and streams. */
+    private record Runs(long[] offsets, LogFrame.Stream[] streams) {
+
+        static Runs load(Path directory, long end) throws IOException {
+            var path = directory.resolve(STREAMS_FILE);
+            if (!Files.exists(path)) {
+                return new Runs(new long[0], new LogFrame.Stream[0]);
+            }
+            var bytes = ByteBuffer.wrap(Files.readAllBytes(path));
+            var count = bytes.remaining() / RUN_BYTES;
+            var offsets = new long[count];
+            var streams = new LogFrame.Stream[count];
+            var kept = 0;
+            for (int i = 0; i < count; i++) {
+                var offset = bytes.getLong();
+                var stream = STREAMS[bytes.get()];
+                if (offset < end) {
+                    offsets[kept] = offset;
+                    streams[kept++] = stream;
+                }
+            }
+            return new Runs(Arrays.copyOf(offsets, kept), Arrays.copyOf(streams, kept));
+        }
+
+        /** Index of the run holding {@code offset}, or -1 if it precedes every run. */
+        int find(long offset) {
+            var index = Arrays.binarySearch(offsets, offset);
+            return index >= 0 ? index : -index - 2;
+        }
+
+        long endOf(int run) {
+            return run + 1 < offsets.length ? offsets[run + 1] : Long.MAX_VALUE;
+        }
+    }
+
+    /** Reads one container's archive, keeping the segment it last read mapped. */
+    public final class Reader {
+        private final Path directory;
+        private List<Long> starts = List.of();
+        private Runs runs = new Runs(new long[0], new LogFrame.Stream[0]);
+        private long end;
+        private MappedByteBuffer mapped;
+        private long mappedStart;
+
+        private Reader(Path directory) {
+            this.directory = directory;
+        }
+
+        /** Offset after the last archived byte. */
+        public synchronized long end() throws IOException {
+            refresh();
+            return end;
+        }
+
+        /**
+         * Reads up to {@code maxBytes} of archived output from a single stream, starting at
+         * {@code offset}, as a read-only slice of the mapped segment. Returns {@code null} if nothing
+         * is archived at that offset.
+         */
+        public synchronized LogSubscription.Read read(long offset, int maxBytes) throws IOException {
+            if (offset >= end) {
+                refresh();
+                if (offset >= end) return null;
+            }
+            if (mapped == null || offset < mappedStart || offset >= mappedStart + mapped.capacity()) {
+                if (!map(offset)) return null;
+            }
+            var run = runs.find(offset);
+            if (run < 0) return null;
+
+            var length = (int) Math.min(maxBytes,
+                    Math.min(mappedStart + mapped.capacity(), runs.endOf(run)) - offset);
+            var data = mapped.slice((int) (offset - mappedStart), length).asReadOnlyBuffer();
+            return new LogSubscription.Read(runs.streams()[run], offset, data, 0);
+        }
+
+        private void refresh() throws IOException {
+            starts = segmentStarts(directory);
+            end = starts.isEmpty() ? 0 : starts.getLast() + Files.size(segment(directory, starts.getLast()));
+            runs = Runs.load(directory, end);
+        }
+
+        private boolean map(long offset) throws IOException {
+            var index = Collections.binarySearch(starts, offset);
+            index = index >= 0 ? index : -index - 2;
+            if (index < 0) return false;
+            var start = starts.get(index);
+            try (var channel = FileChannel.open(segment(directory, start), StandardOpenOption.READ)) {
+                var size = channel.size();
+                if (offset >= start + size) return false;
+                // An active segment is mapped as far as it is written; later reads remap it.
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                mappedStart = start;
+                return true;
+            }
+        }
+    }
+
+    private final class Writer {
+        private final Path directory;
+        private FileChannel segment;
+        private FileChannel runs;
+        private long segmentStart;
+        private long end = -1;
+        private LogFrame.Stream lastStream;
+
+        Writer(Path directory) {
+            this.directory = directory;
+        }
+
+        synchronized void append(long offset, LogFrame frame) throws IOException {
+            if (end < 0) {
+                recover();
+            }
+            var data = frame.data();
+            var skip = end - offset;
+            if (skip >= data.length) return;
+            if (skip < 0) {
+                throw new IOException("Archived output of " + directory.getFileName() + " ends at " + end
+                        + " but the next frame starts at " + offset);
+            }
+
+            if (frame.stream() != lastStream) {
+                var run = ByteBuffer.allocate(RUN_BYTES).putLong(end).put((byte) frame.stream().ordinal()).flip();
+                while (run.hasRemaining()) {
+                    runs.write(run);
+                }
+                lastStream = frame.stream();
+            }
+
+            var buffer = ByteBuffer.wrap(data, (int) skip, data.length - (int) skip);
+            while (buffer.hasRemaining()) {
+                if (segment == null || end - segmentStart >= settings.segmentBytes()) {
+                    roll();
+                }
+                var room = (int) Math.min(buffer.remaining(), settings.segmentBytes() - (end - segmentStart));
+                var piece = buffer.slice(buffer.position(), room);
+                while (piece.hasRemaining()) {
+                    segment.write(piece);
+                }
+                buffer.position(buffer.position() + room);
+                end += room;
+                totalBytes.addAndGet(room);
+            }
+        }
+
+        /** Picks up where a previous server left this container's archive. */
+        private void recover() throws IOException {
+            Files.createDirectories(directory);
+            var starts = segmentStarts(directory);
+            end = 0;
+            if (!starts.isEmpty()) {
+                segmentStart = starts.getLast();
+                segment = FileChannel.open(segment(directory, segmentStart), StandardOpenOption.WRITE);
+                end = segmentStart + segment.size();
+                segment.position(segment.size());
+            }
+            var loaded = Runs.load(directory, end);
+            runs = FileChannel.open(directory.resolve(STREAMS_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            // Drop torn or stale entries so the file again ends with the run covering the end.
+            runs.truncate((long) loaded.offsets().length * RUN_BYTES);
+            runs.position(runs.size());
+            lastStream = loaded.streams().length > 0 ? loaded.streams()[loaded.streams().length - 1] : null;
+        }
+
+        private void roll() throws IOException {
+            if (segment != null) {
+                segment.close();
+            }
+            segmentStart = end;
+            segment = FileChannel.open(segment(directory, segmentStart),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        }
+
+        synchronized void close() {
+            try {
+                if (segment != null) segment.close();
+                if (runs != null) runs.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close archived logs of " + directory.getFileName() + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package dev.executor.server.logs;
+
+import java.nio.file.Path;
+
+/**
+ * Where and how much container output is archived: segments of at most {@code segmentBytes} under
+ * {@code directory}, with the oldest finished containers deleted once the archive exceeds
+ * {@code maxBytes}. With {@code removeFinishedContainers} a container is removed as soon as its output
+ * is fully archived and its job's status is recorded.
+ */
+public record LogArchiveSettings(Path directory, long maxBytes, int segmentBytes, boolean removeFinishedContainers) {
+
+    public LogArchiveSettings {
+        if (segmentBytes < 4096) {
+            throw new IllegalArgumentException("Log segments must be at least 4096 bytes, got " + segmentBytes);
+        }
+    }
+
+    public static LogArchiveSettings defaults(Path directory) {
+        return new LogArchiveSettings(directory, 1024L * 1024 * 1024, 8 * 1024 * 1024, false);
+    }
+}
@@ -0,0 +1,21 @@
+package dev.executor.server.logs;
+
+import java.time.Duration;
+
+/**
+ * Sizing for per-container log buffers: each buffer keeps at most {@code bytesPerContainer} of the
+ * most recent output, applies {@code overflow} to readers that fall behind, and is released
+ * {@code linger} after its container's log stream ends.
+ */
+public record LogBufferSettings(int bytesPerContainer, Duration linger, LogOverflowPolicy overflow) {
+
+    public LogBufferSettings {
+        if (bytesPerContainer < 1024) {
+            throw new IllegalArgumentException("Log buffers must be at least 1024 bytes, got " + bytesPerContainer);
+        }
+    }
+
+    public static LogBufferSettings defaults() {
+        return new LogBufferSettings(1024 * 1024, Duration.ofMinutes(1), LogOverflowPolicy.DROP);
+    }
+}
@@ -0,0 +1,7 @@
+package dev.executor.server.logs;
+
+/** A piece of a container's output as the daemon delivered it; not necessarily a whole line. */
+public record LogFrame(Stream stream, byte[] data) {
+
+    public enum Stream { STDOUT, STDERR }
+}
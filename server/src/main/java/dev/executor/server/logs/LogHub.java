@@ -0,0 +1,486 @@
+package dev.executor.server.logs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Shares one log follower per container between every reader of its logs.
+ *
+ * <p>The first subscribe or tail for a container starts following its log stream into a
+ * {@link LogRingBuffer}. Each subscriber holds its own cursor and pulls at its own pace; a slow
+ * subscriber costs no memory beyond the shared buffer. What happens when a subscriber falls a whole
+ * buffer behind is set by the {@link LogOverflowPolicy}. Once the stream ends the buffer lingers for
+ * late readers and is then released.
+ *
+ * <p>Frames are buffered as {@code [stream][offset][bytes]}, so readers can start at any byte offset
+ * still in the buffer and read output exactly as the container wrote it.
+ *
+ * <p>With a {@link LogArchive}, every frame is also written to disk. Readers behind the buffer continue
+ * from the archive instead of losing output, and containers whose stream completed are served from
+ * the archive alone, without following the container again.
+ */
+public class LogHub implements AutoCloseable {
+
+    public interface LogSource {
+        /** Follows a container's output from the beginning until the container exits. */
+        void follow(String containerId, Consumer<LogFrame> onFrame, Runnable onComplete, Consumer<Throwable> onError);
+    }
+
+    private static final int FRAME_PREFIX_BYTES = 1 + Long.BYTES;
+    private static final LogFrame.Stream[] STREAMS = LogFrame.Stream.values();
+
+    private final LogSource source;
+    private final LogBufferSettings settings;
+    private final LogArchive archive;
+    private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService reaper = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("log-buffer-reaper").daemon().factory());
+    private volatile boolean closed;
+
+    public LogHub(LogSource source, LogBufferSettings settings) {
+        this(source, settings, null);
+    }
+
+    public LogHub(LogSource source, LogBufferSettings settings, LogArchive archive) {
+        this.source = source;
+        this.settings = settings;
+        this.archive = archive;
+    }
+
+    /**
+     * Opens a cursor at byte offset {@code startOffset} of a container's output. {@code onData} is
+     * called, on the follower's thread, whenever new output arrives or the stream ends.
+     */
+    public LogSubscription subscribe(String containerId, long startOffset, Runnable onData) {
+        if (isArchived(containerId)) {
+            return new ArchivedCursor(archive.reader(containerId), startOffset);
+        }
+        return channel(containerId).open(startOffset, onData);
+    }
+
+    /** Starts following a container right away, so all of its output reaches the archive. */
+    public void follow(String containerId) {
+        if (archive != null && !isArchived(containerId)) {
+            channel(containerId);
+        }
+    }
+
+    /**
+     * Runs {@code action} once the container's output is completely archived; never runs it if there
+     * is no archive or archiving fails.
+     */
+    public void whenArchived(String containerId, Runnable action) {
+        if (archive == null) return;
+        if (isArchived(containerId)) {
+            action.run();
+        } else {
+            channel(containerId).runWhenArchived(action);
+        }
+    }
+
+    /**
+     * Returns the last lines buffered for a container, first waiting up to {@code awaitEnd} for its
+     * log stream to end so output of an exited container is complete.
+     */
+    public List<String> tail(String containerId, int lines, Duration awaitEnd) {
+        if (isArchived(containerId)) {
+            try {
+                return archive.tail(containerId, lines);
+            } catch (IOException e) {
+                System.err.println("Failed to read archived logs of " + containerId + ": " + e.getMessage());
+                return List.of();
+            }
+        }
+        var channel = channel(containerId);
+        try {
+            channel.ended.await(awaitEnd.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        var output = new ByteArrayOutputStream();
+        synchronized (channel) {
+            var buffer = channel.buffer;
+            for (var record : buffer.read(buffer.head(), Integer.MAX_VALUE).records()) {
+                output.write(record, FRAME_PREFIX_BYTES, record.length - FRAME_PREFIX_BYTES);
+            }
+        }
+        return lastLines(output.toString(StandardCharsets.UTF_8), lines, false);
+    }
+
+    /** The last {@code lines} lines of {@code text}, leaving out the first one if it is partial. */
+    static List<String> lastLines(String text, int lines, boolean partialFirst) {
+        if (text.isEmpty()) {
+            return List.of();
+        }
+        var all = text.split("\n");
+        var from = Math.min(all.length, Math.max(partialFirst ? 1 : 0, all.length - lines));
+        return Arrays.stream(all, from, all.length)
+                .map(String::stripTrailing)
+                .toList();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        reaper.shutdownNow();
+        channels.values().forEach(channel -> channel.finish(null, false));
+        channels.clear();
+    }
+
+    private boolean isArchived(String containerId) {
+        return archive != null && archive.isComplete(containerId);
+    }
+
+    private Channel channel(String containerId) {
+        var created = new Channel[1];
+        var channel = channels.computeIfAbsent(containerId, id -> created[0] = new Channel(id));
+        if (created[0] != null) {
+            try {
+                source.follow(containerId, channel::onFrame, () -> channel.end(null), channel::end);
+            } catch (RuntimeException e) {
+                channel.end(e);
+            }
+        }
+        return channel;
+    }
+
+    private final class Channel {
+        final String containerId;
+        final LogRingBuffer buffer = new LogRingBuffer(settings.bytesPerContainer());
+        final List<Cursor> cursors = new ArrayList<>();
+        final CountDownLatch ended = new CountDownLatch(1);
+        final List<Runnable> onArchived = new ArrayList<>();
+        long nextOffset;
+        boolean finished;
+        boolean archiveFailed;
+        boolean archived;
+        Throwable error;
+
+        Channel(String containerId) {
+            this.containerId = containerId;
+        }
+
+        void onFrame(LogFrame frame) {
+            List<Cursor> readers;
+            synchronized (this) {
+                archive(frame);
+                // Split large frames so no record is ever truncated by the ring.
+                var maxPiece = settings.bytesPerContainer() / 4;
+                var data = frame.data();
+                for (int from = 0; from < data.length; from += maxPiece) {
+                    var length = Math.min(maxPiece, data.length - from);
+                    var record = ByteBuffer.allocate(FRAME_PREFIX_BYTES + length)
+                            .put((byte) frame.stream().ordinal())
+                            .putLong(nextOffset)
+                            .put(data, from, length)
+                            .array();
+                    if (settings.overflow() == LogOverflowPolicy.PAUSE_FOLLOWER) {
+                        awaitSlowestReader(record.length);
+                    }
+                    buffer.append(record);
+                    nextOffset += length;
+                }
+                readers = List.copyOf(cursors);
+            }
+            readers.forEach(Cursor::signal);
+        }
+
+        private void archive(LogFrame frame) {
+            if (archive == null || archiveFailed) return;
+            try {
+                archive.append(containerId, nextOffset, frame);
+            } catch (IOException e) {
+                archiveFailed = true;
+                System.err.println("Failed to archive logs of " + containerId + ": " + e.getMessage());
+            }
+        }
+
+        void runWhenArchived(Runnable action) {
+            synchronized (this) {
+                if (!finished) {
+                    onArchived.add(action);
+                    return;
+                }
+                if (!archived) return;
+            }
+            action.run();
+        }
+
+        /** Blocks the follower while appending would overwrite output a reader has not read yet. */
+        private void awaitSlowestReader(int length) {
+            var interrupted = false;
+            while (!finished && !closed && slowestPosition() < buffer.overwrittenBefore(length)) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private long slowestPosition() {
+            var slowest = Long.MAX_VALUE;
+            for (var cursor : cursors) {
+                // A reader waiting for output beyond what has been written holds nothing back.
+                if (cursor.offset < nextOffset) {
+                    slowest = Math.min(slowest, cursor.position);
+                }
+            }
+            return slowest;
+        }
+
+        synchronized Cursor open(long startOffset, Runnable onData) {
+            var cursor = new Cursor(this, buffer.head(), startOffset, onData);
+            cursor.skipConsumed();
+            if (!finished) {
+                cursors.add(cursor);
+            }
+            return cursor;
+        }
+
+        void end(Throwable failure) {
+            finish(failure, failure == null);
+        }
+
+        /** Ends the channel; {@code complete} means the container's whole output was received. */
+        void finish(Throwable failure, boolean complete) {
+            List<Cursor> readers;
+            List<Runnable> archivedActions;
+            synchronized (this) {
+                if (finished) return;
+                finished = true;
+                error = failure;
+                readers = List.copyOf(cursors);
+                cursors.clear();
+                archivedActions = complete && completeArchive() ? List.copyOf(onArchived) : List.of();
+                onArchived.clear();
+                notifyAll();
+            }
+            ended.countDown();
+            readers.forEach(Cursor::signal);
+            archivedActions.forEach(Runnable::run);
+            try {
+                reaper.schedule(() -> channels.remove(containerId, this),
+                        settings.linger().toMillis(), TimeUnit.MILLISECONDS);
+            } catch (RuntimeException e) {
+                channels.remove(containerId, this);
+            }
+        }
+
+        private boolean completeArchive() {
+            if (archive == null || archiveFailed) return false;
+            try {
+                archive.complete(containerId);
+                archived = true;
+                return true;
+            } catch (IOException e) {
+                archiveFailed = true;
+                System.err.println("Failed to complete archived logs of " + containerId + ": " + e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    private static long offsetOf(byte[] record) {
+        return ByteBuffer.wrap(record, 1, Long.BYTES).getLong();
+    }
+
+    private final class Cursor implements LogSubscription {
+        private final Channel channel;
+        private final Runnable onData;
+        private LogArchive.Reader archiveReader;
+        // Ring position of the frame holding offset, and the next output byte to deliver.
+        private long position;
+        private long offset;
+        private volatile boolean closed;
+
+        Cursor(Channel channel, long position, long offset, Runnable onData) {
+            this.channel = channel;
+            this.position = position;
+            this.offset = offset;
+            this.onData = onData;
+        }
+
+        @Override
+        public Read read(int maxBytes) {
+            synchronized (channel) {
+                skipConsumed();
+                var buffer = channel.buffer;
+                var oldest = buffer.head() < buffer.tail() ? offsetOf(buffer.recordAt(buffer.head())) : channel.nextOffset;
+                if (archive != null && offset < oldest) {
+                    var read = readArchived((int) Math.min(maxBytes, oldest - offset));
+                    if (read != null) {
+                        offset += read.data().remaining();
+                        return read;
+                    }
+                }
+                var data = new ByteArrayOutputStream();
+                LogFrame.Stream stream = null;
+                var start = offset;
+                var dropped = 0L;
+                while (position < buffer.tail()) {
+                    var record = buffer.recordAt(position);
+                    var recordStream = STREAMS[record[0]];
+                    var recordOffset = offsetOf(record);
+                    var length = record.length - FRAME_PREFIX_BYTES;
+                    var skip = 0;
+                    if (stream == null) {
+                        // The first frame may start before the cursor (resume mid-frame) or after it
+                        // (output in between was overwritten).
+                        stream = recordStream;
+                        dropped = Math.max(0, recordOffset - offset);
+                        start = Math.max(offset, recordOffset);
+                        skip = (int) (start - recordOffset);
+                    } else if (recordStream != stream || data.size() + length > maxBytes) {
+                        break;
+                    }
+                    data.write(record, FRAME_PREFIX_BYTES + skip, length - skip);
+                    offset = recordOffset + length;
+                    position += LogRingBuffer.HEADER_BYTES + record.length;
+                }
+                channel.notifyAll();
+                return stream == null ? null : new Read(stream, start, ByteBuffer.wrap(data.toByteArray()), dropped);
+            }
+        }
+
+        /** Reads output that has left the buffer back from the archive. */
+        private Read readArchived(int maxBytes) {
+            try {
+                if (archiveReader == null) {
+                    archiveReader = archive.reader(channel.containerId);
+                }
+                return archiveReader.read(offset, maxBytes);
+            } catch (IOException e) {
+                System.err.println("Failed to read archived logs of " + channel.containerId + ": " + e.getMessage());
+                return null;
+            }
+        }
+
+        /** Moves past frames that end at or before the offset, e.g. after a resume. */
+        private void skipConsumed() {
+            var buffer = channel.buffer;
+            if (position < buffer.head()) {
+                position = buffer.head();
+            }
+            while (position < buffer.tail()) {
+                var record = buffer.recordAt(position);
+                var recordEnd = offsetOf(record) + record.length - FRAME_PREFIX_BYTES;
+                if (recordEnd > offset) {
+                    return;
+                }
+                position += LogRingBuffer.HEADER_BYTES + record.length;
+            }
+        }
+
+        @Override
+        public long available() {
+            synchronized (channel) {
+                return Math.max(0, channel.nextOffset - offset);
+            }
+        }
+
+        @Override
+        public boolean streamEnded() {
+            synchronized (channel) {
+                return channel.finished;
+            }
+        }
+
+        @Override
+        public Throwable error() {
+            synchronized (channel) {
+                return channel.error;
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            synchronized (channel) {
+                channel.cursors.remove(this);
+                channel.notifyAll();
+            }
+        }
+
+        void signal() {
+            if (closed) return;
+            try {
+                onData.run();
+            } catch (RuntimeException e) {
+                close();
+            }
+        }
+    }
+
+    /** Reads a container whose output is completely archived. */
+    private static final class ArchivedCursor implements LogSubscription {
+        private final LogArchive.Reader reader;
+        private long offset;
+        private long end = -1;
+        private volatile Throwable error;
+
+        ArchivedCursor(LogArchive.Reader reader, long offset) {
+            this.reader = reader;
+            this.offset = offset;
+        }
+
+        @Override
+        public synchronized Read read(int maxBytes) {
+            try {
+                var read = reader.read(offset, maxBytes);
+                if (read != null) {
+                    offset += read.data().remaining();
+                }
+                return read;
+            } catch (IOException e) {
+                error = e;
+                return null;
+            }
+        }
+
+        @Override
+        public synchronized long available() {
+            if (error != null) return 0;
+            try {
+                if (end < 0) {
+                    end = reader.end();
+                }
+                return Math.max(0, end - offset);
+            } catch (IOException e) {
+                error = e;
+                return 0;
+            }
+        }
+
+        @Override
+        public boolean streamEnded() {
+            return true;
+        }
+
+        @Override
+        public Throwable error() {
+            return error;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package dev.executor.server.logs;
+
+/** What a log buffer does when a reader falls a full buffer behind the container's output. */
+public enum LogOverflowPolicy {
+    /** Overwrite the oldest output; the lagging reader is told how many bytes it missed. */
+    DROP,
+    /** Stop reading from the container until the slowest reader catches up. */
+    PAUSE_FOLLOWER
+}
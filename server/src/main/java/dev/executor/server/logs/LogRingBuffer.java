@@ -0,0 +1,155 @@
+package dev.executor.server.logs;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Byte-capped ring of log records on the heap.
+ *
+ * <p>The buffer starts small and doubles as output arrives, up to its capacity, so the many
+ * containers that write little cost little. Records are stored as {@code [int length][bytes]} and
+ * addressed by absolute positions that only ever grow, so a reader can keep a cursor across
+ * appends. When a new record does not fit, the oldest records are dropped; a cursor that falls
+ * behind the oldest retained record resumes from it. Records longer than the buffer are truncated.
+ */
+final class LogRingBuffer {
+
+    static final int HEADER_BYTES = 4;
+    static final int INITIAL_BYTES = 4096;
+
+    record Batch(List<byte[]> records, long next, long skippedBytes) {}
+
+    private final int capacity;
+    private byte[] buffer;
+    private final byte[] header = new byte[HEADER_BYTES];
+    private long head;
+    private long tail;
+    private int records;
+
+    LogRingBuffer(int capacity) {
+        this(capacity, INITIAL_BYTES);
+    }
+
+    LogRingBuffer(int capacity, int initialBytes) {
+        this.capacity = capacity;
+        this.buffer = new byte[Math.min(capacity, initialBytes)];
+    }
+
+    /** Appends a record and returns the position after it. */
+    synchronized long append(byte[] data) {
+        var length = Math.min(data.length, capacity - HEADER_BYTES);
+        var needed = HEADER_BYTES + length;
+        if (tail + needed - head > buffer.length && buffer.length < capacity) {
+            grow(tail + needed - head);
+        }
+        while (tail + needed - head > buffer.length) {
+            head += HEADER_BYTES + readInt(head);
+            records--;
+        }
+        writeInt(tail, length);
+        write(tail + HEADER_BYTES, data, length);
+        tail += needed;
+        records++;
+        return tail;
+    }
+
+    /**
+     * Reads records starting at {@code from}: always the first available one, then more while they
+     * fit in {@code maxBytes}.
+     */
+    synchronized Batch read(long from, int maxBytes) {
+        var position = Math.max(from, head);
+        var result = new ArrayList<byte[]>();
+        var bytes = 0L;
+        while (position < tail) {
+            var length = readInt(position);
+            if (!result.isEmpty() && bytes + length > maxBytes) {
+                break;
+            }
+            result.add(copy(position + HEADER_BYTES, length));
+            bytes += length;
+            position += HEADER_BYTES + length;
+        }
+        return new Batch(result, position, Math.max(0, head - from));
+    }
+
+    /** Returns the record starting at {@code position}, which must be a retained record boundary. */
+    synchronized byte[] recordAt(long position) {
+        return copy(position + HEADER_BYTES, readInt(position));
+    }
+
+    /** Returns the newest {@code count} records, oldest first. */
+    synchronized List<byte[]> last(int count) {
+        var position = head;
+        for (int skip = records - count; skip > 0; skip--) {
+            position += HEADER_BYTES + readInt(position);
+        }
+        return read(position, Integer.MAX_VALUE).records();
+    }
+
+    /** Cursors before the returned position would lose data if a record of {@code length} bytes were appended. */
+    synchronized long overwrittenBefore(int length) {
+        return Math.max(head, tail + HEADER_BYTES + Math.min(length, capacity - HEADER_BYTES) - capacity);
+    }
+
+    synchronized long head() {
+        return head;
+    }
+
+    synchronized long tail() {
+        return tail;
+    }
+
+    /** Bytes currently allocated, which only grows toward the capacity. */
+    synchronized int allocated() {
+        return buffer.length;
+    }
+
+    /** Reallocates to fit {@code needed} bytes, or the capacity, and lays the retained records out anew. */
+    private void grow(long needed) {
+        var size = (long) buffer.length;
+        while (size < needed && size < capacity) {
+            size = Math.min(capacity, size * 2);
+        }
+        var grown = new byte[(int) size];
+        for (var position = head; position < tail; ) {
+            var index = (int) (position % buffer.length);
+            var length = (int) Math.min(tail - position, buffer.length - index);
+            var target = (int) (position % grown.length);
+            var first = Math.min(length, grown.length - target);
+            System.arraycopy(buffer, index, grown, target, first);
+            System.arraycopy(buffer, index + first, grown, 0, length - first);
+            position += length;
+        }
+        buffer = grown;
+    }
+
+    private void writeInt(long position, int value) {
+        header[0] = (byte) (value >>> 24);
+        header[1] = (byte) (value >>> 16);
+        header[2] = (byte) (value >>> 8);
+        header[3] = (byte) value;
+        write(position, header, HEADER_BYTES);
+    }
+
+    private int readInt(long position) {
+        var bytes = copy(position, HEADER_BYTES);
+        return (bytes[0] & 0xFF) << 24 | (bytes[1] & 0xFF) << 16 | (bytes[2] & 0xFF) << 8 | (bytes[3] & 0xFF);
+    }
+
+    private void write(long position, byte[] source, int length) {
+        var index = (int) (position % buffer.length);
+        var first = Math.min(length, buffer.length - index);
+        System.arraycopy(source, 0, buffer, index, first);
+        System.arraycopy(source, first, buffer, 0, length - first);
+    }
+
+    private byte[] copy(long position, int length) {
+        var target = new byte[length];
+        var index = (int) (position % buffer.length);
+        var first = Math.min(length, buffer.length - index);
+        System.arraycopy(buffer, index, target, 0, first);
+        System.arraycopy(buffer, 0, target, first, length - first);
+        return target;
+    }
+}
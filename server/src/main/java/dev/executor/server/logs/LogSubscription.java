@@ -0,0 +1,39 @@
+package dev.executor.server.logs;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A reader's cursor into a container's buffered output. The reader pulls at its own pace; the
+ * {@code onData} callback given when subscribing only signals that something new is available.
+ *
+ * <p>Output is addressed by byte offset: the number of output bytes, across both streams, that the
+ * container wrote before it. Offsets are stable for the life of the container, so a reader can
+ * resume from the offset after the last byte it received.
+ */
+public interface LogSubscription extends AutoCloseable {
+
+    /**
+     * Consecutive output from one stream, starting at {@code offset}. {@code data} may be a read-only
+     * view of an archive segment. {@code droppedBytes} counts output that was no longer available by
+     * the time this reader got to it.
+     */
+    record Read(LogFrame.Stream stream, long offset, ByteBuffer data, long droppedBytes) {}
+
+    /**
+     * Reads output from a single stream: at least part of one frame if anything is available, then
+     * more frames while they fit in {@code maxBytes}. Returns {@code null} if nothing is available.
+     */
+    Read read(int maxBytes);
+
+    /** Output bytes buffered ahead of this reader. */
+    long available();
+
+    /** Whether the container's log stream has ended; once it has, nothing more becomes available. */
+    boolean streamEnded();
+
+    /** The error that ended the stream, or {@code null}. */
+    Throwable error();
+
+    @Override
+    void close();
+}
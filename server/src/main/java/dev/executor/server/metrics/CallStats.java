@@ -0,0 +1,28 @@
+package dev.executor.server.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/** Latency and failure count of one operation, such as an orchestrator method. */
+public final class CallStats {
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder failures = new LongAdder();
+
+    CallStats() {
+    }
+
+    public void record(long nanos, boolean failed) {
+        latency.record(nanos);
+        if (failed) {
+            failures.increment();
+        }
+    }
+
+    LatencyHistogram latency() {
+        return latency;
+    }
+
+    long failures() {
+        return failures.sum();
+    }
+}
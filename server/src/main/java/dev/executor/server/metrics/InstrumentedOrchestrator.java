@@ -0,0 +1,139 @@
+package dev.executor.server.metrics;
+
+import dev.executor.server.logs.LogSubscription;
+import dev.executor.server.orchestrator.ContainerOrchestrator;
+import dev.executor.server.orchestrator.ContainerState;
+import dev.executor.server.orchestrator.ContainerStats;
+import dev.executor.server.orchestrator.ResourceLimits;
+import java.util.List;
+import java.util.function.Consumer;
+
+/** Times every call into another {@link ContainerOrchestrator} and counts the ones that throw. */
+public class InstrumentedOrchestrator implements ContainerOrchestrator {
+
+    private final ContainerOrchestrator delegate;
+    private final CallStats startContainer;
+    private final CallStats inspectContainer;
+    private final CallStats tailLogs;
+    private final CallStats subscribeLogs;
+    private final CallStats onContainerExit;
+    private final CallStats stats;
+    private final CallStats watchStats;
+    private final CallStats release;
+
+    public InstrumentedOrchestrator(ContainerOrchestrator delegate, Metrics metrics) {
+        this.delegate = delegate;
+        this.startContainer = metrics.orchestratorCall("startContainer");
+        this.inspectContainer = metrics.orchestratorCall("inspectContainer");
+        this.tailLogs = metrics.orchestratorCall("tailLogs");
+        this.subscribeLogs = metrics.orchestratorCall("subscribeLogs");
+        this.onContainerExit = metrics.orchestratorCall("onContainerExit");
+        this.stats = metrics.orchestratorCall("stats");
+        this.watchStats = metrics.orchestratorCall("watchStats");
+        this.release = metrics.orchestratorCall("release");
+    }
+
+    @Override
+    public String startContainer(String image, String command, ResourceLimits limits) {
+        var started = System.nanoTime();
+        var failed = true;
+        try {
+            var containerId = delegate.startContainer(image, command, limits);
+            failed = false;
+            return containerId;
+        } finally {
+            startContainer.record(System.nanoTime() - started, failed);
+        }
+    }
+
+    @Override
+    public ContainerState inspectContainer(String containerId) {
+        var started = System.nanoTime();
+        var failed = true;
+        try {
+            var state = delegate.inspectContainer(containerId);
+            failed = false;
+            return state;
+        } finally {
+            inspectContainer.record(System.nanoTime() - started, failed);
+        }
+    }
+
+    @Override
+    public List<String> tailLogs(String containerId, int lines) {
+        var started = System.nanoTime();
+        var failed = true;
+        try {
+            var tail = delegate.tailLogs(containerId, lines);
+            failed = false;
+            return tail;
+        } finally {
+            tailLogs.record(System.nanoTime() - started, failed);
+        }
+    }
+
+    /** Times opening the cursor; reads from it are not counted. */
+    @Override
+    public LogSubscription subscribeLogs(String containerId, long startOffset, Runnable onData) {
+        var started = System.nanoTime();
+        var failed = true;
+        try {
+            var subscription = delegate.subscribeLogs(containerId, startOffset, onData);
+            failed = false;
+            return subscription;
+        } finally {
+            subscribeLogs.record(System.nanoTime() - started, failed);
+        }
+    }
+
+    @Override
+    public void onContainerExit(String containerId, Consumer<ContainerState> onExit) {
+        var started = System.nanoTime();
+        var failed = true;
+        try {
+            delegate.onContainerExit(containerId, onExit);
+            failed = false;
+        } finally {
+            onContainerExit.record(System.nanoTime() - started, failed);
+        }
+    }
+
+    @Override
+    public ContainerStats stats(String containerId) {
+        var started = System.nanoTime();
+        var failed = true;
+        try {
+            var sample = delegate.stats(containerId);
+            failed = false;
+            return sample;
+        } finally {
+            stats.record(System.nanoTime() - started, failed);
+        }
+    }
+
+    /** Times registering the watcher; samples delivered to it are not counted. */
+    @Override
+    public Runnable watchStats(String containerId, Consumer<ContainerStats> onSample, Runnable onEnd) {
+        var started = System.nanoTime();
+        var failed = true;
+        try {
+            var stop = delegate.watchStats(containerId, onSample, onEnd);
+            failed = false;
+            return stop;
+        } finally {
+            watchStats.record(System.nanoTime() - started, failed);
+        }
+    }
+
+    @Override
+    public void release(String containerId) {
+        var started = System.nanoTime();
+        var failed = true;
+        try {
+            delegate.release(containerId);
+            failed = false;
+        } finally {
+            release.record(System.nanoTime() - started, failed);
+        }
+    }
+}
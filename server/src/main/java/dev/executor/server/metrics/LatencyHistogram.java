@@ -0,0 +1,55 @@
+package dev.executor.server.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency distribution over fixed buckets from 100µs to 60s. Recording is a bucket search and two
+ * {@link LongAdder} increments, so it neither allocates nor contends.
+ */
+public final class LatencyHistogram {
+
+    static final long[] BOUNDS_NANOS = {
+            100_000L, 250_000L, 500_000L,
+            1_000_000L, 2_500_000L, 5_000_000L,
+            10_000_000L, 25_000_000L, 50_000_000L,
+            100_000_000L, 250_000_000L, 500_000_000L,
+            1_000_000_000L, 2_500_000_000L, 5_000_000_000L,
+            10_000_000_000L, 30_000_000_000L, 60_000_000_000L,
+    };
+
+    // One per bound plus the overflow bucket; not cumulative.
+    private final LongAdder[] buckets = new LongAdder[BOUNDS_NANOS.length + 1];
+    private final LongAdder sumNanos = new LongAdder();
+
+    LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        var bucket = 0;
+        while (bucket < BOUNDS_NANOS.length && nanos > BOUNDS_NANOS[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+        sumNanos.add(nanos);
+    }
+
+    /** Observations at or below {@code BOUNDS_NANOS[bucket]}, or all of them for the last bucket. */
+    long cumulativeCount(int bucket) {
+        var count = 0L;
+        for (int i = 0; i <= bucket; i++) {
+            count += buckets[i].sum();
+        }
+        return count;
+    }
+
+    long count() {
+        return cumulativeCount(BOUNDS_NANOS.length);
+    }
+
+    long sumNanos() {
+        return sumNanos.sum();
+    }
+}
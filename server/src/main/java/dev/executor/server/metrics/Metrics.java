@@ -0,0 +1,109 @@
+package dev.executor.server.metrics;
+
+import io.grpc.Status;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongSupplier;
+
+/**
+ * The server's metrics, rendered in the Prometheus text exposition format.
+ *
+ * <p>Stats objects are created on first use and then looked up by name, so recording allocates
+ * nothing once a method or operation has been seen. Counters kept elsewhere are read at scrape time
+ * through {@link #counter}.
+ */
+public final class Metrics {
+
+    private record Counter(String name, String help, LongSupplier value) {}
+
+    private final ConcurrentHashMap<String, RpcStats> rpcs = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CallStats> orchestratorCalls = new ConcurrentHashMap<>();
+    private final List<Counter> counters = new CopyOnWriteArrayList<>();
+
+    /** Stats of the gRPC method with the given full name, e.g. {@code dev.executor.common.ShellService/RunCommand}. */
+    public RpcStats rpc(String fullMethodName) {
+        var stats = rpcs.get(fullMethodName);
+        return stats != null ? stats : rpcs.computeIfAbsent(fullMethodName, name -> new RpcStats());
+    }
+
+    public CallStats orchestratorCall(String operation) {
+        var stats = orchestratorCalls.get(operation);
+        return stats != null ? stats : orchestratorCalls.computeIfAbsent(operation, name -> new CallStats());
+    }
+
+    /** Exports a monotonically increasing count kept elsewhere, read whenever metrics are scraped. */
+    public void counter(String name, String help, LongSupplier value) {
+        counters.add(new Counter(name, help, value));
+    }
+
+    public String scrape() {
+        var out = new StringBuilder(4096);
+        var rpcs = new TreeMap<>(this.rpcs);
+
+        header(out, "grpc_server_handling_seconds", "Time from receiving a call to closing it.", "histogram");
+        rpcs.forEach((method, stats) -> histogram(out, "grpc_server_handling_seconds",
+                "method=\"" + method + "\"", stats.latency()));
+
+        header(out, "grpc_server_in_flight", "Calls currently being handled.", "gauge");
+        rpcs.forEach((method, stats) -> sample(out, "grpc_server_in_flight",
+                "method=\"" + method + "\"", stats.inFlight()));
+
+        header(out, "grpc_server_handled_total", "Calls completed, by status code.", "counter");
+        rpcs.forEach((method, stats) -> {
+            for (var code : Status.Code.values()) {
+                var count = stats.handled(code);
+                if (count > 0) {
+                    sample(out, "grpc_server_handled_total",
+                            "method=\"" + method + "\",code=\"" + code + "\"", count);
+                }
+            }
+        });
+
+        Map<String, CallStats> calls = new TreeMap<>(orchestratorCalls);
+        header(out, "orchestrator_call_seconds", "Time spent in container orchestrator calls.", "histogram");
+        calls.forEach((operation, stats) -> histogram(out, "orchestrator_call_seconds",
+                "operation=\"" + operation + "\"", stats.latency()));
+
+        header(out, "orchestrator_call_failures_total", "Container orchestrator calls that threw.", "counter");
+        calls.forEach((operation, stats) -> sample(out, "orchestrator_call_failures_total",
+                "operation=\"" + operation + "\"", stats.failures()));
+
+        for (var counter : counters) {
+            header(out, counter.name(), counter.help(), "counter");
+            sample(out, counter.name(), null, counter.value().getAsLong());
+        }
+        return out.toString();
+    }
+
+    private static void header(StringBuilder out, String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void histogram(StringBuilder out, String name, String labels, LatencyHistogram histogram) {
+        for (int i = 0; i < LatencyHistogram.BOUNDS_NANOS.length; i++) {
+            sample(out, name + "_bucket", labels + ",le=\"" + seconds(LatencyHistogram.BOUNDS_NANOS[i]) + "\"",
+                    histogram.cumulativeCount(i));
+        }
+        var count = histogram.count();
+        sample(out, name + "_bucket", labels + ",le=\"+Inf\"", count);
+        out.append(name).append("_sum{").append(labels).append("} ")
+                .append(seconds(histogram.sumNanos())).append('\n');
+        sample(out, name + "_count", labels, count);
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, long value) {
+        out.append(name);
+        if (labels != null) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(value).append('\n');
+    }
+
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+}
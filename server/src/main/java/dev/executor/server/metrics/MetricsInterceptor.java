@@ -0,0 +1,74 @@
+package dev.executor.server.metrics;
+
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Records every call's latency, in-flight count and status code. Install it outermost so calls
+ * rejected by other interceptors are counted too.
+ */
+public class MetricsInterceptor implements ServerInterceptor {
+
+    private final Metrics metrics;
+
+    public MetricsInterceptor(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+            ServerCall<ReqT, RespT> call,
+            Metadata headers,
+            ServerCallHandler<ReqT, RespT> next) {
+        var recording = new RecordingCall<>(call, metrics.rpc(call.getMethodDescriptor().getFullMethodName()));
+        ServerCall.Listener<ReqT> listener;
+        try {
+            listener = next.startCall(recording, headers);
+        } catch (RuntimeException e) {
+            recording.finish(Status.Code.UNKNOWN);
+            throw e;
+        }
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(listener) {
+            @Override
+            public void onCancel() {
+                recording.finish(Status.Code.CANCELLED);
+                super.onCancel();
+            }
+        };
+    }
+
+    private static final class RecordingCall<ReqT, RespT>
+            extends ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT> {
+
+        private static final AtomicIntegerFieldUpdater<RecordingCall> FINISHED =
+                AtomicIntegerFieldUpdater.newUpdater(RecordingCall.class, "finished");
+
+        private final RpcStats stats;
+        private final long startNanos = System.nanoTime();
+        private volatile int finished;
+
+        RecordingCall(ServerCall<ReqT, RespT> delegate, RpcStats stats) {
+            super(delegate);
+            this.stats = stats;
+            stats.started();
+        }
+
+        @Override
+        public void close(Status status, Metadata trailers) {
+            finish(status.getCode());
+            super.close(status, trailers);
+        }
+
+        void finish(Status.Code code) {
+            if (FINISHED.compareAndSet(this, 0, 1)) {
+                stats.finished(code, System.nanoTime() - startNanos);
+            }
+        }
+    }
+}
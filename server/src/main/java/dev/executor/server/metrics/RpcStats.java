@@ -0,0 +1,42 @@
+package dev.executor.server.metrics;
+
+import io.grpc.Status;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Latency, in-flight count and status codes of one gRPC method. */
+public final class RpcStats {
+
+    private static final Status.Code[] CODES = Status.Code.values();
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder inFlight = new LongAdder();
+    private final LongAdder[] handled = new LongAdder[CODES.length];
+
+    RpcStats() {
+        for (int i = 0; i < handled.length; i++) {
+            handled[i] = new LongAdder();
+        }
+    }
+
+    void started() {
+        inFlight.increment();
+    }
+
+    void finished(Status.Code code, long nanos) {
+        inFlight.decrement();
+        handled[code.ordinal()].increment();
+        latency.record(nanos);
+    }
+
+    LatencyHistogram latency() {
+        return latency;
+    }
+
+    long inFlight() {
+        return inFlight.sum();
+    }
+
+    long handled(Status.Code code) {
+        return handled[code.ordinal()].sum();
+    }
+}
@@ -1,5 +1,6 @@
 package dev.executor.server.orchestrator;
 
+import dev.executor.server.logs.LogSubscription;
 import java.util.List;
 import java.util.function.Consumer;
 
@@ -11,5 +12,26 @@ public interface ContainerOrchestrator {
 
     List<String> tailLogs(String containerId, int lines);
 
-    void streamLogs(String containerId, Consumer<String> onLine, Runnable onComplete, Consumer<Throwable> onError);
+    /**
+     * Opens a cursor over a container's output from byte offset {@code startOffset} onwards.
+     * {@code onData} is called whenever more output is available or the stream ends.
+     */
+    LogSubscription subscribeLogs(String containerId, long startOffset, Runnable onData);
+
+    void onContainerExit(String containerId, Consumer<ContainerState> onExit);
+
+    /** The container's latest resource usage sample, or {@code null} if none was taken yet. */
+    ContainerStats stats(String containerId);
+
+    /**
+     * Calls {@code onSample} with the latest usage sample and each later one, then {@code onEnd} once
+     * the container exits. Returns a handle that stops the calls.
+     */
+    Runnable watchStats(String containerId, Consumer<ContainerStats> onSample, Runnable onEnd);
+
+    /**
+     * Tells the orchestrator that the job's terminal status is recorded, so the container itself is no
+     * longer needed. Its logs must stay readable.
+     */
+    void release(String containerId);
 }
@@ -0,0 +1,106 @@
+package dev.executor.server.orchestrator;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * In-memory container states maintained from Docker container events.
+ *
+ * <p>Docker reports an {@code oom} event before the matching {@code die}, so the OOM flag is held
+ * until the container dies and then folded into its exited state.
+ *
+ * <p>The event stream reports every container on the host, not only ours, and finished containers
+ * are usually kept. Exited states are therefore dropped once their job is done with them
+ * ({@link #forget}), and any exit older than {@link #EXITED_TTL} is dropped as later ones are
+ * recorded, so the table holds the running containers and recent exits only.
+ */
+class ContainerStateTable {
+
+    static final Duration EXITED_TTL = Duration.ofMinutes(10);
+
+    private record Exit(ContainerState state, long atMillis) {}
+
+    private final Map<String, ContainerState> states = new ConcurrentHashMap<>();
+    private final Set<String> oomKilled = ConcurrentHashMap.newKeySet();
+    // Exited states in the order they were recorded, for expiry.
+    private final Queue<Exit> exits = new ConcurrentLinkedQueue<>();
+    private final Clock clock;
+
+    ContainerStateTable() {
+        this(Clock.systemUTC());
+    }
+
+    ContainerStateTable(Clock clock) {
+        this.clock = clock;
+    }
+
+    ContainerState get(String containerId) {
+        return states.get(containerId);
+    }
+
+    /** Records an exited state read from the daemon. */
+    void put(ContainerState state) {
+        states.put(state.containerId(), state);
+        exited(state);
+    }
+
+    /** Swaps in a more detailed exited state, unless the container's state changed meanwhile. */
+    void replace(ContainerState expected, ContainerState updated) {
+        if (states.replace(expected.containerId(), expected, updated)) {
+            exited(updated);
+        }
+    }
+
+    void onStart(String containerId) {
+        oomKilled.remove(containerId);
+        states.put(containerId, new ContainerState(containerId, true, null, false, null));
+    }
+
+    void onOom(String containerId) {
+        oomKilled.add(containerId);
+    }
+
+    ContainerState onDie(String containerId, Integer exitCode) {
+        var state = new ContainerState(containerId, false, exitCode, oomKilled.remove(containerId), null);
+        states.put(containerId, state);
+        exited(state);
+        return state;
+    }
+
+    void onDestroy(String containerId) {
+        forget(containerId);
+    }
+
+    /** Drops what is known about a container whose job no longer needs its state. */
+    void forget(String containerId) {
+        oomKilled.remove(containerId);
+        states.remove(containerId);
+    }
+
+    void clear() {
+        oomKilled.clear();
+        states.clear();
+        exits.clear();
+    }
+
+    int size() {
+        return states.size();
+    }
+
+    private void exited(ContainerState state) {
+        var now = clock.millis();
+        exits.add(new Exit(state, now));
+        var oldestKept = now - EXITED_TTL.toMillis();
+        for (var oldest = exits.peek(); oldest != null && oldest.atMillis() < oldestKept; oldest = exits.peek()) {
+            if (exits.remove(oldest)) {
+                // Only if still the same exit; a restarted container has a newer state.
+                states.remove(oldest.state().containerId(), oldest.state());
+            }
+        }
+    }
+}
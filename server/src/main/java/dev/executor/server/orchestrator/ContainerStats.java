@@ -0,0 +1,18 @@
+package dev.executor.server.orchestrator;
+
+/**
+ * One resource usage sample of a container. {@code peakMemoryBytes} and {@code cpuCores} are derived
+ * from the samples before it, so a source may leave them at the raw reading and zero.
+ */
+public record ContainerStats(
+    long sampledAtMillis,
+    long memoryBytes,
+    long peakMemoryBytes,
+    long memoryLimitBytes,
+    long cpuTimeNanos,
+    double cpuCores,
+    long blockReadBytes,
+    long blockWriteBytes,
+    long networkRxBytes,
+    long networkTxBytes
+) {}
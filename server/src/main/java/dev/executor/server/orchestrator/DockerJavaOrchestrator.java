@@ -3,63 +3,206 @@ package dev.executor.server.orchestrator;
 import com.github.dockerjava.api.DockerClient;
 import com.github.dockerjava.api.command.InspectContainerResponse;
 import com.github.dockerjava.api.exception.NotFoundException;
+import com.github.dockerjava.api.model.Container;
+import com.github.dockerjava.api.model.Event;
+import com.github.dockerjava.api.model.EventType;
 import com.github.dockerjava.api.model.Frame;
+import com.github.dockerjava.api.model.Statistics;
+import com.github.dockerjava.api.model.StreamType;
 import com.github.dockerjava.api.model.HostConfig;
 import com.github.dockerjava.core.DockerClientBuilder;
+import dev.executor.server.logs.LogArchive;
+import dev.executor.server.logs.LogBufferSettings;
+import dev.executor.server.logs.LogFrame;
+import dev.executor.server.logs.LogHub;
+import dev.executor.server.logs.LogSubscription;
+import java.io.Closeable;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.CountDownLatch;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
-public class DockerJavaOrchestrator implements ContainerOrchestrator {
+public class DockerJavaOrchestrator implements ContainerOrchestrator, AutoCloseable {
 
     private static final String DEFAULT_IMAGE = "alpine:latest";
+    private static final long RESUBSCRIBE_DELAY_MS = 1000;
+    private static final Duration DEFAULT_IMAGE_REFRESH_INTERVAL = Duration.ofHours(1);
+    private static final String POOL_LABEL = "dev.executor.pool";
+    private static final long POOL_MAINTENANCE_INTERVAL_SECONDS = 5;
+    private static final long POOL_EXEC_TIMEOUT_SECONDS = 10;
+    private static final Duration TAIL_TIMEOUT = Duration.ofSeconds(10);
+
+    // Pooled containers block on a FIFO until a command is written to it, then exec it as PID 1, so
+    // a claimed container behaves exactly like a freshly started one (logs, exit code, OOM, events).
+    private static final String POOL_BOOTSTRAP =
+            "mkfifo /tmp/.job && exec sh -c \"$(cat /tmp/.job)\"";
+    private static final String POOL_SUBMIT =
+            "while [ ! -p /tmp/.job ]; do sleep 0.01; done; printf '%s' \"$1\" > /tmp/.job";
 
     private final DockerClient docker;
+    private final ImageCache images;
+    private final LogHub logs;
+    private final StatsSampler stats;
+    private final boolean removeFinishedContainers;
+    private final WarmContainerPool pool;
+    private final ScheduledExecutorService poolMaintenance;
+    private final ContainerStateTable states = new ContainerStateTable();
+    private final Map<String, List<Consumer<ContainerState>>> exitWatchers = new ConcurrentHashMap<>();
+    private volatile boolean subscribed;
 
     public DockerJavaOrchestrator() {
-        this.docker = DockerClientBuilder.getInstance().build();
+        this(DEFAULT_IMAGE_REFRESH_INTERVAL, WarmPoolSettings.disabled(), LogBufferSettings.defaults(), null);
+    }
+
+    /** {@code logArchive} may be {@code null}, in which case output is only kept by the daemon. */
+    public DockerJavaOrchestrator(Duration imageRefreshInterval, WarmPoolSettings poolSettings,
+                                  LogBufferSettings logSettings, LogArchive logArchive) {
+        this(DockerClientBuilder.getInstance().build(), imageRefreshInterval, poolSettings, logSettings, logArchive);
     }
 
     public DockerJavaOrchestrator(DockerClient docker) {
+        this(docker, DEFAULT_IMAGE_REFRESH_INTERVAL, WarmPoolSettings.disabled(), LogBufferSettings.defaults(), null);
+    }
+
+    public DockerJavaOrchestrator(DockerClient docker, Duration imageRefreshInterval, WarmPoolSettings poolSettings,
+                                  LogBufferSettings logSettings, LogArchive logArchive) {
         this.docker = docker;
+        this.images = new ImageCache(new DockerImageSource(), imageRefreshInterval);
+        this.logs = new LogHub(new DockerLogSource(), logSettings, logArchive);
+        this.stats = new StatsSampler(new DockerStatsSource());
+        this.removeFinishedContainers = logArchive != null && logArchive.settings().removeFinishedContainers();
+        subscribeToEvents();
+
+        if (poolSettings.enabled()) {
+            this.pool = new WarmContainerPool(new PooledContainerFactory(), poolSettings,
+                    Executors.newVirtualThreadPerTaskExecutor(), Clock.systemUTC());
+            this.poolMaintenance = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("warm-pool").daemon().factory());
+            poolMaintenance.scheduleWithFixedDelay(pool::maintain,
+                    POOL_MAINTENANCE_INTERVAL_SECONDS, POOL_MAINTENANCE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+            pool.removeLeftovers();
+            pool.warm(new WarmContainerPool.Key(DEFAULT_IMAGE, new ResourceLimits(0, 0)));
+        } else {
+            this.pool = null;
+            this.poolMaintenance = null;
+        }
+    }
+
+    /** Pulls the given images in the background so the first jobs using them skip the registry. */
+    public void prewarmImages(List<String> references) {
+        for (var reference : references) {
+            Thread.ofVirtual().start(() -> {
+                try {
+                    images.ensure(reference);
+                    System.out.println("Pre-pulled image " + reference);
+                } catch (RuntimeException e) {
+                    System.err.println("Failed to pre-pull image " + reference + ": " + e.getMessage());
+                }
+            });
+        }
     }
 
     @Override
     public String startContainer(String image, String command, ResourceLimits limits) {
         var effectiveImage = (image == null || image.isBlank()) ? DEFAULT_IMAGE : image;
 
-        try {
-            docker.pullImageCmd(effectiveImage)
-                    .start()
-                    .awaitCompletion(60, TimeUnit.SECONDS);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new OrchestratorException("Image pull interrupted: " + effectiveImage, e);
-        } catch (Exception e) {
-            throw new OrchestratorException("Failed to pull image: " + effectiveImage, e);
+        if (pool != null) {
+            var key = new WarmContainerPool.Key(effectiveImage, limits);
+            for (var pooled = pool.claim(key); pooled != null; pooled = pool.claim(key)) {
+                if (submitToPooled(pooled, command)) {
+                    logs.follow(pooled);
+                    stats.follow(pooled);
+                    return pooled;
+                }
+                removeQuietly(pooled);
+            }
+        }
+
+        images.ensure(effectiveImage);
+        var response = docker.createContainerCmd(effectiveImage)
+                .withCmd("sh", "-c", command)
+                .withHostConfig(hostConfig(limits))
+                .exec();
+
+        docker.startContainerCmd(response.getId()).exec();
+        logs.follow(response.getId());
+        stats.follow(response.getId());
+        return response.getId();
+    }
+
+    @Override
+    public void close() {
+        logs.close();
+        stats.close();
+        if (pool != null) {
+            poolMaintenance.shutdownNow();
+            pool.close();
         }
+    }
 
+    private static HostConfig hostConfig(ResourceLimits limits) {
         var hostConfig = new HostConfig();
         if (limits.memoryLimitMb() > 0) {
             hostConfig.withMemory(limits.memoryLimitMb() * 1024L * 1024L);
         }
         if (limits.cpuLimit() > 0) {
-            hostConfig.withCpuShares((int) (limits.cpuLimit() * 1024));
+            // A hard cap, unlike CPU shares, so admission can count it against the host's cores.
+            hostConfig.withNanoCPUs((long) (limits.cpuLimit() * 1_000_000_000L));
         }
+        return hostConfig;
+    }
 
-        var response = docker.createContainerCmd(effectiveImage)
-                .withCmd("sh", "-c", command)
-                .withHostConfig(hostConfig)
-                .exec();
+    private boolean submitToPooled(String containerId, String command) {
+        if (!inspectContainer(containerId).isRunning()) {
+            return false;
+        }
+        try {
+            var exec = docker.execCreateCmd(containerId)
+                    .withCmd("sh", "-c", POOL_SUBMIT, "sh", command)
+                    .exec();
+            var completed = docker.execStartCmd(exec.getId())
+                    .exec(new com.github.dockerjava.api.async.ResultCallback.Adapter<Frame>())
+                    .awaitCompletion(POOL_EXEC_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            var exitCode = docker.inspectExecCmd(exec.getId()).exec().getExitCodeLong();
+            return completed && exitCode != null && exitCode == 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OrchestratorException("Interrupted while starting job in warm container " + containerId, e);
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
 
-        docker.startContainerCmd(response.getId()).exec();
-        return response.getId();
+    private void removeQuietly(String containerId) {
+        try {
+            docker.removeContainerCmd(containerId).withForce(true).exec();
+        } catch (RuntimeException e) {
+            System.err.println("Failed to remove container " + containerId + ": " + e.getMessage());
+        }
     }
 
     @Override
     public ContainerState inspectContainer(String containerId) {
+        var cached = states.get(containerId);
+        if (cached != null) {
+            return cached;
+        }
+
+        var state = inspectFromDaemon(containerId);
+        // Only exited states are final; a running state read here could race with its die event.
+        if (subscribed && !state.isRunning() && state.systemError() == null) {
+            states.put(state);
+        }
+        return state;
+    }
+
+    private ContainerState inspectFromDaemon(String containerId) {
         InspectContainerResponse response;
         try {
             response = docker.inspectContainerCmd(containerId).exec();
@@ -84,63 +227,326 @@ public class DockerJavaOrchestrator implements ContainerOrchestrator {
 
     @Override
     public List<String> tailLogs(String containerId, int lines) {
-        var logs = new ArrayList<String>();
-        var latch = new CountDownLatch(1);
+        // An exited container's stream ends once its output is fully buffered; a running one never does.
+        var awaitEnd = inspectContainer(containerId).isRunning() ? Duration.ZERO : TAIL_TIMEOUT;
+        return logs.tail(containerId, lines, awaitEnd);
+    }
+
+    @Override
+    public LogSubscription subscribeLogs(String containerId, long startOffset, Runnable onData) {
+        return logs.subscribe(containerId, startOffset, onData);
+    }
+
+    @Override
+    public ContainerStats stats(String containerId) {
+        return stats.latest(containerId);
+    }
+
+    @Override
+    public Runnable watchStats(String containerId, Consumer<ContainerStats> onSample, Runnable onEnd) {
+        return stats.watch(containerId, onSample, onEnd);
+    }
+
+    @Override
+    public void release(String containerId) {
+        stats.forget(containerId);
+        states.forget(containerId);
+        if (removeFinishedContainers) {
+            // Runs on the log follower's thread once archived; keep daemon calls off it.
+            logs.whenArchived(containerId, () -> Thread.ofVirtual().start(() -> removeQuietly(containerId)));
+        }
+    }
+
+    @Override
+    public void onContainerExit(String containerId, Consumer<ContainerState> onExit) {
+        exitWatchers.compute(containerId, (id, watchers) -> {
+            var list = watchers != null ? watchers : new ArrayList<Consumer<ContainerState>>();
+            list.add(onExit);
+            return list;
+        });
+        // The container may have exited before we registered, or before the event stream was up.
+        checkExited(containerId);
+    }
+
+    private void checkExited(String containerId) {
+        Thread.ofVirtual().start(() -> {
+            var state = inspectContainer(containerId);
+            if (!state.isRunning()) {
+                notifyExit(state);
+            }
+        });
+    }
+
+    private void notifyExit(ContainerState state) {
+        var watchers = exitWatchers.remove(state.containerId());
+        if (watchers == null) return;
+
+        // Watchers may block (e.g. tailing logs), so never run them on docker-java's I/O thread.
+        Thread.ofVirtual().start(() -> watchers.forEach(watcher -> watcher.accept(state)));
+    }
+
+    private void subscribeToEvents() {
+        docker.eventsCmd()
+                .withEventTypeFilter(EventType.CONTAINER)
+                .withEventFilter("start", "die", "oom", "destroy")
+                .exec(new com.github.dockerjava.api.async.ResultCallback.Adapter<Event>() {
+                    @Override
+                    public void onStart(Closeable stream) {
+                        super.onStart(stream);
+                        subscribed = true;
+                        exitWatchers.keySet().forEach(DockerJavaOrchestrator.this::checkExited);
+                    }
+
+                    @Override
+                    public void onNext(Event event) {
+                        applyEvent(event);
+                    }
 
+                    @Override
+                    public void onComplete() {
+                        resubscribe();
+                        super.onComplete();
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                        resubscribe();
+                        super.onError(throwable);
+                    }
+                });
+    }
+
+    private void applyEvent(Event event) {
+        var actor = event.getActor();
+        var containerId = actor != null && actor.getId() != null ? actor.getId() : event.getId();
+        if (containerId == null || event.getAction() == null) return;
+
+        switch (event.getAction()) {
+            case "start" -> states.onStart(containerId);
+            case "oom" -> states.onOom(containerId);
+            case "die" -> {
+                var state = states.onDie(containerId, exitCode(event));
+                if (state.exitCode() != null && state.exitCode() != 0 && !state.oomKilled()) {
+                    // Events carry no error message; a failed exit may have one, e.g. a bad entrypoint.
+                    Thread.ofVirtual().start(() -> notifyExit(withDaemonError(state)));
+                } else {
+                    notifyExit(state);
+                }
+            }
+            case "destroy" -> states.onDestroy(containerId);
+            default -> { }
+        }
+    }
+
+    private ContainerState withDaemonError(ContainerState state) {
+        ContainerState inspected;
+        try {
+            inspected = inspectFromDaemon(state.containerId());
+        } catch (RuntimeException e) {
+            return state;
+        }
+        // Also rules out a container removed meanwhile, which inspects as not found without an exit code.
+        if (inspected.isRunning() || inspected.exitCode() == null || inspected.systemError() == null) {
+            return state;
+        }
+        states.replace(state, inspected);
+        return inspected;
+    }
+
+    private static Integer exitCode(Event event) {
+        var attributes = event.getActor() != null ? event.getActor().getAttributes() : null;
+        var exitCode = attributes != null ? attributes.get("exitCode") : null;
         try {
+            return exitCode != null ? Integer.valueOf(exitCode) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void resubscribe() {
+        // Events missed while disconnected would leave stale entries, so fall back to inspect until
+        // the stream is back.
+        subscribed = false;
+        states.clear();
+        Thread.ofVirtual().start(() -> {
+            try {
+                Thread.sleep(RESUBSCRIBE_DELAY_MS);
+                subscribeToEvents();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                resubscribe();
+            }
+        });
+    }
+
+    private class DockerImageSource implements ImageCache.ImageSource {
+
+        @Override
+        public String localImageId(String reference) {
+            try {
+                return docker.inspectImageCmd(reference).exec().getId();
+            } catch (NotFoundException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public void pull(String reference) {
+            boolean completed;
+            try {
+                completed = docker.pullImageCmd(reference)
+                        .start()
+                        .awaitCompletion(60, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new OrchestratorException("Image pull interrupted: " + reference, e);
+            } catch (Exception e) {
+                throw new OrchestratorException("Failed to pull image: " + reference, e);
+            }
+            if (!completed) {
+                throw new OrchestratorException("Timed out pulling image: " + reference);
+            }
+        }
+    }
+
+    private class DockerLogSource implements LogHub.LogSource {
+
+        @Override
+        public void follow(String containerId, Consumer<LogFrame> onFrame, Runnable onComplete, Consumer<Throwable> onError) {
             docker.logContainerCmd(containerId)
                     .withStdOut(true)
                     .withStdErr(true)
-                    .withTail(lines)
+                    .withFollowStream(true)
                     .exec(new com.github.dockerjava.api.async.ResultCallback.Adapter<Frame>() {
                         @Override
                         public void onNext(Frame frame) {
-                            logs.add(new String(frame.getPayload()).stripTrailing());
+                            var stream = frame.getStreamType() == StreamType.STDERR
+                                    ? LogFrame.Stream.STDERR
+                                    : LogFrame.Stream.STDOUT;
+                            onFrame.accept(new LogFrame(stream, frame.getPayload()));
                         }
 
                         @Override
                         public void onComplete() {
-                            latch.countDown();
+                            onComplete.run();
                             super.onComplete();
                         }
 
                         @Override
                         public void onError(Throwable throwable) {
-                            latch.countDown();
+                            onError.accept(throwable);
                             super.onError(throwable);
                         }
                     });
-            latch.await(10, TimeUnit.SECONDS);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
         }
-
-        return logs;
     }
 
-    @Override
-    public void streamLogs(String containerId, Consumer<String> onLine, Runnable onComplete, Consumer<Throwable> onError) {
-        docker.logContainerCmd(containerId)
-                .withStdOut(true)
-                .withStdErr(true)
-                .withFollowStream(true)
-                .exec(new com.github.dockerjava.api.async.ResultCallback.Adapter<Frame>() {
-                    @Override
-                    public void onNext(Frame frame) {
-                        onLine.accept(new String(frame.getPayload()).stripTrailing());
-                    }
+    private class DockerStatsSource implements StatsSampler.StatsSource {
 
-                    @Override
-                    public void onComplete() {
-                        onComplete.run();
-                        super.onComplete();
-                    }
+        @Override
+        public Closeable follow(String containerId, Consumer<ContainerStats> onSample, Runnable onEnd) {
+            return docker.statsCmd(containerId)
+                    .exec(new com.github.dockerjava.api.async.ResultCallback.Adapter<Statistics>() {
+                        @Override
+                        public void onNext(Statistics statistics) {
+                            // A stopped container reports an all-zero sample before the stream ends.
+                            var cpu = statistics.getCpuStats();
+                            if (cpu == null || cpu.getCpuUsage() == null || orZero(cpu.getCpuUsage().getTotalUsage()) == 0) {
+                                return;
+                            }
+                            onSample.accept(toStats(statistics));
+                        }
 
-                    @Override
-                    public void onError(Throwable throwable) {
-                        onError.accept(throwable);
-                        super.onError(throwable);
+                        @Override
+                        public void onComplete() {
+                            onEnd.run();
+                            super.onComplete();
+                        }
+
+                        @Override
+                        public void onError(Throwable throwable) {
+                            onEnd.run();
+                            super.onError(throwable);
+                        }
+                    });
+        }
+
+        private static ContainerStats toStats(Statistics statistics) {
+            var memory = statistics.getMemoryStats();
+            var blockRead = 0L;
+            var blockWrite = 0L;
+            var blkio = statistics.getBlkioStats();
+            if (blkio != null && blkio.getIoServiceBytesRecursive() != null) {
+                for (var entry : blkio.getIoServiceBytesRecursive()) {
+                    if ("read".equalsIgnoreCase(entry.getOp())) {
+                        blockRead += orZero(entry.getValue());
+                    } else if ("write".equalsIgnoreCase(entry.getOp())) {
+                        blockWrite += orZero(entry.getValue());
                     }
-                });
+                }
+            }
+            var rx = 0L;
+            var tx = 0L;
+            if (statistics.getNetworks() != null) {
+                for (var network : statistics.getNetworks().values()) {
+                    rx += orZero(network.getRxBytes());
+                    tx += orZero(network.getTxBytes());
+                }
+            }
+            return new ContainerStats(
+                    System.currentTimeMillis(),
+                    memory != null ? orZero(memory.getUsage()) : 0,
+                    // Only cgroup v1 reports a peak; the sampler tracks it otherwise.
+                    memory != null ? orZero(memory.getMaxUsage()) : 0,
+                    memory != null ? orZero(memory.getLimit()) : 0,
+                    orZero(statistics.getCpuStats().getCpuUsage().getTotalUsage()),
+                    0,
+                    blockRead,
+                    blockWrite,
+                    rx,
+                    tx);
+        }
+
+        private static long orZero(Long value) {
+            return value != null ? value : 0;
+        }
+    }
+
+    private class PooledContainerFactory implements WarmContainerPool.ContainerFactory {
+
+        @Override
+        public String create(WarmContainerPool.Key key) {
+            images.ensure(key.image());
+            var response = docker.createContainerCmd(key.image())
+                    .withCmd("sh", "-c", POOL_BOOTSTRAP)
+                    .withLabels(Map.of(POOL_LABEL, "true"))
+                    .withHostConfig(hostConfig(key.limits()))
+                    .exec();
+            docker.startContainerCmd(response.getId()).exec();
+            return response.getId();
+        }
+
+        @Override
+        public void destroy(String containerId) {
+            docker.removeContainerCmd(containerId).withForce(true).exec();
+        }
+
+        /**
+         * Running containers carrying the pool label. Nothing re-adopts jobs after a restart, so this
+         * also stops jobs the crashed process had claimed containers for; exited ones are ordinary
+         * finished jobs and are left to the usual cleanup.
+         */
+        @Override
+        public List<String> leftovers() {
+            return docker.listContainersCmd()
+                    .withLabelFilter(Map.of(POOL_LABEL, "true"))
+                    .withStatusFilter(List.of("created", "running", "paused"))
+                    .withShowAll(true)
+                    .exec()
+                    .stream()
+                    .map(Container::getId)
+                    .toList();
+        }
     }
 }
@@ -0,0 +1,114 @@
+package dev.executor.server.orchestrator;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks which images are present locally so container starts only talk to the registry when an
+ * image is missing or its refresh interval has elapsed.
+ *
+ * <p>Concurrent requests for the same reference share one in-flight pull. If a refresh pull fails
+ * but the image is still present locally, the local copy keeps being used until the next interval.
+ * References pinned by digest ({@code name@sha256:...}) are immutable and never refreshed.
+ */
+class ImageCache {
+
+    interface ImageSource {
+        /** Returns the local image ID for the reference, or {@code null} if it is not present. */
+        String localImageId(String reference);
+
+        void pull(String reference);
+    }
+
+    record CachedImage(String reference, String imageId, Instant refreshedAt) {}
+
+    private final ImageSource source;
+    private final Duration refreshInterval;
+    private final Clock clock;
+    private final Map<String, CachedImage> images = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<CachedImage>> inFlight = new ConcurrentHashMap<>();
+
+    ImageCache(ImageSource source, Duration refreshInterval) {
+        this(source, refreshInterval, Clock.systemUTC());
+    }
+
+    ImageCache(ImageSource source, Duration refreshInterval, Clock clock) {
+        this.source = source;
+        this.refreshInterval = refreshInterval;
+        this.clock = clock;
+    }
+
+    /** Makes sure the image is available locally and returns its image ID. */
+    String ensure(String reference) {
+        var cached = images.get(reference);
+        if (cached != null && !isStale(cached)) {
+            return cached.imageId();
+        }
+
+        var pending = new CompletableFuture<CachedImage>();
+        var existing = inFlight.putIfAbsent(reference, pending);
+        if (existing != null) {
+            return await(existing).imageId();
+        }
+
+        try {
+            var image = load(reference, cached);
+            images.put(reference, image);
+            pending.complete(image);
+            return image.imageId();
+        } catch (RuntimeException e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(reference, pending);
+        }
+    }
+
+    private CachedImage load(String reference, CachedImage stale) {
+        if (stale == null) {
+            var localId = source.localImageId(reference);
+            if (localId != null) {
+                return new CachedImage(reference, localId, clock.instant());
+            }
+        }
+
+        try {
+            source.pull(reference);
+        } catch (OrchestratorException e) {
+            var localId = source.localImageId(reference);
+            if (localId == null) {
+                throw e;
+            }
+            return new CachedImage(reference, localId, clock.instant());
+        }
+
+        var imageId = source.localImageId(reference);
+        if (imageId == null) {
+            throw new OrchestratorException("Image not present after pull: " + reference);
+        }
+        return new CachedImage(reference, imageId, clock.instant());
+    }
+
+    private boolean isStale(CachedImage image) {
+        if (image.reference().contains("@sha256:")) {
+            return false;
+        }
+        return image.refreshedAt().plus(refreshInterval).isBefore(clock.instant());
+    }
+
+    private static CachedImage await(CompletableFuture<CachedImage> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new OrchestratorException("Image pull failed", e.getCause());
+        }
+    }
+}
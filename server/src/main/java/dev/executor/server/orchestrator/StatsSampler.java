@@ -0,0 +1,165 @@
+package dev.executor.server.orchestrator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Shares one resource usage stream per container between every reader of its stats.
+ *
+ * <p>Following a container keeps its latest sample, with the peak memory and CPU rate derived from
+ * the samples so far, until the container is {@link #forget forgotten}; watchers get every later
+ * sample and are told when the stream ends. Callbacks for a container run in order on its stream's
+ * thread.
+ */
+final class StatsSampler implements AutoCloseable {
+
+    interface StatsSource {
+        /** Streams a container's usage until it exits; closing the returned handle stops early. */
+        Closeable follow(String containerId, Consumer<ContainerStats> onSample, Runnable onEnd);
+    }
+
+    private record Watcher(Consumer<ContainerStats> onSample, Runnable onEnd) {}
+
+    private final StatsSource source;
+    private final Map<String, Stream> streams = new ConcurrentHashMap<>();
+
+    StatsSampler(StatsSource source) {
+        this.source = source;
+    }
+
+    /** Starts sampling a container, unless it already is. */
+    void follow(String containerId) {
+        stream(containerId);
+    }
+
+    /** The container's latest sample, or {@code null} if none arrived yet. */
+    ContainerStats latest(String containerId) {
+        var stream = streams.get(containerId);
+        if (stream == null) {
+            follow(containerId);
+            return null;
+        }
+        synchronized (stream) {
+            return stream.latest;
+        }
+    }
+
+    /**
+     * Calls {@code onSample} with the latest sample, if any, and every later one, then {@code onEnd}
+     * once the stream ends. Returns a handle that stops the calls.
+     */
+    Runnable watch(String containerId, Consumer<ContainerStats> onSample, Runnable onEnd) {
+        var stream = stream(containerId);
+        var watcher = new Watcher(onSample, onEnd);
+        synchronized (stream) {
+            if (stream.latest != null) {
+                onSample.accept(stream.latest);
+            }
+            if (stream.ended) {
+                onEnd.run();
+                return () -> {};
+            }
+            stream.watchers.add(watcher);
+        }
+        return () -> {
+            synchronized (stream) {
+                stream.watchers.remove(watcher);
+            }
+        };
+    }
+
+    /** Stops sampling a container and drops what is known about it. */
+    void forget(String containerId) {
+        var stream = streams.remove(containerId);
+        if (stream != null) {
+            stream.stop();
+        }
+    }
+
+    @Override
+    public void close() {
+        streams.keySet().forEach(this::forget);
+    }
+
+    private Stream stream(String containerId) {
+        var created = new Stream[1];
+        var stream = streams.computeIfAbsent(containerId, id -> created[0] = new Stream(id));
+        if (stream == created[0]) {
+            stream.start();
+        }
+        return stream;
+    }
+
+    private final class Stream {
+        private final String containerId;
+        private final List<Watcher> watchers = new ArrayList<>();
+        private ContainerStats latest;
+        private boolean ended;
+        private Closeable handle;
+
+        Stream(String containerId) {
+            this.containerId = containerId;
+        }
+
+        void start() {
+            try {
+                var handle = source.follow(containerId, this::onSample, this::onEnd);
+                synchronized (this) {
+                    this.handle = handle;
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Failed to sample stats of container " + containerId + ": " + e.getMessage());
+                onEnd();
+            }
+        }
+
+        synchronized void onSample(ContainerStats sample) {
+            if (ended) return;
+            var previous = latest;
+            var peak = Math.max(sample.memoryBytes(), sample.peakMemoryBytes());
+            var cores = 0.0;
+            if (previous != null) {
+                peak = Math.max(peak, previous.peakMemoryBytes());
+                var elapsedMillis = sample.sampledAtMillis() - previous.sampledAtMillis();
+                if (elapsedMillis > 0 && sample.cpuTimeNanos() >= previous.cpuTimeNanos()) {
+                    cores = (sample.cpuTimeNanos() - previous.cpuTimeNanos()) / (elapsedMillis * 1_000_000.0);
+                }
+            }
+            latest = new ContainerStats(sample.sampledAtMillis(), sample.memoryBytes(), peak,
+                    sample.memoryLimitBytes(), sample.cpuTimeNanos(), cores, sample.blockReadBytes(),
+                    sample.blockWriteBytes(), sample.networkRxBytes(), sample.networkTxBytes());
+            for (var watcher : watchers) {
+                watcher.onSample.accept(latest);
+            }
+        }
+
+        synchronized void onEnd() {
+            if (ended) return;
+            ended = true;
+            for (var watcher : watchers) {
+                watcher.onEnd.run();
+            }
+            watchers.clear();
+        }
+
+        void stop() {
+            Closeable handle;
+            synchronized (this) {
+                handle = this.handle;
+            }
+            onEnd();
+            if (handle != null) {
+                try {
+                    handle.close();
+                } catch (IOException e) {
+                    System.err.println("Failed to stop sampling container " + containerId + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package dev.executor.server.orchestrator;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Pre-created containers, keyed by image and resource limits, that can be claimed instead of
+ * creating a container on the request path.
+ *
+ * <p>Each key has a target idle count: it starts at the configured minimum, grows by one (up to the
+ * maximum) whenever a claim finds the pool empty, and shrinks again as idle containers expire. Keys
+ * without demand for a full idle timeout drain to zero and are forgotten. Refills run on the given
+ * executor; {@link #maintain()} is expected to be called periodically.
+ */
+class WarmContainerPool implements AutoCloseable {
+
+    interface ContainerFactory {
+        /** Creates and starts a container that is ready to be claimed. */
+        String create(Key key);
+
+        void destroy(String containerId);
+
+        /** Pool containers a previous server process created and left running. */
+        List<String> leftovers();
+    }
+
+    record Key(String image, ResourceLimits limits) {}
+
+    private record Idle(String containerId, Instant since) {}
+
+    private static final class Slot {
+        final Deque<Idle> idle = new ArrayDeque<>();
+        int creating;
+        int target;
+        Instant lastDemand;
+
+        Slot(int target, Instant lastDemand) {
+            this.target = target;
+            this.lastDemand = lastDemand;
+        }
+    }
+
+    private final ContainerFactory factory;
+    private final WarmPoolSettings settings;
+    private final Executor creator;
+    private final Clock clock;
+    private final Map<Key, Slot> slots = new HashMap<>();
+    private boolean closed;
+
+    WarmContainerPool(ContainerFactory factory, WarmPoolSettings settings, Executor creator, Clock clock) {
+        this.factory = factory;
+        this.settings = settings;
+        this.creator = creator;
+        this.clock = clock;
+    }
+
+    /**
+     * Removes containers a previous process left behind after a crash, which would otherwise stay
+     * parked forever and pile up with every restart. Call it before the first {@link #warm}.
+     */
+    void removeLeftovers() {
+        List<String> leftovers;
+        try {
+            leftovers = factory.leftovers();
+        } catch (RuntimeException e) {
+            System.err.println("Failed to list leftover warm containers: " + e.getMessage());
+            return;
+        }
+        if (!leftovers.isEmpty()) {
+            System.out.println("Removing " + leftovers.size() + " warm container(s) left by a previous run");
+        }
+        for (var containerId : leftovers) {
+            creator.execute(() -> destroyQuietly(containerId));
+        }
+    }
+
+    /** Registers demand for a key so it is filled before the first claim. */
+    void warm(Key key) {
+        synchronized (this) {
+            slot(key).lastDemand = clock.instant();
+        }
+        refill(key);
+    }
+
+    /** Takes an idle container for the key, or returns {@code null} if none is ready. */
+    String claim(Key key) {
+        Idle claimed;
+        synchronized (this) {
+            var slot = slot(key);
+            slot.lastDemand = clock.instant();
+            claimed = slot.idle.pollLast();
+            if (claimed == null) {
+                slot.target = Math.min(slot.target + 1, settings.maxIdle());
+            }
+        }
+        refill(key);
+        return claimed != null ? claimed.containerId() : null;
+    }
+
+    /** Removes containers idle past the timeout and tops every key back up to its target. */
+    void maintain() {
+        var expired = new ArrayList<String>();
+        var keys = new ArrayList<Key>();
+        synchronized (this) {
+            var now = clock.instant();
+            for (var iterator = slots.entrySet().iterator(); iterator.hasNext(); ) {
+                var entry = iterator.next();
+                var slot = entry.getValue();
+                if (slot.lastDemand.plus(settings.idleTimeout()).isBefore(now)) {
+                    slot.target = 0;
+                }
+                while (!slot.idle.isEmpty()
+                        && slot.idle.peekFirst().since().plus(settings.idleTimeout()).isBefore(now)) {
+                    expired.add(slot.idle.pollFirst().containerId());
+                    if (slot.target > settings.minIdle()) {
+                        slot.target--;
+                    }
+                }
+                if (slot.target == 0 && slot.idle.isEmpty() && slot.creating == 0) {
+                    iterator.remove();
+                } else {
+                    keys.add(entry.getKey());
+                }
+            }
+        }
+        expired.forEach(this::destroyQuietly);
+        keys.forEach(this::refill);
+    }
+
+    synchronized int idleCount(Key key) {
+        var slot = slots.get(key);
+        return slot != null ? slot.idle.size() : 0;
+    }
+
+    @Override
+    public void close() {
+        var idle = new ArrayList<String>();
+        synchronized (this) {
+            closed = true;
+            slots.values().forEach(slot -> slot.idle.forEach(i -> idle.add(i.containerId())));
+            slots.clear();
+        }
+        idle.forEach(this::destroyQuietly);
+    }
+
+    private Slot slot(Key key) {
+        return slots.computeIfAbsent(key, k -> new Slot(settings.minIdle(), clock.instant()));
+    }
+
+    private void refill(Key key) {
+        int missing;
+        synchronized (this) {
+            var slot = slots.get(key);
+            if (closed || slot == null) return;
+            missing = slot.target - slot.idle.size() - slot.creating;
+            if (missing <= 0) return;
+            slot.creating += missing;
+        }
+        for (int i = 0; i < missing; i++) {
+            creator.execute(() -> createOne(key));
+        }
+    }
+
+    private void createOne(Key key) {
+        String containerId = null;
+        try {
+            containerId = factory.create(key);
+        } catch (RuntimeException e) {
+            System.err.println("Failed to create warm container for " + key.image() + ": " + e.getMessage());
+        }
+
+        boolean kept = false;
+        synchronized (this) {
+            var slot = slots.get(key);
+            if (slot != null) {
+                slot.creating--;
+                if (containerId != null && !closed) {
+                    slot.idle.addLast(new Idle(containerId, clock.instant()));
+                    kept = true;
+                }
+            }
+        }
+        if (!kept && containerId != null) {
+            destroyQuietly(containerId);
+        }
+    }
+
+    private void destroyQuietly(String containerId) {
+        try {
+            factory.destroy(containerId);
+        } catch (RuntimeException e) {
+            System.err.println("Failed to remove warm container " + containerId + ": " + e.getMessage());
+        }
+    }
+}
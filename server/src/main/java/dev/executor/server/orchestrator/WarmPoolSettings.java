@@ -0,0 +1,27 @@
+package dev.executor.server.orchestrator;
+
+import java.time.Duration;
+
+/**
+ * Sizing for the warm container pool, per image and resource-limit combination. The pool keeps at
+ * least {@code minIdle} containers ready for keys that saw demand within {@code idleTimeout}, grows
+ * towards {@code maxIdle} when claims find it empty, and removes containers left idle longer than
+ * {@code idleTimeout}. A {@code maxIdle} of zero disables the pool.
+ */
+public record WarmPoolSettings(int minIdle, int maxIdle, Duration idleTimeout) {
+
+    public WarmPoolSettings {
+        if (minIdle < 0 || maxIdle < minIdle) {
+            throw new IllegalArgumentException(
+                    "Warm pool sizes must satisfy 0 <= min <= max, got min=" + minIdle + ", max=" + maxIdle);
+        }
+    }
+
+    public static WarmPoolSettings disabled() {
+        return new WarmPoolSettings(0, 0, Duration.ZERO);
+    }
+
+    public boolean enabled() {
+        return maxIdle > 0;
+    }
+}
@@ -0,0 +1,184 @@
+package dev.executor.server.quota;
+
+import dev.executor.server.AuthInterceptor;
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Enforces each client's {@link QuotaSettings} per method: a token bucket on the call rate and a cap
+ * on calls in flight. Install it inside {@link AuthInterceptor}, which names the client; calls without
+ * one share the {@link #ANONYMOUS} quota.
+ *
+ * <p>Rejected calls fail with {@code RESOURCE_EXHAUSTED} and a {@code grpc-retry-pushback-ms} trailer
+ * saying when to try again.
+ */
+public class QuotaInterceptor implements ServerInterceptor {
+
+    public static final String ANONYMOUS = "anonymous";
+
+    static final Metadata.Key<String> RETRY_PUSHBACK_KEY =
+            Metadata.Key.of("grpc-retry-pushback-ms", Metadata.ASCII_STRING_MARSHALLER);
+    // No way to know when an in-flight call ends; a hint in the order of a short RPC.
+    private static final long CONCURRENCY_RETRY_MILLIS = 1000;
+    private static final MethodQuota UNLIMITED = new MethodQuota(null, 0);
+
+    private final QuotaSettings settings;
+    private final Map<String, Map<String, MethodQuota>> clients = new ConcurrentHashMap<>();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder concurrencyLimited = new LongAdder();
+
+    public QuotaInterceptor(QuotaSettings settings) {
+        this.settings = settings;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+            ServerCall<ReqT, RespT> call,
+            Metadata headers,
+            ServerCallHandler<ReqT, RespT> next) {
+        var client = AuthInterceptor.CLIENT_KEY.get();
+        if (client == null) {
+            client = ANONYMOUS;
+        }
+        var method = call.getMethodDescriptor().getBareMethodName();
+        var quota = quota(client, method);
+        if (quota == UNLIMITED) {
+            return next.startCall(call, headers);
+        }
+
+        if (quota.maxInFlight > 0 && !quota.enter()) {
+            concurrencyLimited.increment();
+            return reject(call, "At most " + quota.maxInFlight + " concurrent " + method + " calls per client",
+                    CONCURRENCY_RETRY_MILLIS);
+        }
+        if (quota.bucket != null) {
+            var waitNanos = quota.bucket.tryAcquire(System.nanoTime());
+            if (waitNanos > 0) {
+                if (quota.maxInFlight > 0) {
+                    quota.exit();
+                }
+                rateLimited.increment();
+                var waitMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos + 999_999));
+                return reject(call, "Rate limit for " + method + " exceeded, retry in " + waitMillis + " ms",
+                        waitMillis);
+            }
+        }
+        if (quota.maxInFlight == 0) {
+            return next.startCall(call, headers);
+        }
+
+        var tracked = new InFlightCall<>(call, quota);
+        ServerCall.Listener<ReqT> listener;
+        try {
+            listener = next.startCall(tracked, headers);
+        } catch (RuntimeException e) {
+            tracked.finish();
+            throw e;
+        }
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(listener) {
+            @Override
+            public void onCancel() {
+                tracked.finish();
+                super.onCancel();
+            }
+        };
+    }
+
+    public long rateLimitedCalls() {
+        return rateLimited.sum();
+    }
+
+    public long concurrencyLimitedCalls() {
+        return concurrencyLimited.sum();
+    }
+
+    private MethodQuota quota(String client, String method) {
+        var methods = clients.computeIfAbsent(client, c -> new ConcurrentHashMap<>());
+        var quota = methods.get(method);
+        if (quota != null) {
+            return quota;
+        }
+        return methods.computeIfAbsent(method, m -> {
+            var rate = settings.rateLimit(m);
+            var concurrency = settings.concurrencyLimit(m);
+            if (rate == null && concurrency == 0) {
+                return UNLIMITED;
+            }
+            return new MethodQuota(rate != null ? new TokenBucket(rate, System.nanoTime()) : null, concurrency);
+        });
+    }
+
+    private static <ReqT, RespT> ServerCall.Listener<ReqT> reject(
+            ServerCall<ReqT, RespT> call, String description, long retryMillis) {
+        var trailers = new Metadata();
+        trailers.put(RETRY_PUSHBACK_KEY, Long.toString(retryMillis));
+        call.close(Status.RESOURCE_EXHAUSTED.withDescription(description), trailers);
+        return new ServerCall.Listener<>() {};
+    }
+
+    private static final class MethodQuota {
+        private final TokenBucket bucket;
+        private final int maxInFlight;
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        MethodQuota(TokenBucket bucket, int maxInFlight) {
+            this.bucket = bucket;
+            this.maxInFlight = maxInFlight;
+        }
+
+        boolean enter() {
+            while (true) {
+                var current = inFlight.get();
+                if (current >= maxInFlight) {
+                    return false;
+                }
+                if (inFlight.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void exit() {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /** Frees the call's in-flight slot once, whether it closes or is cancelled. */
+    private static final class InFlightCall<ReqT, RespT>
+            extends ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT> {
+
+        private static final AtomicIntegerFieldUpdater<InFlightCall> FINISHED =
+                AtomicIntegerFieldUpdater.newUpdater(InFlightCall.class, "finished");
+
+        private final MethodQuota quota;
+        private volatile int finished;
+
+        InFlightCall(ServerCall<ReqT, RespT> delegate, MethodQuota quota) {
+            super(delegate);
+            this.quota = quota;
+        }
+
+        @Override
+        public void close(Status status, Metadata trailers) {
+            finish();
+            super.close(status, trailers);
+        }
+
+        void finish() {
+            if (FINISHED.compareAndSet(this, 0, 1)) {
+                quota.exit();
+            }
+        }
+    }
+}
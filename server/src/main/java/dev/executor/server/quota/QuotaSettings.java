@@ -0,0 +1,47 @@
+package dev.executor.server.quota;
+
+import java.util.Map;
+
+/**
+ * Limits applied to each client separately, keyed by bare RPC name such as {@code StartJob}. The
+ * {@link #ANY_METHOD} key sets the limit for methods without their own entry.
+ *
+ * @param rateLimits calls per second each client may make to a method
+ * @param concurrencyLimits calls each client may have in flight on a method at once
+ */
+public record QuotaSettings(Map<String, RateLimit> rateLimits, Map<String, Integer> concurrencyLimits) {
+
+    public static final String ANY_METHOD = "*";
+
+    public QuotaSettings {
+        rateLimits = Map.copyOf(rateLimits);
+        concurrencyLimits = Map.copyOf(concurrencyLimits);
+        concurrencyLimits.forEach((method, limit) -> {
+            if (limit < 1) {
+                throw new IllegalArgumentException("concurrency limit of " + method + " must be positive: " + limit);
+            }
+        });
+    }
+
+    public static QuotaSettings unlimited() {
+        return new QuotaSettings(Map.of(), Map.of());
+    }
+
+    public boolean isUnlimited() {
+        return rateLimits.isEmpty() && concurrencyLimits.isEmpty();
+    }
+
+    RateLimit rateLimit(String method) {
+        var limit = rateLimits.get(method);
+        return limit != null ? limit : rateLimits.get(ANY_METHOD);
+    }
+
+    /** The method's concurrency limit, or zero if it has none. */
+    int concurrencyLimit(String method) {
+        var limit = concurrencyLimits.get(method);
+        if (limit == null) {
+            limit = concurrencyLimits.get(ANY_METHOD);
+        }
+        return limit != null ? limit : 0;
+    }
+}
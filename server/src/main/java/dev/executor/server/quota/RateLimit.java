@@ -0,0 +1,14 @@
+package dev.executor.server.quota;
+
+/** A sustained rate of calls per second, with bursts of up to {@code burst} calls at once. */
+public record RateLimit(double perSecond, int burst) {
+
+    public RateLimit {
+        if (!(perSecond > 0)) {
+            throw new IllegalArgumentException("rate must be positive: " + perSecond);
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("burst must be at least 1: " + burst);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package dev.executor.server.quota;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A token bucket kept as the single timestamp of the generic cell rate algorithm: the time the
+ * bucket would be full again. Taking a token is one read and one compare-and-set, with no lock and no
+ * refill timer.
+ */
+final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong fullAt;
+
+    TokenBucket(RateLimit limit, long nowNanos) {
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / limit.perSecond()));
+        this.toleranceNanos = intervalNanos * (limit.burst() - 1);
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    /** Takes a token; returns zero if one was available, otherwise how long until one is. */
+    long tryAcquire(long nowNanos) {
+        while (true) {
+            var full = fullAt.get();
+            var wait = full - toleranceNanos - nowNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            // Compare by difference: nanoTime values may wrap.
+            var next = (full - nowNanos > 0 ? full : nowNanos) + intervalNanos;
+            if (fullAt.compareAndSet(full, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package dev.executor.server.registry;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import dev.executor.common.JobStatus;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+/**
+ * Append-only, on-disk store of terminal job statuses evicted from memory.
+ *
+ * <p>Records are {@code [int length][short containerIdLength][containerId][JobStatus]} appended to
+ * {@code jobs.dat}; a {@link UuidIndex} in {@code jobs.idx} maps job IDs to record offsets. On open, a
+ * torn record at the end of the data file is truncated and any records the index missed before a
+ * crash are indexed again.
+ *
+ * <p>Disk use is capped by keeping two generations: once {@code jobs.dat} reaches half the limit it
+ * becomes {@code jobs.old.dat}, replacing the previous old generation, and a fresh one is started.
+ * The oldest archived jobs are forgotten half the limit at a time.
+ */
+public class JobArchive implements AutoCloseable {
+
+    private static final String DATA_FILE = "jobs.dat";
+    private static final String INDEX_FILE = "jobs.idx";
+    private static final String OLD_DATA_FILE = "jobs.old.dat";
+    private static final String OLD_INDEX_FILE = "jobs.old.idx";
+
+    public record ArchivedJob(String containerId, JobStatus status) {}
+
+    private final Path directory;
+    private final long generationBytes;
+    private Generation current;
+    private Generation previous;
+
+    private JobArchive(Path directory, long maxBytes, Generation current, Generation previous) {
+        this.directory = directory;
+        this.generationBytes = Math.max(1, maxBytes / 2);
+        this.current = current;
+        this.previous = previous;
+    }
+
+    public static JobArchive open(Path directory) throws IOException {
+        return open(directory, Long.MAX_VALUE);
+    }
+
+    /** Opens the archive in {@code directory}, keeping its files to about {@code maxBytes} in total. */
+    public static JobArchive open(Path directory, long maxBytes) throws IOException {
+        Files.createDirectories(directory);
+        var current = Generation.open(directory.resolve(DATA_FILE), directory.resolve(INDEX_FILE));
+        var previous = Files.exists(directory.resolve(OLD_DATA_FILE))
+                ? Generation.open(directory.resolve(OLD_DATA_FILE), directory.resolve(OLD_INDEX_FILE))
+                : null;
+        return new JobArchive(directory, maxBytes, current, previous);
+    }
+
+    public synchronized void put(String jobId, String containerId, JobStatus status) throws IOException {
+        var uuid = UUID.fromString(jobId);
+        var containerBytes = containerId != null ? containerId.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        var statusBytes = status.toByteArray();
+        var record = ByteBuffer.allocate(4 + 2 + containerBytes.length + statusBytes.length);
+        record.putInt(2 + containerBytes.length + statusBytes.length)
+                .putShort((short) containerBytes.length)
+                .put(containerBytes)
+                .put(statusBytes)
+                .flip();
+
+        if (current.end > 0 && current.end + record.remaining() > generationBytes) {
+            rotate();
+        }
+        current.append(uuid, record);
+    }
+
+    /** Returns the archived job, or {@code null} if it was never archived or has been forgotten. */
+    public synchronized ArchivedJob get(String jobId) throws IOException {
+        UUID uuid;
+        try {
+            uuid = UUID.fromString(jobId);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        var job = current.get(uuid);
+        if (job == null && previous != null) {
+            job = previous.get(uuid);
+        }
+        return job;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        current.close();
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    private void rotate() throws IOException {
+        if (previous != null) {
+            previous.close();
+        }
+        current.close();
+        Files.move(directory.resolve(DATA_FILE), directory.resolve(OLD_DATA_FILE), StandardCopyOption.REPLACE_EXISTING);
+        Files.move(directory.resolve(INDEX_FILE), directory.resolve(OLD_INDEX_FILE), StandardCopyOption.REPLACE_EXISTING);
+        previous = Generation.open(directory.resolve(OLD_DATA_FILE), directory.resolve(OLD_INDEX_FILE));
+        current = Generation.open(directory.resolve(DATA_FILE), directory.resolve(INDEX_FILE));
+    }
+
+    /** One data file and the index of its records. */
+    private static final class Generation {
+        private final FileChannel data;
+        private final UuidIndex index;
+        private long end;
+
+        private Generation(FileChannel data, UuidIndex index, long end) {
+            this.data = data;
+            this.index = index;
+            this.end = end;
+        }
+
+        static Generation open(Path dataPath, Path indexPath) throws IOException {
+            var data = FileChannel.open(dataPath,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            var index = UuidIndex.open(indexPath);
+            return new Generation(data, index, recover(data, index));
+        }
+
+        void append(UUID uuid, ByteBuffer record) throws IOException {
+            var offset = end;
+            while (record.hasRemaining()) {
+                end += data.write(record, end);
+            }
+            index.put(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), offset);
+        }
+
+        ArchivedJob get(UUID uuid) throws IOException {
+            var offset = index.get(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+            if (offset < 0) {
+                return null;
+            }
+            return decode(readRecord(data, offset));
+        }
+
+        void close() throws IOException {
+            index.close();
+            data.close();
+        }
+    }
+
+    private static ByteBuffer readRecord(FileChannel channel, long offset) throws IOException {
+        var header = ByteBuffer.allocate(4);
+        readFully(channel, header, offset);
+        var body = ByteBuffer.allocate(header.flip().getInt());
+        readFully(channel, body, offset + 4);
+        return body.flip();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            var read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of job archive at offset " + position);
+            }
+        }
+    }
+
+    private static ArchivedJob decode(ByteBuffer record) throws InvalidProtocolBufferException {
+        var containerBytes = new byte[record.getShort()];
+        record.get(containerBytes);
+        var containerId = containerBytes.length > 0 ? new String(containerBytes, StandardCharsets.UTF_8) : null;
+        return new ArchivedJob(containerId, JobStatus.parseFrom(record));
+    }
+
+    /**
+     * Scans the data file, indexes every record after the last one the index knows about, and returns
+     * the offset after the last whole record. Records are indexed in order, so anything the index
+     * misses was appended after its highest offset; a missing index is rebuilt from scratch.
+     */
+    private static long recover(FileChannel data, UuidIndex index) throws IOException {
+        var indexedUpTo = index.maxValue();
+        var size = data.size();
+        var offset = 0L;
+        while (offset + 4 <= size) {
+            var header = ByteBuffer.allocate(4);
+            readFully(data, header, offset);
+            var length = header.flip().getInt();
+            if (length <= 0 || offset + 4 + length > size) {
+                break;
+            }
+            if (offset > indexedUpTo) {
+                var job = decode(readRecord(data, offset));
+                var uuid = UUID.fromString(job.status().getJobId());
+                index.put(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), offset);
+            }
+            offset += 4 + length;
+        }
+        if (offset < size) {
+            data.truncate(offset);
+        }
+        return offset;
+    }
+}
@@ -0,0 +1,46 @@
+package dev.executor.server.registry;
+
+import dev.executor.common.JobStatus;
+
+/**
+ * In-memory record of a job: its container once launched, plus a frozen status once it finishes.
+ */
+public final class JobEntry {
+
+    private volatile String containerId;
+    private final long createdAtMillis;
+    private volatile JobStatus terminalStatus;
+    private volatile long finishedAtMillis;
+
+    JobEntry(String containerId, long createdAtMillis) {
+        this.containerId = containerId;
+        this.createdAtMillis = createdAtMillis;
+    }
+
+    /** The job's container, or {@code null} while the job is still pending. */
+    public String containerId() {
+        return containerId;
+    }
+
+    public long createdAtMillis() {
+        return createdAtMillis;
+    }
+
+    /** The status frozen when the job finished, or {@code null} while it is still live. */
+    public JobStatus terminalStatus() {
+        return terminalStatus;
+    }
+
+    public long finishedAtMillis() {
+        return finishedAtMillis;
+    }
+
+    void launched(String containerId) {
+        this.containerId = containerId;
+    }
+
+    void freeze(JobStatus status, long nowMillis) {
+        this.finishedAtMillis = nowMillis;
+        this.terminalStatus = status;
+    }
+}
@@ -0,0 +1,144 @@
+package dev.executor.server.registry;
+
+import dev.executor.common.JobStatus;
+import java.io.IOException;
+import java.time.Clock;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Jobs known to this server, sorted by job ID so listings can page with the last ID as a cursor.
+ *
+ * <p>Live jobs only hold their container ID. Once a job finishes its status is frozen, and finished
+ * jobs are evicted oldest-first whenever the {@link RetentionPolicy} is exceeded. Evicted jobs are
+ * written to the {@link JobArchive}, if one is configured, so their status can still be looked up.
+ */
+public class JobRegistry implements AutoCloseable {
+
+    // Rough per-entry cost of the map node, JobEntry and key string on top of the status itself.
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+
+    private final ConcurrentSkipListMap<String, JobEntry> jobs = new ConcurrentSkipListMap<>();
+    private final Deque<String> terminalOrder = new ArrayDeque<>();
+    private final RetentionPolicy policy;
+    private final JobArchive archive;
+    private final Clock clock;
+    private long terminalBytes;
+
+    public JobRegistry() {
+        this(RetentionPolicy.defaults(), null);
+    }
+
+    public JobRegistry(RetentionPolicy policy, JobArchive archive) {
+        this(policy, archive, Clock.systemUTC());
+    }
+
+    JobRegistry(RetentionPolicy policy, JobArchive archive, Clock clock) {
+        this.policy = policy;
+        this.archive = archive;
+        this.clock = clock;
+    }
+
+    /** Registers a job; {@code containerId} is {@code null} for a job that is not launched yet. */
+    public void register(String jobId, String containerId) {
+        jobs.put(jobId, new JobEntry(containerId, clock.millis()));
+        evictExpired();
+    }
+
+    public void launched(String jobId, String containerId) {
+        var entry = jobs.get(jobId);
+        if (entry != null) {
+            entry.launched(containerId);
+        }
+    }
+
+    /** Returns the in-memory entry for the job, or {@code null} if it is unknown or was evicted. */
+    public JobEntry find(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    /** Returns the archived record of an evicted job, or {@code null} if there is none. */
+    public JobArchive.ArchivedJob findArchived(String jobId) {
+        if (archive == null) {
+            return null;
+        }
+        try {
+            return archive.get(jobId);
+        } catch (IOException e) {
+            System.err.println("Failed to read archived job " + jobId + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** In-memory jobs with IDs after the given cursor, or all of them if the cursor is empty. */
+    public NavigableMap<String, JobEntry> entriesAfter(String cursor) {
+        return cursor.isEmpty() ? jobs : jobs.tailMap(cursor, false);
+    }
+
+    /**
+     * Freezes the terminal status of a job. The first status recorded wins; later calls return it
+     * unchanged.
+     */
+    public JobStatus markTerminal(String jobId, JobStatus status) {
+        var entry = jobs.get(jobId);
+        if (entry == null) {
+            return status;
+        }
+        synchronized (this) {
+            if (entry.terminalStatus() != null) {
+                return entry.terminalStatus();
+            }
+            entry.freeze(status, clock.millis());
+            terminalOrder.addLast(jobId);
+            terminalBytes += weight(status);
+            evict();
+        }
+        return status;
+    }
+
+    public synchronized void evictExpired() {
+        evict();
+    }
+
+    public int size() {
+        return jobs.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (archive != null) {
+            archive.close();
+        }
+    }
+
+    private void evict() {
+        var oldestAllowed = clock.millis() - policy.maxTerminalAge().toMillis();
+        while (!terminalOrder.isEmpty()) {
+            var entry = jobs.get(terminalOrder.peekFirst());
+            var overLimit = terminalOrder.size() > policy.maxTerminalJobs()
+                    || terminalBytes > policy.maxTerminalBytes()
+                    || entry.finishedAtMillis() < oldestAllowed;
+            if (!overLimit) {
+                return;
+            }
+
+            var jobId = terminalOrder.pollFirst();
+            var status = entry.terminalStatus();
+            if (archive != null) {
+                try {
+                    archive.put(jobId, entry.containerId(), status);
+                } catch (IOException e) {
+                    System.err.println("Failed to archive job " + jobId + ": " + e.getMessage());
+                }
+            }
+            jobs.remove(jobId);
+            terminalBytes -= weight(status);
+        }
+    }
+
+    private static long weight(JobStatus status) {
+        return status.getSerializedSize() + ENTRY_OVERHEAD_BYTES;
+    }
+}
@@ -0,0 +1,14 @@
+package dev.executor.server.registry;
+
+import java.time.Duration;
+
+/**
+ * Limits on how many finished jobs the registry keeps in memory. A terminal job is evicted as soon
+ * as any limit is exceeded, oldest finished first.
+ */
+public record RetentionPolicy(int maxTerminalJobs, Duration maxTerminalAge, long maxTerminalBytes) {
+
+    public static RetentionPolicy defaults() {
+        return new RetentionPolicy(10_000, Duration.ofDays(1), 64L * 1024 * 1024);
+    }
+}
@@ -0,0 +1,166 @@
+package dev.executor.server.registry;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Memory-mapped, open-addressing hash table from 128-bit UUIDs to file offsets.
+ *
+ * <p>Slots are 24 bytes (two longs of UUID, one long of value); an all-zero UUID marks an empty slot,
+ * which random UUIDs never produce. The table doubles into a new file once it is 70% full. Keeping
+ * the table in a mapped file rather than on the heap lets it grow with the archive without growing
+ * the JVM heap.
+ */
+final class UuidIndex implements AutoCloseable {
+
+    private static final int MAGIC = 0x4A494458; // "JIDX"
+    private static final int HEADER_BYTES = 16;
+    private static final int SLOT_BYTES = 24;
+    private static final int MIN_CAPACITY = 1024;
+
+    private final Path path;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int size;
+
+    private UuidIndex(Path path) {
+        this.path = path;
+    }
+
+    static UuidIndex open(Path path) throws IOException {
+        var index = new UuidIndex(path);
+        if (Files.exists(path) && Files.size(path) >= HEADER_BYTES) {
+            index.map(path, -1);
+        } else {
+            index.map(path, MIN_CAPACITY);
+        }
+        return index;
+    }
+
+    synchronized void put(long msb, long lsb, long value) throws IOException {
+        if ((size + 1) * 10L > capacity * 7L) {
+            grow();
+        }
+        if (insert(buffer, capacity, msb, lsb, value)) {
+            size++;
+            buffer.putInt(8, size);
+        }
+    }
+
+    /** Returns the value stored for the UUID, or {@code -1} if there is none. */
+    synchronized long get(long msb, long lsb) {
+        var mask = capacity - 1;
+        for (int slot = hash(msb, lsb) & mask; ; slot = (slot + 1) & mask) {
+            var position = HEADER_BYTES + slot * SLOT_BYTES;
+            var slotMsb = buffer.getLong(position);
+            var slotLsb = buffer.getLong(position + 8);
+            if (slotMsb == 0 && slotLsb == 0) {
+                return -1;
+            }
+            if (slotMsb == msb && slotLsb == lsb) {
+                return buffer.getLong(position + 16);
+            }
+        }
+    }
+
+    /** Returns the largest value stored, or {@code -1} if the table is empty. */
+    synchronized long maxValue() {
+        var max = -1L;
+        for (int slot = 0; slot < capacity; slot++) {
+            var position = HEADER_BYTES + slot * SLOT_BYTES;
+            if (buffer.getLong(position) != 0 || buffer.getLong(position + 8) != 0) {
+                max = Math.max(max, buffer.getLong(position + 16));
+            }
+        }
+        return max;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private void map(Path file, int newCapacity) throws IOException {
+        var fileChannel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (newCapacity < 0) {
+            var header = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt(0) != MAGIC) {
+                fileChannel.close();
+                throw new IOException("Not a job index file: " + file);
+            }
+            newCapacity = header.getInt(4);
+        }
+
+        var mapped = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                HEADER_BYTES + (long) newCapacity * SLOT_BYTES);
+        if (mapped.getInt(0) != MAGIC) {
+            mapped.putInt(0, MAGIC);
+            mapped.putInt(4, newCapacity);
+            mapped.putInt(8, 0);
+        }
+        this.channel = fileChannel;
+        this.buffer = mapped;
+        this.capacity = newCapacity;
+        this.size = mapped.getInt(8);
+    }
+
+    private void grow() throws IOException {
+        var oldBuffer = buffer;
+        var oldCapacity = capacity;
+        var oldChannel = channel;
+        var tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.deleteIfExists(tmp);
+
+        map(tmp, oldCapacity * 2);
+        var count = 0;
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            var position = HEADER_BYTES + slot * SLOT_BYTES;
+            var msb = oldBuffer.getLong(position);
+            var lsb = oldBuffer.getLong(position + 8);
+            if (msb != 0 || lsb != 0) {
+                insert(buffer, capacity, msb, lsb, oldBuffer.getLong(position + 16));
+                count++;
+            }
+        }
+        size = count;
+        buffer.putInt(8, size);
+        buffer.force();
+        oldChannel.close();
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static boolean insert(MappedByteBuffer table, int capacity, long msb, long lsb, long value) {
+        var mask = capacity - 1;
+        for (int slot = hash(msb, lsb) & mask; ; slot = (slot + 1) & mask) {
+            var position = HEADER_BYTES + slot * SLOT_BYTES;
+            var slotMsb = table.getLong(position);
+            var slotLsb = table.getLong(position + 8);
+            var empty = slotMsb == 0 && slotLsb == 0;
+            if (empty || (slotMsb == msb && slotLsb == lsb)) {
+                table.putLong(position, msb);
+                table.putLong(position + 8, lsb);
+                table.putLong(position + 16, value);
+                return empty;
+            }
+        }
+    }
+
+    private static int hash(long msb, long lsb) {
+        var h = msb * 0x9E3779B97F4A7C15L ^ lsb;
+        h ^= h >>> 31;
+        h *= 0xBF58476D1CE4E5B9L;
+        return (int) (h ^ (h >>> 29));
+    }
+}
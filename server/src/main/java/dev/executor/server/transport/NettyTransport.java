@@ -0,0 +1,143 @@
+package dev.executor.server.transport;
+
+import io.grpc.Server;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.netty.shaded.io.netty.channel.EventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.ServerChannel;
+import io.grpc.netty.shaded.io.netty.channel.epoll.Epoll;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollServerDomainSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollServerSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.nio.NioEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.unix.DomainSocketAddress;
+import io.grpc.netty.shaded.io.netty.util.concurrent.DefaultThreadFactory;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Event loops and the call executor shared by every listener of the server.
+ *
+ * <p>Uses native epoll where the platform has it and NIO elsewhere. Call handlers run on virtual
+ * threads unless a bounded pool is configured, so thousands of open log streams or blocked docker
+ * calls do not mean thousands of platform threads.
+ */
+public class NettyTransport implements AutoCloseable {
+
+    private static final Set<PosixFilePermission> PRIVATE_DIRECTORY = PosixFilePermissions.fromString("rwxr-x---");
+    // File type bits of st_mode.
+    private static final int S_IFMT = 0170000;
+    private static final int S_IFSOCK = 0140000;
+
+    private final TransportSettings settings;
+    private final boolean epoll;
+    private final EventLoopGroup boss;
+    private final EventLoopGroup workers;
+    private final ExecutorService executor;
+
+    public NettyTransport(TransportSettings settings) {
+        this.settings = settings;
+        this.epoll = Epoll.isAvailable();
+        if (epoll) {
+            boss = new EpollEventLoopGroup(1, new DefaultThreadFactory("grpc-boss", true));
+            workers = new EpollEventLoopGroup(0, new DefaultThreadFactory("grpc-worker", true));
+        } else {
+            boss = new NioEventLoopGroup(1, new DefaultThreadFactory("grpc-boss", true));
+            workers = new NioEventLoopGroup(0, new DefaultThreadFactory("grpc-worker", true));
+        }
+        executor = settings.executorThreads() > 0
+                ? Executors.newFixedThreadPool(settings.executorThreads(),
+                        Thread.ofPlatform().name("grpc-call-", 0).daemon().factory())
+                : Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    public boolean isEpoll() {
+        return epoll;
+    }
+
+    /** Starts a server listening on {@code port} on every interface; {@code 0} picks a free port. */
+    public Server startTcpServer(int port, List<ServerServiceDefinition> services) throws IOException {
+        return build(new InetSocketAddress(port),
+                epoll ? EpollServerSocketChannel.class : NioServerSocketChannel.class, services).start();
+    }
+
+    /**
+     * Starts a server listening on the configured Unix domain socket, which only the owner and group
+     * may use. A stale socket left by a previous run is replaced; any other file at the path is not.
+     *
+     * <p>The socket is created with the process umask and only narrowed once bound, so its directory
+     * must already keep other users out: a missing one is created as {@code rwxr-x---}, and an
+     * existing one that others may enter is refused.
+     */
+    public Server startUnixServer(List<ServerServiceDefinition> services) throws IOException {
+        if (!epoll) {
+            throw new IllegalStateException("Unix domain socket listener needs native epoll, which this platform lacks");
+        }
+        var path = settings.unixSocket().toAbsolutePath();
+        var directory = path.getParent();
+        if (Files.isDirectory(directory)) {
+            var permissions = Files.getPosixFilePermissions(directory);
+            if (permissions.contains(PosixFilePermission.OTHERS_READ)
+                    || permissions.contains(PosixFilePermission.OTHERS_WRITE)
+                    || permissions.contains(PosixFilePermission.OTHERS_EXECUTE)) {
+                throw new IOException("Unix socket directory " + directory + " is open to other users ("
+                        + PosixFilePermissions.toString(permissions) + "); restrict it to owner and group");
+            }
+        } else {
+            Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(PRIVATE_DIRECTORY));
+        }
+        if (Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+            if (!isSocket(path)) {
+                throw new IOException("Refusing to replace " + path + " with the gRPC socket; it is not a socket");
+            }
+            Files.delete(path);
+        }
+        var server = build(new DomainSocketAddress(path.toString()), EpollServerDomainSocketChannel.class, services)
+                .start();
+        Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rw-rw----"));
+        return server;
+    }
+
+    private static boolean isSocket(Path path) throws IOException {
+        var mode = (int) Files.getAttribute(path, "unix:mode", LinkOption.NOFOLLOW_LINKS);
+        return (mode & S_IFMT) == S_IFSOCK;
+    }
+
+    private Server build(SocketAddress address, Class<? extends ServerChannel> channelType,
+                         List<ServerServiceDefinition> services) {
+        var builder = NettyServerBuilder.forAddress(address)
+                .channelType(channelType)
+                .bossEventLoopGroup(boss)
+                .workerEventLoopGroup(workers)
+                .executor(executor)
+                .flowControlWindow(settings.flowControlWindowBytes())
+                .maxConcurrentCallsPerConnection(settings.maxConcurrentCallsPerConnection())
+                .keepAliveTime(settings.keepAliveTime().toMillis(), TimeUnit.MILLISECONDS)
+                .keepAliveTimeout(settings.keepAliveTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .permitKeepAliveTime(settings.permitKeepAliveTime().toMillis(), TimeUnit.MILLISECONDS)
+                // The sidecar keeps one connection open between polls.
+                .permitKeepAliveWithoutCalls(true);
+        services.forEach(builder::addService);
+        return builder.build();
+    }
+
+    /** Shuts down the event loops and executor; close the servers using them first. */
+    @Override
+    public void close() {
+        boss.shutdownGracefully(0, 5, TimeUnit.SECONDS);
+        workers.shutdownGracefully(0, 5, TimeUnit.SECONDS);
+        executor.shutdown();
+    }
+}
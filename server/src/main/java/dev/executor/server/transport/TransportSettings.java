@@ -0,0 +1,31 @@
+package dev.executor.server.transport;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * How the gRPC server accepts and runs calls.
+ *
+ * @param executorThreads threads running call handlers; zero runs each call on its own virtual thread
+ * @param flowControlWindowBytes initial HTTP/2 flow-control window of each stream
+ * @param maxConcurrentCallsPerConnection streams a single client connection may have open at once
+ * @param keepAliveTime idle time after which the server pings a connection to check it is alive
+ * @param keepAliveTimeout time to wait for a ping acknowledgement before closing the connection
+ * @param permitKeepAliveTime shortest interval at which clients may send their own keepalive pings
+ * @param unixSocket path of an additional Unix domain socket listener, or {@code null} for none
+ */
+public record TransportSettings(
+    int executorThreads,
+    int flowControlWindowBytes,
+    int maxConcurrentCallsPerConnection,
+    Duration keepAliveTime,
+    Duration keepAliveTimeout,
+    Duration permitKeepAliveTime,
+    Path unixSocket
+) {
+
+    public static TransportSettings defaults() {
+        return new TransportSettings(0, 1024 * 1024, 10_000,
+                Duration.ofMinutes(1), Duration.ofSeconds(20), Duration.ofSeconds(10), null);
+    }
+}
@@ -6,6 +6,7 @@ import io.grpc.Metadata;
 import io.grpc.ServerCall;
 import io.grpc.ServerCallHandler;
 import io.grpc.Status;
+import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -76,6 +77,24 @@ class AuthInterceptorTest {
         assertTrue(handlerInvoked);
     }
 
+    @Test
+    void recordsWhichClientsKeyWasUsed() {
+        var multiKey = new AuthInterceptor(Map.of("ci", "ci-secret", "alice", "alice-secret"));
+        var headers = new Metadata();
+        headers.put(
+                Metadata.Key.of("Authorization", Metadata.ASCII_STRING_MARSHALLER),
+                "Bearer alice-secret");
+        var client = new String[1];
+
+        multiKey.interceptCall(call, headers, (c, h) -> {
+            client[0] = AuthInterceptor.CLIENT_KEY.get();
+            return new ServerCall.Listener<>() {};
+        });
+
+        assertNull(call.closedStatus);
+        assertEquals("alice", client[0]);
+    }
+
     private static class RecordingServerCall<ReqT, RespT> extends ServerCall<ReqT, RespT> {
         Status closedStatus;
 
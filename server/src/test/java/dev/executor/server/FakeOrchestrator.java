@@ -0,0 +1,111 @@
+package dev.executor.server;
+
+import dev.executor.server.logs.LogBufferSettings;
+import dev.executor.server.logs.LogFrame;
+import dev.executor.server.logs.LogHub;
+import dev.executor.server.logs.LogSubscription;
+import dev.executor.server.orchestrator.ContainerOrchestrator;
+import dev.executor.server.orchestrator.ContainerState;
+import dev.executor.server.orchestrator.ContainerStats;
+import dev.executor.server.orchestrator.ResourceLimits;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+class FakeOrchestrator implements ContainerOrchestrator {
+
+    final AtomicInteger started = new AtomicInteger();
+    final AtomicInteger inspections = new AtomicInteger();
+    final AtomicInteger tails = new AtomicInteger();
+    final Map<String, ContainerState> states = new ConcurrentHashMap<>();
+    final Map<String, List<String>> logs = new ConcurrentHashMap<>();
+    final List<String> released = new CopyOnWriteArrayList<>();
+    final Map<String, ContainerStats> stats = new ConcurrentHashMap<>();
+    private final Map<String, List<Consumer<ContainerStats>>> statsWatchers = new ConcurrentHashMap<>();
+    private final Map<String, List<Runnable>> statsEndWatchers = new ConcurrentHashMap<>();
+    private final Map<String, List<Consumer<ContainerState>>> exitWatchers = new ConcurrentHashMap<>();
+    private final LogHub logHub = new LogHub((containerId, onFrame, onComplete, onError) -> {
+        logs.getOrDefault(containerId, List.of()).forEach(line -> onFrame.accept(
+                new LogFrame(LogFrame.Stream.STDOUT, (line + "\n").getBytes(StandardCharsets.UTF_8))));
+        onComplete.run();
+    }, LogBufferSettings.defaults());
+
+    @Override
+    public String startContainer(String image, String command, ResourceLimits limits) {
+        var containerId = "c" + started.incrementAndGet();
+        states.put(containerId, new ContainerState(containerId, true, null, false, null));
+        return containerId;
+    }
+
+    @Override
+    public ContainerState inspectContainer(String containerId) {
+        inspections.incrementAndGet();
+        var state = states.get(containerId);
+        return state != null ? state : new ContainerState(containerId, false, null, false, "Container not found");
+    }
+
+    @Override
+    public List<String> tailLogs(String containerId, int lines) {
+        tails.incrementAndGet();
+        var all = logs.getOrDefault(containerId, List.of());
+        return new ArrayList<>(all.subList(Math.max(0, all.size() - lines), all.size()));
+    }
+
+    @Override
+    public LogSubscription subscribeLogs(String containerId, long startOffset, Runnable onData) {
+        return logHub.subscribe(containerId, startOffset, onData);
+    }
+
+    @Override
+    public void onContainerExit(String containerId, Consumer<ContainerState> onExit) {
+        exitWatchers.computeIfAbsent(containerId, id -> new CopyOnWriteArrayList<>()).add(onExit);
+    }
+
+    @Override
+    public ContainerStats stats(String containerId) {
+        return stats.get(containerId);
+    }
+
+    @Override
+    public Runnable watchStats(String containerId, Consumer<ContainerStats> onSample, Runnable onEnd) {
+        var latest = stats.get(containerId);
+        if (latest != null) {
+            onSample.accept(latest);
+        }
+        statsWatchers.computeIfAbsent(containerId, id -> new CopyOnWriteArrayList<>()).add(onSample);
+        statsEndWatchers.computeIfAbsent(containerId, id -> new CopyOnWriteArrayList<>()).add(onEnd);
+        return () -> {
+            statsWatchers.getOrDefault(containerId, List.of()).remove(onSample);
+            statsEndWatchers.getOrDefault(containerId, List.of()).remove(onEnd);
+        };
+    }
+
+    void sample(String containerId, ContainerStats sample) {
+        stats.put(containerId, sample);
+        statsWatchers.getOrDefault(containerId, List.of()).forEach(watcher -> watcher.accept(sample));
+    }
+
+    @Override
+    public void release(String containerId) {
+        released.add(containerId);
+    }
+
+    void finish(String containerId, int exitCode) {
+        var state = new ContainerState(containerId, false, exitCode, false, null);
+        states.put(containerId, state);
+        var watchers = exitWatchers.remove(containerId);
+        if (watchers != null) {
+            watchers.forEach(watcher -> watcher.accept(state));
+        }
+        statsWatchers.remove(containerId);
+        var statsEnd = statsEndWatchers.remove(containerId);
+        if (statsEnd != null) {
+            statsEnd.forEach(Runnable::run);
+        }
+    }
+}
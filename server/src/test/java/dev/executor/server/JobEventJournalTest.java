@@ -0,0 +1,125 @@
+package dev.executor.server;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.executor.common.JobEvent;
+import dev.executor.common.JobStatus;
+import dev.executor.common.RunningDetails;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class JobEventJournalTest {
+
+    private final JobEventJournal journal = new JobEventJournal(4);
+
+    private static JobStatus running(String jobId) {
+        return JobStatus.newBuilder()
+                .setJobId(jobId)
+                .setRunning(RunningDetails.newBuilder().setStartedAt("2026-02-16T00:00:00Z"))
+                .build();
+    }
+
+    private static List<String> drain(JobEventJournal.Cursor cursor) {
+        var jobIds = new ArrayList<String>();
+        for (var event = cursor.next(); event != null; event = cursor.next()) {
+            jobIds.add(event.getStatus().getJobId());
+        }
+        return jobIds;
+    }
+
+    private static String lastToken(JobEventJournal.Cursor cursor) {
+        JobEvent last = null;
+        for (var event = cursor.next(); event != null; event = cursor.next()) {
+            last = event;
+        }
+        return last.getResumeToken();
+    }
+
+    @Test
+    void replaysRetainedEventsToNewSubscriber() {
+        journal.append(running("job-1"));
+        journal.append(running("job-2"));
+
+        var cursor = journal.subscribe("", () -> {});
+
+        assertEquals(List.of("job-1", "job-2"), drain(cursor));
+    }
+
+    @Test
+    void signalsSubscribersOfNewEvents() {
+        var signals = new AtomicInteger();
+        var cursor = journal.subscribe("", signals::incrementAndGet);
+
+        journal.append(running("job-1"));
+
+        assertEquals(1, signals.get());
+        assertEquals(List.of("job-1"), drain(cursor));
+        assertNull(cursor.next());
+    }
+
+    @Test
+    void resumesAfterToken() {
+        var first = journal.subscribe("", () -> {});
+        journal.append(running("job-1"));
+        var token = lastToken(first);
+        first.close();
+
+        journal.append(running("job-2"));
+        journal.append(running("job-3"));
+
+        assertEquals(List.of("job-2", "job-3"), drain(journal.subscribe(token, () -> {})));
+    }
+
+    @Test
+    void rejectsTokenOlderThanRetainedWindow() {
+        var first = journal.subscribe("", () -> {});
+        journal.append(running("job-1"));
+        var token = lastToken(first);
+        first.close();
+
+        for (int i = 2; i <= 6; i++) {
+            journal.append(running("job-" + i));
+        }
+
+        assertThrows(JobEventJournal.StaleResumeTokenException.class, () -> journal.subscribe(token, () -> {}));
+    }
+
+    @Test
+    void rejectsTokenFromAnotherJournal() {
+        var other = new JobEventJournal(4);
+        var cursor = other.subscribe("", () -> {});
+        other.append(running("job-1"));
+
+        var token = lastToken(cursor);
+        assertThrows(JobEventJournal.StaleResumeTokenException.class, () -> journal.subscribe(token, () -> {}));
+    }
+
+    @Test
+    void cursorThatFallsAWholeWindowBehindIsStale() {
+        var cursor = journal.subscribe("", () -> {});
+        journal.append(running("job-1"));
+        assertEquals(List.of("job-1"), drain(cursor));
+
+        for (int i = 2; i <= 6; i++) {
+            journal.append(running("job-" + i));
+        }
+
+        assertThrows(JobEventJournal.StaleResumeTokenException.class, cursor::next);
+    }
+
+    @Test
+    void dropsSubscriberWhoseSignalThrows() {
+        var signals = new AtomicInteger();
+        journal.subscribe("", () -> {
+            signals.incrementAndGet();
+            throw new IllegalStateException("call cancelled");
+        });
+
+        journal.append(running("job-1"));
+        journal.append(running("job-2"));
+
+        assertEquals(1, signals.get());
+    }
+}
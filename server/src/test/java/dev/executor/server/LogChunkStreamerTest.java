@@ -0,0 +1,133 @@
+package dev.executor.server;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.executor.common.CommandRequest;
+import dev.executor.common.LogStream;
+import dev.executor.common.ReadJobLogsRequest;
+import dev.executor.common.ShellServiceGrpc;
+import dev.executor.common.WatchJobLogsRequest;
+import dev.executor.server.registry.JobRegistry;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LogChunkStreamerTest {
+
+    private final FakeOrchestrator orchestrator = new FakeOrchestrator();
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        var name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name)
+                .addService(new ShellServiceImpl(orchestrator, new JobRegistry(), Runnable::run))
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.shutdownNow();
+        server.shutdownNow();
+    }
+
+    @Test
+    void coalescesLinesIntoFewChunks() {
+        var stub = ShellServiceGrpc.newBlockingStub(channel);
+        var jobId = stub.startJob(CommandRequest.newBuilder().setCommand("seq 1000").build()).getJobId();
+        var lines = new ArrayList<String>();
+        var expected = new StringBuilder();
+        for (int i = 1; i <= 1000; i++) {
+            lines.add(String.valueOf(i));
+            expected.append(i).append('\n');
+        }
+        orchestrator.logs.put("c1", lines);
+        orchestrator.finish("c1", 0);
+
+        var received = new ByteArrayOutputStream();
+        var chunks = 0;
+        var iterator = stub.watchJobLogs(WatchJobLogsRequest.newBuilder().setJobId(jobId).build());
+        while (iterator.hasNext()) {
+            var chunk = iterator.next();
+            assertEquals(0, chunk.getDroppedBytes());
+            assertEquals(received.size(), chunk.getOffset());
+            received.writeBytes(chunk.getData().toByteArray());
+            chunks++;
+        }
+
+        assertEquals(expected.toString(), received.toString(StandardCharsets.UTF_8));
+        assertTrue(chunks < 10, "expected coalesced chunks, got " + chunks);
+    }
+
+    @Test
+    void resumesFromStartOffset() {
+        var stub = ShellServiceGrpc.newBlockingStub(channel);
+        var jobId = stub.startJob(CommandRequest.newBuilder().setCommand("echo").build()).getJobId();
+        orchestrator.logs.put("c1", List.of("alpha", "beta", "gamma"));
+        orchestrator.finish("c1", 0);
+
+        var received = new ByteArrayOutputStream();
+        var iterator = stub.watchJobLogs(WatchJobLogsRequest.newBuilder().setJobId(jobId).setStartOffset(8).build());
+        var first = iterator.next();
+        received.writeBytes(first.getData().toByteArray());
+        iterator.forEachRemaining(chunk -> received.writeBytes(chunk.getData().toByteArray()));
+
+        assertEquals(8, first.getOffset());
+        assertEquals(LogStream.LOG_STREAM_STDOUT, first.getStream());
+        assertEquals("ta\ngamma\n", received.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void fillsDeprecatedContentUnlessOmitted() {
+        var stub = ShellServiceGrpc.newBlockingStub(channel);
+        var jobId = stub.startJob(CommandRequest.newBuilder().setCommand("echo").build()).getJobId();
+        orchestrator.logs.put("c1", List.of("héllo"));
+        orchestrator.finish("c1", 0);
+
+        var legacy = stub.watchJobLogs(WatchJobLogsRequest.newBuilder().setJobId(jobId).build()).next();
+        var current = stub.watchJobLogs(WatchJobLogsRequest.newBuilder().setJobId(jobId).setOmitContent(true).build())
+                .next();
+
+        assertEquals("héllo\n", legacy.getContent());
+        assertEquals("héllo\n", legacy.getData().toStringUtf8());
+        assertEquals("", current.getContent());
+        assertEquals("héllo\n", current.getData().toStringUtf8());
+    }
+
+    @Test
+    void rejectsNegativeStartOffset() {
+        var stub = ShellServiceGrpc.newBlockingStub(channel);
+        var iterator = stub.watchJobLogs(WatchJobLogsRequest.newBuilder().setJobId("x").setStartOffset(-1).build());
+
+        var e = assertThrows(StatusRuntimeException.class, iterator::hasNext);
+        assertEquals(Status.Code.INVALID_ARGUMENT, e.getStatus().getCode());
+    }
+
+    @Test
+    void readJobLogsReturnsTheRequestedRange() {
+        var stub = ShellServiceGrpc.newBlockingStub(channel);
+        var jobId = stub.startJob(CommandRequest.newBuilder().setCommand("echo").build()).getJobId();
+        orchestrator.logs.put("c1", List.of("alpha", "beta", "gamma"));
+        orchestrator.finish("c1", 0);
+
+        var received = new ByteArrayOutputStream();
+        stub.readJobLogs(ReadJobLogsRequest.newBuilder().setJobId(jobId).setOffset(6).setLength(7).build())
+                .forEachRemaining(chunk -> received.writeBytes(chunk.getData().toByteArray()));
+
+        assertEquals("beta\nga", received.toString(StandardCharsets.UTF_8));
+    }
+}
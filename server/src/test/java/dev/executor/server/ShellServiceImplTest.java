@@ -0,0 +1,294 @@
+package dev.executor.server;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.executor.common.CommandRequest;
+import dev.executor.common.JobIdRequest;
+import dev.executor.common.JobIdsRequest;
+import dev.executor.common.JobStats;
+import dev.executor.common.JobResponse;
+import dev.executor.common.JobStateFilter;
+import dev.executor.common.JobStatus;
+import dev.executor.common.JobStatusesResponse;
+import dev.executor.common.ListJobsRequest;
+import dev.executor.common.ListJobsResponse;
+import dev.executor.common.LogChunk;
+import dev.executor.common.WatchJobLogsRequest;
+import dev.executor.server.admission.AdmissionScheduler;
+import dev.executor.server.admission.AdmissionSettings;
+import dev.executor.server.orchestrator.ContainerState;
+import dev.executor.server.orchestrator.ContainerStats;
+import dev.executor.server.orchestrator.ResourceLimits;
+import dev.executor.server.registry.JobRegistry;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ShellServiceImplTest {
+
+    private final FakeOrchestrator orchestrator = new FakeOrchestrator();
+    private final ShellServiceImpl service = new ShellServiceImpl(orchestrator, new JobRegistry(), Runnable::run);
+
+    private String startJob(String command) {
+        var observer = new RecordingObserver<JobResponse>();
+        service.startJob(CommandRequest.newBuilder().setCommand(command).build(), observer);
+        return observer.single().getJobId();
+    }
+
+    private ListJobsResponse listJobs(ListJobsRequest request) {
+        var observer = new RecordingObserver<ListJobsResponse>();
+        service.listJobs(request, observer);
+        return observer.single();
+    }
+
+    @Test
+    void getJobStatusReportsRunningJob() {
+        var jobId = startJob("sleep 10");
+
+        var observer = new RecordingObserver<JobStatus>();
+        service.getJobStatus(JobIdRequest.newBuilder().setJobId(jobId).build(), observer);
+
+        assertTrue(observer.single().hasRunning());
+    }
+
+    @Test
+    void terminalStatusIsComputedOnceAtExit() {
+        var jobId = startJob("echo done");
+        orchestrator.logs.put("c1", List.of("done"));
+        orchestrator.finish("c1", 3);
+        var inspectionsAtExit = orchestrator.inspections.get();
+
+        for (int i = 0; i < 3; i++) {
+            var observer = new RecordingObserver<JobStatus>();
+            service.getJobStatus(JobIdRequest.newBuilder().setJobId(jobId).build(), observer);
+            var status = observer.single();
+            assertEquals(3, status.getCompleted().getExitCode());
+            assertEquals(List.of("done"), status.getCompleted().getRecentLogsList());
+        }
+
+        assertEquals(1, orchestrator.tails.get());
+        assertEquals(List.of("c1"), orchestrator.released);
+        assertEquals(inspectionsAtExit, orchestrator.inspections.get());
+        assertEquals(3, service.terminalCacheHits());
+        assertEquals(0, service.terminalCacheMisses());
+    }
+
+    @Test
+    void jobStatsReportLatestSampleThenTotalsAtCompletion() {
+        var jobId = startJob("work");
+        var request = JobIdRequest.newBuilder().setJobId(jobId).build();
+
+        var beforeSample = new RecordingObserver<JobStats>();
+        service.getJobStats(request, beforeSample);
+        assertEquals(Status.Code.UNAVAILABLE, beforeSample.errorCode());
+
+        orchestrator.sample("c1", new ContainerStats(0, 64 << 20, 96 << 20, 256 << 20, 3_000_000_000L, 1.5, 0, 0, 0, 0));
+        var running = new RecordingObserver<JobStats>();
+        service.getJobStats(request, running);
+        assertTrue(running.single().getRunning());
+        assertEquals(64 << 20, running.single().getMemoryBytes());
+        assertEquals(1.5, running.single().getCpuCores());
+
+        orchestrator.finish("c1", 0);
+        var status = new RecordingObserver<JobStatus>();
+        service.getJobStatus(request, status);
+        assertEquals(96 << 20, status.single().getCompleted().getPeakMemoryBytes());
+        assertEquals(3_000_000_000L, status.single().getCompleted().getCpuTimeNanos());
+
+        var finished = new RecordingObserver<JobStats>();
+        service.getJobStats(request, finished);
+        assertFalse(finished.single().getRunning());
+        assertEquals(96 << 20, finished.single().getPeakMemoryBytes());
+    }
+
+    @Test
+    void jobFinishedBeforeAnySampleLeavesTotalsUnset() {
+        var jobId = startJob("true");
+        var request = JobIdRequest.newBuilder().setJobId(jobId).build();
+
+        orchestrator.finish("c1", 0);
+        var status = new RecordingObserver<JobStatus>();
+        service.getJobStatus(request, status);
+        assertFalse(status.single().getCompleted().hasPeakMemoryBytes());
+        assertFalse(status.single().getCompleted().hasCpuTimeNanos());
+
+        var finished = new RecordingObserver<JobStats>();
+        service.getJobStats(request, finished);
+        assertFalse(finished.single().hasPeakMemoryBytes());
+        assertFalse(finished.single().hasCpuTimeNanos());
+    }
+
+    @Test
+    void terminalStatusObservedBeforeExitCallbackIsCached() {
+        var jobId = startJob("echo done");
+        orchestrator.states.put("c1", new ContainerState("c1", false, 0, false, null));
+
+        for (int i = 0; i < 2; i++) {
+            var observer = new RecordingObserver<JobStatus>();
+            service.getJobStatus(JobIdRequest.newBuilder().setJobId(jobId).build(), observer);
+            assertTrue(observer.single().hasCompleted());
+        }
+        orchestrator.finish("c1", 0);
+
+        assertEquals(1, orchestrator.tails.get());
+        assertEquals(1, service.terminalCacheMisses());
+        assertEquals(1, service.terminalCacheHits());
+    }
+
+    @Test
+    void startJobReturnsBeforeLaunchAndReportsPending() {
+        var launches = new ArrayList<Runnable>();
+        var deferred = new ShellServiceImpl(orchestrator, new JobRegistry(), launches::add);
+        var started = new RecordingObserver<JobResponse>();
+        deferred.startJob(CommandRequest.newBuilder().setCommand("echo hi").build(), started);
+        var jobId = started.single().getJobId();
+
+        var pending = new RecordingObserver<JobStatus>();
+        deferred.getJobStatus(JobIdRequest.newBuilder().setJobId(jobId).build(), pending);
+        assertTrue(pending.single().hasPending());
+        assertEquals(0, orchestrator.started.get());
+
+        var logs = new RecordingObserver<LogChunk>();
+        deferred.watchJobLogs(WatchJobLogsRequest.newBuilder().setJobId(jobId).build(), logs);
+        assertEquals(Status.Code.FAILED_PRECONDITION, logs.errorCode());
+
+        launches.forEach(Runnable::run);
+        var running = new RecordingObserver<JobStatus>();
+        deferred.getJobStatus(JobIdRequest.newBuilder().setJobId(jobId).build(), running);
+        assertTrue(running.single().hasRunning());
+    }
+
+    @Test
+    void failedLaunchEndsInSystemError() {
+        var failing = new FakeOrchestrator() {
+            @Override
+            public String startContainer(String image, String command, ResourceLimits limits) {
+                throw new IllegalStateException("pull timed out");
+            }
+        };
+        var failingService = new ShellServiceImpl(failing, new JobRegistry(), Runnable::run);
+        var started = new RecordingObserver<JobResponse>();
+        failingService.startJob(CommandRequest.newBuilder().setCommand("echo hi").build(), started);
+
+        var observer = new RecordingObserver<JobStatus>();
+        failingService.getJobStatus(JobIdRequest.newBuilder().setJobId(started.single().getJobId()).build(), observer);
+
+        var status = observer.single();
+        assertEquals("LAUNCH_FAILED", status.getSystemError().getReason());
+        assertEquals("pull timed out", status.getSystemError().getMessage());
+    }
+
+    @Test
+    void startJobRejectsWhenAdmissionQueueIsFull() {
+        var admission = new AdmissionScheduler(new AdmissionSettings(256, 0, 0, 256, 1.0), Runnable::run);
+        var limited = new ShellServiceImpl(orchestrator, new JobRegistry(), admission);
+        var first = new RecordingObserver<JobResponse>();
+        limited.startJob(CommandRequest.newBuilder().setCommand("sleep 10").build(), first);
+        first.single();
+
+        var second = new RecordingObserver<JobResponse>();
+        limited.startJob(CommandRequest.newBuilder().setCommand("sleep 10").build(), second);
+
+        assertEquals(Status.Code.RESOURCE_EXHAUSTED, second.errorCode());
+        assertEquals(1, orchestrator.started.get());
+    }
+
+    @Test
+    void getJobStatusRejectsUnknownJob() {
+        var observer = new RecordingObserver<JobStatus>();
+        service.getJobStatus(JobIdRequest.newBuilder().setJobId("missing").build(), observer);
+
+        assertEquals(Status.Code.NOT_FOUND, observer.errorCode());
+    }
+
+    @Test
+    void listJobsPagesThroughAllJobs() {
+        var started = new ArrayList<String>();
+        for (int i = 0; i < 5; i++) {
+            started.add(startJob("echo " + i));
+        }
+
+        var seen = new ArrayList<String>();
+        var token = "";
+        do {
+            var page = listJobs(ListJobsRequest.newBuilder().setPageSize(2).setPageToken(token).build());
+            assertTrue(page.getJobIdsCount() <= 2);
+            seen.addAll(page.getJobIdsList());
+            token = page.getNextPageToken();
+        } while (!token.isEmpty());
+
+        assertEquals(started.stream().sorted().toList(), seen);
+    }
+
+    @Test
+    void listJobsFiltersByState() {
+        var running = startJob("sleep 10");
+        var finished = startJob("echo done");
+        orchestrator.finish("c2", 0);
+
+        var runningPage = listJobs(ListJobsRequest.newBuilder()
+                .setStateFilter(JobStateFilter.JOB_STATE_RUNNING).build());
+        var terminalPage = listJobs(ListJobsRequest.newBuilder()
+                .setStateFilter(JobStateFilter.JOB_STATE_TERMINAL).build());
+
+        assertEquals(List.of(running), runningPage.getJobIdsList());
+        assertEquals(List.of(finished), terminalPage.getJobIdsList());
+    }
+
+    @Test
+    void filteredListingStopsAfterExaminingAPagesWorthOfJobs() {
+        for (int i = 0; i <= ShellServiceImpl.MAX_EXAMINED_PER_PAGE; i++) {
+            startJob("sleep 10");
+        }
+        var request = ListJobsRequest.newBuilder().setStateFilter(JobStateFilter.JOB_STATE_TERMINAL);
+
+        var first = listJobs(request.build());
+        assertEquals(0, first.getJobIdsCount());
+        assertFalse(first.getNextPageToken().isEmpty(), "more jobs are left to examine");
+
+        var second = listJobs(request.setPageToken(first.getNextPageToken()).build());
+        assertEquals(0, second.getJobIdsCount());
+        assertEquals("", second.getNextPageToken());
+    }
+
+    @Test
+    void getJobStatusesReturnsStatusesInRequestOrder() {
+        var first = startJob("sleep 10");
+        var second = startJob("sleep 10");
+
+        var observer = new RecordingObserver<JobStatusesResponse>();
+        service.getJobStatuses(JobIdsRequest.newBuilder()
+                .addJobIds(second)
+                .addJobIds("missing")
+                .addJobIds(first)
+                .build(), observer);
+
+        var response = observer.single();
+        assertEquals(List.of(second, first), response.getStatusesList().stream().map(JobStatus::getJobId).toList());
+        assertEquals(List.of("missing"), response.getUnknownJobIdsList());
+    }
+
+    static class RecordingObserver<T> implements StreamObserver<T> {
+        final List<T> values = new ArrayList<>();
+        Throwable error;
+        boolean completed;
+
+        @Override public void onNext(T value) { values.add(value); }
+        @Override public void onError(Throwable t) { error = t; }
+        @Override public void onCompleted() { completed = true; }
+
+        T single() {
+            assertNull(error, () -> "Unexpected error: " + error);
+            assertTrue(completed);
+            assertEquals(1, values.size());
+            return values.get(0);
+        }
+
+        Status.Code errorCode() {
+            assertNotNull(error);
+            return Status.fromThrowable(error).getCode();
+        }
+    }
+}
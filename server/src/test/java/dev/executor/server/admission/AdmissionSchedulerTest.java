@@ -0,0 +1,103 @@
+package dev.executor.server.admission;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.executor.common.JobPriority;
+import dev.executor.server.orchestrator.ResourceLimits;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class AdmissionSchedulerTest {
+
+    private final List<String> launched = new ArrayList<>();
+
+    private AdmissionScheduler scheduler(long memoryMb, double cpus, int maxQueueDepth) {
+        return new AdmissionScheduler(new AdmissionSettings(memoryMb, cpus, maxQueueDepth, 256, 1.0), Runnable::run);
+    }
+
+    private void submit(AdmissionScheduler scheduler, String jobId, int memoryMb, JobPriority priority) throws Exception {
+        scheduler.submit(jobId, new ResourceLimits(memoryMb, 0), priority, () -> launched.add(jobId));
+    }
+
+    @Test
+    void queuesJobsThatDoNotFitUntilCapacityIsReleased() throws Exception {
+        var scheduler = scheduler(1024, 0, 10);
+
+        submit(scheduler, "a", 512, JobPriority.JOB_PRIORITY_NORMAL);
+        submit(scheduler, "b", 512, JobPriority.JOB_PRIORITY_NORMAL);
+        submit(scheduler, "c", 512, JobPriority.JOB_PRIORITY_NORMAL);
+
+        assertEquals(List.of("a", "b"), launched);
+        assertEquals(1, scheduler.queuedJobs());
+
+        scheduler.release("a");
+
+        assertEquals(List.of("a", "b", "c"), launched);
+        assertEquals(0, scheduler.queuedJobs());
+    }
+
+    @Test
+    void admitsHigherPriorityFirstAndFifoWithinPriority() throws Exception {
+        var scheduler = scheduler(256, 0, 10);
+        submit(scheduler, "running", 256, JobPriority.JOB_PRIORITY_NORMAL);
+
+        submit(scheduler, "low", 256, JobPriority.JOB_PRIORITY_LOW);
+        submit(scheduler, "normal-1", 256, JobPriority.JOB_PRIORITY_NORMAL);
+        submit(scheduler, "high", 256, JobPriority.JOB_PRIORITY_HIGH);
+        submit(scheduler, "normal-2", 256, JobPriority.JOB_PRIORITY_NORMAL);
+
+        for (var jobId : List.of("running", "high", "normal-1", "normal-2")) {
+            scheduler.release(jobId);
+        }
+
+        assertEquals(List.of("running", "high", "normal-1", "normal-2", "low"), launched);
+    }
+
+    @Test
+    void largeJobAtHeadIsNotOvertakenBySmallerOnes() throws Exception {
+        var scheduler = scheduler(1024, 0, 10);
+        submit(scheduler, "a", 512, JobPriority.JOB_PRIORITY_NORMAL);
+        submit(scheduler, "big", 1024, JobPriority.JOB_PRIORITY_NORMAL);
+        submit(scheduler, "small", 256, JobPriority.JOB_PRIORITY_NORMAL);
+
+        assertEquals(List.of("a"), launched);
+
+        scheduler.release("a");
+
+        assertEquals(List.of("a", "big"), launched);
+    }
+
+    @Test
+    void rejectsWhenQueueIsFull() throws Exception {
+        var scheduler = scheduler(256, 0, 1);
+        submit(scheduler, "a", 256, JobPriority.JOB_PRIORITY_NORMAL);
+        submit(scheduler, "b", 256, JobPriority.JOB_PRIORITY_NORMAL);
+
+        assertThrows(AdmissionScheduler.QueueFullException.class,
+                () -> submit(scheduler, "c", 256, JobPriority.JOB_PRIORITY_NORMAL));
+        assertEquals(1, scheduler.queuedJobs());
+    }
+
+    @Test
+    void rejectsJobLargerThanHost() {
+        var scheduler = scheduler(1024, 2, 10);
+
+        assertThrows(AdmissionScheduler.JobTooLargeException.class,
+                () -> submit(scheduler, "huge", 4096, JobPriority.JOB_PRIORITY_NORMAL));
+        assertThrows(AdmissionScheduler.JobTooLargeException.class,
+                () -> scheduler.submit("cpu", new ResourceLimits(256, 4), JobPriority.JOB_PRIORITY_NORMAL, () -> {}));
+    }
+
+    @Test
+    void chargesDefaultsForUnlimitedJobs() throws Exception {
+        var scheduler = scheduler(0, 2, 10);
+
+        for (var jobId : List.of("a", "b", "c")) {
+            submit(scheduler, jobId, 0, JobPriority.JOB_PRIORITY_NORMAL);
+        }
+
+        assertEquals(List.of("a", "b"), launched);
+        assertEquals(2, scheduler.admittedJobs());
+    }
+}
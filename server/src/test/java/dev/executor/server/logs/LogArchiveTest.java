@@ -0,0 +1,152 @@
+package dev.executor.server.logs;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LogArchiveTest {
+
+    @TempDir
+    Path dir;
+
+    private LogArchive open(long maxBytes) throws IOException {
+        return LogArchive.open(new LogArchiveSettings(dir, maxBytes, 4096, false));
+    }
+
+    private static LogFrame frame(LogFrame.Stream stream, String text) {
+        return new LogFrame(stream, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String text(LogSubscription.Read read) {
+        return StandardCharsets.UTF_8.decode(read.data()).toString();
+    }
+
+    @Test
+    void readsStopAtStreamChanges() throws IOException {
+        try (var archive = open(1 << 20)) {
+            archive.append("c1", 0, frame(LogFrame.Stream.STDOUT, "out\n"));
+            archive.append("c1", 4, frame(LogFrame.Stream.STDERR, "err\n"));
+            var reader = archive.reader("c1");
+
+            var out = reader.read(0, 1024);
+            var err = reader.read(4, 1024);
+
+            assertEquals("out\n", text(out));
+            assertEquals(LogFrame.Stream.STDOUT, out.stream());
+            assertEquals("err\n", text(err));
+            assertEquals(LogFrame.Stream.STDERR, err.stream());
+            assertNull(reader.read(8, 1024));
+        }
+    }
+
+    @Test
+    void readsSpanFramesAndRollSegments() throws IOException {
+        var line = "x".repeat(99) + "\n";
+        try (var archive = open(1 << 20)) {
+            for (int i = 0; i < 100; i++) {
+                archive.append("c1", i * 100L, frame(LogFrame.Stream.STDOUT, line));
+            }
+            var reader = archive.reader("c1");
+
+            var total = 0L;
+            for (var read = reader.read(0, 64 * 1024); read != null; read = reader.read(total, 64 * 1024)) {
+                assertEquals(total, read.offset());
+                assertTrue(read.data().remaining() <= 4096);
+                total += read.data().remaining();
+            }
+
+            assertEquals(10_000, total);
+            try (var files = Files.list(dir.resolve("c1"))) {
+                assertTrue(files.filter(file -> file.toString().endsWith(".log")).count() > 2);
+            }
+        }
+    }
+
+    @Test
+    void replayedOutputIsSkippedAfterReopening() throws IOException {
+        try (var archive = open(1 << 20)) {
+            archive.append("c1", 0, frame(LogFrame.Stream.STDOUT, "first\n"));
+        }
+        try (var archive = open(1 << 20)) {
+            archive.append("c1", 0, frame(LogFrame.Stream.STDOUT, "first\n"));
+            archive.append("c1", 6, frame(LogFrame.Stream.STDOUT, "second\n"));
+
+            assertEquals("first\nsecond\n", text(archive.reader("c1").read(0, 1024)));
+        }
+    }
+
+    @Test
+    void completedContainersSurviveReopening() throws IOException {
+        try (var archive = open(1 << 20)) {
+            archive.append("c1", 0, frame(LogFrame.Stream.STDOUT, "a\nb\nc\n"));
+            archive.complete("c1");
+        }
+        try (var archive = open(1 << 20)) {
+            assertTrue(archive.isComplete("c1"));
+            assertEquals(List.of("b", "c"), archive.tail("c1", 2));
+        }
+    }
+
+    @Test
+    void oldestCompletedContainersAreDeletedOverTheLimit() throws IOException {
+        var output = "y".repeat(1000);
+        try (var archive = open(2500)) {
+            archive.append("c1", 0, frame(LogFrame.Stream.STDOUT, output));
+            archive.complete("c1");
+            archive.append("c2", 0, frame(LogFrame.Stream.STDOUT, output));
+            archive.complete("c2");
+            archive.append("c3", 0, frame(LogFrame.Stream.STDOUT, output));
+
+            assertTrue(archive.isComplete("c1"));
+
+            archive.complete("c3");
+
+            assertFalse(archive.isComplete("c1"));
+            assertFalse(Files.exists(dir.resolve("c1")));
+            assertTrue(archive.isComplete("c2"));
+            assertTrue(archive.isComplete("c3"));
+            assertEquals(2000, archive.totalBytes());
+        }
+    }
+
+    @Test
+    void unfinishedArchivesLeftByAPreviousRunAreDeletedOverTheLimit() throws IOException {
+        var output = "y".repeat(1000);
+        try (var archive = open(2500)) {
+            archive.append("crashed", 0, frame(LogFrame.Stream.STDOUT, output));
+        }
+        try (var archive = open(2500)) {
+            assertFalse(archive.isComplete("crashed"));
+            archive.append("c1", 0, frame(LogFrame.Stream.STDOUT, output));
+            archive.complete("c1");
+            archive.append("c2", 0, frame(LogFrame.Stream.STDOUT, output));
+            archive.complete("c2");
+
+            assertFalse(Files.exists(dir.resolve("crashed")));
+            assertTrue(archive.isComplete("c1"));
+            assertEquals(2000, archive.totalBytes());
+        }
+    }
+
+    @Test
+    void unfinishedArchiveWrittenAgainIsKept() throws IOException {
+        var output = "y".repeat(1000);
+        try (var archive = open(2500)) {
+            archive.append("resumed", 0, frame(LogFrame.Stream.STDOUT, output));
+        }
+        try (var archive = open(2500)) {
+            archive.append("resumed", 1000, frame(LogFrame.Stream.STDOUT, output));
+            archive.append("c1", 0, frame(LogFrame.Stream.STDOUT, output));
+            archive.complete("c1");
+
+            assertTrue(Files.exists(dir.resolve("resumed")));
+            assertFalse(archive.isComplete("c1"));
+        }
+    }
+}
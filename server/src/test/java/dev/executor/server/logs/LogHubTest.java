@@ -0,0 +1,263 @@
+package dev.executor.server.logs;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LogHubTest {
+
+    private final FakeSource source = new FakeSource();
+    private LogHub hub = new LogHub(source, new LogBufferSettings(4096, Duration.ofMinutes(1), LogOverflowPolicy.DROP));
+
+    @AfterEach
+    void tearDown() {
+        hub.close();
+    }
+
+    private static String text(LogSubscription.Read read) {
+        return StandardCharsets.UTF_8.decode(read.data()).toString();
+    }
+
+    @Test
+    void subscribersShareOneFollowerAndReadIndependently() {
+        var signals = new AtomicInteger();
+        var first = hub.subscribe("c1", 0, signals::incrementAndGet);
+        var second = hub.subscribe("c1", 0, signals::incrementAndGet);
+        source.emit("hello\n");
+
+        assertEquals(1, source.follows.get());
+        assertEquals(2, signals.get());
+        assertEquals("hello\n", text(first.read(1024)));
+        assertEquals("hello\n", text(second.read(1024)));
+        assertEquals(0, first.available());
+    }
+
+    @Test
+    void lateSubscriberStartsAtBufferedHistory() {
+        hub.subscribe("c1", 0, () -> {});
+        source.emit("early\n");
+
+        var late = hub.subscribe("c1", 0, () -> {});
+        source.emit("live\n");
+
+        assertEquals("early\nlive\n", text(late.read(1024)));
+    }
+
+    @Test
+    void subscriberAfterEndReadsHistoryAndSeesEnd() {
+        hub.subscribe("c1", 0, () -> {});
+        source.emit("done\n");
+        source.complete();
+
+        var late = hub.subscribe("c1", 0, () -> {});
+
+        assertTrue(late.streamEnded());
+        assertEquals("done\n", text(late.read(1024)));
+        assertEquals(0, late.available());
+        assertEquals(1, source.follows.get());
+    }
+
+    @Test
+    void tailIsServedFromBuffer() {
+        hub.subscribe("c1", 0, () -> {});
+        for (int i = 0; i < 5; i++) {
+            source.emit("line-" + i + "\n");
+        }
+        source.complete();
+
+        assertEquals(List.of("line-3", "line-4"), hub.tail("c1", 2, Duration.ZERO));
+        assertEquals(1, source.follows.get());
+    }
+
+    @Test
+    void laggingReaderIsToldHowMuchWasDropped() {
+        var slow = hub.subscribe("c1", 0, () -> {});
+        for (int i = 0; i < 100; i++) {
+            source.emit("0123456789012345678901234567890123456789012345678901234567890123456789\n");
+        }
+
+        var read = slow.read(64 * 1024);
+
+        assertTrue(read.droppedBytes() > 0);
+        assertTrue(read.data().remaining() <= 4096);
+    }
+
+    @Test
+    void readsStopAtStreamChangesAndCarryOffsets() {
+        var reader = hub.subscribe("c1", 0, () -> {});
+        source.emit(LogFrame.Stream.STDOUT, "out-1\n");
+        source.emit(LogFrame.Stream.STDOUT, "out-2\n");
+        source.emit(LogFrame.Stream.STDERR, "err\n");
+
+        var out = reader.read(1024);
+        var err = reader.read(1024);
+
+        assertEquals(LogFrame.Stream.STDOUT, out.stream());
+        assertEquals(0, out.offset());
+        assertEquals("out-1\nout-2\n", text(out));
+        assertEquals(LogFrame.Stream.STDERR, err.stream());
+        assertEquals(12, err.offset());
+        assertEquals("err\n", text(err));
+        assertNull(reader.read(1024));
+    }
+
+    @Test
+    void resumesFromTheMiddleOfAFrame() {
+        hub.subscribe("c1", 0, () -> {});
+        source.emit("first\n");
+        source.emit("second\n");
+
+        var resumed = hub.subscribe("c1", 9, () -> {});
+        var read = resumed.read(1024);
+
+        assertEquals(9, read.offset());
+        assertEquals("ond\n", text(read));
+        assertEquals(0, read.droppedBytes());
+        assertEquals(0, resumed.available());
+    }
+
+    @Test
+    void subscriberAheadOfOutputWaitsForIt() {
+        hub.subscribe("c1", 0, () -> {});
+        source.emit("ab");
+
+        var ahead = hub.subscribe("c1", 4, () -> {});
+        assertNull(ahead.read(1024));
+        source.emit("cdef");
+
+        var read = ahead.read(1024);
+        assertEquals(4, read.offset());
+        assertEquals("ef", text(read));
+    }
+
+    @Test
+    void laggingReaderContinuesFromTheArchive(@TempDir Path dir) throws IOException {
+        hub.close();
+        var archive = LogArchive.open(LogArchiveSettings.defaults(dir));
+        hub = new LogHub(source, new LogBufferSettings(4096, Duration.ofMinutes(1), LogOverflowPolicy.DROP), archive);
+        var slow = hub.subscribe("c1", 0, () -> {});
+        var expected = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            var line = "line-" + i + "-" + "z".repeat(60) + "\n";
+            source.emit(line);
+            expected.append(line);
+        }
+
+        var received = new StringBuilder();
+        for (var read = slow.read(64 * 1024); read != null; read = slow.read(64 * 1024)) {
+            assertEquals(0, read.droppedBytes());
+            assertEquals(received.length(), read.offset());
+            received.append(text(read));
+        }
+
+        assertEquals(expected.toString(), received.toString());
+        archive.close();
+    }
+
+    @Test
+    void completedContainerIsServedFromTheArchive(@TempDir Path dir) throws IOException {
+        hub.close();
+        var archive = LogArchive.open(LogArchiveSettings.defaults(dir));
+        hub = new LogHub(source, LogBufferSettings.defaults(), archive);
+        var archived = new AtomicInteger();
+        hub.follow("c1");
+        hub.whenArchived("c1", archived::incrementAndGet);
+        source.emit("one\n");
+        source.emit(LogFrame.Stream.STDERR, "two\n");
+        source.complete();
+        assertEquals(1, archived.get());
+
+        hub.close();
+        hub = new LogHub(source, LogBufferSettings.defaults(), archive);
+        var reader = hub.subscribe("c1", 2, () -> {});
+
+        assertTrue(reader.streamEnded());
+        assertEquals("e\n", text(reader.read(1024)));
+        assertEquals(LogFrame.Stream.STDERR, reader.read(1024).stream());
+        assertEquals(List.of("one", "two"), hub.tail("c1", 5, Duration.ZERO));
+        assertEquals(1, source.follows.get());
+        archive.close();
+    }
+
+    @Test
+    void pausePolicyBlocksFollowerUntilReaderCatchesUp() throws InterruptedException {
+        hub.close();
+        hub = new LogHub(source, new LogBufferSettings(1024, Duration.ofMinutes(1), LogOverflowPolicy.PAUSE_FOLLOWER));
+        var reader = hub.subscribe("c1", 0, () -> {});
+        var line = "x".repeat(200) + "\n";
+        var written = new CountDownLatch(10);
+
+        var follower = Thread.ofVirtual().start(() -> {
+            for (int i = 0; i < 10; i++) {
+                source.emit(line);
+                written.countDown();
+            }
+        });
+
+        assertFalse(written.await(200, TimeUnit.MILLISECONDS));
+        var total = 0L;
+        while (written.getCount() > 0 || reader.available() > 0) {
+            var read = reader.read(1024);
+            if (read == null) continue;
+            assertEquals(0, read.droppedBytes());
+            total += read.data().remaining();
+            Thread.sleep(5);
+        }
+        follower.join();
+
+        assertEquals(10L * line.length(), total);
+    }
+
+    @Test
+    void closedSubscriptionNoLongerHoldsBackThePausedFollower() throws InterruptedException {
+        hub.close();
+        hub = new LogHub(source, new LogBufferSettings(1024, Duration.ofMinutes(1), LogOverflowPolicy.PAUSE_FOLLOWER));
+        var reader = hub.subscribe("c1", 0, () -> {});
+        var follower = Thread.ofVirtual().start(() -> {
+            for (int i = 0; i < 10; i++) {
+                source.emit("x".repeat(200));
+            }
+        });
+
+        reader.close();
+
+        follower.join(5000);
+        assertFalse(follower.isAlive());
+    }
+
+    private static class FakeSource implements LogHub.LogSource {
+        final AtomicInteger follows = new AtomicInteger();
+        volatile Consumer<LogFrame> onFrame;
+        volatile Runnable onComplete;
+
+        @Override
+        public void follow(String containerId, Consumer<LogFrame> onFrame, Runnable onComplete, Consumer<Throwable> onError) {
+            follows.incrementAndGet();
+            this.onFrame = onFrame;
+            this.onComplete = onComplete;
+        }
+
+        void emit(String line) {
+            emit(LogFrame.Stream.STDOUT, line);
+        }
+
+        void emit(LogFrame.Stream stream, String text) {
+            onFrame.accept(new LogFrame(stream, text.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        void complete() {
+            onComplete.run();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package dev.executor.server.logs;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class LogRingBufferTest {
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> strings(List<byte[]> records) {
+        return records.stream().map(r -> new String(r, StandardCharsets.UTF_8)).toList();
+    }
+
+    @Test
+    void readsRecordsFromCursor() {
+        var buffer = new LogRingBuffer(64);
+        buffer.append(bytes("one"));
+        var cursor = buffer.append(bytes("two"));
+        buffer.append(bytes("three"));
+
+        var batch = buffer.read(cursor, Integer.MAX_VALUE);
+
+        assertEquals(List.of("three"), strings(batch.records()));
+        assertEquals(buffer.tail(), batch.next());
+        assertEquals(0, batch.skippedBytes());
+    }
+
+    @Test
+    void dropsOldestRecordsAndWrapsAround() {
+        var buffer = new LogRingBuffer(32);
+        for (int i = 0; i < 10; i++) {
+            buffer.append(bytes("line-" + i));
+        }
+
+        var batch = buffer.read(0, Integer.MAX_VALUE);
+
+        assertEquals(List.of("line-7", "line-8", "line-9"), strings(batch.records()));
+        assertEquals(buffer.head(), batch.skippedBytes());
+        assertTrue(buffer.tail() - buffer.head() <= 32);
+    }
+
+    @Test
+    void readStopsAtByteLimitButReturnsAtLeastOneRecord() {
+        var buffer = new LogRingBuffer(1024);
+        buffer.append(bytes("aaaa"));
+        buffer.append(bytes("bbbb"));
+        buffer.append(bytes("cccc"));
+
+        assertEquals(List.of("aaaa", "bbbb"), strings(buffer.read(0, 8).records()));
+        assertEquals(List.of("aaaa"), strings(buffer.read(0, 1).records()));
+    }
+
+    @Test
+    void lastReturnsNewestRecordsInOrder() {
+        var buffer = new LogRingBuffer(1024);
+        for (int i = 0; i < 5; i++) {
+            buffer.append(bytes("line-" + i));
+        }
+
+        assertEquals(List.of("line-3", "line-4"), strings(buffer.last(2)));
+        assertEquals(5, buffer.last(50).size());
+    }
+
+    @Test
+    void growsTowardCapacityOnlyAsOutputArrives() {
+        var buffer = new LogRingBuffer(64, 16);
+        buffer.append(bytes("ab"));
+        assertEquals(16, buffer.allocated());
+
+        for (int i = 0; i < 20; i++) {
+            buffer.append(bytes("line-" + i));
+        }
+
+        assertEquals(64, buffer.allocated());
+        assertEquals(List.of("line-15", "line-16", "line-17", "line-18", "line-19"),
+                strings(buffer.read(0, Integer.MAX_VALUE).records()));
+    }
+
+    @Test
+    void truncatesRecordsLargerThanBuffer() {
+        var buffer = new LogRingBuffer(16);
+        buffer.append(bytes("0123456789abcdefghij"));
+
+        assertEquals(List.of("0123456789ab"), strings(buffer.last(1)));
+    }
+}
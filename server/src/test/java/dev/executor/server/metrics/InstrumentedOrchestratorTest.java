@@ -0,0 +1,73 @@
+package dev.executor.server.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.executor.server.logs.LogSubscription;
+import dev.executor.server.orchestrator.ContainerOrchestrator;
+import dev.executor.server.orchestrator.ContainerState;
+import dev.executor.server.orchestrator.ContainerStats;
+import dev.executor.server.orchestrator.OrchestratorException;
+import dev.executor.server.orchestrator.ResourceLimits;
+import java.util.List;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+
+class InstrumentedOrchestratorTest {
+
+    private static class StubOrchestrator implements ContainerOrchestrator {
+        @Override
+        public String startContainer(String image, String command, ResourceLimits limits) {
+            return "c1";
+        }
+
+        @Override
+        public ContainerState inspectContainer(String containerId) {
+            throw new OrchestratorException("no such container: " + containerId);
+        }
+
+        @Override
+        public List<String> tailLogs(String containerId, int lines) {
+            return List.of();
+        }
+
+        @Override
+        public LogSubscription subscribeLogs(String containerId, long startOffset, Runnable onData) {
+            return null;
+        }
+
+        @Override
+        public void onContainerExit(String containerId, Consumer<ContainerState> onExit) {
+        }
+
+        @Override
+        public ContainerStats stats(String containerId) {
+            return null;
+        }
+
+        @Override
+        public Runnable watchStats(String containerId, Consumer<ContainerStats> onSample, Runnable onEnd) {
+            return () -> {};
+        }
+
+        @Override
+        public void release(String containerId) {
+        }
+    }
+
+    @Test
+    void timesCallsAndCountsFailures() {
+        var metrics = new Metrics();
+        var orchestrator = new InstrumentedOrchestrator(new StubOrchestrator(), metrics);
+
+        assertEquals("c1", orchestrator.startContainer("alpine", "true", null));
+        assertThrows(OrchestratorException.class, () -> orchestrator.inspectContainer("c2"));
+
+        var start = metrics.orchestratorCall("startContainer");
+        var inspect = metrics.orchestratorCall("inspectContainer");
+        assertEquals(1, start.latency().count());
+        assertEquals(0, start.failures());
+        assertEquals(1, inspect.latency().count());
+        assertEquals(1, inspect.failures());
+        assertTrue(metrics.scrape().contains("orchestrator_call_failures_total{operation=\"inspectContainer\"} 1\n"));
+    }
+}
@@ -0,0 +1,109 @@
+package dev.executor.server.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.executor.common.JobIdRequest;
+import dev.executor.common.JobStatus;
+import dev.executor.common.ShellServiceGrpc;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.Status;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+class MetricsInterceptorTest {
+
+    private static final MethodDescriptor<JobIdRequest, JobStatus> METHOD = ShellServiceGrpc.getGetJobStatusMethod();
+
+    private final Metrics metrics = new Metrics();
+    private final MetricsInterceptor interceptor = new MetricsInterceptor(metrics);
+
+    private RpcStats stats() {
+        return metrics.rpc(METHOD.getFullMethodName());
+    }
+
+    @Test
+    void countsCallInFlightUntilItCloses() {
+        var call = new RecordingServerCall();
+        var handled = new AtomicReference<ServerCall<JobIdRequest, JobStatus>>();
+
+        interceptor.interceptCall(call, new Metadata(), (c, headers) -> {
+            handled.set(c);
+            return new ServerCall.Listener<>() {};
+        });
+
+        assertEquals(1, stats().inFlight());
+        handled.get().close(Status.NOT_FOUND, new Metadata());
+
+        assertEquals(0, stats().inFlight());
+        assertEquals(1, stats().handled(Status.Code.NOT_FOUND));
+        assertEquals(1, stats().latency().count());
+        assertEquals(Status.Code.NOT_FOUND, call.closedStatus.getCode());
+    }
+
+    @Test
+    void cancelledCallIsRecordedOnce() {
+        var call = new RecordingServerCall();
+        var listener = interceptor.interceptCall(call, new Metadata(), (c, headers) -> new ServerCall.Listener<>() {});
+
+        listener.onCancel();
+        listener.onCancel();
+
+        assertEquals(0, stats().inFlight());
+        assertEquals(1, stats().handled(Status.Code.CANCELLED));
+        assertEquals(1, stats().latency().count());
+    }
+
+    @Test
+    void scrapeRendersPrometheusText() {
+        var call = new RecordingServerCall();
+        interceptor.interceptCall(call, new Metadata(), (c, headers) -> {
+            c.close(Status.OK, new Metadata());
+            return new ServerCall.Listener<>() {};
+        });
+        metrics.counter("example_total", "An example.", () -> 7);
+
+        var text = metrics.scrape();
+
+        var labels = "method=\"" + METHOD.getFullMethodName() + "\"";
+        assertTrue(text.contains("# TYPE grpc_server_handling_seconds histogram\n"));
+        assertTrue(text.contains("grpc_server_handling_seconds_bucket{" + labels + ",le=\"+Inf\"} 1\n"));
+        assertTrue(text.contains("grpc_server_handling_seconds_count{" + labels + "} 1\n"));
+        assertTrue(text.contains("grpc_server_handled_total{" + labels + ",code=\"OK\"} 1\n"));
+        assertTrue(text.contains("grpc_server_in_flight{" + labels + "} 0\n"));
+        assertTrue(text.contains("example_total 7\n"));
+    }
+
+    @Test
+    void histogramBucketsAreCumulative() {
+        var histogram = new LatencyHistogram();
+
+        histogram.record(50_000);
+        histogram.record(100_000);
+        histogram.record(3_000_000);
+        histogram.record(120_000_000_000L);
+
+        assertEquals(2, histogram.cumulativeCount(0));
+        assertEquals(2, histogram.cumulativeCount(3));
+        assertEquals(3, histogram.cumulativeCount(5));
+        assertEquals(3, histogram.cumulativeCount(LatencyHistogram.BOUNDS_NANOS.length - 1));
+        assertEquals(4, histogram.count());
+        assertEquals(120_003_150_000L, histogram.sumNanos());
+    }
+
+    private static class RecordingServerCall extends ServerCall<JobIdRequest, JobStatus> {
+        Status closedStatus;
+
+        @Override
+        public void close(Status status, Metadata trailers) {
+            closedStatus = status;
+        }
+
+        @Override public void request(int numMessages) {}
+        @Override public void sendHeaders(Metadata headers) {}
+        @Override public void sendMessage(JobStatus message) {}
+        @Override public boolean isCancelled() { return false; }
+        @Override public MethodDescriptor<JobIdRequest, JobStatus> getMethodDescriptor() { return METHOD; }
+    }
+}
@@ -0,0 +1,109 @@
+package dev.executor.server.orchestrator;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContainerStateTableTest {
+
+    private final MutableClock clock = new MutableClock();
+    private final ContainerStateTable table = new ContainerStateTable(clock);
+
+    @Test
+    void tracksRunningContainerAfterStart() {
+        table.onStart("c1");
+
+        var state = table.get("c1");
+        assertTrue(state.isRunning());
+        assertNull(state.exitCode());
+    }
+
+    @Test
+    void recordsExitCodeOnDie() {
+        table.onStart("c1");
+        var state = table.onDie("c1", 42);
+
+        assertFalse(state.isRunning());
+        assertEquals(42, state.exitCode());
+        assertFalse(state.oomKilled());
+        assertEquals(state, table.get("c1"));
+    }
+
+    @Test
+    void foldsOomEventIntoExitedState() {
+        table.onStart("c1");
+        table.onOom("c1");
+        var state = table.onDie("c1", 137);
+
+        assertTrue(state.oomKilled());
+        assertEquals(137, state.exitCode());
+    }
+
+    @Test
+    void startClearsStaleOom() {
+        table.onOom("c1");
+        table.onStart("c1");
+
+        assertFalse(table.onDie("c1", 0).oomKilled());
+    }
+
+    @Test
+    void forgetsDestroyedContainer() {
+        table.onStart("c1");
+        table.onDie("c1", 0);
+        table.onDestroy("c1");
+
+        assertNull(table.get("c1"));
+    }
+
+    @Test
+    void forgetsReleasedContainer() {
+        table.onStart("c1");
+        table.onDie("c1", 0);
+        table.forget("c1");
+
+        assertNull(table.get("c1"));
+    }
+
+    @Test
+    void expiresExitedStatesAsLaterExitsArrive() {
+        table.onStart("c1");
+        table.onDie("c1", 0);
+        table.onStart("c2");
+
+        clock.advance(ContainerStateTable.EXITED_TTL.plusSeconds(1));
+        table.onDie("c3", 1);
+
+        assertNull(table.get("c1"));
+        assertTrue(table.get("c2").isRunning());
+        assertEquals(1, table.get("c3").exitCode());
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    void expiryKeepsStateOfRestartedContainer() {
+        table.onDie("c1", 0);
+        clock.advance(ContainerStateTable.EXITED_TTL.plusSeconds(1));
+        table.onStart("c1");
+
+        table.onDie("c2", 0);
+
+        assertTrue(table.get("c1").isRunning());
+    }
+
+    @Test
+    void replacesExitedStateWithDaemonDetail() {
+        var died = table.onDie("c1", 127);
+        var inspected = new ContainerState("c1", false, 127, false, "exec: \"nope\": not found");
+
+        table.replace(died, inspected);
+        table.replace(died, new ContainerState("c1", false, 127, false, "stale"));
+
+        assertEquals(inspected, table.get("c1"));
+    }
+
+    @Test
+    void returnsNothingForUnknownContainer() {
+        assertNull(table.get("unknown"));
+    }
+}
@@ -0,0 +1,132 @@
+package dev.executor.server.orchestrator;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageCacheTest {
+
+    private final FakeImageSource source = new FakeImageSource();
+    private final MutableClock clock = new MutableClock();
+    private final ImageCache cache = new ImageCache(source, Duration.ofMinutes(10), clock);
+
+    @Test
+    void usesLocalImageWithoutPulling() {
+        source.local.put("alpine:latest", "sha256:aaa");
+
+        assertEquals("sha256:aaa", cache.ensure("alpine:latest"));
+        assertEquals(0, source.pulls.get());
+    }
+
+    @Test
+    void pullsMissingImageOnce() {
+        source.remote.put("alpine:latest", "sha256:aaa");
+
+        assertEquals("sha256:aaa", cache.ensure("alpine:latest"));
+        assertEquals("sha256:aaa", cache.ensure("alpine:latest"));
+        assertEquals(1, source.pulls.get());
+    }
+
+    @Test
+    void refreshesAfterInterval() {
+        source.local.put("alpine:latest", "sha256:aaa");
+        source.remote.put("alpine:latest", "sha256:bbb");
+        cache.ensure("alpine:latest");
+
+        clock.advance(Duration.ofMinutes(11));
+
+        assertEquals("sha256:bbb", cache.ensure("alpine:latest"));
+        assertEquals(1, source.pulls.get());
+    }
+
+    @Test
+    void keepsLocalImageWhenRefreshFails() {
+        source.local.put("alpine:latest", "sha256:aaa");
+        cache.ensure("alpine:latest");
+        source.offline = true;
+
+        clock.advance(Duration.ofMinutes(11));
+
+        assertEquals("sha256:aaa", cache.ensure("alpine:latest"));
+    }
+
+    @Test
+    void failsWhenImageIsMissingAndRegistryIsUnreachable() {
+        source.offline = true;
+
+        assertThrows(OrchestratorException.class, () -> cache.ensure("alpine:latest"));
+    }
+
+    @Test
+    void neverRefreshesDigestPinnedReference() {
+        var reference = "alpine@sha256:ccc";
+        source.local.put(reference, "sha256:ccc");
+        cache.ensure(reference);
+
+        clock.advance(Duration.ofDays(30));
+        cache.ensure(reference);
+
+        assertEquals(0, source.pulls.get());
+    }
+
+    @Test
+    void coalescesConcurrentPulls() throws Exception {
+        source.remote.put("alpine:latest", "sha256:aaa");
+        source.pullGate = new CountDownLatch(1);
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var first = executor.submit(() -> cache.ensure("alpine:latest"));
+            assertTrue(source.pullStarted.await(5, TimeUnit.SECONDS));
+            var others = new java.util.ArrayList<Future<String>>();
+            for (int i = 0; i < 10; i++) {
+                others.add(executor.submit(() -> cache.ensure("alpine:latest")));
+            }
+            source.pullGate.countDown();
+
+            assertEquals("sha256:aaa", first.get(5, TimeUnit.SECONDS));
+            for (var other : others) {
+                assertEquals("sha256:aaa", other.get(5, TimeUnit.SECONDS));
+            }
+        }
+        assertEquals(1, source.pulls.get());
+    }
+
+    private static class FakeImageSource implements ImageCache.ImageSource {
+        final Map<String, String> local = new ConcurrentHashMap<>();
+        final Map<String, String> remote = new ConcurrentHashMap<>();
+        final AtomicInteger pulls = new AtomicInteger();
+        final CountDownLatch pullStarted = new CountDownLatch(1);
+        volatile CountDownLatch pullGate;
+        volatile boolean offline;
+
+        @Override
+        public String localImageId(String reference) {
+            return local.get(reference);
+        }
+
+        @Override
+        public void pull(String reference) {
+            pulls.incrementAndGet();
+            pullStarted.countDown();
+            if (pullGate != null) {
+                try {
+                    pullGate.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (offline || !remote.containsKey(reference)) {
+                throw new OrchestratorException("Failed to pull image: " + reference);
+            }
+            local.put(reference, remote.get(reference));
+        }
+    }
+}
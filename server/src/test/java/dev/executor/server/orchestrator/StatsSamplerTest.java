@@ -0,0 +1,85 @@
+package dev.executor.server.orchestrator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+
+class StatsSamplerTest {
+
+    private static class FakeSource implements StatsSampler.StatsSource {
+        final AtomicInteger follows = new AtomicInteger();
+        final AtomicInteger closes = new AtomicInteger();
+        Consumer<ContainerStats> onSample;
+        Runnable onEnd;
+
+        @Override
+        public Closeable follow(String containerId, Consumer<ContainerStats> onSample, Runnable onEnd) {
+            follows.incrementAndGet();
+            this.onSample = onSample;
+            this.onEnd = onEnd;
+            return closes::incrementAndGet;
+        }
+    }
+
+    private static ContainerStats sample(long atMillis, long memoryBytes, long cpuTimeNanos) {
+        return new ContainerStats(atMillis, memoryBytes, 0, 1 << 30, cpuTimeNanos, 0, 0, 0, 0, 0);
+    }
+
+    @Test
+    void derivesPeakMemoryAndCpuRateFromSamples() {
+        var source = new FakeSource();
+        var sampler = new StatsSampler(source);
+        sampler.follow("c1");
+        sampler.follow("c1");
+
+        source.onSample.accept(sample(1000, 300, 1_000_000_000L));
+        source.onSample.accept(sample(2000, 100, 2_500_000_000L));
+
+        var latest = sampler.latest("c1");
+        assertEquals(1, source.follows.get(), "one stream per container");
+        assertEquals(100, latest.memoryBytes());
+        assertEquals(300, latest.peakMemoryBytes());
+        assertEquals(1.5, latest.cpuCores(), 1e-9);
+    }
+
+    @Test
+    void watchersGetLatestThenLaterSamplesThenEnd() {
+        var source = new FakeSource();
+        var sampler = new StatsSampler(source);
+        sampler.follow("c1");
+        source.onSample.accept(sample(1000, 10, 0));
+
+        var received = new ArrayList<Long>();
+        var ended = new AtomicInteger();
+        sampler.watch("c1", stats -> received.add(stats.memoryBytes()), ended::incrementAndGet);
+        var stop = sampler.watch("c1", stats -> fail("stopped watcher was called"), () -> {});
+        stop.run();
+        source.onSample.accept(sample(2000, 20, 0));
+        source.onEnd.run();
+
+        assertEquals(List.of(10L, 20L), received);
+        assertEquals(1, ended.get());
+
+        var late = new AtomicInteger();
+        sampler.watch("c1", stats -> late.incrementAndGet(), late::incrementAndGet);
+        assertEquals(2, late.get(), "a late watcher gets the last sample and the end right away");
+    }
+
+    @Test
+    void forgetStopsTheStream() {
+        var source = new FakeSource();
+        var sampler = new StatsSampler(source);
+        var ended = new AtomicInteger();
+        sampler.watch("c1", stats -> {}, ended::incrementAndGet);
+
+        sampler.forget("c1");
+
+        assertEquals(1, source.closes.get());
+        assertEquals(1, ended.get());
+    }
+}
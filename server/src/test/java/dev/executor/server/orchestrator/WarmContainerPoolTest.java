@@ -0,0 +1,152 @@
+package dev.executor.server.orchestrator;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WarmContainerPoolTest {
+
+    private static final WarmContainerPool.Key KEY =
+            new WarmContainerPool.Key("alpine:latest", new ResourceLimits(0, 0));
+
+    private final FakeFactory factory = new FakeFactory();
+    private final MutableClock clock = new MutableClock();
+
+    private WarmContainerPool pool(int min, int max) {
+        return new WarmContainerPool(factory, new WarmPoolSettings(min, max, Duration.ofMinutes(5)), Runnable::run, clock);
+    }
+
+    @Test
+    void warmFillsToMinimum() {
+        var pool = pool(2, 4);
+
+        pool.warm(KEY);
+
+        assertEquals(2, pool.idleCount(KEY));
+    }
+
+    @Test
+    void claimReturnsWarmContainerAndRefills() {
+        var pool = pool(1, 4);
+        pool.warm(KEY);
+
+        var claimed = pool.claim(KEY);
+
+        assertEquals("c1", claimed);
+        assertEquals(1, pool.idleCount(KEY));
+        assertEquals(2, factory.created.get());
+    }
+
+    @Test
+    void missGrowsTargetUpToMaximum() {
+        var pending = new ArrayList<Runnable>();
+        var pool = new WarmContainerPool(factory, new WarmPoolSettings(0, 2, Duration.ofMinutes(5)), pending::add, clock);
+
+        assertNull(pool.claim(KEY));
+        assertNull(pool.claim(KEY));
+        assertNull(pool.claim(KEY));
+        pending.forEach(Runnable::run);
+
+        assertEquals(2, factory.created.get());
+        assertEquals(2, pool.idleCount(KEY));
+    }
+
+    @Test
+    void keysAreSeparatedByLimits() {
+        var pool = pool(1, 1);
+        pool.warm(KEY);
+
+        var other = new WarmContainerPool.Key("alpine:latest", new ResourceLimits(512, 1));
+
+        assertNull(pool.claim(other));
+        assertNotNull(pool.claim(KEY));
+    }
+
+    @Test
+    void evictsContainersIdlePastTimeout() {
+        var pool = pool(1, 1);
+        pool.warm(KEY);
+
+        clock.advance(Duration.ofMinutes(6));
+        pool.maintain();
+
+        assertEquals(List.of("c1"), factory.destroyed);
+        assertEquals(0, pool.idleCount(KEY));
+    }
+
+    @Test
+    void keepsMinimumForKeysWithRecentDemand() {
+        var pool = pool(1, 1);
+        pool.warm(KEY);
+
+        clock.advance(Duration.ofMinutes(4));
+        pool.claim(KEY);
+        clock.advance(Duration.ofMinutes(2));
+        pool.maintain();
+
+        assertEquals(1, pool.idleCount(KEY));
+    }
+
+    @Test
+    void closeRemovesIdleContainers() {
+        var pool = pool(2, 2);
+        pool.warm(KEY);
+
+        pool.close();
+
+        assertEquals(2, factory.destroyed.size());
+        assertNull(pool.claim(KEY));
+        assertEquals(2, factory.created.get());
+    }
+
+    @Test
+    void removesContainersLeftByPreviousRunBeforeWarming() {
+        factory.leftovers.addAll(List.of("old1", "old2"));
+        var pool = pool(1, 1);
+
+        pool.removeLeftovers();
+        pool.warm(KEY);
+
+        assertEquals(List.of("old1", "old2"), factory.destroyed);
+        assertEquals("c1", pool.claim(KEY));
+    }
+
+    @Test
+    void failureToListLeftoversDoesNotStopWarming() {
+        factory.leftovers = null;
+        var pool = pool(1, 1);
+
+        pool.removeLeftovers();
+        pool.warm(KEY);
+
+        assertEquals(1, pool.idleCount(KEY));
+    }
+
+    private static class FakeFactory implements WarmContainerPool.ContainerFactory {
+        final AtomicInteger created = new AtomicInteger();
+        final List<String> destroyed = new ArrayList<>();
+        List<String> leftovers = new ArrayList<>();
+
+        @Override
+        public String create(WarmContainerPool.Key key) {
+            return "c" + created.incrementAndGet();
+        }
+
+        @Override
+        public void destroy(String containerId) {
+            destroyed.add(containerId);
+        }
+
+        @Override
+        public List<String> leftovers() {
+            if (leftovers == null) {
+                throw new IllegalStateException("docker unavailable");
+            }
+            return leftovers;
+        }
+    }
+}
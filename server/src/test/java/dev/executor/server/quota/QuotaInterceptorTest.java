@@ -0,0 +1,122 @@
+package dev.executor.server.quota;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.executor.common.JobIdRequest;
+import dev.executor.common.JobStatus;
+import dev.executor.common.ShellServiceGrpc;
+import dev.executor.server.AuthInterceptor;
+import io.grpc.Context;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.Status;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+class QuotaInterceptorTest {
+
+    private static ServerCall.Listener<JobIdRequest> call(QuotaInterceptor interceptor, String client,
+                                                          RecordingServerCall call) {
+        return Context.current().withValue(AuthInterceptor.CLIENT_KEY, client)
+                .call(() -> interceptor.interceptCall(call, new Metadata(), (c, headers) -> {
+                    call.handled.set(c);
+                    return new ServerCall.Listener<>() {};
+                }));
+    }
+
+    @Test
+    void rejectsCallsOverTheRateWithARetryHint() {
+        var interceptor = new QuotaInterceptor(new QuotaSettings(
+                Map.of("GetJobStatus", new RateLimit(1, 2)), Map.of()));
+
+        var first = new RecordingServerCall();
+        var second = new RecordingServerCall();
+        var third = new RecordingServerCall();
+        call(interceptor, "ci", first);
+        call(interceptor, "ci", second);
+        call(interceptor, "ci", third);
+
+        assertNotNull(first.handled.get());
+        assertNotNull(second.handled.get());
+        assertNull(third.handled.get());
+        assertEquals(Status.Code.RESOURCE_EXHAUSTED, third.closedStatus.getCode());
+        var pushback = Long.parseLong(third.trailers.get(QuotaInterceptor.RETRY_PUSHBACK_KEY));
+        assertTrue(pushback > 0 && pushback <= 1000, "retry within a token interval, got " + pushback);
+        assertEquals(1, interceptor.rateLimitedCalls());
+    }
+
+    @Test
+    void quotasAreKeptPerClient() {
+        var interceptor = new QuotaInterceptor(new QuotaSettings(
+                Map.of(QuotaSettings.ANY_METHOD, new RateLimit(1, 1)), Map.of()));
+
+        var ci = new RecordingServerCall();
+        var alice = new RecordingServerCall();
+        var ciAgain = new RecordingServerCall();
+        call(interceptor, "ci", ci);
+        call(interceptor, "alice", alice);
+        call(interceptor, "ci", ciAgain);
+
+        assertNotNull(ci.handled.get());
+        assertNotNull(alice.handled.get(), "another client's calls do not use up ci's quota");
+        assertEquals(Status.Code.RESOURCE_EXHAUSTED, ciAgain.closedStatus.getCode());
+    }
+
+    @Test
+    void concurrencySlotIsFreedWhenTheCallEnds() {
+        var interceptor = new QuotaInterceptor(new QuotaSettings(Map.of(), Map.of("GetJobStatus", 1)));
+
+        var first = new RecordingServerCall();
+        var listener = call(interceptor, "ci", first);
+        var second = new RecordingServerCall();
+        call(interceptor, "ci", second);
+        assertEquals(Status.Code.RESOURCE_EXHAUSTED, second.closedStatus.getCode());
+        assertEquals(1, interceptor.concurrencyLimitedCalls());
+
+        first.handled.get().close(Status.OK, new Metadata());
+        listener.onCancel();
+        var third = new RecordingServerCall();
+        call(interceptor, "ci", third);
+        assertNotNull(third.handled.get());
+        assertNull(third.closedStatus);
+
+        var fourth = new RecordingServerCall();
+        call(interceptor, "ci", fourth);
+        assertEquals(Status.Code.RESOURCE_EXHAUSTED, fourth.closedStatus.getCode(),
+                "closing and cancelling the first call freed its slot only once");
+    }
+
+    @Test
+    void unlistedMethodsAreNotLimited() {
+        var interceptor = new QuotaInterceptor(new QuotaSettings(
+                Map.of("StartJob", new RateLimit(1, 1)), Map.of()));
+
+        for (int i = 0; i < 10; i++) {
+            var call = new RecordingServerCall();
+            call(interceptor, QuotaInterceptor.ANONYMOUS, call);
+            assertNotNull(call.handled.get());
+        }
+    }
+
+    private static class RecordingServerCall extends ServerCall<JobIdRequest, JobStatus> {
+        final AtomicReference<ServerCall<JobIdRequest, JobStatus>> handled = new AtomicReference<>();
+        Status closedStatus;
+        Metadata trailers;
+
+        @Override
+        public void close(Status status, Metadata trailers) {
+            closedStatus = status;
+            this.trailers = trailers;
+        }
+
+        @Override public void request(int numMessages) {}
+        @Override public void sendHeaders(Metadata headers) {}
+        @Override public void sendMessage(JobStatus message) {}
+        @Override public boolean isCancelled() { return false; }
+        @Override public MethodDescriptor<JobIdRequest, JobStatus> getMethodDescriptor() {
+            return ShellServiceGrpc.getGetJobStatusMethod();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package dev.executor.server.quota;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void allowsBurstThenRefillsAtTheRate() {
+        var start = 1_000 * SECOND;
+        var bucket = new TokenBucket(new RateLimit(10, 3), start);
+
+        assertEquals(0, bucket.tryAcquire(start));
+        assertEquals(0, bucket.tryAcquire(start));
+        assertEquals(0, bucket.tryAcquire(start));
+        assertEquals(SECOND / 10, bucket.tryAcquire(start), "the next token is one interval away");
+
+        assertEquals(0, bucket.tryAcquire(start + SECOND / 10));
+        assertTrue(bucket.tryAcquire(start + SECOND / 10) > 0);
+    }
+
+    @Test
+    void idleTimeRefillsNoMoreThanTheBurst() {
+        var bucket = new TokenBucket(new RateLimit(1, 2), 0);
+        var later = 60 * SECOND;
+
+        assertEquals(0, bucket.tryAcquire(later));
+        assertEquals(0, bucket.tryAcquire(later));
+        assertEquals(SECOND, bucket.tryAcquire(later));
+    }
+
+    @Test
+    void handlesNanoTimeNearOverflow() {
+        var start = Long.MAX_VALUE - SECOND / 20;
+        var bucket = new TokenBucket(new RateLimit(10, 1), start);
+
+        assertEquals(0, bucket.tryAcquire(start));
+        assertTrue(bucket.tryAcquire(start) > 0);
+        assertEquals(0, bucket.tryAcquire(start + SECOND / 10));
+    }
+}
@@ -0,0 +1,182 @@
+package dev.executor.server.registry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.executor.common.CompletionDetails;
+import dev.executor.common.JobStatus;
+import dev.executor.server.orchestrator.MutableClock;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JobRegistryTest {
+
+    @TempDir
+    Path dir;
+
+    private final MutableClock clock = new MutableClock();
+
+    private static JobStatus completed(String jobId, int exitCode) {
+        return JobStatus.newBuilder()
+                .setJobId(jobId)
+                .setCompleted(CompletionDetails.newBuilder().setExitCode(exitCode))
+                .build();
+    }
+
+    private String finishJob(JobRegistry registry, int exitCode) {
+        var jobId = UUID.randomUUID().toString();
+        registry.register(jobId, "container-" + jobId);
+        registry.markTerminal(jobId, completed(jobId, exitCode));
+        return jobId;
+    }
+
+    @Test
+    void firstTerminalStatusWins() {
+        var registry = new JobRegistry(RetentionPolicy.defaults(), null, clock);
+        var jobId = UUID.randomUUID().toString();
+        registry.register(jobId, "c1");
+
+        registry.markTerminal(jobId, completed(jobId, 1));
+        var second = registry.markTerminal(jobId, completed(jobId, 2));
+
+        assertEquals(1, second.getCompleted().getExitCode());
+        assertEquals(1, registry.find(jobId).terminalStatus().getCompleted().getExitCode());
+    }
+
+    @Test
+    void evictsOldestTerminalJobsOverCountLimitIntoArchive() throws IOException {
+        try (var registry = new JobRegistry(new RetentionPolicy(2, Duration.ofDays(1), Long.MAX_VALUE),
+                JobArchive.open(dir), clock)) {
+            var first = finishJob(registry, 7);
+            finishJob(registry, 0);
+            finishJob(registry, 0);
+
+            assertNull(registry.find(first));
+            assertEquals(2, registry.size());
+            var archived = registry.findArchived(first);
+            assertEquals("container-" + first, archived.containerId());
+            assertEquals(7, archived.status().getCompleted().getExitCode());
+        }
+    }
+
+    @Test
+    void evictsTerminalJobsPastMaximumAge() {
+        var registry = new JobRegistry(new RetentionPolicy(100, Duration.ofHours(1), Long.MAX_VALUE), null, clock);
+        var old = finishJob(registry, 0);
+
+        clock.advance(Duration.ofHours(2));
+        registry.evictExpired();
+
+        assertNull(registry.find(old));
+    }
+
+    @Test
+    void evictsWhenMemoryBudgetIsExceeded() {
+        var registry = new JobRegistry(new RetentionPolicy(100, Duration.ofDays(1), 600), null, clock);
+        for (int i = 0; i < 5; i++) {
+            finishJob(registry, 0);
+        }
+
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    void neverEvictsLiveJobs() {
+        var registry = new JobRegistry(new RetentionPolicy(0, Duration.ZERO, 0), null, clock);
+        var live = UUID.randomUUID().toString();
+        registry.register(live, "c1");
+
+        clock.advance(Duration.ofDays(7));
+        registry.evictExpired();
+
+        assertNotNull(registry.find(live));
+    }
+
+    @Test
+    void archiveRebuildsIndexAndSurvivesReopen() throws IOException {
+        var jobIds = new ArrayList<String>();
+        try (var archive = JobArchive.open(dir)) {
+            for (int i = 0; i < 2000; i++) {
+                var jobId = UUID.randomUUID().toString();
+                archive.put(jobId, "c" + i, completed(jobId, i % 256));
+                jobIds.add(jobId);
+            }
+        }
+
+        Files.delete(dir.resolve("jobs.idx"));
+        try (var archive = JobArchive.open(dir)) {
+            for (int i = 0; i < jobIds.size(); i++) {
+                assertEquals("c" + i, archive.get(jobIds.get(i)).containerId());
+            }
+            assertNull(archive.get(UUID.randomUUID().toString()));
+            assertNull(archive.get("not-a-uuid"));
+        }
+    }
+
+    @Test
+    void archiveIndexesRecordsAppendedAfterLastIndexWrite() throws IOException {
+        var first = UUID.randomUUID().toString();
+        try (var archive = JobArchive.open(dir)) {
+            archive.put(first, "c1", completed(first, 1));
+        }
+        // The index as it was before a crash that lost the entries of later appends.
+        var staleIndex = Files.readAllBytes(dir.resolve("jobs.idx"));
+        var later = new ArrayList<String>();
+        try (var archive = JobArchive.open(dir)) {
+            for (int i = 0; i < 3; i++) {
+                var jobId = UUID.randomUUID().toString();
+                archive.put(jobId, "c" + (i + 2), completed(jobId, i + 2));
+                later.add(jobId);
+            }
+        }
+        Files.write(dir.resolve("jobs.idx"), staleIndex);
+
+        try (var archive = JobArchive.open(dir)) {
+            assertEquals("c1", archive.get(first).containerId());
+            for (int i = 0; i < later.size(); i++) {
+                assertEquals("c" + (i + 2), archive.get(later.get(i)).containerId());
+            }
+        }
+    }
+
+    @Test
+    void archiveForgetsOldestGenerationPastSizeLimit() throws IOException {
+        var jobIds = new ArrayList<String>();
+        try (var archive = JobArchive.open(dir, 64 * 1024)) {
+            for (int i = 0; i < 2000; i++) {
+                var jobId = UUID.randomUUID().toString();
+                archive.put(jobId, "c" + i, completed(jobId, 0));
+                jobIds.add(jobId);
+            }
+            assertNull(archive.get(jobIds.get(0)));
+            assertEquals("c1999", archive.get(jobIds.get(1999)).containerId());
+        }
+        assertTrue(Files.size(dir.resolve("jobs.dat")) + Files.size(dir.resolve("jobs.old.dat")) <= 64 * 1024);
+
+        try (var archive = JobArchive.open(dir, 64 * 1024)) {
+            assertEquals("c1999", archive.get(jobIds.get(1999)).containerId());
+        }
+    }
+
+    @Test
+    void archiveDropsTornTailRecord() throws IOException {
+        var jobId = UUID.randomUUID().toString();
+        try (var archive = JobArchive.open(dir)) {
+            archive.put(jobId, "c1", completed(jobId, 3));
+        }
+        Files.write(dir.resolve("jobs.dat"), new byte[] {0, 0, 0, 50, 1, 2}, java.nio.file.StandardOpenOption.APPEND);
+
+        try (var archive = JobArchive.open(dir)) {
+            var other = UUID.randomUUID().toString();
+            archive.put(other, "c2", completed(other, 4));
+
+            assertEquals(3, archive.get(jobId).status().getCompleted().getExitCode());
+            assertEquals(4, archive.get(other).status().getCompleted().getExitCode());
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package dev.executor.server.transport;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import io.grpc.Grpc;
+import io.grpc.InsecureChannelCredentials;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.health.v1.HealthCheckRequest;
+import io.grpc.health.v1.HealthCheckResponse;
+import io.grpc.health.v1.HealthGrpc;
+import io.grpc.protobuf.services.HealthStatusManager;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class NettyTransportTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void servesCallsOverTcp() throws Exception {
+        try (var transport = new NettyTransport(TransportSettings.defaults())) {
+            var server = transport.startTcpServer(0, services());
+            try {
+                assertEquals(HealthCheckResponse.ServingStatus.SERVING, check("localhost:" + server.getPort()));
+            } finally {
+                stop(server);
+            }
+        }
+    }
+
+    @Test
+    void servesCallsOverUnixSocketOnBoundedExecutor() throws Exception {
+        var socket = dir.resolve("run").resolve("grpc.sock");
+        var defaults = TransportSettings.defaults();
+        var settings = new TransportSettings(2, defaults.flowControlWindowBytes(),
+                defaults.maxConcurrentCallsPerConnection(), defaults.keepAliveTime(), defaults.keepAliveTimeout(),
+                defaults.permitKeepAliveTime(), socket);
+        try (var transport = new NettyTransport(settings)) {
+            assumeTrue(transport.isEpoll(), "Unix domain sockets need native epoll");
+            // A socket left behind by a previous run.
+            Files.createDirectories(socket.getParent());
+            try (var stale = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+                stale.bind(UnixDomainSocketAddress.of(socket));
+            }
+
+            var server = transport.startUnixServer(services());
+            try {
+                assertEquals("rwxr-x---", PosixFilePermissions.toString(Files.getPosixFilePermissions(socket.getParent())));
+                assertEquals("rw-rw----", PosixFilePermissions.toString(Files.getPosixFilePermissions(socket)));
+                assertEquals(HealthCheckResponse.ServingStatus.SERVING, check("unix://" + socket));
+            } finally {
+                stop(server);
+            }
+        }
+    }
+
+    @Test
+    void refusesToReplaceFileThatIsNotASocket() throws Exception {
+        var socket = dir.resolve("grpc.sock");
+        Files.writeString(socket, "not a socket");
+        try (var transport = new NettyTransport(unixSettings(socket))) {
+            assumeTrue(transport.isEpoll(), "Unix domain sockets need native epoll");
+
+            assertThrows(IOException.class, () -> transport.startUnixServer(services()));
+            assertEquals("not a socket", Files.readString(socket));
+        }
+    }
+
+    @Test
+    void refusesSocketDirectoryOpenToOtherUsers() throws Exception {
+        var shared = Files.createDirectory(dir.resolve("shared"));
+        Files.setPosixFilePermissions(shared, PosixFilePermissions.fromString("rwxr-xr-x"));
+        var socket = shared.resolve("grpc.sock");
+        try (var transport = new NettyTransport(unixSettings(socket))) {
+            assumeTrue(transport.isEpoll(), "Unix domain sockets need native epoll");
+
+            assertThrows(IOException.class, () -> transport.startUnixServer(services()));
+            assertFalse(Files.exists(socket));
+        }
+    }
+
+    private static TransportSettings unixSettings(Path socket) {
+        var defaults = TransportSettings.defaults();
+        return new TransportSettings(defaults.executorThreads(), defaults.flowControlWindowBytes(),
+                defaults.maxConcurrentCallsPerConnection(), defaults.keepAliveTime(), defaults.keepAliveTimeout(),
+                defaults.permitKeepAliveTime(), socket);
+    }
+
+    private static List<ServerServiceDefinition> services() {
+        return List.of(new HealthStatusManager().getHealthService().bindService());
+    }
+
+    private static HealthCheckResponse.ServingStatus check(String target) throws InterruptedException {
+        ManagedChannel channel = Grpc.newChannelBuilder(target, InsecureChannelCredentials.create()).build();
+        try {
+            return HealthGrpc.newBlockingStub(channel)
+                    .withDeadlineAfter(10, TimeUnit.SECONDS)
+                    .check(HealthCheckRequest.getDefaultInstance())
+                    .getStatus();
+        } finally {
+            channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private static void stop(Server server) throws InterruptedException {
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
@@ -3,3 +3,5 @@ rootProject.name = "remote-executor"
 include("common")
 include("server")
 include("sidecar")
+include("benchmarks")
+include("loadgen")
@@ -0,0 +1,59 @@
+package dev.executor.sidecar;
+
+/**
+ * Bounds concurrent status fetches, adapting the bound to how the server responds (AIMD).
+ *
+ * <p>The fastest recent fetch is the baseline. A fetch that completes within
+ * {@link #SLOW_FACTOR} times the baseline raises the limit by one per limit's worth of such fetches;
+ * a slower one, or a failure, cuts it by {@link #BACKOFF_RATIO}. The baseline slowly drifts up so a
+ * single lucky fetch does not pin it forever.
+ */
+final class AdaptiveConcurrencyLimit {
+
+    static final double SLOW_FACTOR = 2.0;
+    static final double BACKOFF_RATIO = 0.7;
+    private static final double BASELINE_DRIFT = 1.01;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private double limit;
+    private int inFlight;
+    private long baselineNanos = Long.MAX_VALUE;
+
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    synchronized void acquire() throws InterruptedException {
+        while (inFlight >= (int) limit) {
+            wait();
+        }
+        inFlight++;
+    }
+
+    /** Releases a slot taken by {@link #acquire()} and records how the fetch went. */
+    synchronized void release(long latencyNanos, boolean succeeded) {
+        inFlight--;
+        if (!succeeded) {
+            decrease();
+        } else {
+            baselineNanos = Math.min((long) (baselineNanos * BASELINE_DRIFT), latencyNanos);
+            if (latencyNanos > baselineNanos * SLOW_FACTOR) {
+                decrease();
+            } else {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+        }
+        notifyAll();
+    }
+
+    synchronized int limit() {
+        return (int) limit;
+    }
+
+    private void decrease() {
+        limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+    }
+}
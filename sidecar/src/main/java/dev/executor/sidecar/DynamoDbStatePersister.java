@@ -1,49 +1,300 @@
 package dev.executor.sidecar;
 
 import dev.executor.common.JobStatus;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.exception.SdkServiceException;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
 import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.RequestLimitExceededException;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
 
-public class DynamoDbStatePersister implements JobEventListener {
+/**
+ * Writes job states to DynamoDB behind the polling engine's back.
+ *
+ * <p>State changes are queued per job, so only the latest state of a job that changes again before
+ * it is written reaches the table. A writer thread sends them with {@code BatchWriteItem} as soon as
+ * {@link #MAX_BATCH_ITEMS} are queued, or once the oldest has waited the flush interval. Unprocessed
+ * items and throttled batches are queued again and retried with jittered exponential backoff. A batch
+ * the table rejects outright is written again one item at a time, so only the items it rejects are
+ * dropped. On {@link #close()} the queue is drained for at most the drain timeout.
+ *
+ * <p>A change is acknowledged once its item, or a later state of the same job, is in the table. Items
+ * dropped because the table rejects them are acknowledged too, as sending them again cannot help;
+ * items still queued when the drain times out are not.
+ */
+public class DynamoDbStatePersister implements JobEventListener, AutoCloseable {
 
     private static final Logger logger = LoggerFactory.getLogger(DynamoDbStatePersister.class);
     private static final String TABLE_NAME = "RemoteExecutor-JobState";
+    static final int MAX_BATCH_ITEMS = 25;
+    private static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofMillis(250);
+    private static final Duration DEFAULT_DRAIN_TIMEOUT = Duration.ofSeconds(10);
+    private static final long INITIAL_BACKOFF_MS = 50;
+    private static final long MAX_BACKOFF_MS = 5000;
 
     private final DynamoDbClient client;
     private final String instanceId;
+    private final Duration itemTtl;
+    private final Duration flushInterval;
+    private final Duration drainTimeout;
+    private final Object lock = new Object();
+    // Latest unwritten item per job, in the order the jobs were queued.
+    private final LinkedHashMap<String, Pending> pending = new LinkedHashMap<>();
+    private final Thread writer;
+    private long oldestQueuedNanos;
+    private long drainDeadlineNanos;
+    private boolean closing;
+    private int consecutiveFailures;
 
     public DynamoDbStatePersister(DynamoDbClient client, String instanceId) {
+        this(client, instanceId, Duration.ZERO);
+    }
+
+    /** Items expire {@code itemTtl} after their last write; zero keeps them forever. */
+    public DynamoDbStatePersister(DynamoDbClient client, String instanceId, Duration itemTtl) {
+        this(client, instanceId, itemTtl, DEFAULT_FLUSH_INTERVAL, DEFAULT_DRAIN_TIMEOUT);
+    }
+
+    DynamoDbStatePersister(DynamoDbClient client, String instanceId, Duration itemTtl,
+                           Duration flushInterval, Duration drainTimeout) {
         this.client = client;
         this.instanceId = instanceId;
+        this.itemTtl = itemTtl;
+        this.flushInterval = flushInterval;
+        this.drainTimeout = drainTimeout;
+        this.writer = Thread.ofPlatform().name("dynamodb-writer").daemon().start(this::writeLoop);
+    }
+
+    /** An item waiting to be written, with the acknowledgements of every change it covers. */
+    private record Pending(Map<String, AttributeValue> item, List<Runnable> acks) {
+        Pending then(Pending later) {
+            var merged = new ArrayList<Runnable>(acks.size() + later.acks.size());
+            merged.addAll(acks);
+            merged.addAll(later.acks);
+            return new Pending(later.item, merged);
+        }
+
+        void acknowledge() {
+            acks.forEach(Runnable::run);
+        }
     }
 
     @Override
     public void onJobStateChanged(JobStateChanged event) {
-        var item = toItem(event.jobId(), event.current());
-        client.putItem(PutItemRequest.builder()
-                .tableName(TABLE_NAME)
-                .item(item)
-                .build());
-        logger.debug("Persisted state for job {}", event.jobId());
+        onJobStateChanged(event, () -> {});
+    }
+
+    @Override
+    public void onJobStateChanged(JobStateChanged event, Runnable acknowledge) {
+        var item = new Pending(toItem(event.jobId(), event.current()), List.of(acknowledge));
+        synchronized (lock) {
+            if (closing) {
+                logger.warn("Persister is closed, dropping state for job {}", event.jobId());
+                return;
+            }
+            if (pending.isEmpty()) {
+                oldestQueuedNanos = System.nanoTime();
+            }
+            pending.merge(event.jobId(), item, Pending::then);
+            if (pending.size() == 1 || pending.size() >= MAX_BATCH_ITEMS) {
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /** Writes what is still queued, waiting at most the drain timeout. */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (closing) return;
+            closing = true;
+            drainDeadlineNanos = System.nanoTime() + drainTimeout.toNanos();
+            lock.notifyAll();
+        }
+        try {
+            writer.join(drainTimeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            logger.warn("DynamoDB writer still busy after {}", drainTimeout);
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            Map<String, Pending> batch;
+            try {
+                batch = nextBatch();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (batch == null) {
+                return;
+            }
+            write(batch);
+        }
+    }
+
+    /** Waits for a full batch or the flush interval; returns {@code null} once there is nothing left to do. */
+    private Map<String, Pending> nextBatch() throws InterruptedException {
+        synchronized (lock) {
+            while (!closing) {
+                if (pending.isEmpty()) {
+                    lock.wait();
+                    continue;
+                }
+                var remaining = oldestQueuedNanos + flushInterval.toNanos() - System.nanoTime();
+                if (pending.size() >= MAX_BATCH_ITEMS || remaining <= 0) {
+                    break;
+                }
+                TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+            }
+            if (pending.isEmpty()) {
+                return null;
+            }
+            if (closing && System.nanoTime() - drainDeadlineNanos > 0) {
+                logger.warn("Drain timeout reached, dropping {} unwritten job states", pending.size());
+                pending.clear();
+                return null;
+            }
+
+            var batch = new LinkedHashMap<String, Pending>();
+            var iterator = pending.entrySet().iterator();
+            while (iterator.hasNext() && batch.size() < MAX_BATCH_ITEMS) {
+                var entry = iterator.next();
+                batch.put(entry.getKey(), entry.getValue());
+                iterator.remove();
+            }
+            return batch;
+        }
+    }
+
+    private void write(Map<String, Pending> batch) {
+        var requests = batch.values().stream()
+                .map(entry -> WriteRequest.builder().putRequest(PutRequest.builder().item(entry.item()).build()).build())
+                .toList();
+        List<WriteRequest> unprocessed;
+        try {
+            var response = client.batchWriteItem(BatchWriteItemRequest.builder()
+                    .requestItems(Map.of(TABLE_NAME, requests))
+                    .build());
+            unprocessed = response.unprocessedItems().getOrDefault(TABLE_NAME, List.of());
+        } catch (SdkException e) {
+            if (isPermanent(e)) {
+                logger.warn("Batch of {} job states rejected, writing them one at a time: {}",
+                        batch.size(), e.getMessage());
+                writeEach(batch);
+                return;
+            }
+            logger.warn("Failed to persist {} job states, retrying: {}", batch.size(), e.getMessage());
+            unprocessed = requests;
+        }
+
+        var retry = new LinkedHashMap<String, Pending>();
+        for (var request : unprocessed) {
+            var jobId = request.putRequest().item().get("JobId").s();
+            retry.put(jobId, batch.remove(jobId));
+        }
+        batch.values().forEach(Pending::acknowledge);
+        if (retry.isEmpty()) {
+            consecutiveFailures = 0;
+            logger.debug("Persisted state for {} jobs", batch.size());
+            return;
+        }
+        requeue(retry);
+        backOff();
+    }
+
+    /** Writes each item on its own, dropping only those the table rejects. */
+    private void writeEach(Map<String, Pending> batch) {
+        var retry = new LinkedHashMap<String, Pending>();
+        for (var entry : batch.entrySet()) {
+            try {
+                client.putItem(PutItemRequest.builder().tableName(TABLE_NAME).item(entry.getValue().item()).build());
+            } catch (SdkException e) {
+                if (!isPermanent(e)) {
+                    retry.put(entry.getKey(), entry.getValue());
+                    continue;
+                }
+                logger.error("Failed to persist state of job {}, dropping it", entry.getKey(), e);
+            }
+            entry.getValue().acknowledge();
+        }
+        if (retry.isEmpty()) {
+            consecutiveFailures = 0;
+            return;
+        }
+        logger.warn("Failed to persist {} job states, retrying", retry.size());
+        requeue(retry);
+        backOff();
+    }
+
+    /** Client errors other than throttling will fail the same way again; everything else is retried. */
+    private static boolean isPermanent(SdkException e) {
+        if (e instanceof ProvisionedThroughputExceededException || e instanceof RequestLimitExceededException) {
+            return false;
+        }
+        return e instanceof SdkServiceException serviceException
+                && !serviceException.isThrottlingException()
+                && serviceException.statusCode() >= 400
+                && serviceException.statusCode() < 500;
+    }
+
+    /** Puts unwritten items back at the front of the queue, unless a newer state was queued meanwhile. */
+    private void requeue(Map<String, Pending> unwritten) {
+        synchronized (lock) {
+            var merged = new LinkedHashMap<>(unwritten);
+            pending.forEach((jobId, later) -> merged.merge(jobId, later, Pending::then));
+            pending.clear();
+            pending.putAll(merged);
+            oldestQueuedNanos = System.nanoTime() - flushInterval.toNanos();
+        }
+    }
+
+    private void backOff() {
+        consecutiveFailures++;
+        var ceiling = Math.min(MAX_BACKOFF_MS, INITIAL_BACKOFF_MS << Math.min(consecutiveFailures - 1, 16));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     Map<String, AttributeValue> toItem(String jobId, JobStatus status) {
         var item = new HashMap<String, AttributeValue>();
         item.put("JobId", AttributeValue.fromS(jobId));
         item.put("InstanceId", AttributeValue.fromS(instanceId));
-        item.put("UpdatedAt", AttributeValue.fromN(String.valueOf(Instant.now().getEpochSecond())));
+        var now = Instant.now();
+        item.put("UpdatedAt", AttributeValue.fromN(String.valueOf(now.getEpochSecond())));
+        if (itemTtl.isPositive()) {
+            item.put("TTL", AttributeValue.fromN(String.valueOf(now.plus(itemTtl).getEpochSecond())));
+        }
         item.put("Result", AttributeValue.fromM(mapResult(status)));
         return item;
     }
 
     private Map<String, AttributeValue> mapResult(JobStatus status) {
         return switch (status.getResultCase()) {
+            case PENDING -> Map.of("Pending", AttributeValue.fromM(Map.of(
+                    "SubmittedAt", AttributeValue.fromS(status.getPending().getSubmittedAt())
+            )));
             case RUNNING -> Map.of("Running", AttributeValue.fromM(Map.of(
                     "StartedAt", AttributeValue.fromS(status.getRunning().getStartedAt())
             )));
@@ -52,10 +303,7 @@ public class DynamoDbStatePersister implements JobEventListener {
                 var completedMap = new HashMap<String, AttributeValue>();
                 completedMap.put("ExitCode", AttributeValue.fromN(String.valueOf(details.getExitCode())));
                 completedMap.put("OomKilled", AttributeValue.fromBool(details.getOomKilled()));
-                completedMap.put("RecentLogs", AttributeValue.fromL(
-                        details.getRecentLogsList().stream()
-                                .map(AttributeValue::fromS)
-                                .toList()));
+                completedMap.put("RecentLogs", RecentLogsCodec.encode(details.getRecentLogsList()));
                 yield Map.of("Completed", AttributeValue.fromM(completedMap));
             }
             case SYSTEM_ERROR -> Map.of("SystemError", AttributeValue.fromM(Map.of(
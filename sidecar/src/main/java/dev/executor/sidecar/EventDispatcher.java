@@ -0,0 +1,292 @@
+package dev.executor.sidecar;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Delivers state changes to each {@link JobEventListener} on its own thread, so a slow listener
+ * never holds up polling.
+ *
+ * <p>Every listener has a bounded queue and a worker that delivers its events in order, so events for
+ * the same job arrive in the order they happened. What happens when a queue is full depends on the
+ * {@link Overflow} policy. {@link #stats()} reports each queue's depth and how long its oldest event
+ * has been waiting, and {@link #reportStats()} logs the listeners that are falling behind.
+ *
+ * <p>A change dispatched with a callback runs it once every listener has acknowledged the change. A
+ * change that is dropped, or whose listener fails, is never acknowledged.
+ */
+public class EventDispatcher implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventDispatcher.class);
+    public static final int DEFAULT_CAPACITY = 1024;
+    private static final Duration DEFAULT_DRAIN_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration LAG_WARNING = Duration.ofSeconds(30);
+
+    public enum Overflow {
+        /** Wait for the listener to catch up. */
+        BLOCK,
+        /** Discard the listener's oldest queued event. */
+        DROP_OLDEST,
+        /**
+         * Merge into the job's latest queued event, reporting its original previous state with the
+         * new current one; wait if the job has nothing queued.
+         */
+        COALESCE
+    }
+
+    public record ListenerStats(String listener, int depth, Duration lag, long dropped, long coalesced) {}
+
+    private static final class Queued {
+        private JobStateChanged event;
+        // Acknowledgements of this event and of any coalesced into it, in dispatch order.
+        private final List<Runnable> acks = new ArrayList<>(1);
+        private final long enqueuedNanos;
+
+        Queued(JobStateChanged event, Runnable ack, long enqueuedNanos) {
+            this.event = event;
+            this.acks.add(ack);
+            this.enqueuedNanos = enqueuedNanos;
+        }
+
+        void acknowledge() {
+            acks.forEach(Runnable::run);
+        }
+    }
+
+    private final int capacity;
+    private final Overflow overflow;
+    private final Duration drainTimeout;
+    private final List<Channel> channels = new CopyOnWriteArrayList<>();
+
+    public EventDispatcher() {
+        this(DEFAULT_CAPACITY, Overflow.BLOCK);
+    }
+
+    public EventDispatcher(int capacity, Overflow overflow) {
+        this(capacity, overflow, DEFAULT_DRAIN_TIMEOUT);
+    }
+
+    EventDispatcher(int capacity, Overflow overflow, Duration drainTimeout) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.overflow = overflow;
+        this.drainTimeout = drainTimeout;
+    }
+
+    public void register(JobEventListener listener) {
+        channels.add(new Channel(listener));
+    }
+
+    /** Queues {@code event} for every listener; may block if a queue is full and the policy says so. */
+    public void dispatch(JobStateChanged event) {
+        dispatch(event, () -> {});
+    }
+
+    /**
+     * Queues {@code event} for every listener and runs {@code onAcknowledged} on the thread of the last
+     * listener to acknowledge it, or right away if there are no listeners.
+     */
+    public void dispatch(JobStateChanged event, Runnable onAcknowledged) {
+        var targets = List.copyOf(channels);
+        if (targets.isEmpty()) {
+            onAcknowledged.run();
+            return;
+        }
+        var remaining = new AtomicInteger(targets.size());
+        Runnable ack = () -> {
+            if (remaining.decrementAndGet() == 0) {
+                onAcknowledged.run();
+            }
+        };
+        for (var channel : targets) {
+            channel.offer(event, ack);
+        }
+    }
+
+    public List<ListenerStats> stats() {
+        var now = System.nanoTime();
+        var stats = new ArrayList<ListenerStats>(channels.size());
+        for (var channel : channels) {
+            stats.add(channel.stats(now));
+        }
+        return stats;
+    }
+
+    /**
+     * Logs a warning for each listener that dropped or coalesced events since the last report, or whose
+     * oldest queued event has waited over 30 seconds, and returns those listeners' stats.
+     */
+    public synchronized List<ListenerStats> reportStats() {
+        var now = System.nanoTime();
+        var behind = new ArrayList<ListenerStats>();
+        for (var channel : channels) {
+            var stats = channel.stats(now);
+            var newlyDropped = stats.dropped() - channel.reportedDropped;
+            var newlyCoalesced = stats.coalesced() - channel.reportedCoalesced;
+            channel.reportedDropped = stats.dropped();
+            channel.reportedCoalesced = stats.coalesced();
+            if (newlyDropped > 0 || newlyCoalesced > 0 || stats.lag().compareTo(LAG_WARNING) > 0) {
+                logger.warn("Listener {} is behind: {} queued, oldest waiting {}, {} dropped and {} coalesced since last report",
+                        stats.listener(), stats.depth(), stats.lag(), newlyDropped, newlyCoalesced);
+                behind.add(stats);
+            } else {
+                logger.debug("Listener {}: {} queued, oldest waiting {}", stats.listener(), stats.depth(), stats.lag());
+            }
+        }
+        return behind;
+    }
+
+    /** Waits until every queued event has been delivered; returns false on timeout. */
+    boolean awaitIdle(Duration timeout) throws InterruptedException {
+        var deadline = System.nanoTime() + timeout.toNanos();
+        for (var channel : channels) {
+            if (!channel.awaitIdle(deadline)) return false;
+        }
+        return true;
+    }
+
+    /** Delivers what is already queued, for at most the drain timeout, then stops the workers. */
+    @Override
+    public void close() {
+        var deadline = System.nanoTime() + drainTimeout.toNanos();
+        for (var channel : channels) {
+            channel.close(deadline);
+        }
+    }
+
+    private final class Channel {
+        private final JobEventListener listener;
+        private final String name;
+        private final Object lock = new Object();
+        private final ArrayDeque<Queued> queue = new ArrayDeque<>();
+        private boolean delivering;
+        private boolean closing;
+        private long dropped;
+        private long coalesced;
+        // Counters as of the last reportStats(), guarded by the dispatcher.
+        private long reportedDropped;
+        private long reportedCoalesced;
+
+        Channel(JobEventListener listener) {
+            this.listener = listener;
+            this.name = listener.getClass().getSimpleName();
+            Thread.ofPlatform().name("event-dispatch-" + name).daemon().start(this::deliverLoop);
+        }
+
+        void offer(JobStateChanged event, Runnable ack) {
+            synchronized (lock) {
+                if (closing) {
+                    logger.warn("Dropping state change of job {} for {}, dispatcher is closed", event.jobId(), name);
+                    return;
+                }
+                while (queue.size() >= capacity) {
+                    if (overflow == Overflow.DROP_OLDEST) {
+                        queue.pollFirst();
+                        dropped++;
+                    } else if (overflow == Overflow.COALESCE && coalesce(event, ack)) {
+                        return;
+                    } else {
+                        try {
+                            lock.wait();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            logger.warn("Dropping state change of job {} for {}, interrupted", event.jobId(), name);
+                            return;
+                        }
+                        if (closing) return;
+                    }
+                }
+                queue.addLast(new Queued(event, ack, System.nanoTime()));
+                lock.notifyAll();
+            }
+        }
+
+        /** Merges {@code event} into the job's latest queued event, if it has one. */
+        private boolean coalesce(JobStateChanged event, Runnable ack) {
+            for (Iterator<Queued> it = queue.descendingIterator(); it.hasNext(); ) {
+                var queued = it.next();
+                if (queued.event.jobId().equals(event.jobId())) {
+                    queued.event = new JobStateChanged(event.jobId(), queued.event.previous(), event.current());
+                    queued.acks.add(ack);
+                    coalesced++;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void deliverLoop() {
+            while (true) {
+                Queued next;
+                synchronized (lock) {
+                    while (queue.isEmpty() && !closing) {
+                        try {
+                            lock.wait();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                    next = queue.pollFirst();
+                    if (next == null) return;
+                    delivering = true;
+                    lock.notifyAll();
+                }
+                try {
+                    listener.onJobStateChanged(next.event, next::acknowledge);
+                } catch (Exception e) {
+                    logger.error("Listener {} failed for job {}", name, next.event.jobId(), e);
+                } finally {
+                    synchronized (lock) {
+                        delivering = false;
+                        lock.notifyAll();
+                    }
+                }
+            }
+        }
+
+        ListenerStats stats(long now) {
+            synchronized (lock) {
+                var head = queue.peekFirst();
+                var lag = head == null ? Duration.ZERO : Duration.ofNanos(now - head.enqueuedNanos);
+                return new ListenerStats(name, queue.size(), lag, dropped, coalesced);
+            }
+        }
+
+        boolean awaitIdle(long deadlineNanos) throws InterruptedException {
+            synchronized (lock) {
+                while (!queue.isEmpty() || delivering) {
+                    var remainingMillis = (deadlineNanos - System.nanoTime()) / 1_000_000;
+                    if (remainingMillis <= 0) return false;
+                    lock.wait(remainingMillis);
+                }
+                return true;
+            }
+        }
+
+        void close(long deadlineNanos) {
+            try {
+                if (!awaitIdle(deadlineNanos)) {
+                    synchronized (lock) {
+                        logger.warn("Dropping {} undelivered state change(s) for {}", queue.size(), name);
+                        queue.clear();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (lock) {
+                closing = true;
+                lock.notifyAll();
+            }
+        }
+    }
+}
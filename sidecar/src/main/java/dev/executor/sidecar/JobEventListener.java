@@ -3,4 +3,14 @@ package dev.executor.sidecar;
 @FunctionalInterface
 public interface JobEventListener {
     void onJobStateChanged(JobStateChanged event);
+
+    /**
+     * Handles {@code event} and runs {@code acknowledge} once it is done with it for good; until every
+     * listener has acknowledged a change, a restarted sidecar reports it again. Listeners that finish
+     * before returning need not override this.
+     */
+    default void onJobStateChanged(JobStateChanged event, Runnable acknowledge) {
+        onJobStateChanged(event);
+        acknowledge.run();
+    }
 }
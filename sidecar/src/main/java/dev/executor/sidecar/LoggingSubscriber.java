@@ -11,6 +11,8 @@ public class LoggingSubscriber implements JobEventListener {
     public void onJobStateChanged(JobStateChanged event) {
         var status = event.current();
         switch (status.getResultCase()) {
+            case PENDING -> logger.info("Job {} is PENDING (submitted at {})",
+                    event.jobId(), status.getPending().getSubmittedAt());
             case RUNNING -> logger.info("Job {} is now RUNNING (started at {})",
                     event.jobId(), status.getRunning().getStartedAt());
             case COMPLETED -> logger.info("Job {} COMPLETED (exit code: {}, oom: {})",
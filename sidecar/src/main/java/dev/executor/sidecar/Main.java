@@ -1,10 +1,15 @@
 package dev.executor.sidecar;
 
 import dev.executor.common.ShellServiceGrpc;
+import io.grpc.Grpc;
+import io.grpc.InsecureChannelCredentials;
 import io.grpc.ManagedChannel;
-import io.grpc.ManagedChannelBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
@@ -19,7 +24,26 @@ public class Main implements Runnable {
     @Option(names = "--dry-run", description = "Skip AWS API calls, log state changes to stdout")
     private boolean dryRun;
 
-    @Parameters(index = "0", description = "gRPC server address (e.g. localhost:9090)")
+    @Option(names = "--watch", description = "Follow the server's job event stream instead of polling every job")
+    private boolean watch;
+
+    @Option(names = "--item-ttl-days", defaultValue = "30",
+            description = "Days after their last update that job state items expire; 0 keeps them (default: ${DEFAULT-VALUE})")
+    private long itemTtlDays;
+
+    @Option(names = "--state-file",
+            description = "File to checkpoint known job states to, so a restart only reports changes since")
+    private Path stateFile;
+
+    @Option(names = "--listener-queue", defaultValue = "1024",
+            description = "State changes each listener can have queued (default: ${DEFAULT-VALUE})")
+    private int listenerQueue;
+
+    @Option(names = "--listener-overflow", defaultValue = "BLOCK",
+            description = "What to do when a listener's queue is full: ${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE})")
+    private EventDispatcher.Overflow listenerOverflow;
+
+    @Parameters(index = "0", description = "gRPC server address (e.g. localhost:9090 or unix:///run/remote-executor/grpc.sock)")
     private String target;
 
     @Parameters(index = "1", defaultValue = "dev.executor.common.ShellService",
@@ -29,25 +53,49 @@ public class Main implements Runnable {
     @Override
     public void run() {
         String mode = dryRun ? "Dry Run" : "Production";
-        logger.info("Sidecar starting in {} mode, target={}, service={}", mode, target, service);
+        logger.info("Sidecar starting in {} mode, target={}, service={}, watch={}", mode, target, service, watch);
 
-        ManagedChannel channel = ManagedChannelBuilder.forTarget(target)
-                .usePlaintext()
+        // Resolves unix: targets as well as host:port ones.
+        ManagedChannel channel = Grpc.newChannelBuilder(target, InsecureChannelCredentials.create())
                 .build();
 
         var stub = ShellServiceGrpc.newBlockingStub(channel);
-        var engine = new PollingEngine(stub);
+        StateCheckpoint checkpoint = null;
+        if (stateFile != null) {
+            try {
+                checkpoint = StateCheckpoint.open(stateFile);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot open state file " + stateFile, e);
+            }
+        }
+        var engine = new PollingEngine(stub, watch ? PollingEngine.Mode.WATCH : PollingEngine.Mode.POLL, checkpoint,
+                new EventDispatcher(listenerQueue, listenerOverflow));
         engine.addListener(new LoggingSubscriber());
 
+        DynamoDbStatePersister persister = null;
         if (!dryRun) {
             var dynamoDb = DynamoDbClient.create();
             var instanceId = System.getenv().getOrDefault("INSTANCE_ID", "unknown");
-            engine.addListener(new DynamoDbStatePersister(dynamoDb, instanceId));
+            persister = new DynamoDbStatePersister(dynamoDb, instanceId, Duration.ofDays(itemTtlDays));
+            engine.addListener(persister);
         }
 
+        var persisterToClose = persister;
+        var checkpointToClose = checkpoint;
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             logger.info("Shutting down sidecar");
             engine.shutdown();
+            // After the engine's final poll and listener drain, so its state changes are written too.
+            if (persisterToClose != null) {
+                persisterToClose.close();
+            }
+            if (checkpointToClose != null) {
+                try {
+                    checkpointToClose.close();
+                } catch (IOException e) {
+                    logger.warn("Failed to close state checkpoint", e);
+                }
+            }
             channel.shutdown();
         }));
 
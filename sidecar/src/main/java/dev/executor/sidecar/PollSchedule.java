@@ -0,0 +1,123 @@
+package dev.executor.sidecar;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+
+/**
+ * When to next poll each non-terminal job.
+ *
+ * <p>A job is due as soon as it is added. After each poll it is rescheduled a fraction of its age
+ * later, between a minimum and maximum interval and with random jitter: a job seen a second ago is
+ * polled again within a second, while one running for hours is polled at the maximum interval, and
+ * jobs discovered together drift apart instead of being polled in lockstep.
+ */
+final class PollSchedule {
+
+    static final Duration MIN_INTERVAL = Duration.ofMillis(500);
+    static final Duration MAX_INTERVAL = Duration.ofSeconds(30);
+    private static final double AGE_FRACTION = 0.25;
+    private static final double JITTER = 0.2;
+
+    private record Entry(String jobId, long dueMillis) {}
+
+    private final Clock clock;
+    // Reschedules run on whichever fetch thread polled the job.
+    private final Supplier<RandomGenerator> random;
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>((a, b) -> Long.compare(a.dueMillis, b.dueMillis));
+    // Current due time and first-seen time per job; queue entries whose due time no longer matches are stale.
+    private final Map<String, Long> due = new HashMap<>();
+    private final Map<String, Long> firstSeen = new HashMap<>();
+
+    PollSchedule(Clock clock) {
+        this(clock, ThreadLocalRandom::current);
+    }
+
+    /** Uses {@code random} for jitter from every thread, so it must be safe to share. */
+    PollSchedule(Clock clock, RandomGenerator random) {
+        this(clock, () -> random);
+    }
+
+    private PollSchedule(Clock clock, Supplier<RandomGenerator> random) {
+        this.clock = clock;
+        this.random = random;
+    }
+
+    /** Schedules a job that is not yet scheduled to be polled right away. */
+    void add(String jobId) {
+        add(jobId, clock.instant());
+    }
+
+    /** Like {@link #add(String)}, for a job already known since {@code since}, whose polls back off from then. */
+    synchronized void add(String jobId, Instant since) {
+        if (due.containsKey(jobId)) return;
+        var now = clock.millis();
+        firstSeen.put(jobId, Math.min(now, since.toEpochMilli()));
+        schedule(jobId, now);
+    }
+
+    /** Schedules the next poll of a job that was just polled and is still active. */
+    synchronized void reschedule(String jobId) {
+        var seen = firstSeen.get(jobId);
+        if (seen == null) return;
+        var now = clock.millis();
+        schedule(jobId, now + interval(now - seen).toMillis());
+    }
+
+    synchronized void remove(String jobId) {
+        due.remove(jobId);
+        firstSeen.remove(jobId);
+    }
+
+    /** Removes and returns the jobs that are due; they stay known until rescheduled or removed. */
+    synchronized List<String> takeDue() {
+        var now = clock.millis();
+        var jobs = new ArrayList<String>();
+        while (!queue.isEmpty() && queue.peek().dueMillis <= now) {
+            var entry = queue.poll();
+            var current = due.get(entry.jobId);
+            if (current != null && current == entry.dueMillis) {
+                due.put(entry.jobId, Long.MAX_VALUE);
+                jobs.add(entry.jobId);
+            }
+        }
+        return jobs;
+    }
+
+    /** Time until the next job is due, or {@code max} if that is later. */
+    synchronized Duration untilNextDue(Duration max) {
+        var now = clock.millis();
+        while (!queue.isEmpty()) {
+            var head = queue.peek();
+            var current = due.get(head.jobId);
+            if (current != null && current == head.dueMillis) {
+                return Duration.ofMillis(Math.max(0, Math.min(max.toMillis(), head.dueMillis - now)));
+            }
+            queue.poll();
+        }
+        return max;
+    }
+
+    synchronized int size() {
+        return due.size();
+    }
+
+    Duration interval(long ageMillis) {
+        var base = Math.clamp((long) (ageMillis * AGE_FRACTION), MIN_INTERVAL.toMillis(), MAX_INTERVAL.toMillis());
+        var jitter = 1 + JITTER * (2 * random.get().nextDouble() - 1);
+        return Duration.ofMillis((long) (base * jitter));
+    }
+
+    private void schedule(String jobId, long dueMillis) {
+        due.put(jobId, dueMillis);
+        queue.add(new Entry(jobId, dueMillis));
+    }
+}
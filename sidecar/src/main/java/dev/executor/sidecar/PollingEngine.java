@@ -1,16 +1,28 @@
 package dev.executor.sidecar;
 
-import dev.executor.common.JobIdRequest;
+import dev.executor.common.JobEvent;
+import dev.executor.common.JobIdsRequest;
 import dev.executor.common.JobStatus;
 import dev.executor.common.ListJobsRequest;
 import dev.executor.common.ShellServiceGrpc.ShellServiceBlockingStub;
+import dev.executor.common.WatchJobEventsRequest;
+import io.grpc.Context;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,31 +31,136 @@ public class PollingEngine {
 
     private static final Logger logger = LoggerFactory.getLogger(PollingEngine.class);
     private static final int POLL_INTERVAL_SECONDS = 10;
-    private static final int MAX_CONCURRENT_FETCHES = 5;
+    private static final Duration DISCOVERY_INTERVAL = Duration.ofSeconds(POLL_INTERVAL_SECONDS);
+    private static final int INITIAL_CONCURRENT_FETCHES = 5;
+    private static final int MAX_CONCURRENT_FETCHES = 64;
+    private static final int LIST_PAGE_SIZE = 1000;
+    private static final int STATUS_BATCH_SIZE = 100;
+    private static final int RECONNECT_DELAY_SECONDS = 5;
+    private static final Duration TERMINAL_SWEEP_INTERVAL = Duration.ofMinutes(5);
+    private static final Duration LISTENER_REPORT_INTERVAL = Duration.ofMinutes(1);
+
+    public enum Mode {
+        /** Discover jobs with ListJobs and fetch each non-terminal one on its own {@link PollSchedule}. */
+        POLL,
+        /** Sync once, then follow the server's WatchJobEvents stream. */
+        WATCH
+    }
 
     private final ShellServiceBlockingStub stub;
+    private final Mode mode;
+    private final StateCheckpoint checkpoint;
+    // Full statuses of live jobs only; terminal jobs are just IDs in terminalJobs.
     private final ConcurrentHashMap<String, JobStatus> cache = new ConcurrentHashMap<>();
-    private final List<JobEventListener> listeners = new CopyOnWriteArrayList<>();
+    private final TerminalJobSet terminalJobs = new TerminalJobSet();
+    private final EventDispatcher dispatcher;
     private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
-    private volatile Instant lastActiveTime = Instant.now();
+    private final Clock clock;
+    private final PollSchedule schedule;
+    private final AdaptiveConcurrencyLimit fetchLimit =
+            new AdaptiveConcurrencyLimit(INITIAL_CONCURRENT_FETCHES, 1, MAX_CONCURRENT_FETCHES);
+    private long nextDiscoveryMillis;
+    private volatile Instant lastActiveTime;
+    private volatile boolean stopped;
+    private volatile Context.CancellableContext watchContext;
+    // Written by the watcher, read when checkpoints compact on fetch threads.
+    private volatile String resumeToken = "";
+    // Held while storing a change and around every checkpoint write, so compaction sees both together.
+    private final Object checkpointLock = new Object();
+    // Jobs with state changes the listeners have not all acknowledged, which the checkpoint lags behind.
+    private final Map<String, Delivery> undelivered = new HashMap<>();
+
+    /** What the checkpoint holds for a job ({@code null} if nothing) and the latest change emitted for it. */
+    private static final class Delivery {
+        private JobStatus checkpointed;
+        private JobStatus latest;
+
+        Delivery(JobStatus checkpointed) {
+            this.checkpointed = checkpointed;
+        }
+    }
 
     public PollingEngine(ShellServiceBlockingStub stub) {
+        this(stub, Mode.POLL);
+    }
+
+    public PollingEngine(ShellServiceBlockingStub stub, Mode mode) {
+        this(stub, mode, (StateCheckpoint) null);
+    }
+
+    /** Starts from the state held by {@code checkpoint}, if any, and records state changes to it. */
+    public PollingEngine(ShellServiceBlockingStub stub, Mode mode, StateCheckpoint checkpoint) {
+        this(stub, mode, checkpoint, new EventDispatcher());
+    }
+
+    /** Delivers state changes through {@code dispatcher}, which {@link #shutdown()} closes. */
+    public PollingEngine(ShellServiceBlockingStub stub, Mode mode, StateCheckpoint checkpoint,
+                         EventDispatcher dispatcher) {
+        this(stub, mode, Clock.systemUTC(), checkpoint, dispatcher);
+    }
+
+    PollingEngine(ShellServiceBlockingStub stub, Mode mode, Clock clock, StateCheckpoint checkpoint,
+                  EventDispatcher dispatcher) {
         this.stub = stub;
+        this.mode = mode;
+        this.checkpoint = checkpoint;
+        this.dispatcher = dispatcher;
+        this.clock = clock;
+        this.schedule = new PollSchedule(clock);
+        this.lastActiveTime = clock.instant();
+        if (checkpoint != null) {
+            var restored = checkpoint.restored();
+            for (var status : restored.statuses().values()) {
+                if (isTerminal(status)) {
+                    terminalJobs.add(status.getJobId());
+                } else {
+                    cache.put(status.getJobId(), status);
+                    if (mode == Mode.POLL) {
+                        schedule.add(status.getJobId(), since(status));
+                    }
+                }
+            }
+            restored.terminalJobIds().forEach(terminalJobs::add);
+            resumeToken = restored.resumeToken();
+            logger.info("Restored {} live and {} terminal job(s) from state checkpoint",
+                    cache.size(), terminalJobs.size());
+        }
     }
 
     public void addListener(JobEventListener listener) {
-        listeners.add(listener);
+        dispatcher.register(listener);
     }
 
     public void start() {
-        logger.info("Polling engine started, interval={}s", POLL_INTERVAL_SECONDS);
-        scheduler.scheduleAtFixedRate(this::poll, 0, POLL_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        scheduler.scheduleAtFixedRate(this::reportListeners, LISTENER_REPORT_INTERVAL.toMillis(),
+                LISTENER_REPORT_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+        if (mode == Mode.WATCH) {
+            logger.info("Polling engine started in watch mode");
+            Thread.ofVirtual().name("job-event-watcher").start(this::watch);
+            scheduler.scheduleAtFixedRate(this::updateIdleTimer,
+                    POLL_INTERVAL_SECONDS, POLL_INTERVAL_SECONDS, TimeUnit.SECONDS);
+            scheduler.scheduleWithFixedDelay(this::sweepTerminalJobs, TERMINAL_SWEEP_INTERVAL.toMillis(),
+                    TERMINAL_SWEEP_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+            return;
+        }
+        logger.info("Polling engine started, discovery every {}, polls every {} to {} per job",
+                DISCOVERY_INTERVAL, PollSchedule.MIN_INTERVAL, PollSchedule.MAX_INTERVAL);
+        scheduler.execute(this::pollLoop);
     }
 
     public void shutdown() {
+        stopped = true;
         scheduler.shutdown();
-        logger.info("Running final poll before shutdown");
-        poll();
+        if (mode == Mode.WATCH) {
+            var context = watchContext;
+            if (context != null) {
+                context.cancel(null);
+            }
+        } else {
+            logger.info("Running final poll before shutdown");
+            poll();
+        }
+        dispatcher.close();
     }
 
     public Instant getLastActiveTime() {
@@ -54,6 +171,56 @@ public class PollingEngine {
         return cache;
     }
 
+    /** Waits for listeners to receive every state change emitted so far. */
+    boolean awaitListeners(Duration timeout) throws InterruptedException {
+        return dispatcher.awaitIdle(timeout);
+    }
+
+    boolean isKnownTerminal(String jobId) {
+        return terminalJobs.contains(jobId);
+    }
+
+    private void pollLoop() {
+        tick();
+        if (stopped) return;
+        var untilDiscovery = Duration.ofMillis(Math.max(0, nextDiscoveryMillis - clock.millis()));
+        try {
+            scheduler.schedule(this::pollLoop, schedule.untilNextDue(untilDiscovery).toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shut down between the check and the schedule.
+        }
+    }
+
+    /** Discovers new jobs when discovery is due and fetches the jobs whose next poll is due. */
+    void tick() {
+        try {
+            var now = clock.millis();
+            if (now >= nextDiscoveryMillis) {
+                nextDiscoveryMillis = now + DISCOVERY_INTERVAL.toMillis();
+                var jobIds = discover();
+                for (int i = 0; i < jobIds.size(); i++) {
+                    var jobId = jobIds.get(i);
+                    if (!terminalJobs.mark(jobId)) {
+                        schedule.add(jobId);
+                    }
+                }
+                terminalJobs.sweep();
+                updateIdleTimer();
+            }
+
+            var due = schedule.takeDue();
+            if (!due.isEmpty()) {
+                fetchAndUpdate(due);
+            }
+        } catch (Exception e) {
+            logger.error("Polling cycle failed", e);
+        }
+    }
+
+    PollSchedule getSchedule() {
+        return schedule;
+    }
+
     void poll() {
         try {
             List<String> jobIds = discover();
@@ -69,39 +236,194 @@ public class PollingEngine {
         }
     }
 
+    void watch() {
+        // Changes not acknowledged before a restart are missing from the checkpoint, though their events
+        // may predate the restored resume token; a poll finds them again before following the stream.
+        var resync = true;
+        while (!stopped) {
+            if (resync || resumeToken.isEmpty()) {
+                poll();
+                resync = false;
+            }
+            var context = Context.current().withCancellation();
+            watchContext = context;
+            try {
+                context.run(this::consumeEvents);
+                logger.warn("Job event stream ended, reconnecting in {}s", RECONNECT_DELAY_SECONDS);
+                sleepBeforeReconnect();
+            } catch (StatusRuntimeException e) {
+                if (stopped) break;
+                if (e.getStatus().getCode() == Status.Code.OUT_OF_RANGE) {
+                    logger.warn("Cannot resume job event stream, resyncing with a full poll");
+                    resumeToken = "";
+                } else {
+                    logger.warn("Job event stream failed ({}), reconnecting in {}s",
+                            e.getStatus(), RECONNECT_DELAY_SECONDS);
+                    sleepBeforeReconnect();
+                }
+            } finally {
+                context.cancel(null);
+            }
+        }
+    }
+
+    /**
+     * Forgets terminal jobs the server no longer lists. Polling does this on every discovery; in watch
+     * mode the stream never lists jobs, so without it the set would only shrink on a resync.
+     */
+    void sweepTerminalJobs() {
+        try {
+            for (var jobId : discover()) {
+                terminalJobs.mark(jobId);
+            }
+            var forgotten = terminalJobs.sweep();
+            logger.debug("Forgot {} terminal job(s) the server no longer lists", forgotten);
+        } catch (Exception e) {
+            logger.warn("Terminal job sweep failed", e);
+        }
+    }
+
+    private void reportListeners() {
+        try {
+            dispatcher.reportStats();
+        } catch (Exception e) {
+            logger.warn("Listener report failed", e);
+        }
+    }
+
+    private void consumeEvents() {
+        var request = WatchJobEventsRequest.newBuilder().setResumeToken(resumeToken).build();
+        var events = stub.watchJobEvents(request);
+        while (events.hasNext()) {
+            apply(events.next());
+        }
+    }
+
+    void apply(JobEvent event) {
+        resumeToken = event.getResumeToken();
+        checkpoint(() -> checkpoint.recordResumeToken(resumeToken));
+        var status = event.getStatus();
+        // A replayed event may predate what the resync poll already saw; jobs only move forward.
+        if (terminalJobs.contains(status.getJobId())) return;
+        var previous = cache.get(status.getJobId());
+        if (previous != null && progress(status) < progress(previous)) return;
+
+        update(status);
+        if (isActive(status)) {
+            lastActiveTime = clock.instant();
+        }
+    }
+
+    private void sleepBeforeReconnect() {
+        try {
+            TimeUnit.SECONDS.sleep(RECONNECT_DELAY_SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopped = true;
+        }
+    }
+
     private List<String> discover() {
-        var response = stub.listJobs(ListJobsRequest.getDefaultInstance());
-        var ids = response.getJobIdsList();
+        var ids = new ArrayList<String>();
+        var pageToken = "";
+        do {
+            var response = stub.listJobs(ListJobsRequest.newBuilder()
+                    .setPageSize(LIST_PAGE_SIZE)
+                    .setPageToken(pageToken)
+                    .build());
+            ids.addAll(response.getJobIdsList());
+            pageToken = response.getNextPageToken();
+        } while (!pageToken.isEmpty());
         logger.debug("Discovered {} job(s)", ids.size());
         return ids;
     }
 
-    private List<String> filter(List<String> jobIds) {
-        return jobIds.stream()
-                .filter(id -> {
-                    var cached = cache.get(id);
-                    if (cached == null) return true;
-                    var state = cached.getResultCase();
-                    return state != JobStatus.ResultCase.COMPLETED
-                            && state != JobStatus.ResultCase.SYSTEM_ERROR;
-                })
-                .toList();
+    /** Returns the jobs not known to be terminal, and evicts terminal jobs missing from the listing. */
+    List<String> filter(List<String> jobIds) {
+        var toFetch = new ArrayList<String>();
+        for (var jobId : jobIds) {
+            if (!terminalJobs.mark(jobId)) {
+                toFetch.add(jobId);
+            }
+        }
+        terminalJobs.sweep();
+        return toFetch;
+    }
+
+    /**
+     * Records a fetched status and returns the job's previous one, if it was live. A job that was
+     * already terminal returns {@code status} itself, so no change is reported.
+     */
+    private JobStatus store(JobStatus status) {
+        var jobId = status.getJobId();
+        if (isTerminal(status)) {
+            if (!terminalJobs.add(jobId)) return status;
+            return cache.remove(jobId);
+        }
+        return cache.put(jobId, status);
     }
 
-    private void fetchAndUpdate(List<String> jobIds) {
-        var semaphore = new Semaphore(MAX_CONCURRENT_FETCHES);
+    /** When a live job was submitted or started, falling back to now if the server sent no usable time. */
+    private Instant since(JobStatus status) {
+        var timestamp = status.hasRunning()
+                ? status.getRunning().getStartedAt()
+                : status.getPending().getSubmittedAt();
+        try {
+            return Instant.parse(timestamp);
+        } catch (DateTimeParseException e) {
+            return clock.instant();
+        }
+    }
+
+    private static boolean isTerminal(JobStatus status) {
+        var state = status.getResultCase();
+        return state == JobStatus.ResultCase.COMPLETED
+                || state == JobStatus.ResultCase.SYSTEM_ERROR;
+    }
 
+    private static boolean isActive(JobStatus status) {
+        var state = status.getResultCase();
+        return state == JobStatus.ResultCase.PENDING
+                || state == JobStatus.ResultCase.RUNNING;
+    }
+
+    private static int progress(JobStatus status) {
+        return switch (status.getResultCase()) {
+            case PENDING -> 0;
+            case RUNNING -> 1;
+            default -> isTerminal(status) ? 2 : -1;
+        };
+    }
+
+    private void fetchAndUpdate(List<String> jobIds) {
         try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
-            for (String jobId : jobIds) {
+            for (int from = 0; from < jobIds.size(); from += STATUS_BATCH_SIZE) {
+                var batch = jobIds.subList(from, Math.min(from + STATUS_BATCH_SIZE, jobIds.size()));
                 executor.submit(() -> {
-                    semaphore.acquire();
+                    fetchLimit.acquire();
+                    var started = System.nanoTime();
+                    var succeeded = false;
                     try {
-                        var request = JobIdRequest.newBuilder().setJobId(jobId).build();
-                        var status = stub.getJobStatus(request);
-                        var previous = cache.put(jobId, status);
-                        emitIfChanged(jobId, previous, status);
+                        var request = JobIdsRequest.newBuilder().addAllJobIds(batch).build();
+                        var response = stub.getJobStatuses(request);
+                        succeeded = true;
+                        for (var status : response.getStatusesList()) {
+                            update(status);
+                            if (isTerminal(status)) {
+                                schedule.remove(status.getJobId());
+                            } else {
+                                schedule.reschedule(status.getJobId());
+                            }
+                        }
+                        for (var jobId : response.getUnknownJobIdsList()) {
+                            schedule.remove(jobId);
+                            cache.remove(jobId);
+                        }
                     } finally {
-                        semaphore.release();
+                        fetchLimit.release(System.nanoTime() - started, succeeded);
+                        if (!succeeded) {
+                            batch.forEach(schedule::reschedule);
+                        }
                     }
                     return null;
                 });
@@ -109,26 +431,89 @@ public class PollingEngine {
         }
     }
 
-    private void emitIfChanged(String jobId, JobStatus previous, JobStatus current) {
-        var previousState = previous != null ? previous.getResultCase() : null;
-        if (previousState == current.getResultCase()) return;
+    /**
+     * Stores a fetched status and, if the job changed state, tells the listeners. The checkpoint only
+     * records the change once they have all acknowledged it, so a change lost in a crash before it was
+     * delivered is found again by the first poll after the restart.
+     */
+    private void update(JobStatus status) {
+        var jobId = status.getJobId();
+        JobStateChanged change;
+        synchronized (checkpointLock) {
+            var previous = store(status);
+            var previousState = previous != null ? previous.getResultCase() : null;
+            if (previousState == status.getResultCase()) return;
+            change = new JobStateChanged(jobId, previous, status);
+            if (checkpoint != null) {
+                undelivered.computeIfAbsent(jobId, id -> new Delivery(previous)).latest = status;
+            }
+        }
+        if (checkpoint == null) {
+            dispatcher.dispatch(change);
+        } else {
+            dispatcher.dispatch(change, () -> acknowledged(status));
+        }
+    }
 
-        var event = new JobStateChanged(jobId, previous, current);
-        for (var listener : listeners) {
+    private void acknowledged(JobStatus status) {
+        var jobId = status.getJobId();
+        synchronized (checkpointLock) {
+            var delivery = undelivered.get(jobId);
+            if (delivery == null) return;
+            // Acknowledgements of one job arrive in order, but a dropped change never arrives at all.
+            if (delivery.checkpointed == null || progress(status) > progress(delivery.checkpointed)) {
+                checkpoint(() -> {
+                    if (isTerminal(status)) {
+                        checkpoint.recordTerminal(jobId);
+                    } else {
+                        checkpoint.recordStatus(status);
+                    }
+                });
+                delivery.checkpointed = status;
+            }
+            if (delivery.latest == status) {
+                undelivered.remove(jobId);
+            }
+        }
+    }
+
+    private interface CheckpointWrite {
+        void run() throws IOException;
+    }
+
+    /** Runs a checkpoint write, compacting afterwards if due; failures only cost a warm restart. */
+    private void checkpoint(CheckpointWrite write) {
+        if (checkpoint == null) return;
+        synchronized (checkpointLock) {
             try {
-                listener.onJobStateChanged(event);
-            } catch (Exception e) {
-                logger.error("Listener failed for job {}", jobId, e);
+                write.run();
+                checkpoint.compactIfNeeded(cache.size() + terminalJobs.size(), this::checkpointedState);
+            } catch (IOException e) {
+                logger.warn("Failed to write state checkpoint", e);
             }
         }
     }
 
+    /** The state the checkpoint holds: what is known, less the changes not yet acknowledged. */
+    private StateCheckpoint.State checkpointedState() {
+        var statuses = new HashMap<>(cache);
+        var terminalJobIds = new HashSet<>(terminalJobs.toList());
+        undelivered.forEach((jobId, delivery) -> {
+            statuses.remove(jobId);
+            terminalJobIds.remove(jobId);
+            if (delivery.checkpointed != null) {
+                statuses.put(jobId, delivery.checkpointed);
+            }
+        });
+        return new StateCheckpoint.State(statuses, terminalJobIds, resumeToken);
+    }
+
     private void updateIdleTimer() {
-        boolean anyRunning = cache.values().stream()
-                .anyMatch(s -> s.getResultCase() == JobStatus.ResultCase.RUNNING);
+        boolean anyActive = cache.values().stream()
+                .anyMatch(PollingEngine::isActive);
 
-        if (anyRunning) {
-            lastActiveTime = Instant.now();
+        if (anyActive) {
+            lastActiveTime = clock.instant();
         }
     }
 }
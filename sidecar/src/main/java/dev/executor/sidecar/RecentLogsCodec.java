@@ -0,0 +1,110 @@
+package dev.executor.sidecar;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ * Encodes a completed job's recent log lines as a single binary {@code RecentLogs} attribute.
+ *
+ * <p>The first byte is the format: {@link #FORMAT_PLAIN} for UTF-8 text, {@link #FORMAT_DEFLATE} for
+ * the same text raw-deflated. Each line is terminated by {@code \n}. Whichever is smaller is written.
+ * {@link #decode} also reads items written before this encoding, where {@code RecentLogs} was a list
+ * of strings.
+ */
+public final class RecentLogsCodec {
+
+    static final byte FORMAT_PLAIN = 1;
+    static final byte FORMAT_DEFLATE = 2;
+
+    private RecentLogsCodec() {
+    }
+
+    public static AttributeValue encode(List<String> lines) {
+        var text = new StringBuilder();
+        for (var line : lines) {
+            text.append(line).append('\n');
+        }
+        var plain = text.toString().getBytes(StandardCharsets.UTF_8);
+        var deflated = deflate(plain);
+        var encoded = deflated.length < plain.length
+                ? prefixed(FORMAT_DEFLATE, deflated)
+                : prefixed(FORMAT_PLAIN, plain);
+        return AttributeValue.fromB(SdkBytes.fromByteArrayUnsafe(encoded));
+    }
+
+    public static List<String> decode(AttributeValue value) {
+        if (value.hasL()) {
+            return value.l().stream().map(AttributeValue::s).toList();
+        }
+        if (value.b() == null) {
+            throw new IllegalArgumentException("RecentLogs is neither a list nor binary");
+        }
+        var bytes = value.b().asByteArrayUnsafe();
+        if (bytes.length == 0) {
+            throw new IllegalArgumentException("RecentLogs is empty");
+        }
+        var payload = Arrays.copyOfRange(bytes, 1, bytes.length);
+        var text = switch (bytes[0]) {
+            case FORMAT_PLAIN -> payload;
+            case FORMAT_DEFLATE -> inflate(payload);
+            default -> throw new IllegalArgumentException("Unknown RecentLogs format " + bytes[0]);
+        };
+        if (text.length == 0) {
+            return List.of();
+        }
+        var lines = new String(text, StandardCharsets.UTF_8).split("\n", -1);
+        return List.of(lines).subList(0, lines.length - 1);
+    }
+
+    private static byte[] prefixed(byte format, byte[] payload) {
+        var encoded = new byte[payload.length + 1];
+        encoded[0] = format;
+        System.arraycopy(payload, 0, encoded, 1, payload.length);
+        return encoded;
+    }
+
+    private static byte[] deflate(byte[] input) {
+        var deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            var output = new ByteArrayOutputStream(input.length / 2 + 16);
+            var buffer = new byte[4096];
+            while (!deflater.finished()) {
+                output.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] input) {
+        var inflater = new Inflater(true);
+        try {
+            // Raw inflate may need one byte past the end of the data.
+            inflater.setInput(Arrays.copyOf(input, input.length + 1));
+            var output = new ByteArrayOutputStream(input.length * 4);
+            var buffer = new byte[4096];
+            while (!inflater.finished()) {
+                var count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated RecentLogs");
+                }
+                output.write(buffer, 0, count);
+            }
+            return output.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt RecentLogs", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package dev.executor.sidecar;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import dev.executor.common.JobStatus;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Local file holding the polling engine's last known state of every job, so a restarted sidecar
+ * only reports genuine changes.
+ *
+ * <p>The file is an append-only log of {@code [int length][byte kind][payload]} records: a
+ * {@link JobStatus} whenever a live job changes state, the ID of a job that reached a terminal
+ * state, and the watch stream's resume token. On load the last record per job wins, and a torn
+ * record at the end is truncated. Once the log holds more than
+ * twice as many records as there are jobs, it is rewritten with one record per job and swapped in
+ * atomically.
+ */
+public class StateCheckpoint implements AutoCloseable {
+
+    private static final int MAGIC = 0x4A53434B; // "JSCK"
+    private static final int HEADER_BYTES = 4;
+    private static final byte KIND_STATUS = 1;
+    private static final byte KIND_RESUME_TOKEN = 2;
+    private static final byte KIND_TERMINAL = 3;
+    private static final int MIN_RECORDS_BEFORE_COMPACTION = 1000;
+
+    public record State(Map<String, JobStatus> statuses, Set<String> terminalJobIds, String resumeToken) {}
+
+    private final Path path;
+    private final State restored;
+    private FileChannel channel;
+    private int records;
+
+    private StateCheckpoint(Path path, FileChannel channel, State restored, int records) {
+        this.path = path;
+        this.channel = channel;
+        this.restored = restored;
+        this.records = records;
+    }
+
+    /** Opens the checkpoint at {@code path}, creating it if needed, and replays what it holds. */
+    public static StateCheckpoint open(Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        var channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() < HEADER_BYTES) {
+                channel.truncate(0);
+                writeFully(channel, ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).flip());
+                return new StateCheckpoint(path, channel, new State(Map.of(), Set.of(), ""), 0);
+            }
+            var statuses = new HashMap<String, JobStatus>();
+            var terminalJobIds = new HashSet<String>();
+            var resumeToken = new String[] {""};
+            var records = replay(channel, statuses, terminalJobIds, resumeToken);
+            return new StateCheckpoint(path, channel, new State(statuses, terminalJobIds, resumeToken[0]), records);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** The state the file held when it was opened. */
+    public State restored() {
+        return restored;
+    }
+
+    public synchronized void recordStatus(JobStatus status) throws IOException {
+        append(KIND_STATUS, status.toByteArray());
+    }
+
+    public synchronized void recordTerminal(String jobId) throws IOException {
+        append(KIND_TERMINAL, jobId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public synchronized void recordResumeToken(String resumeToken) throws IOException {
+        append(KIND_RESUME_TOKEN, resumeToken.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Whether the log has grown enough past {@code liveJobs} that {@link #compact} is worth it. */
+    public synchronized boolean needsCompaction(int liveJobs) {
+        return records > Math.max(MIN_RECORDS_BEFORE_COMPACTION, 2L * liveJobs);
+    }
+
+    /**
+     * Compacts the log if {@link #needsCompaction} says so, taking the state to write from
+     * {@code snapshot}. The snapshot is taken while holding the lock that appends take, so every
+     * record appended before it is reflected in it and every later one lands after the rewrite.
+     */
+    public synchronized boolean compactIfNeeded(int liveJobs, Supplier<State> snapshot) throws IOException {
+        if (!needsCompaction(liveJobs)) {
+            return false;
+        }
+        var state = snapshot.get();
+        compact(state.statuses().values(), state.terminalJobIds(), state.resumeToken());
+        return true;
+    }
+
+    /** Replaces the log with one record per job plus the resume token. */
+    public synchronized void compact(Collection<JobStatus> statuses, Collection<String> terminalJobIds,
+            String resumeToken) throws IOException {
+        var temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (var out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(out, ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).flip());
+            for (var status : statuses) {
+                writeFully(out, record(KIND_STATUS, status.toByteArray()));
+            }
+            for (var jobId : terminalJobIds) {
+                writeFully(out, record(KIND_TERMINAL, jobId.getBytes(StandardCharsets.UTF_8)));
+            }
+            if (!resumeToken.isEmpty()) {
+                writeFully(out, record(KIND_RESUME_TOKEN, resumeToken.getBytes(StandardCharsets.UTF_8)));
+            }
+            out.force(true);
+        }
+        channel.close();
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        records = statuses.size() + terminalJobIds.size() + (resumeToken.isEmpty() ? 0 : 1);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.force(false);
+        channel.close();
+    }
+
+    private void append(byte kind, byte[] payload) throws IOException {
+        writeFully(channel, record(kind, payload));
+        records++;
+    }
+
+    private static ByteBuffer record(byte kind, byte[] payload) {
+        return ByteBuffer.allocate(4 + 1 + payload.length)
+                .putInt(1 + payload.length)
+                .put(kind)
+                .put(payload)
+                .flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /** Replays the log into the given state, truncates a torn tail and returns the record count. */
+    private static int replay(FileChannel channel, Map<String, JobStatus> statuses, Set<String> terminalJobIds,
+            String[] resumeToken) throws IOException {
+        var size = channel.size();
+        var header = ByteBuffer.allocate(HEADER_BYTES);
+        channel.read(header, 0);
+        if (header.flip().getInt() != MAGIC) {
+            throw new IOException("Not a sidecar state checkpoint");
+        }
+
+        var offset = (long) HEADER_BYTES;
+        var records = 0;
+        var lengthBuffer = ByteBuffer.allocate(4);
+        while (offset + 4 <= size) {
+            lengthBuffer.clear();
+            channel.read(lengthBuffer, offset);
+            var length = lengthBuffer.flip().getInt();
+            if (length < 1 || offset + 4 + length > size) {
+                break;
+            }
+            var body = ByteBuffer.allocate(length);
+            while (body.hasRemaining()) {
+                channel.read(body, offset + 4 + body.position());
+            }
+            body.flip();
+            var kind = body.get();
+            try {
+                if (kind == KIND_STATUS) {
+                    var status = JobStatus.parseFrom(body);
+                    statuses.put(status.getJobId(), status);
+                } else if (kind == KIND_TERMINAL) {
+                    var jobId = StandardCharsets.UTF_8.decode(body).toString();
+                    statuses.remove(jobId);
+                    terminalJobIds.add(jobId);
+                } else if (kind == KIND_RESUME_TOKEN) {
+                    resumeToken[0] = StandardCharsets.UTF_8.decode(body).toString();
+                }
+            } catch (InvalidProtocolBufferException e) {
+                break;
+            }
+            offset += 4 + length;
+            records++;
+        }
+        if (offset < size) {
+            channel.truncate(offset);
+        }
+        channel.position(offset);
+        return records;
+    }
+}
@@ -0,0 +1,170 @@
+package dev.executor.sidecar;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * IDs of jobs known to be terminal, stored as 128-bit UUIDs in an open-addressing table.
+ *
+ * <p>Lookups parse the ID in place, so filtering a listing allocates nothing. IDs that are not UUIDs
+ * fall back to a plain set. Entries are evicted mark-and-sweep: {@link #mark} every ID in a complete
+ * server listing, then {@link #sweep} drops the ones the server no longer reports. Newly added IDs
+ * start out marked so they survive the sweep of a listing taken before they were added.
+ */
+final class TerminalJobSet {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final byte EMPTY = 0;
+    private static final byte PRESENT = 1;
+    private static final byte MARKED = 2;
+
+    private long[] high = new long[INITIAL_CAPACITY];
+    private long[] low = new long[INITIAL_CAPACITY];
+    private byte[] slots = new byte[INITIAL_CAPACITY];
+    private int size;
+    private final Set<String> others = new HashSet<>();
+    private final Set<String> markedOthers = new HashSet<>();
+
+    synchronized boolean add(String jobId) {
+        if (!isUuid(jobId)) {
+            markedOthers.add(jobId);
+            return others.add(jobId);
+        }
+        var high = high(jobId);
+        var low = low(jobId);
+        var slot = find(high, low);
+        if (slots[slot] != EMPTY) {
+            slots[slot] = MARKED;
+            return false;
+        }
+        insert(high, low, MARKED);
+        return true;
+    }
+
+    synchronized boolean contains(String jobId) {
+        if (!isUuid(jobId)) {
+            return others.contains(jobId);
+        }
+        return slots[find(high(jobId), low(jobId))] != EMPTY;
+    }
+
+    /** Marks {@code jobId} as still reported by the server; returns whether it is in the set. */
+    synchronized boolean mark(String jobId) {
+        if (!isUuid(jobId)) {
+            if (!others.contains(jobId)) return false;
+            markedOthers.add(jobId);
+            return true;
+        }
+        var slot = find(high(jobId), low(jobId));
+        if (slots[slot] == EMPTY) return false;
+        slots[slot] = MARKED;
+        return true;
+    }
+
+    /** Removes every ID not marked since the last sweep and clears the marks; returns how many went. */
+    synchronized int sweep() {
+        var before = size + others.size();
+        others.retainAll(markedOthers);
+        markedOthers.clear();
+
+        var survivors = 0;
+        for (var slot : slots) {
+            if (slot == MARKED) survivors++;
+        }
+        if (survivors == size) {
+            for (int i = 0; i < slots.length; i++) {
+                if (slots[i] == MARKED) slots[i] = PRESENT;
+            }
+        } else {
+            // Shrink too, so a burst of jobs does not pin a large table once the server forgets them.
+            var capacity = Math.max(INITIAL_CAPACITY, Integer.highestOneBit(Math.max(1, survivors * 4 - 1)) << 1);
+            rehash(Math.min(capacity, slots.length), true);
+        }
+        return before - size - others.size();
+    }
+
+    synchronized int size() {
+        return size + others.size();
+    }
+
+    synchronized List<String> toList() {
+        var ids = new ArrayList<String>(size());
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] != EMPTY) {
+                ids.add(new UUID(high[i], low[i]).toString());
+            }
+        }
+        ids.addAll(others);
+        return ids;
+    }
+
+    private int find(long high, long low) {
+        var mask = slots.length - 1;
+        var slot = hash(high, low) & mask;
+        while (slots[slot] != EMPTY && (this.high[slot] != high || this.low[slot] != low)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void insert(long high, long low, byte state) {
+        if ((size + 1) * 2 > slots.length) {
+            rehash(slots.length * 2, false);
+        }
+        var slot = find(high, low);
+        this.high[slot] = high;
+        this.low[slot] = low;
+        slots[slot] = state;
+        size++;
+    }
+
+    /** Rebuilds the table at {@code capacity}; when sweeping, only marked entries are kept, unmarked. */
+    private void rehash(int capacity, boolean sweeping) {
+        var oldHigh = high;
+        var oldLow = low;
+        var oldSlots = slots;
+        high = new long[capacity];
+        low = new long[capacity];
+        slots = new byte[capacity];
+        size = 0;
+        for (int i = 0; i < oldSlots.length; i++) {
+            if (oldSlots[i] == MARKED || (!sweeping && oldSlots[i] == PRESENT)) {
+                insert(oldHigh[i], oldLow[i], sweeping ? PRESENT : oldSlots[i]);
+            }
+        }
+    }
+
+    private static int hash(long high, long low) {
+        var h = (high ^ Long.rotateLeft(low, 32)) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /** Whether {@code id} is a UUID in the lowercase form {@link UUID#toString} produces. */
+    private static boolean isUuid(String id) {
+        if (id.length() != 36) return false;
+        for (int i = 0; i < 36; i++) {
+            var c = id.charAt(i);
+            var dash = i == 8 || i == 13 || i == 18 || i == 23;
+            if (dash ? c != '-' : !((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) return false;
+        }
+        return true;
+    }
+
+    private static long high(String uuid) {
+        return hex(uuid, 14, 18, hex(uuid, 9, 13, hex(uuid, 0, 8, 0)));
+    }
+
+    private static long low(String uuid) {
+        return hex(uuid, 24, 36, hex(uuid, 19, 23, 0));
+    }
+
+    private static long hex(String uuid, int from, int to, long value) {
+        for (int i = from; i < to; i++) {
+            value = (value << 4) | Character.digit(uuid.charAt(i), 16);
+        }
+        return value;
+    }
+}
@@ -5,14 +5,43 @@ import static org.junit.jupiter.api.Assertions.*;
 import dev.executor.common.CompletionDetails;
 import dev.executor.common.FailureDetails;
 import dev.executor.common.JobStatus;
+import dev.executor.common.PendingDetails;
 import dev.executor.common.RunningDetails;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
 
 class DynamoDbStatePersisterTest {
 
     private final DynamoDbStatePersister persister = new DynamoDbStatePersister(null, "i-abc123");
 
+    @Test
+    void mapsPendingJob() {
+        var status = JobStatus.newBuilder()
+                .setJobId("job-0")
+                .setPending(PendingDetails.newBuilder().setSubmittedAt("2026-02-16T00:00:00Z"))
+                .build();
+
+        var item = persister.toItem("job-0", status);
+        var pending = item.get("Result").m().get("Pending").m();
+
+        assertEquals("2026-02-16T00:00:00Z", pending.get("SubmittedAt").s());
+    }
+
     @Test
     void mapsRunningJob() {
         var status = JobStatus.newBuilder()
@@ -47,9 +76,18 @@ class DynamoDbStatePersisterTest {
 
         assertEquals("42", completed.get("ExitCode").n());
         assertTrue(completed.get("OomKilled").bool());
-        assertEquals(2, completed.get("RecentLogs").l().size());
-        assertEquals("line 1", completed.get("RecentLogs").l().get(0).s());
-        assertEquals("line 2", completed.get("RecentLogs").l().get(1).s());
+        assertEquals(List.of("line 1", "line 2"), RecentLogsCodec.decode(completed.get("RecentLogs")));
+        assertNull(item.get("TTL"));
+    }
+
+    @Test
+    void setsTtlFromUpdatedAt() {
+        var withTtl = new DynamoDbStatePersister(null, "i-abc123", Duration.ofDays(30));
+
+        var item = withTtl.toItem("job-1", running("job-1", "now").current());
+
+        var updatedAt = Long.parseLong(item.get("UpdatedAt").n());
+        assertEquals(updatedAt + Duration.ofDays(30).toSeconds(), Long.parseLong(item.get("TTL").n()));
     }
 
     @Test
@@ -67,4 +105,165 @@ class DynamoDbStatePersisterTest {
         assertEquals("SYSTEM_ERROR", error.get("Reason").s());
         assertEquals("Container not found", error.get("Message").s());
     }
+
+    private static JobStateChanged running(String jobId, String startedAt) {
+        return new JobStateChanged(jobId, null, JobStatus.newBuilder()
+                .setJobId(jobId)
+                .setRunning(RunningDetails.newBuilder().setStartedAt(startedAt))
+                .build());
+    }
+
+    private static DynamoDbStatePersister writeBehind(InMemoryDynamoDb dynamoDb, Duration flushInterval) {
+        return new DynamoDbStatePersister(dynamoDb, "i-abc123", Duration.ZERO, flushInterval, Duration.ofSeconds(10));
+    }
+
+    @Test
+    void coalescesUpdatesPerJob() {
+        var dynamoDb = new InMemoryDynamoDb();
+        try (var writer = writeBehind(dynamoDb, Duration.ofMinutes(1))) {
+            writer.onJobStateChanged(running("job-1", "first"));
+            writer.onJobStateChanged(running("job-1", "second"));
+            writer.onJobStateChanged(running("job-1", "third"));
+        }
+
+        assertEquals(List.of(1), dynamoDb.batchSizes);
+        var running = dynamoDb.table.get("job-1").get("Result").m().get("Running").m();
+        assertEquals("third", running.get("StartedAt").s());
+    }
+
+    @Test
+    void flushesFullBatchesWithoutWaitingForTheInterval() throws InterruptedException {
+        var dynamoDb = new InMemoryDynamoDb();
+        try (var writer = writeBehind(dynamoDb, Duration.ofMinutes(1))) {
+            for (int i = 0; i < DynamoDbStatePersister.MAX_BATCH_ITEMS * 2; i++) {
+                writer.onJobStateChanged(running("job-" + i, "now"));
+            }
+            for (int i = 0; i < 100 && dynamoDb.table.size() < 50; i++) {
+                Thread.sleep(10);
+            }
+
+            assertEquals(50, dynamoDb.table.size());
+            assertEquals(List.of(25, 25), dynamoDb.batchSizes);
+        }
+    }
+
+    @Test
+    void flushesPartialBatchAfterTheInterval() throws InterruptedException {
+        var dynamoDb = new InMemoryDynamoDb();
+        try (var writer = writeBehind(dynamoDb, Duration.ofMillis(20))) {
+            writer.onJobStateChanged(running("job-1", "now"));
+            for (int i = 0; i < 100 && dynamoDb.table.isEmpty(); i++) {
+                Thread.sleep(10);
+            }
+
+            assertTrue(dynamoDb.table.containsKey("job-1"));
+        }
+    }
+
+    @Test
+    void retriesUnprocessedItemsAndThrottledBatches() {
+        var dynamoDb = new InMemoryDynamoDb();
+        dynamoDb.unprocessedPerBatch.set(10);
+        dynamoDb.throttledBatches.set(1);
+        try (var writer = writeBehind(dynamoDb, Duration.ofMillis(1))) {
+            for (int i = 0; i < 20; i++) {
+                writer.onJobStateChanged(running("job-" + i, "now"));
+            }
+        }
+
+        assertEquals(20, dynamoDb.table.size());
+        assertTrue(dynamoDb.batchSizes.size() >= 2);
+    }
+
+    @Test
+    void acknowledgesChangesOnceWritten() {
+        var dynamoDb = new InMemoryDynamoDb();
+        dynamoDb.unprocessedPerBatch.set(1);
+        var acknowledged = new AtomicInteger();
+        try (var writer = writeBehind(dynamoDb, Duration.ofMinutes(1))) {
+            writer.onJobStateChanged(running("job-1", "first"), acknowledged::incrementAndGet);
+            writer.onJobStateChanged(running("job-1", "second"), acknowledged::incrementAndGet);
+            writer.onJobStateChanged(running("job-2", "now"), acknowledged::incrementAndGet);
+            assertEquals(0, acknowledged.get(), "nothing is written before the flush");
+        }
+
+        assertEquals(2, dynamoDb.table.size());
+        assertEquals(3, acknowledged.get(), "the coalesced change is acknowledged with the one that replaced it");
+    }
+
+    @Test
+    void dropsOnlyTheItemsTheTableRejects() {
+        var dynamoDb = new InMemoryDynamoDb();
+        dynamoDb.rejectedJobId = "job-bad";
+        var acknowledged = new AtomicInteger();
+        try (var writer = writeBehind(dynamoDb, Duration.ofMinutes(1))) {
+            for (var jobId : List.of("job-1", "job-bad", "job-2")) {
+                writer.onJobStateChanged(running(jobId, "now"), acknowledged::incrementAndGet);
+            }
+        }
+
+        assertEquals(Set.of("job-1", "job-2"), dynamoDb.table.keySet());
+        assertEquals(3, acknowledged.get(), "a rejected item will not succeed on a later attempt either");
+    }
+
+    /** Stand-in for the DynamoDB table that can leave items unprocessed or throttle whole batches. */
+    private static class InMemoryDynamoDb implements DynamoDbClient {
+        final Map<String, Map<String, AttributeValue>> table = new ConcurrentHashMap<>();
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        final AtomicInteger unprocessedPerBatch = new AtomicInteger();
+        final AtomicInteger throttledBatches = new AtomicInteger();
+        volatile String rejectedJobId;
+
+        @Override
+        public BatchWriteItemResponse batchWriteItem(BatchWriteItemRequest request) {
+            var writes = request.requestItems().get("RemoteExecutor-JobState");
+            assertTrue(writes.size() <= DynamoDbStatePersister.MAX_BATCH_ITEMS);
+            if (throttledBatches.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                throw ProvisionedThroughputExceededException.builder().message("throttled").statusCode(400).build();
+            }
+            if (writes.stream().anyMatch(write -> isRejected(write.putRequest().item()))) {
+                throw validationError();
+            }
+            batchSizes.add(writes.size());
+
+            var skip = Math.min(unprocessedPerBatch.getAndSet(0), writes.size());
+            var unprocessed = List.copyOf(writes.subList(0, skip));
+            for (WriteRequest write : writes.subList(skip, writes.size())) {
+                var item = write.putRequest().item();
+                table.put(item.get("JobId").s(), item);
+            }
+            return BatchWriteItemResponse.builder()
+                    .unprocessedItems(unprocessed.isEmpty() ? Map.of() : Map.of("RemoteExecutor-JobState", unprocessed))
+                    .build();
+        }
+
+        @Override
+        public PutItemResponse putItem(PutItemRequest request) {
+            if (isRejected(request.item())) {
+                throw validationError();
+            }
+            table.put(request.item().get("JobId").s(), request.item());
+            return PutItemResponse.builder().build();
+        }
+
+        private boolean isRejected(Map<String, AttributeValue> item) {
+            return item.get("JobId").s().equals(rejectedJobId);
+        }
+
+        private static DynamoDbException validationError() {
+            return (DynamoDbException) DynamoDbException.builder()
+                    .message("Item size has exceeded the maximum allowed size")
+                    .statusCode(400)
+                    .build();
+        }
+
+        @Override
+        public String serviceName() {
+            return "dynamodb";
+        }
+
+        @Override
+        public void close() {
+        }
+    }
 }
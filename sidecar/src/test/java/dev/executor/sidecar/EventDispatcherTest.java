@@ -0,0 +1,196 @@
+package dev.executor.sidecar;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.executor.common.CompletionDetails;
+import dev.executor.common.JobStatus;
+import dev.executor.common.PendingDetails;
+import dev.executor.common.RunningDetails;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class EventDispatcherTest {
+
+    private static final JobStatus PENDING = JobStatus.newBuilder().setPending(PendingDetails.getDefaultInstance()).build();
+    private static final JobStatus RUNNING = JobStatus.newBuilder().setRunning(RunningDetails.getDefaultInstance()).build();
+    private static final JobStatus COMPLETED = JobStatus.newBuilder().setCompleted(CompletionDetails.getDefaultInstance()).build();
+
+    private static JobStateChanged change(String jobId, JobStatus previous, JobStatus current) {
+        return new JobStateChanged(jobId, previous, current);
+    }
+
+    /** A listener that holds its worker until released, so events pile up in its queue. */
+    private static class GatedListener implements JobEventListener {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch gate = new CountDownLatch(1);
+        final List<JobStateChanged> received = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onJobStateChanged(JobStateChanged event) {
+            entered.countDown();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.add(event);
+        }
+    }
+
+    @Test
+    void slowListenerDoesNotHoldUpOthersAndReportsLag() throws InterruptedException {
+        var dispatcher = new EventDispatcher(16, EventDispatcher.Overflow.BLOCK);
+        var slow = new GatedListener();
+        var fast = new CopyOnWriteArrayList<JobStateChanged>();
+        dispatcher.register(slow);
+        dispatcher.register(fast::add);
+
+        dispatcher.dispatch(change("job-1", null, PENDING));
+        dispatcher.dispatch(change("job-1", PENDING, RUNNING));
+        dispatcher.dispatch(change("job-1", RUNNING, COMPLETED));
+        assertTrue(slow.entered.await(5, TimeUnit.SECONDS));
+        Thread.sleep(20);
+
+        var stats = dispatcher.stats().get(0);
+        assertEquals("GatedListener", stats.listener());
+        assertEquals(2, stats.depth());
+        assertTrue(stats.lag().compareTo(Duration.ofMillis(10)) >= 0);
+
+        slow.gate.countDown();
+        assertTrue(dispatcher.awaitIdle(Duration.ofSeconds(5)));
+        assertEquals(3, fast.size());
+        assertEquals(List.of(PENDING, RUNNING, COMPLETED),
+                slow.received.stream().map(JobStateChanged::current).toList(), "per-job order is kept");
+        assertEquals(0, dispatcher.stats().get(0).depth());
+        dispatcher.close();
+    }
+
+    @Test
+    void dropOldestDiscardsTheOldestQueuedEvent() throws InterruptedException {
+        var dispatcher = new EventDispatcher(2, EventDispatcher.Overflow.DROP_OLDEST);
+        var listener = new GatedListener();
+        dispatcher.register(listener);
+
+        dispatcher.dispatch(change("job-0", null, PENDING));
+        assertTrue(listener.entered.await(5, TimeUnit.SECONDS));
+        dispatcher.dispatch(change("job-1", null, PENDING));
+        dispatcher.dispatch(change("job-2", null, PENDING));
+        dispatcher.dispatch(change("job-3", null, PENDING));
+
+        assertEquals(1, dispatcher.stats().get(0).dropped());
+        listener.gate.countDown();
+        assertTrue(dispatcher.awaitIdle(Duration.ofSeconds(5)));
+        assertEquals(List.of("job-0", "job-2", "job-3"),
+                listener.received.stream().map(JobStateChanged::jobId).toList());
+        dispatcher.close();
+    }
+
+    @Test
+    void reportsListenersThatDroppedEventsSinceTheLastReport() throws InterruptedException {
+        var dispatcher = new EventDispatcher(1, EventDispatcher.Overflow.DROP_OLDEST);
+        var listener = new GatedListener();
+        dispatcher.register(listener);
+        dispatcher.register(event -> {});
+        assertEquals(List.of(), dispatcher.reportStats());
+
+        dispatcher.dispatch(change("job-0", null, PENDING));
+        assertTrue(listener.entered.await(5, TimeUnit.SECONDS));
+        dispatcher.dispatch(change("job-1", null, PENDING));
+        dispatcher.dispatch(change("job-2", null, PENDING));
+
+        var behind = dispatcher.reportStats();
+        assertEquals(1, behind.size());
+        assertEquals("GatedListener", behind.get(0).listener());
+        assertEquals(1, behind.get(0).dropped());
+        assertEquals(List.of(), dispatcher.reportStats(), "each drop is reported once");
+        listener.gate.countDown();
+        dispatcher.close();
+    }
+
+    @Test
+    void coalesceMergesIntoTheJobsQueuedEvent() throws InterruptedException {
+        var dispatcher = new EventDispatcher(2, EventDispatcher.Overflow.COALESCE);
+        var listener = new GatedListener();
+        dispatcher.register(listener);
+
+        dispatcher.dispatch(change("job-0", null, PENDING));
+        assertTrue(listener.entered.await(5, TimeUnit.SECONDS));
+        dispatcher.dispatch(change("job-1", null, PENDING));
+        dispatcher.dispatch(change("job-2", null, PENDING));
+        dispatcher.dispatch(change("job-1", PENDING, RUNNING));
+        dispatcher.dispatch(change("job-1", RUNNING, COMPLETED));
+
+        assertEquals(2, dispatcher.stats().get(0).coalesced());
+        listener.gate.countDown();
+        assertTrue(dispatcher.awaitIdle(Duration.ofSeconds(5)));
+        var merged = listener.received.get(1);
+        assertEquals("job-1", merged.jobId());
+        assertNull(merged.previous());
+        assertEquals(COMPLETED, merged.current());
+        assertEquals("job-2", listener.received.get(2).jobId());
+        dispatcher.close();
+    }
+
+    @Test
+    void acknowledgesOnceEveryListenerHas() throws InterruptedException {
+        var dispatcher = new EventDispatcher(16, EventDispatcher.Overflow.COALESCE);
+        var held = new CopyOnWriteArrayList<Runnable>();
+        dispatcher.register(new JobEventListener() {
+            @Override
+            public void onJobStateChanged(JobStateChanged event) {
+            }
+
+            @Override
+            public void onJobStateChanged(JobStateChanged event, Runnable acknowledge) {
+                held.add(acknowledge);
+            }
+        });
+        dispatcher.register(event -> {});
+        var acknowledged = new AtomicInteger();
+
+        dispatcher.dispatch(change("job-1", null, RUNNING), acknowledged::incrementAndGet);
+        assertTrue(dispatcher.awaitIdle(Duration.ofSeconds(5)));
+        assertEquals(0, acknowledged.get(), "one listener has not acknowledged yet");
+
+        held.forEach(Runnable::run);
+        assertEquals(1, acknowledged.get());
+        dispatcher.close();
+    }
+
+    @Test
+    void coalescedEventsAreAcknowledgedTogether() throws InterruptedException {
+        var dispatcher = new EventDispatcher(1, EventDispatcher.Overflow.COALESCE);
+        var listener = new GatedListener();
+        dispatcher.register(listener);
+        var acknowledged = new CopyOnWriteArrayList<String>();
+
+        dispatcher.dispatch(change("job-0", null, PENDING), () -> acknowledged.add("job-0"));
+        assertTrue(listener.entered.await(5, TimeUnit.SECONDS));
+        dispatcher.dispatch(change("job-1", null, PENDING), () -> acknowledged.add("job-1 pending"));
+        dispatcher.dispatch(change("job-1", PENDING, RUNNING), () -> acknowledged.add("job-1 running"));
+
+        listener.gate.countDown();
+        assertTrue(dispatcher.awaitIdle(Duration.ofSeconds(5)));
+        assertEquals(List.of("job-0", "job-1 pending", "job-1 running"), acknowledged);
+        dispatcher.close();
+    }
+
+    @Test
+    void closeDeliversWhatIsQueued() {
+        var dispatcher = new EventDispatcher();
+        var received = new CopyOnWriteArrayList<JobStateChanged>();
+        dispatcher.register(received::add);
+
+        for (int i = 0; i < 100; i++) {
+            dispatcher.dispatch(change("job-" + i, null, PENDING));
+        }
+        dispatcher.close();
+
+        assertEquals(100, received.size());
+    }
+}
@@ -0,0 +1,136 @@
+package dev.executor.sidecar;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.Test;
+
+class PollScheduleTest {
+
+    private final MutableClock clock = new MutableClock();
+    private final PollSchedule schedule = new PollSchedule(clock, new Random(42));
+
+    @Test
+    void newJobsAreDueImmediatelyAndOnlyOnce() {
+        schedule.add("job-1");
+        schedule.add("job-1");
+
+        assertEquals(List.of("job-1"), schedule.takeDue());
+        assertEquals(List.of(), schedule.takeDue());
+        assertEquals(1, schedule.size());
+    }
+
+    @Test
+    void youngJobsArePolledSoonAndOldJobsBackOff() {
+        schedule.add("job-1");
+        schedule.takeDue();
+        schedule.reschedule("job-1");
+
+        var firstWait = schedule.untilNextDue(Duration.ofHours(1));
+        assertTrue(firstWait.compareTo(PollSchedule.MIN_INTERVAL.multipliedBy(2)) < 0, "got " + firstWait);
+
+        clock.advance(Duration.ofHours(2));
+        schedule.takeDue();
+        schedule.reschedule("job-1");
+
+        var laterWait = schedule.untilNextDue(Duration.ofHours(1));
+        assertTrue(laterWait.compareTo(PollSchedule.MAX_INTERVAL.multipliedBy(12).dividedBy(10)) <= 0, "got " + laterWait);
+        assertTrue(laterWait.compareTo(PollSchedule.MAX_INTERVAL.multipliedBy(8).dividedBy(10)) >= 0, "got " + laterWait);
+    }
+
+    @Test
+    void jobsKnownFromBeforeBackOffByTheirFullAge() {
+        schedule.add("job-1", clock.instant().minus(Duration.ofHours(2)));
+
+        assertEquals(List.of("job-1"), schedule.takeDue(), "still polled right away");
+        schedule.reschedule("job-1");
+
+        var wait = schedule.untilNextDue(Duration.ofHours(1));
+        assertTrue(wait.compareTo(PollSchedule.MAX_INTERVAL.multipliedBy(8).dividedBy(10)) >= 0, "got " + wait);
+    }
+
+    @Test
+    void jitterSpreadsJobsDiscoveredTogether() {
+        var intervals = new HashSet<Duration>();
+        for (int i = 0; i < 20; i++) {
+            intervals.add(schedule.interval(Duration.ofMinutes(10).toMillis()));
+        }
+
+        assertTrue(intervals.size() > 1);
+    }
+
+    @Test
+    void defaultJitterCanBeDrawnFromAnyThread() throws Exception {
+        var shared = new PollSchedule(clock);
+        var intervals = ConcurrentHashMap.<Duration>newKeySet();
+        var threads = new ArrayList<Thread>();
+        for (int i = 0; i < 4; i++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int j = 0; j < 20; j++) {
+                    intervals.add(shared.interval(Duration.ofMinutes(10).toMillis()));
+                }
+            }));
+        }
+        for (var thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(intervals.size() > 1);
+        for (var interval : intervals) {
+            assertTrue(interval.compareTo(PollSchedule.MAX_INTERVAL.multipliedBy(12).dividedBy(10)) <= 0, "got " + interval);
+            assertTrue(interval.compareTo(PollSchedule.MAX_INTERVAL.multipliedBy(8).dividedBy(10)) >= 0, "got " + interval);
+        }
+    }
+
+    @Test
+    void removedJobsAreNeverDue() {
+        schedule.add("job-1");
+        schedule.add("job-2");
+        schedule.remove("job-1");
+
+        assertEquals(List.of("job-2"), schedule.takeDue());
+        assertEquals(Duration.ofSeconds(5), schedule.untilNextDue(Duration.ofSeconds(5)));
+    }
+
+    @Test
+    void concurrencyLimitBacksOffOnSlowFetchesAndRecoversOnFastOnes() throws InterruptedException {
+        var limit = new AdaptiveConcurrencyLimit(10, 1, 64);
+        limit.acquire();
+        limit.release(1_000_000, true);
+
+        limit.acquire();
+        limit.release(50_000_000, true);
+        assertEquals(7, limit.limit());
+
+        limit.acquire();
+        limit.release(0, false);
+        assertEquals(4, limit.limit());
+
+        for (int i = 0; i < 100; i++) {
+            limit.acquire();
+            limit.release(1_000_000, true);
+        }
+        assertTrue(limit.limit() > 10);
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2026-02-16T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override public Instant instant() { return now; }
+        @Override public ZoneId getZone() { return ZoneOffset.UTC; }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+    }
+}
@@ -0,0 +1,284 @@
+package dev.executor.sidecar;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.executor.common.CompletionDetails;
+import dev.executor.common.JobEvent;
+import dev.executor.common.JobIdsRequest;
+import dev.executor.common.JobStatus;
+import dev.executor.common.JobStatusesResponse;
+import dev.executor.common.ListJobsRequest;
+import dev.executor.common.ListJobsResponse;
+import dev.executor.common.RunningDetails;
+import dev.executor.common.ShellServiceGrpc;
+import dev.executor.common.WatchJobEventsRequest;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PollingEngineTest {
+
+    private final FakeShellService service = new FakeShellService();
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        var name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name).directExecutor().addService(service).build().start();
+        channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.shutdownNow();
+        server.shutdownNow();
+    }
+
+    private static JobStatus running(String jobId) {
+        return JobStatus.newBuilder()
+                .setJobId(jobId)
+                .setRunning(RunningDetails.newBuilder().setStartedAt("2026-02-16T00:00:00Z"))
+                .build();
+    }
+
+    private static JobStatus completed(String jobId) {
+        return JobStatus.newBuilder()
+                .setJobId(jobId)
+                .setCompleted(CompletionDetails.newBuilder().setExitCode(0))
+                .build();
+    }
+
+    private static JobEvent event(String token, JobStatus status) {
+        return JobEvent.newBuilder().setResumeToken(token).setStatus(status).build();
+    }
+
+    @Test
+    void watchModeSyncsThenFollowsEvents() throws InterruptedException {
+        service.jobs = List.of(running("job-1"));
+        service.events = List.of(event("e:1", completed("job-1")));
+
+        var engine = new PollingEngine(ShellServiceGrpc.newBlockingStub(channel), PollingEngine.Mode.WATCH);
+        var received = new CopyOnWriteArrayList<JobStateChanged>();
+        var completedLatch = new CountDownLatch(1);
+        engine.addListener(event -> {
+            received.add(event);
+            if (event.current().hasCompleted()) completedLatch.countDown();
+        });
+
+        engine.start();
+        assertTrue(completedLatch.await(5, TimeUnit.SECONDS));
+        engine.shutdown();
+
+        assertEquals(2, received.size());
+        assertTrue(received.get(0).current().hasRunning());
+        assertTrue(received.get(1).current().hasCompleted());
+        assertEquals(1, service.statusCalls.get());
+    }
+
+    @Test
+    void resyncsWithFullPollWhenResumeTokenIsRejected() throws InterruptedException {
+        service.jobs = List.of(running("job-1"));
+        service.rejectFirstWatch = true;
+        service.events = List.of();
+
+        var engine = new PollingEngine(ShellServiceGrpc.newBlockingStub(channel), PollingEngine.Mode.WATCH);
+        var completedLatch = new CountDownLatch(1);
+        engine.addListener(event -> {
+            if (event.current().hasCompleted()) completedLatch.countDown();
+        });
+
+        engine.start();
+        assertTrue(service.watchLatch.await(5, TimeUnit.SECONDS));
+        service.jobs = List.of(completed("job-1"));
+        service.events = List.of(event("e:2", completed("job-1")));
+        service.rejectFirstWatch = false;
+
+        assertTrue(completedLatch.await(10, TimeUnit.SECONDS));
+        engine.shutdown();
+    }
+
+    @Test
+    void ignoresReplayedEventOlderThanTerminalState() throws InterruptedException {
+        var engine = new PollingEngine(ShellServiceGrpc.newBlockingStub(channel), PollingEngine.Mode.WATCH);
+        var received = new CopyOnWriteArrayList<JobStateChanged>();
+        engine.addListener(received::add);
+
+        engine.apply(event("e:1", completed("job-1")));
+        engine.apply(event("e:2", running("job-1")));
+
+        assertTrue(engine.awaitListeners(Duration.ofSeconds(5)));
+        assertEquals(1, received.size());
+        assertTrue(engine.isKnownTerminal("job-1"));
+        assertFalse(engine.getCache().containsKey("job-1"), "terminal jobs keep no full status");
+    }
+
+    @Test
+    void watchModeForgetsTerminalJobsTheServerNoLongerLists() {
+        var engine = new PollingEngine(ShellServiceGrpc.newBlockingStub(channel), PollingEngine.Mode.WATCH);
+        engine.apply(event("e:1", completed("job-1")));
+        engine.apply(event("e:2", completed("job-2")));
+
+        service.jobs = List.of(completed("job-2"));
+        // Jobs added since the previous listing survive one sweep.
+        engine.sweepTerminalJobs();
+        assertTrue(engine.isKnownTerminal("job-1"));
+        engine.sweepTerminalJobs();
+
+        assertFalse(engine.isKnownTerminal("job-1"));
+        assertTrue(engine.isKnownTerminal("job-2"));
+        assertEquals(0, service.statusCalls.get(), "the sweep only lists jobs");
+    }
+
+    @Test
+    void pollModeFetchesNewJobsRightAwayAndStopsAtTerminalState() {
+        service.jobs = List.of(running("job-1"));
+        var engine = new PollingEngine(ShellServiceGrpc.newBlockingStub(channel), PollingEngine.Mode.POLL);
+
+        engine.tick();
+        assertTrue(engine.getCache().get("job-1").hasRunning());
+        assertEquals(1, engine.getSchedule().size());
+        assertEquals(1, service.statusCalls.get());
+
+        engine.tick();
+        assertEquals(1, service.statusCalls.get(), "job-1 is not due again yet");
+
+        service.jobs = List.of(completed("job-1"));
+        engine.poll();
+        assertEquals(0, engine.getSchedule().size(), "terminal jobs leave the schedule");
+        assertTrue(engine.isKnownTerminal("job-1"));
+
+        service.jobs = List.of();
+        engine.poll();
+        assertFalse(engine.isKnownTerminal("job-1"), "jobs the server no longer lists are forgotten");
+    }
+
+    @Test
+    void restartFromCheckpointOnlyReportsChangesSinceShutdown(@TempDir Path dir)
+            throws IOException, InterruptedException {
+        var file = dir.resolve("state.log");
+        service.jobs = List.of(running("job-1"), completed("job-2"));
+        try (var checkpoint = StateCheckpoint.open(file)) {
+            new PollingEngine(ShellServiceGrpc.newBlockingStub(channel), PollingEngine.Mode.POLL, checkpoint).poll();
+        }
+
+        service.jobs = List.of(completed("job-1"), completed("job-2"));
+        service.statusCalls.set(0);
+        try (var checkpoint = StateCheckpoint.open(file)) {
+            var engine = new PollingEngine(ShellServiceGrpc.newBlockingStub(channel), PollingEngine.Mode.POLL, checkpoint);
+            var received = new CopyOnWriteArrayList<JobStateChanged>();
+            engine.addListener(received::add);
+
+            engine.poll();
+
+            assertTrue(engine.awaitListeners(Duration.ofSeconds(5)));
+            assertEquals(1, received.size());
+            assertEquals("job-1", received.get(0).jobId());
+            assertTrue(received.get(0).previous().hasRunning());
+            assertEquals(1, service.statusCalls.get(), "job-2 was already terminal and is not fetched");
+        }
+    }
+
+    @Test
+    void restoredJobsKeepTheirAgeInThePollSchedule(@TempDir Path dir) throws IOException {
+        try (var checkpoint = StateCheckpoint.open(dir.resolve("state.log"))) {
+            checkpoint.recordStatus(running("job-1"));
+        }
+        service.jobs = List.of(running("job-1"));
+
+        try (var checkpoint = StateCheckpoint.open(dir.resolve("state.log"))) {
+            var engine = new PollingEngine(ShellServiceGrpc.newBlockingStub(channel), PollingEngine.Mode.POLL, checkpoint);
+            engine.tick();
+
+            assertEquals(1, service.statusCalls.get());
+            var wait = engine.getSchedule().untilNextDue(Duration.ofHours(1));
+            assertTrue(wait.compareTo(PollSchedule.MAX_INTERVAL.dividedBy(2)) > 0,
+                    "a job running since before the restart is not polled at the fastest rate, got " + wait);
+        }
+    }
+
+    @Test
+    void checkpointOnlyRecordsChangesListenersAcknowledged(@TempDir Path dir)
+            throws IOException, InterruptedException {
+        var file = dir.resolve("state.log");
+        service.jobs = List.of(running("job-1"), completed("job-2"));
+        var held = new ConcurrentHashMap<String, Runnable>();
+        try (var checkpoint = StateCheckpoint.open(file)) {
+            var engine = new PollingEngine(ShellServiceGrpc.newBlockingStub(channel), PollingEngine.Mode.POLL, checkpoint);
+            engine.addListener(new JobEventListener() {
+                @Override
+                public void onJobStateChanged(JobStateChanged event) {
+                }
+
+                @Override
+                public void onJobStateChanged(JobStateChanged event, Runnable acknowledge) {
+                    held.put(event.jobId(), acknowledge);
+                }
+            });
+
+            engine.poll();
+            assertTrue(engine.awaitListeners(Duration.ofSeconds(5)));
+            held.get("job-1").run();
+        }
+
+        try (var checkpoint = StateCheckpoint.open(file)) {
+            var restored = checkpoint.restored();
+            assertTrue(restored.statuses().get("job-1").hasRunning());
+            assertFalse(restored.terminalJobIds().contains("job-2"), "job-2 was never acknowledged");
+            assertFalse(restored.statuses().containsKey("job-2"));
+        }
+    }
+
+    private static class FakeShellService extends ShellServiceGrpc.ShellServiceImplBase {
+        volatile List<JobStatus> jobs = List.of();
+        volatile List<JobEvent> events = List.of();
+        volatile boolean rejectFirstWatch;
+        final AtomicInteger statusCalls = new AtomicInteger();
+        final CountDownLatch watchLatch = new CountDownLatch(1);
+
+        @Override
+        public void listJobs(ListJobsRequest request, StreamObserver<ListJobsResponse> responseObserver) {
+            responseObserver.onNext(ListJobsResponse.newBuilder()
+                    .addAllJobIds(jobs.stream().map(JobStatus::getJobId).toList())
+                    .build());
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public void getJobStatuses(JobIdsRequest request, StreamObserver<JobStatusesResponse> responseObserver) {
+            statusCalls.incrementAndGet();
+            responseObserver.onNext(JobStatusesResponse.newBuilder()
+                    .addAllStatuses(jobs.stream()
+                            .filter(s -> request.getJobIdsList().contains(s.getJobId()))
+                            .toList())
+                    .build());
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public void watchJobEvents(WatchJobEventsRequest request, StreamObserver<JobEvent> responseObserver) {
+            watchLatch.countDown();
+            if (rejectFirstWatch) {
+                responseObserver.onError(Status.OUT_OF_RANGE.asException());
+                return;
+            }
+            events.forEach(responseObserver::onNext);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package dev.executor.sidecar;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+class RecentLogsCodecTest {
+
+    @Test
+    void roundTripsLines() {
+        var lines = List.of("first", "", "third with ünïcode", "  indented");
+
+        assertEquals(lines, RecentLogsCodec.decode(RecentLogsCodec.encode(lines)));
+        assertEquals(List.of(), RecentLogsCodec.decode(RecentLogsCodec.encode(List.of())));
+    }
+
+    @Test
+    void compressesRepetitiveLogs() {
+        var lines = new ArrayList<String>();
+        var plainBytes = 0;
+        for (int i = 0; i < 50; i++) {
+            var line = "2026-02-16T00:00:" + (i % 60) + "Z INFO worker processed batch " + i;
+            lines.add(line);
+            plainBytes += line.length() + 1;
+        }
+
+        var encoded = RecentLogsCodec.encode(lines);
+
+        assertEquals(RecentLogsCodec.FORMAT_DEFLATE, encoded.b().asByteArray()[0]);
+        assertTrue(encoded.b().asByteArray().length < plainBytes / 2);
+        assertEquals(lines, RecentLogsCodec.decode(encoded));
+    }
+
+    @Test
+    void keepsShortLogsPlain() {
+        var encoded = RecentLogsCodec.encode(List.of("ok"));
+
+        assertEquals(RecentLogsCodec.FORMAT_PLAIN, encoded.b().asByteArray()[0]);
+    }
+
+    @Test
+    void decodesLegacyStringList() {
+        var legacy = AttributeValue.fromL(List.of(AttributeValue.fromS("line 1"), AttributeValue.fromS("line 2")));
+
+        assertEquals(List.of("line 1", "line 2"), RecentLogsCodec.decode(legacy));
+    }
+
+    @Test
+    void rejectsUnknownFormat() {
+        var unknown = AttributeValue.fromB(SdkBytes.fromByteArray(new byte[] {9, 1, 2}));
+
+        assertThrows(IllegalArgumentException.class, () -> RecentLogsCodec.decode(unknown));
+    }
+}
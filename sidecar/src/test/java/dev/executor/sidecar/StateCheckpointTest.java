@@ -0,0 +1,103 @@
+package dev.executor.sidecar;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dev.executor.common.CompletionDetails;
+import dev.executor.common.JobStatus;
+import dev.executor.common.PendingDetails;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class StateCheckpointTest {
+
+    @TempDir
+    Path dir;
+
+    private static JobStatus pending(String jobId) {
+        return JobStatus.newBuilder().setJobId(jobId).setPending(PendingDetails.getDefaultInstance()).build();
+    }
+
+    private static JobStatus completed(String jobId) {
+        return JobStatus.newBuilder()
+                .setJobId(jobId)
+                .setCompleted(CompletionDetails.newBuilder().setExitCode(0))
+                .build();
+    }
+
+    @Test
+    void lastRecordPerJobWinsAfterReopening() throws IOException {
+        var file = dir.resolve("state.log");
+        try (var checkpoint = StateCheckpoint.open(file)) {
+            assertTrue(checkpoint.restored().statuses().isEmpty());
+            checkpoint.recordStatus(pending("job-1"));
+            checkpoint.recordStatus(pending("job-2"));
+            checkpoint.recordStatus(completed("job-1"));
+            checkpoint.recordTerminal("job-2");
+            checkpoint.recordResumeToken("e:7");
+        }
+
+        try (var checkpoint = StateCheckpoint.open(file)) {
+            var restored = checkpoint.restored();
+            assertEquals(completed("job-1"), restored.statuses().get("job-1"));
+            assertFalse(restored.statuses().containsKey("job-2"));
+            assertEquals(Set.of("job-2"), restored.terminalJobIds());
+            assertEquals("e:7", restored.resumeToken());
+        }
+    }
+
+    @Test
+    void tornTailIsTruncated() throws IOException {
+        var file = dir.resolve("state.log");
+        try (var checkpoint = StateCheckpoint.open(file)) {
+            checkpoint.recordStatus(pending("job-1"));
+            checkpoint.recordStatus(completed("job-1"));
+        }
+        var intact = Files.size(file);
+        try (var channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(intact - 3);
+        }
+
+        try (var checkpoint = StateCheckpoint.open(file)) {
+            assertEquals(pending("job-1"), checkpoint.restored().statuses().get("job-1"));
+            checkpoint.recordStatus(completed("job-2"));
+        }
+        try (var checkpoint = StateCheckpoint.open(file)) {
+            assertEquals(2, checkpoint.restored().statuses().size());
+        }
+    }
+
+    @Test
+    void compactionKeepsOneRecordPerJob() throws IOException {
+        var file = dir.resolve("state.log");
+        try (var checkpoint = StateCheckpoint.open(file)) {
+            for (int i = 0; i < 2000; i++) {
+                checkpoint.recordStatus(pending("job-1"));
+            }
+            assertTrue(checkpoint.needsCompaction(1));
+            var before = Files.size(file);
+
+            assertTrue(checkpoint.compactIfNeeded(1,
+                    () -> new StateCheckpoint.State(Map.of("job-1", pending("job-1")), Set.of("job-0"), "e:9")));
+
+            assertFalse(checkpoint.needsCompaction(1));
+            assertFalse(checkpoint.compactIfNeeded(1, () -> fail("snapshot taken without compacting")));
+            assertTrue(Files.size(file) < before / 100);
+            checkpoint.recordStatus(pending("job-2"));
+        }
+
+        try (var checkpoint = StateCheckpoint.open(file)) {
+            var restored = checkpoint.restored();
+            assertEquals(pending("job-1"), restored.statuses().get("job-1"));
+            assertEquals(pending("job-2"), restored.statuses().get("job-2"));
+            assertEquals(Set.of("job-0"), restored.terminalJobIds());
+            assertEquals("e:9", restored.resumeToken());
+        }
+    }
+}
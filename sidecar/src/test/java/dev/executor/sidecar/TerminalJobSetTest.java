@@ -0,0 +1,67 @@
+package dev.executor.sidecar;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class TerminalJobSetTest {
+
+    @Test
+    void holdsUuidsAcrossGrowth() {
+        var set = new TerminalJobSet();
+        var ids = new ArrayList<String>();
+        for (int i = 0; i < 5000; i++) {
+            ids.add(UUID.randomUUID().toString());
+        }
+
+        ids.forEach(id -> assertTrue(set.add(id)));
+
+        assertFalse(set.add(ids.get(0)));
+        assertEquals(5000, set.size());
+        ids.forEach(id -> assertTrue(set.contains(id)));
+        assertFalse(set.contains(UUID.randomUUID().toString()));
+        assertEquals(new HashSet<>(ids), new HashSet<>(set.toList()));
+    }
+
+    @Test
+    void idsThatAreNotUuidsAreKeptToo() {
+        var set = new TerminalJobSet();
+        var upper = UUID.randomUUID().toString().toUpperCase();
+
+        set.add("job-1");
+        set.add(upper);
+
+        assertTrue(set.contains("job-1"));
+        assertTrue(set.contains(upper));
+        assertFalse(set.contains(upper.toLowerCase()));
+        assertTrue(set.toList().contains(upper));
+    }
+
+    @Test
+    void sweepDropsIdsNotMarkedSinceTheLastSweep() {
+        var set = new TerminalJobSet();
+        var kept = UUID.randomUUID().toString();
+        var dropped = UUID.randomUUID().toString();
+        set.add(kept);
+        set.add(dropped);
+        set.add("job-1");
+        set.sweep();
+
+        assertTrue(set.mark(kept));
+        assertFalse(set.mark(UUID.randomUUID().toString()));
+        var late = UUID.randomUUID().toString();
+        set.add(late);
+
+        assertEquals(2, set.sweep());
+        assertTrue(set.contains(kept));
+        assertTrue(set.contains(late), "added after the listing, so not yet evictable");
+        assertFalse(set.contains(dropped));
+        assertFalse(set.contains("job-1"));
+
+        assertEquals(2, set.sweep());
+        assertEquals(0, set.size());
+    }
+}